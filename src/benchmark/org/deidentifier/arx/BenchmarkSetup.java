@@ -0,0 +1,321 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2020 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.deidentifier.arx.AttributeType.Hierarchy;
+import org.deidentifier.arx.AttributeType.Hierarchy.DefaultHierarchy;
+import org.deidentifier.arx.framework.check.Transformer;
+import org.deidentifier.arx.framework.check.distribution.DistributionAggregateFunction;
+import org.deidentifier.arx.framework.check.distribution.IntArrayDictionary;
+import org.deidentifier.arx.framework.check.groupify.HashGroupify;
+import org.deidentifier.arx.framework.check.history.History;
+import org.deidentifier.arx.framework.check.history.History.StorageStrategy;
+import org.deidentifier.arx.framework.data.DataManager;
+import org.deidentifier.arx.framework.lattice.SolutionSpace;
+import org.deidentifier.arx.framework.lattice.Transformation;
+import org.deidentifier.arx.io.CSVDataInput;
+import org.deidentifier.arx.metric.Metric;
+
+/**
+ * Prepares the internal data structures of the framework for micro-benchmarks. Data is
+ * encoded and the quality model is initialized in the same way as by the anonymizer.
+ * 
+ * @author Fabian Prasser
+ */
+public class BenchmarkSetup {
+
+    /** Directory containing the bundled data sets */
+    public static final String             DATA_DIRECTORY = System.getProperty("arx.benchmark.data", "data");
+
+    /** Size of the domain of each attribute of synthetic data */
+    private static final int               SYNTHETIC_DOMAIN_SIZE = 64;
+
+    /** The configuration */
+    private final ARXConfiguration         config;
+
+    /** The data manager */
+    private final DataManager              manager;
+
+    /** The solution space */
+    private final SolutionSpace<?>         solutionSpace;
+
+    /** Dictionary shared by the transformer and the history */
+    private final IntArrayDictionary       dictionarySensValue;
+
+    /** Dictionary shared by the transformer and the history */
+    private final IntArrayDictionary       dictionarySensFreq;
+
+    /**
+     * Encodes the given data and initializes the quality model of the given configuration
+     * 
+     * @param data
+     * @param config
+     */
+    public BenchmarkSetup(Data data, ARXConfiguration config) {
+
+        // Encode
+        DataHandleInput handle = (DataHandleInput) data.getHandle();
+        DataDefinition definition = handle.getDefinition();
+        definition.materializeHierarchies(handle);
+        handle.getRegistry().reset();
+        Map<String, DistributionAggregateFunction> functions = new HashMap<String, DistributionAggregateFunction>();
+        for (String key : definition.getQuasiIdentifiersWithMicroaggregation()) {
+            functions.put(key, definition.getMicroAggregationFunction(key).getFunction());
+        }
+        this.config = config;
+        this.manager = new DataManager(handle.header, handle.data, handle.dictionary, definition, functions, config);
+
+        // Initialize
+        config.initialize(manager);
+        this.solutionSpace = SolutionSpace.create(manager.getHierarchiesMinLevels(), manager.getHierarchiesMaxLevels());
+        config.getQualityModel().initialize(manager, definition, manager.getDataGeneralized(), manager.getHierarchies(), config);
+        int initialSize = (int) (manager.getDataGeneralized().getDataLength() * 0.01d);
+        this.dictionarySensValue = new IntArrayDictionary(initialSize);
+        this.dictionarySensFreq = new IntArrayDictionary(initialSize);
+    }
+
+    /**
+     * Loads a bundled data set with its generalization hierarchies. Records are repeated
+     * the given number of times to obtain scaled-up variants.
+     * 
+     * @param dataset Name of the data set, e.g. "adult"
+     * @param scale
+     * @return
+     * @throws IOException
+     */
+    public static Data getData(final String dataset, int scale) throws IOException {
+
+        // Load and repeat records
+        List<String[]> records = getRecords(dataset, scale);
+        Data data = Data.create(records);
+
+        // Load hierarchies
+        File directory = new File(DATA_DIRECTORY);
+        final String prefix = dataset + "_hierarchy_";
+        File[] files = directory.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.startsWith(prefix) && name.endsWith(".csv");
+            }
+        });
+        for (File file : files) {
+            String attribute = file.getName().substring(prefix.length(), file.getName().length() - 4);
+            data.getDefinition().setAttributeType(attribute, Hierarchy.create(file, StandardCharsets.UTF_8, ';'));
+        }
+        return data;
+    }
+
+    /**
+     * Writes a bundled data set, with records repeated the given number of times, to a
+     * temporary file
+     * 
+     * @param dataset
+     * @param scale
+     * @return
+     * @throws IOException
+     */
+    public static File getFile(String dataset, int scale) throws IOException {
+        File file = File.createTempFile("arx", ".csv");
+        file.deleteOnExit();
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            for (String[] record : getRecords(dataset, scale)) {
+                for (int i = 0; i < record.length; i++) {
+                    writer.write(record[i]);
+                    writer.write(i < record.length - 1 ? ';' : '\n');
+                }
+            }
+        }
+        return file;
+    }
+
+    /**
+     * Returns the records of a bundled data set, including the header, with records 
+     * repeated the given number of times
+     * 
+     * @param dataset
+     * @param scale
+     * @return
+     * @throws IOException
+     */
+    public static List<String[]> getRecords(String dataset, int scale) throws IOException {
+        if (scale <= 0) {
+            throw new IllegalArgumentException("Parameter must be > 0");
+        }
+        List<String[]> records = new ArrayList<String[]>();
+        CSVDataInput input = new CSVDataInput(new File(DATA_DIRECTORY, dataset + ".csv"), StandardCharsets.UTF_8, ';');
+        Iterator<String[]> iterator = input.iterator();
+        while (iterator.hasNext()) {
+            records.add(iterator.next());
+        }
+        input.close();
+        int size = records.size();
+        for (int i = 1; i < scale; i++) {
+            records.addAll(records.subList(1, size));
+        }
+        return records;
+    }
+
+    /**
+     * Creates a synthetic data set with the given number of quasi-identifiers. Values are
+     * drawn uniformly at random and generalized with hierarchies of height three.
+     * 
+     * @param rows
+     * @param columns
+     * @param seed
+     * @return
+     */
+    public static Data getSyntheticData(int rows, int columns, long seed) {
+
+        // Records
+        Random random = new Random(seed);
+        List<String[]> records = new ArrayList<String[]>();
+        String[] header = new String[columns];
+        for (int column = 0; column < columns; column++) {
+            header[column] = "attribute" + column;
+        }
+        records.add(header);
+        for (int row = 0; row < rows; row++) {
+            String[] record = new String[columns];
+            for (int column = 0; column < columns; column++) {
+                record[column] = String.valueOf(random.nextInt(SYNTHETIC_DOMAIN_SIZE));
+            }
+            records.add(record);
+        }
+        Data data = Data.create(records);
+
+        // Hierarchies
+        for (int column = 0; column < columns; column++) {
+            DefaultHierarchy hierarchy = Hierarchy.create();
+            for (int value = 0; value < SYNTHETIC_DOMAIN_SIZE; value++) {
+                hierarchy.add(String.valueOf(value), (value / 8) + "*", "*");
+            }
+            data.getDefinition().setAttributeType(header[column], hierarchy);
+        }
+        return data;
+    }
+
+    /**
+     * Returns a new groupify operator for the buffer of the given transformer
+     * 
+     * @param transformer
+     * @return
+     */
+    public HashGroupify createGroupify(Transformer transformer) {
+        return new HashGroupify((int) (manager.getDataGeneralized().getDataLength() * 0.01d),
+                                config.getInternalConfiguration(),
+                                manager.getAggregationInformation().getHotThreshold(),
+                                manager.getDataGeneralized().getArray(),
+                                transformer.getBuffer(),
+                                manager.getDataAnalyzed().getArray(),
+                                manager.getDataGeneralized().getDictionary().getSuppressedCodes());
+    }
+
+    /**
+     * Returns a new history, which stores snapshots of all transformations
+     * 
+     * @param size
+     * @return
+     */
+    public History createHistory(int size) {
+        History history = new History(manager.getDataGeneralized().getArray().getNumRows(),
+                                      size,
+                                      1d,
+                                      1d,
+                                      config.getInternalConfiguration(),
+                                      dictionarySensValue,
+                                      dictionarySensFreq,
+                                      solutionSpace);
+        history.setStorageStrategy(StorageStrategy.ALL);
+        return history;
+    }
+
+    /**
+     * Returns a new transformer
+     * 
+     * @param numThreads
+     * @return
+     */
+    public Transformer createTransformer(int numThreads) {
+        return new Transformer(manager.getDataGeneralized().getArray(),
+                               manager.getDataAnalyzed().getArray(),
+                               manager.getAggregationInformation().getHotThreshold(),
+                               manager.getHierarchies(),
+                               config.getInternalConfiguration(),
+                               numThreads,
+                               dictionarySensValue,
+                               dictionarySensFreq);
+    }
+
+    /**
+     * Returns the data manager
+     * 
+     * @return
+     */
+    public DataManager getManager() {
+        return manager;
+    }
+
+    /**
+     * Returns the initialized quality model
+     * 
+     * @return
+     */
+    public Metric<?> getMetric() {
+        return config.getQualityModel();
+    }
+
+    /**
+     * Returns the solution space
+     * 
+     * @return
+     */
+    public SolutionSpace<?> getSolutionSpace() {
+        return solutionSpace;
+    }
+
+    /**
+     * Returns the transformation which generalizes each attribute to the given fraction
+     * of the height of its hierarchy
+     * 
+     * @param fraction
+     * @return
+     */
+    public Transformation<?> getTransformation(double fraction) {
+        int[] min = manager.getHierarchiesMinLevels();
+        int[] max = manager.getHierarchiesMaxLevels();
+        int[] generalization = new int[min.length];
+        for (int i = 0; i < generalization.length; i++) {
+            generalization[i] = (int) Math.round(min[i] + fraction * (max[i] - min[i]));
+        }
+        return solutionSpace.getTransformation(generalization);
+    }
+}
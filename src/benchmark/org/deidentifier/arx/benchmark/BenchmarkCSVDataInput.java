@@ -0,0 +1,90 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2020 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.deidentifier.arx.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import org.deidentifier.arx.BenchmarkSetup;
+import org.deidentifier.arx.io.CSVDataInput;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks parsing CSV files.
+ * 
+ * @author Fabian Prasser
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Thread)
+public class BenchmarkCSVDataInput {
+
+    /** Bundled data set */
+    @Param({ "adult", "test2" })
+    public String dataset;
+
+    /** Number of times each record is repeated */
+    @Param({ "1", "10" })
+    public int    scale;
+
+    /** The file */
+    private File  file;
+
+    /**
+     * Writes the data to a temporary file
+     * 
+     * @throws IOException
+     */
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        this.file = BenchmarkSetup.getFile(dataset, scale);
+    }
+
+    /**
+     * CSVDataInput.iterator
+     * 
+     * @param blackhole
+     * @throws IOException
+     */
+    @Benchmark
+    public void parse(Blackhole blackhole) throws IOException {
+        CSVDataInput input = new CSVDataInput(file, StandardCharsets.UTF_8, ';');
+        Iterator<String[]> iterator = input.iterator();
+        while (iterator.hasNext()) {
+            blackhole.consume(iterator.next());
+        }
+        input.close();
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2020 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.deidentifier.arx.benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.deidentifier.arx.BenchmarkSetup;
+import org.deidentifier.arx.framework.data.Dictionary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks encoding all values of a data set with a dictionary.
+ * 
+ * @author Fabian Prasser
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Thread)
+public class BenchmarkDictionary {
+
+    /** Bundled data set */
+    @Param({ "adult", "test2" })
+    public String          dataset;
+
+    /** Number of times each record is repeated */
+    @Param({ "1", "10" })
+    public int             scale;
+
+    /** Records, without header */
+    private List<String[]> records;
+
+    /** Number of columns */
+    private int            columns;
+
+    /**
+     * Loads the data
+     * 
+     * @throws IOException
+     */
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        List<String[]> records = BenchmarkSetup.getRecords(dataset, scale);
+        this.columns = records.get(0).length;
+        this.records = records.subList(1, records.size());
+    }
+
+    /**
+     * Dictionary.register
+     * 
+     * @return
+     */
+    @Benchmark
+    public Dictionary register() {
+        Dictionary dictionary = new Dictionary(columns);
+        for (String[] record : records) {
+            for (int column = 0; column < columns; column++) {
+                dictionary.register(column, record[column]);
+            }
+        }
+        return dictionary;
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2020 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.deidentifier.arx.benchmark;
+
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.concurrent.TimeUnit;
+
+import org.deidentifier.arx.ARXConfiguration;
+import org.deidentifier.arx.BenchmarkSetup;
+import org.deidentifier.arx.criteria.KAnonymity;
+import org.deidentifier.arx.framework.check.Transformer;
+import org.deidentifier.arx.framework.check.groupify.HashGroupify;
+import org.deidentifier.arx.framework.lattice.Transformation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks grouping transformed records and analyzing the resulting classes.
+ * 
+ * @author Fabian Prasser
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Thread)
+public class BenchmarkHashGroupify {
+
+    /**
+     * Groups the output buffer before each invocation
+     * 
+     * @author Fabian Prasser
+     */
+    @State(Scope.Thread)
+    public static class Grouped {
+
+        /**
+         * Groups all records
+         * 
+         * @param benchmark
+         */
+        @Setup(Level.Invocation)
+        public void setup(BenchmarkHashGroupify benchmark) {
+            benchmark.group();
+        }
+    }
+
+    /** Bundled data set */
+    @Param({ "adult", "test2" })
+    public String               dataset;
+
+    /** Number of times each record is repeated */
+    @Param({ "1", "10" })
+    public int                  scale;
+
+    /** Relative generalization level */
+    @Param({ "0.0", "0.5" })
+    public double               level;
+
+    /** The groupify operator */
+    private HashGroupify        groupify;
+
+    /** The transformation */
+    private Transformation<?>   transformation;
+
+    /** Number of records */
+    private int                 rows;
+
+    /**
+     * Transforms the data once, such that the output buffer can be grouped repeatedly
+     * 
+     * @throws IOException
+     */
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        ARXConfiguration config = ARXConfiguration.create();
+        config.addPrivacyModel(new KAnonymity(5));
+        config.setSuppressionLimit(1d);
+        BenchmarkSetup setup = new BenchmarkSetup(BenchmarkSetup.getData(dataset, scale), config);
+        Transformer transformer = setup.createTransformer(1);
+        this.groupify = setup.createGroupify(transformer);
+        this.transformation = setup.getTransformation(level);
+        this.rows = setup.getManager().getDataGeneralized().getArray().getNumRows();
+        transformer.apply(new BitSet(), transformation.getGeneralization(), groupify);
+    }
+
+    /**
+     * HashGroupify.addFromBuffer
+     * 
+     * @return
+     */
+    @Benchmark
+    public HashGroupify addFromBuffer() {
+        group();
+        return groupify;
+    }
+
+    /**
+     * HashGroupify.stateAnalyze
+     * 
+     * @param grouped
+     * @return
+     */
+    @Benchmark
+    public boolean stateAnalyze(Grouped grouped) {
+        groupify.stateAnalyze(transformation, true);
+        return groupify.isPrivacyModelFulfilled();
+    }
+
+    /**
+     * Groups all records of the output buffer
+     */
+    private void group() {
+        groupify.stateClear();
+        for (int row = 0; row < rows; row++) {
+            groupify.addFromBuffer(row, -1, row, 1, -1);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2020 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.deidentifier.arx.benchmark;
+
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.concurrent.TimeUnit;
+
+import org.deidentifier.arx.ARXConfiguration;
+import org.deidentifier.arx.BenchmarkSetup;
+import org.deidentifier.arx.criteria.KAnonymity;
+import org.deidentifier.arx.framework.check.Transformer;
+import org.deidentifier.arx.framework.check.groupify.HashGroupify;
+import org.deidentifier.arx.framework.check.history.History;
+import org.deidentifier.arx.framework.lattice.SolutionSpace;
+import org.deidentifier.arx.framework.lattice.Transformation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks storing snapshots in the history and retrieving them.
+ * 
+ * @author Fabian Prasser
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Thread)
+public class BenchmarkHistory {
+
+    /**
+     * Provides an empty history before each invocation
+     * 
+     * @author Fabian Prasser
+     */
+    @State(Scope.Thread)
+    public static class Empty {
+
+        /**
+         * Clears the history
+         * 
+         * @param benchmark
+         */
+        @Setup(Level.Invocation)
+        public void setup(BenchmarkHistory benchmark) {
+            benchmark.empty.reset();
+        }
+    }
+
+    /** Bundled data set */
+    @Param({ "adult", "test2" })
+    public String             dataset;
+
+    /** Number of times each record is repeated */
+    @Param({ "1", "10" })
+    public int                scale;
+
+    /** Maximal number of snapshots */
+    @Param({ "200" })
+    public int                size;
+
+    /** History containing snapshots */
+    private History           full;
+
+    /** History which is cleared before storing */
+    private History           empty;
+
+    /** Classes of the stored transformation */
+    private HashGroupify      groupify;
+
+    /** The stored transformation */
+    private Transformation<?> stored;
+
+    /** The retrieved transformation */
+    private Transformation<?> retrieved;
+
+    /**
+     * Fills the history with snapshots of the most specialized transformations
+     * 
+     * @throws IOException
+     */
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+
+        // Prepare
+        ARXConfiguration config = ARXConfiguration.create();
+        config.addPrivacyModel(new KAnonymity(5));
+        config.setSuppressionLimit(1d);
+        BenchmarkSetup setup = new BenchmarkSetup(BenchmarkSetup.getData(dataset, scale), config);
+        SolutionSpace<?> solutionSpace = setup.getSolutionSpace();
+        Transformer transformer = setup.createTransformer(1);
+        this.groupify = setup.createGroupify(transformer);
+        this.full = setup.createHistory(size);
+        this.empty = setup.createHistory(size);
+        this.stored = setup.getTransformation(0.5d);
+        this.retrieved = solutionSpace.getTop();
+
+        // Store snapshots, level by level
+        int count = 0;
+        int[] min = setup.getManager().getHierarchiesMinLevels();
+        int[] max = setup.getManager().getHierarchiesMaxLevels();
+        for (int level = 0; count < size && level < retrieved.getLevel(); level++) {
+            int[] generalization = min.clone();
+            do {
+                Transformation<?> transformation = solutionSpace.getTransformation(generalization);
+                if (count < size && transformation.getLevel() == level) {
+                    transformer.apply(new BitSet(), generalization, groupify);
+                    groupify.stateAnalyze(transformation, true);
+                    if (full.store(transformation, groupify, null)) {
+                        count++;
+                    }
+                }
+            } while (next(generalization, min, max));
+        }
+
+        // Prepare groupify for storing
+        transformer.apply(new BitSet(), stored.getGeneralization(), groupify);
+        groupify.stateAnalyze(stored, true);
+    }
+
+    /**
+     * History.get
+     * 
+     * @return
+     */
+    @Benchmark
+    public int[] get() {
+        return full.get(retrieved.getGeneralization());
+    }
+
+    /**
+     * History.store
+     * 
+     * @param state
+     * @return
+     */
+    @Benchmark
+    public boolean store(Empty state) {
+        return empty.store(stored, groupify, null);
+    }
+
+    /**
+     * Enumerates generalization vectors
+     * 
+     * @param generalization
+     * @param min
+     * @param max
+     * @return whether there is a next vector
+     */
+    private boolean next(int[] generalization, int[] min, int[] max) {
+        for (int i = 0; i < generalization.length; i++) {
+            if (generalization[i] < max[i]) {
+                generalization[i]++;
+                return true;
+            }
+            generalization[i] = min[i];
+        }
+        return false;
+    }
+}
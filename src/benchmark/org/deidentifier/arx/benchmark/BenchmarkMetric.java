@@ -0,0 +1,140 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2020 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.deidentifier.arx.benchmark;
+
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.concurrent.TimeUnit;
+
+import org.deidentifier.arx.ARXConfiguration;
+import org.deidentifier.arx.BenchmarkSetup;
+import org.deidentifier.arx.criteria.KAnonymity;
+import org.deidentifier.arx.framework.check.Transformer;
+import org.deidentifier.arx.framework.check.groupify.HashGroupify;
+import org.deidentifier.arx.framework.lattice.Transformation;
+import org.deidentifier.arx.metric.InformationLossWithBound;
+import org.deidentifier.arx.metric.Metric;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks evaluating the main quality models for a transformation.
+ * 
+ * @author Fabian Prasser
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Thread)
+public class BenchmarkMetric {
+
+    /** Bundled data set */
+    @Param({ "adult", "test2" })
+    public String             dataset;
+
+    /** Number of times each record is repeated */
+    @Param({ "1", "10" })
+    public int                scale;
+
+    /** Quality model */
+    @Param({ "LOSS", "ENTROPY", "PRECOMPUTED_ENTROPY", "NORMALIZED_ENTROPY", "HEIGHT", "PRECISION", "AECS", "DISCERNABILITY", "AMBIGUITY", "KL_DIVERGENCE" })
+    public String             metric;
+
+    /** The quality model */
+    private Metric<?>         model;
+
+    /** The groupify operator */
+    private HashGroupify      groupify;
+
+    /** The transformation */
+    private Transformation<?> transformation;
+
+    /**
+     * Transforms and analyzes the data
+     * 
+     * @throws IOException
+     */
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        ARXConfiguration config = ARXConfiguration.create();
+        config.addPrivacyModel(new KAnonymity(5));
+        config.setSuppressionLimit(1d);
+        config.setQualityModel(getMetric(metric));
+        BenchmarkSetup setup = new BenchmarkSetup(BenchmarkSetup.getData(dataset, scale), config);
+        Transformer transformer = setup.createTransformer(1);
+        this.model = setup.getMetric();
+        this.groupify = setup.createGroupify(transformer);
+        this.transformation = setup.getTransformation(0.5d);
+        transformer.apply(new BitSet(), transformation.getGeneralization(), groupify);
+        groupify.stateAnalyze(transformation, true);
+    }
+
+    /**
+     * Metric.getInformationLoss
+     * 
+     * @return
+     */
+    @Benchmark
+    public InformationLossWithBound<?> getInformationLoss() {
+        return model.getInformationLoss(transformation, groupify);
+    }
+
+    /**
+     * Returns the quality model with the given name
+     * 
+     * @param name
+     * @return
+     */
+    private Metric<?> getMetric(String name) {
+        switch (name) {
+        case "LOSS":
+            return Metric.createLossMetric();
+        case "ENTROPY":
+            return Metric.createEntropyMetric();
+        case "PRECOMPUTED_ENTROPY":
+            return Metric.createPrecomputedEntropyMetric(0.1d);
+        case "NORMALIZED_ENTROPY":
+            return Metric.createNormalizedEntropyMetric();
+        case "HEIGHT":
+            return Metric.createHeightMetric();
+        case "PRECISION":
+            return Metric.createPrecisionMetric();
+        case "AECS":
+            return Metric.createAECSMetric();
+        case "DISCERNABILITY":
+            return Metric.createDiscernabilityMetric();
+        case "AMBIGUITY":
+            return Metric.createAmbiguityMetric();
+        case "KL_DIVERGENCE":
+            return Metric.createKLDivergenceMetric();
+        default:
+            throw new IllegalArgumentException("Unknown quality model: " + name);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2020 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.deidentifier.arx.benchmark;
+
+import java.util.BitSet;
+import java.util.concurrent.TimeUnit;
+
+import org.deidentifier.arx.ARXConfiguration;
+import org.deidentifier.arx.BenchmarkSetup;
+import org.deidentifier.arx.criteria.KAnonymity;
+import org.deidentifier.arx.framework.check.Transformer;
+import org.deidentifier.arx.framework.check.groupify.HashGroupify;
+import org.deidentifier.arx.framework.check.history.History;
+import org.deidentifier.arx.framework.lattice.Transformation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the transformers for all numbers of quasi-identifiers. Transformer01 to
+ * Transformer15 are used for up to 15 attributes, TransformerAll for more. Each transformer
+ * is benchmarked when transforming all records (processAll), when rolling up the classes of
+ * a more specialized transformation (processGroupify) and when transforming a snapshot
+ * from the history (processSnapshot). Data is synthetic.
+ * 
+ * @author Fabian Prasser
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Thread)
+public class BenchmarkTransformer {
+
+    /** Number of quasi-identifiers */
+    @Param({ "1", "2", "3", "4", "5", "6", "7", "8", "9", "10", "11", "12", "13", "14", "15", "16" })
+    public int                columns;
+
+    /** Number of records */
+    @Param({ "100000", "1000000" })
+    public int                rows;
+
+    /** Number of threads used for processAll */
+    @Param({ "1" })
+    public int                threads;
+
+    /** The transformer */
+    private Transformer       transformer;
+
+    /** Classes of the bottom transformation */
+    private HashGroupify      source;
+
+    /** The target */
+    private HashGroupify      target;
+
+    /** Snapshot of the bottom transformation */
+    private int[]             snapshot;
+
+    /** The transformation */
+    private Transformation<?> transformation;
+
+    /**
+     * Prepares the classes and the snapshot of the bottom transformation
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+
+        // Prepare
+        ARXConfiguration config = ARXConfiguration.create();
+        config.addPrivacyModel(new KAnonymity(5));
+        config.setSuppressionLimit(1d);
+        BenchmarkSetup setup = new BenchmarkSetup(BenchmarkSetup.getSyntheticData(rows, columns, 0xDEADBEEF), config);
+        this.transformer = setup.createTransformer(threads);
+        this.source = setup.createGroupify(transformer);
+        this.target = setup.createGroupify(transformer);
+        this.transformation = setup.getTransformation(0.5d);
+
+        // Classes and snapshot of the bottom transformation
+        Transformation<?> bottom = setup.getSolutionSpace().getBottom();
+        transformer.apply(new BitSet(), bottom.getGeneralization(), source);
+        source.stateAnalyze(bottom, true);
+        History history = setup.createHistory(1);
+        history.store(bottom, source, null);
+        this.snapshot = history.get(transformation.getGeneralization());
+    }
+
+    /**
+     * Releases threads
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        transformer.shutdown();
+    }
+
+    /**
+     * TransformerNN.processAll
+     * 
+     * @return
+     */
+    @Benchmark
+    public HashGroupify processAll() {
+        return transformer.apply(new BitSet(), transformation.getGeneralization(), target);
+    }
+
+    /**
+     * TransformerNN.processGroupify
+     * 
+     * @return
+     */
+    @Benchmark
+    public HashGroupify processGroupify() {
+        return transformer.applyRollup(new BitSet(), transformation.getGeneralization(), source, target);
+    }
+
+    /**
+     * TransformerNN.processSnapshot
+     * 
+     * @return
+     */
+    @Benchmark
+    public HashGroupify processSnapshot() {
+        return transformer.applySnapshot(new BitSet(), transformation.getGeneralization(), target, snapshot);
+    }
+}
@@ -17,6 +17,7 @@
 
 package org.deidentifier.arx;
 
+import java.io.File;
 import java.io.IOException;
 import java.math.BigInteger;
 import java.util.HashMap;
@@ -153,6 +154,15 @@ public class ARXAnonymizer { // NO_UCD
     /** History size. */
     private int         historySize          = 200;
 
+    /** Maximal number of bytes occupied by snapshots in memory. */
+    private long        historyMemoryLimit   = Runtime.getRuntime().maxMemory() / 10;
+
+    /** Maximal size of the file for snapshots evicted from memory, 0 if disabled. */
+    private long        historySpillLimit    = 0L;
+
+    /** Directory of the file for snapshots evicted from memory, null for the default. */
+    private File        historySpillDirectory = null;
+
     /** The listener, if any. */
     private ARXListener listener             = null;
 
@@ -235,6 +245,33 @@ public class ARXAnonymizer { // NO_UCD
         return historySize;
     }
     
+    /**
+     * Returns the maximal number of bytes occupied by snapshots in memory.
+     * 
+     * @return The limit
+     */
+    public long getHistoryMemoryLimit() {
+        return historyMemoryLimit;
+    }
+
+    /**
+     * Returns the directory of the file for snapshots evicted from memory, null for the default temporary directory.
+     * 
+     * @return The directory
+     */
+    public File getHistorySpillDirectory() {
+        return historySpillDirectory;
+    }
+
+    /**
+     * Returns the maximal size of the file for snapshots evicted from memory, 0 if disabled.
+     * 
+     * @return The limit
+     */
+    public long getHistorySpillLimit() {
+        return historySpillLimit;
+    }
+
     /**
      * Gets the snapshot size.
      * 
@@ -262,6 +299,31 @@ public class ARXAnonymizer { // NO_UCD
         return maxQuasiIdentifiers;
     }
 
+    /**
+     * Sets the maximal number of bytes occupied by snapshots in memory. The limit applies to the history
+     * of each thread checking transformations. Snapshots are evicted by their size and by the number of
+     * records which are saved when using them.
+     * 
+     * @param historyMemoryLimit The limit in bytes
+     */
+    public void setHistoryMemoryLimit(final long historyMemoryLimit) {
+        if (historyMemoryLimit <= 0) { throw new IllegalArgumentException("Memory limit must be > 0"); }
+        this.historyMemoryLimit = historyMemoryLimit;
+    }
+
+    /**
+     * Enables moving snapshots, which are evicted from memory, to a temporary memory-mapped file.
+     * Each thread checking transformations uses its own file, which is deleted when the process has finished.
+     * 
+     * @param historySpillDirectory The directory, null for the default temporary directory
+     * @param historySpillLimit The maximal size of the file in bytes, 0 to disable spilling [default=0]
+     */
+    public void setHistorySpill(final File historySpillDirectory, final long historySpillLimit) {
+        if (historySpillLimit < 0) { throw new IllegalArgumentException("Spill limit must be positive or 0"); }
+        this.historySpillDirectory = historySpillDirectory;
+        this.historySpillLimit = historySpillLimit;
+    }
+
     /**
      * Sets the maximum number of snapshots allowed to store in the history.
      * 
@@ -762,6 +824,8 @@ public class ARXAnonymizer { // NO_UCD
                                                                         snapshotSizeDataset,
                                                                         snapshotSizeSnapshot,
                                                                         solutionSpace);
+        checker.getHistory().setMemoryLimit(historyMemoryLimit);
+        checker.getHistory().setSpill(historySpillDirectory, historySpillLimit);
 
         // Create an algorithm instance
         AbstractAlgorithm algorithm = getAlgorithm(config,
@@ -0,0 +1,294 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2020 Fabian Prasser and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counters and latency histograms for the individual phases of checking transformations.
+ * Statistics are only recorded if instrumentation has been enabled in the configuration.
+ * Latencies are measured in nanoseconds. Histograms consist of 64 buckets, where bucket
+ * <code>i</code> counts latencies in <code>[2^i, 2^(i+1))</code>. Instances are thread-safe.
+ * 
+ * @author Fabian Prasser
+ */
+public class ARXCheckStatistics implements Serializable {
+
+    /**
+     * Events which are counted
+     * 
+     * @author Fabian Prasser
+     */
+    public static enum Counter {
+        /** Checks answered with a result which was already known */
+        CACHED_RESULTS,
+        /** Lookups in the history which returned a snapshot */
+        SNAPSHOT_HITS,
+        /** Lookups in the history which did not return a snapshot */
+        SNAPSHOT_MISSES,
+        /** Snapshots stored in the history */
+        SNAPSHOTS_STORED,
+        /** Snapshots removed from the history to free space */
+        SNAPSHOTS_EVICTED,
+        /** Snapshots moved from memory to the spill file */
+        SNAPSHOTS_SPILLED,
+        /** Lookups in the history which returned a snapshot from the spill file */
+        SNAPSHOT_SPILL_HITS,
+        /** Hash tables of groupify operators which have been resized */
+        GROUPIFY_REHASHES
+    }
+
+    /**
+     * Phases which are timed
+     * 
+     * @author Fabian Prasser
+     */
+    public static enum Phase {
+        /** Complete check of a transformation */
+        CHECK,
+        /** Storing snapshots in the history */
+        HISTORY,
+        /** Determining the transition, including snapshot lookups */
+        TRANSITION,
+        /** Transforming all records */
+        TRANSFORM_UNOPTIMIZED,
+        /** Rolling up the previous result */
+        TRANSFORM_ROLLUP,
+        /** Transforming a snapshot */
+        TRANSFORM_SNAPSHOT,
+        /** Evaluating privacy models */
+        PRIVACY_MODEL,
+        /** Evaluating the quality model */
+        QUALITY_MODEL
+    }
+
+    /** SVUID */
+    private static final long                  serialVersionUID = 6424585071569380633L;
+
+    /** Number of buckets per histogram */
+    public static final int                    BUCKETS          = 64;
+
+    /** Counter -> value */
+    private final AtomicLongArray              counters;
+
+    /** Phase -> number of measurements */
+    private final AtomicLongArray              counts;
+
+    /** Phase -> total time */
+    private final AtomicLongArray              times;
+
+    /** Phase * buckets + bucket -> number of measurements */
+    private final AtomicLongArray              histograms;
+
+    /** Parent to which all records are forwarded, if any */
+    private final transient ARXCheckStatistics parent;
+
+    /**
+     * Creates a new instance
+     */
+    public ARXCheckStatistics() {
+        this(null);
+    }
+
+    /**
+     * Creates a new instance, which forwards all records to the given parent, if any
+     * @param parent
+     */
+    public ARXCheckStatistics(ARXCheckStatistics parent) {
+        this.parent = parent;
+        this.counters = new AtomicLongArray(Counter.values().length);
+        this.counts = new AtomicLongArray(Phase.values().length);
+        this.times = new AtomicLongArray(Phase.values().length);
+        this.histograms = new AtomicLongArray(Phase.values().length * BUCKETS);
+    }
+
+    /**
+     * Increments the given counter
+     * @param counter
+     * @param delta
+     */
+    public void add(Counter counter, long delta) {
+        if (delta != 0) {
+            counters.addAndGet(counter.ordinal(), delta);
+            if (parent != null) {
+                parent.add(counter, delta);
+            }
+        }
+    }
+
+    /**
+     * Records a measurement for the given phase
+     * @param phase
+     * @param nanos
+     */
+    public void add(Phase phase, long nanos) {
+        nanos = Math.max(nanos, 0L);
+        counts.incrementAndGet(phase.ordinal());
+        times.addAndGet(phase.ordinal(), nanos);
+        histograms.incrementAndGet(phase.ordinal() * BUCKETS + getBucket(nanos));
+        if (parent != null) {
+            parent.add(phase, nanos);
+        }
+    }
+
+    /**
+     * Returns the average time in nanoseconds spent in the given phase, 0 if there are no measurements
+     * @param phase
+     * @return
+     */
+    public double getAverageTime(Phase phase) {
+        long count = getCount(phase);
+        return count == 0 ? 0d : (double) getTime(phase) / (double) count;
+    }
+
+    /**
+     * Returns the number of measurements for the given phase
+     * @param phase
+     * @return
+     */
+    public long getCount(Phase phase) {
+        return counts.get(phase.ordinal());
+    }
+
+    /**
+     * Returns the value of the given counter
+     * @param counter
+     * @return
+     */
+    public long getCounter(Counter counter) {
+        return counters.get(counter.ordinal());
+    }
+
+    /**
+     * Returns the latency histogram for the given phase
+     * @param phase
+     * @return
+     */
+    public long[] getHistogram(Phase phase) {
+        long[] result = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            result[i] = histograms.get(phase.ordinal() * BUCKETS + i);
+        }
+        return result;
+    }
+
+    /**
+     * Returns an upper bound in nanoseconds for the given percentile of latencies of the
+     * given phase, 0 if there are no measurements
+     * @param phase
+     * @param percentile in [0, 1]
+     * @return
+     */
+    public long getPercentile(Phase phase, double percentile) {
+        if (percentile < 0d || percentile > 1d) {
+            throw new IllegalArgumentException("Parameter must be in [0, 1]");
+        }
+        long[] histogram = getHistogram(phase);
+        long total = 0;
+        for (long count : histogram) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0L;
+        }
+        long threshold = Math.max(1L, (long) Math.ceil(percentile * total));
+        long sum = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            sum += histogram[i];
+            if (sum >= threshold) {
+                return i == BUCKETS - 1 ? Long.MAX_VALUE : (1L << (i + 1)) - 1L;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * Returns the total time in nanoseconds spent in the given phase
+     * @param phase
+     * @return
+     */
+    public long getTime(Phase phase) {
+        return times.get(phase.ordinal());
+    }
+
+    /**
+     * Returns new statistics that are a merger of this and the other statistics
+     * @param statistics
+     * @return
+     */
+    public ARXCheckStatistics merge(ARXCheckStatistics statistics) {
+        ARXCheckStatistics result = new ARXCheckStatistics();
+        result.mergeInternal(this);
+        if (statistics != null) {
+            result.mergeInternal(statistics);
+        }
+        return result;
+    }
+
+    /**
+     * Resets all counters and histograms
+     */
+    public void reset() {
+        reset(counters);
+        reset(counts);
+        reset(times);
+        reset(histograms);
+    }
+
+    /**
+     * Returns the bucket for the given latency
+     * @param nanos
+     * @return
+     */
+    private int getBucket(long nanos) {
+        return nanos == 0L ? 0 : 63 - Long.numberOfLeadingZeros(nanos);
+    }
+
+    /**
+     * Adds the values of the other instance to this instance
+     * @param statistics
+     */
+    private void mergeInternal(ARXCheckStatistics statistics) {
+        merge(this.counters, statistics.counters);
+        merge(this.counts, statistics.counts);
+        merge(this.times, statistics.times);
+        merge(this.histograms, statistics.histograms);
+    }
+
+    /**
+     * Adds the values of the source to the target
+     * @param target
+     * @param source
+     */
+    private void merge(AtomicLongArray target, AtomicLongArray source) {
+        for (int i = 0; i < target.length(); i++) {
+            target.addAndGet(i, source.get(i));
+        }
+    }
+
+    /**
+     * Resets the array
+     * @param array
+     */
+    private void reset(AtomicLongArray array) {
+        for (int i = 0; i < array.length(); i++) {
+            array.set(i, 0L);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2020 Fabian Prasser and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.deidentifier.arx.ARXCheckStatistics.Counter;
+import org.deidentifier.arx.ARXCheckStatistics.Phase;
+
+/**
+ * Aggregates statistics about checks of transformations over all instrumented runs in this JVM
+ * and exposes them via JMX. Statistics are only aggregated while the monitor is registered.
+ * 
+ * @author Fabian Prasser
+ */
+public class ARXCheckStatisticsMonitor implements ARXCheckStatisticsMonitorMXBean {
+
+    /** The name under which the monitor is registered */
+    public static final String               NAME       = "org.deidentifier.arx:type=CheckStatistics";
+
+    /** The registered instance, if any */
+    private static ARXCheckStatisticsMonitor instance   = null;
+
+    /**
+     * Returns the aggregated statistics, if the monitor is registered, null otherwise
+     * @return
+     */
+    public static synchronized ARXCheckStatistics getStatistics() {
+        return instance == null ? null : instance.statistics;
+    }
+
+    /**
+     * Registers the monitor with the platform MBean server, if not already registered
+     * @return
+     */
+    public static synchronized ARXCheckStatisticsMonitor register() {
+        if (instance == null) {
+            ARXCheckStatisticsMonitor monitor = new ARXCheckStatisticsMonitor();
+            try {
+                MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                server.registerMBean(monitor, new ObjectName(NAME));
+            } catch (JMException e) {
+                throw new RuntimeException("Error while registering monitor", e);
+            }
+            instance = monitor;
+        }
+        return instance;
+    }
+
+    /**
+     * Unregisters the monitor from the platform MBean server, if registered
+     */
+    public static synchronized void unregister() {
+        if (instance != null) {
+            try {
+                MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                server.unregisterMBean(new ObjectName(NAME));
+            } catch (JMException e) {
+                throw new RuntimeException("Error while unregistering monitor", e);
+            }
+            instance = null;
+        }
+    }
+
+    /** The aggregated statistics */
+    private final ARXCheckStatistics statistics = new ARXCheckStatistics();
+
+    /**
+     * Creates a new instance
+     */
+    private ARXCheckStatisticsMonitor() {
+        // Empty by design
+    }
+
+    @Override
+    public Map<String, Long> getCounts() {
+        Map<String, Long> result = new LinkedHashMap<String, Long>();
+        for (Phase phase : Phase.values()) {
+            result.put(phase.name(), statistics.getCount(phase));
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getCounters() {
+        Map<String, Long> result = new LinkedHashMap<String, Long>();
+        for (Counter counter : Counter.values()) {
+            result.put(counter.name(), statistics.getCounter(counter));
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, long[]> getHistograms() {
+        Map<String, long[]> result = new LinkedHashMap<String, long[]>();
+        for (Phase phase : Phase.values()) {
+            result.put(phase.name(), statistics.getHistogram(phase));
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getTimes() {
+        Map<String, Long> result = new LinkedHashMap<String, Long>();
+        for (Phase phase : Phase.values()) {
+            result.put(phase.name(), statistics.getTime(phase));
+        }
+        return result;
+    }
+
+    @Override
+    public void reset() {
+        statistics.reset();
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2020 Fabian Prasser and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx;
+
+import java.util.Map;
+
+/**
+ * Management interface for statistics about checks of transformations, which have been
+ * recorded by all instrumented runs in this JVM.
+ * 
+ * @author Fabian Prasser
+ */
+public interface ARXCheckStatisticsMonitorMXBean {
+
+    /**
+     * Returns the number of measurements per phase
+     * @return
+     */
+    public Map<String, Long> getCounts();
+
+    /**
+     * Returns the values of all counters
+     * @return
+     */
+    public Map<String, Long> getCounters();
+
+    /**
+     * Returns the latency histograms per phase
+     * @return
+     */
+    public Map<String, long[]> getHistograms();
+
+    /**
+     * Returns the total time in nanoseconds per phase
+     * @return
+     */
+    public Map<String, Long> getTimes();
+
+    /**
+     * Resets all statistics
+     */
+    public void reset();
+}
@@ -72,6 +72,8 @@ public abstract class ARXClassificationConfiguration<T extends ARXClassification
     private long                seed                    = Integer.MAX_VALUE;
     /** Configuration */
     private int                 vectorLength            = DEFAULT_VECTOR_LENGTH;
+    /** Number of folds which are evaluated concurrently */
+    private Integer             numberOfThreads         = 1;
     /** Modified */
     private boolean             modified                = false;
 
@@ -91,11 +93,25 @@ public abstract class ARXClassificationConfiguration<T extends ARXClassification
      * @param vectorLength
      */
     protected ARXClassificationConfiguration(boolean deterministic, int maxRecords, int numberOfFolds, long seed, int vectorLength) {
+        this(deterministic, maxRecords, numberOfFolds, seed, vectorLength, 1);
+    }
+
+    /**
+     * Clone constructor
+     * @param deterministic
+     * @param maxRecords
+     * @param numberOfFolds
+     * @param seed
+     * @param vectorLength
+     * @param numberOfThreads
+     */
+    protected ARXClassificationConfiguration(boolean deterministic, int maxRecords, int numberOfFolds, long seed, int vectorLength, int numberOfThreads) {
         this.deterministic = deterministic;
         this.maxRecords = maxRecords;
         this.numberOfFolds = numberOfFolds;
         this.seed = seed;
         this.vectorLength = vectorLength;
+        this.numberOfThreads = numberOfThreads;
     }
 
     @Override
@@ -115,6 +131,17 @@ public abstract class ARXClassificationConfiguration<T extends ARXClassification
         return numberOfFolds;
     }
 
+    /**
+     * Returns the number of threads used for training and evaluating folds
+     * @return
+     */
+    public int getNumberOfThreads() {
+        if (this.numberOfThreads == null) {
+            this.numberOfThreads = 1;
+        }
+        return this.numberOfThreads;
+    }
+
     /**
      * @return the seed
      */
@@ -155,6 +182,7 @@ public abstract class ARXClassificationConfiguration<T extends ARXClassification
         this.setNumFolds(config.numberOfFolds);
         this.setSeed((int)config.seed);
         this.setVectorLength(config.vectorLength);
+        this.setNumberOfThreads(config.getNumberOfThreads());
     }
     
     /**
@@ -208,6 +236,24 @@ public abstract class ARXClassificationConfiguration<T extends ARXClassification
         return (T)this;
     }
     
+    /**
+     * Sets the number of threads used for training and evaluating folds. Results
+     * are identical to sequential processing.
+     * @param numberOfThreads
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public T setNumberOfThreads(int numberOfThreads) {
+        if (numberOfThreads <= 0) {
+            throw new IllegalArgumentException("Must be >0");
+        }
+        if (this.getNumberOfThreads() != numberOfThreads) {
+            setModified();
+            this.numberOfThreads = numberOfThreads;
+        }
+        return (T)this;
+    }
+    
     /**
      * Seed for randomization. Set to Integer.MAX_VALUE for randomization.
      * @param seed the seed to set
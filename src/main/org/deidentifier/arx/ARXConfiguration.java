@@ -47,6 +47,7 @@ import org.deidentifier.arx.criteria.TCloseness;
 import org.deidentifier.arx.framework.data.DataManager;
 import org.deidentifier.arx.metric.Metric;
 import org.deidentifier.arx.metric.MetricConfiguration;
+import org.deidentifier.arx.metric.MetricDescription;
 
 /**
  * A generic configuration for the ARX anonymizer.
@@ -104,6 +105,18 @@ public class ARXConfiguration implements Serializable, Cloneable {
             return config.getPrivacyModelsAsArray();
         }
 
+        /**
+         * Returns a copy with its own privacy models and quality model, which can be used
+         * concurrently to this instance. Returns null if the models cannot be copied.
+         *
+         * @param manager
+         * @return
+         */
+        public ARXConfigurationInternal getInstanceForWorker(DataManager manager) {
+            ARXConfiguration result = config.getInstanceForWorker(manager);
+            return result == null ? null : result.getInternalConfiguration();
+        }
+
         /**
          * Returns the max relative number of outliers.
          *
@@ -167,6 +180,14 @@ public class ARXConfiguration implements Serializable, Cloneable {
             return config.getQualityModel();
         }
         
+        /**
+         * Returns the number of threads used for transforming data
+         * @return
+         */
+        public int getNumberOfThreads() {
+            return config.getNumberOfThreads();
+        }
+        
         /**
          * Returns the criteria's requirements.
          *
@@ -210,6 +231,14 @@ public class ARXConfiguration implements Serializable, Cloneable {
             return config.getSuppressedAttributeTypes();
         }
 
+        /**
+         * Returns whether checks of transformations are instrumented
+         * @return
+         */
+        public boolean isInstrumentationEnabled() {
+            return config.isInstrumentationEnabled();
+        }
+
         /**
          * Is practical monotonicity assumed.
          *
@@ -434,6 +463,12 @@ public class ARXConfiguration implements Serializable, Cloneable {
     /** The algorithm to use */
     private AnonymizationAlgorithm             algorithm                             = AnonymizationAlgorithm.OPTIMAL;
 
+    /** Number of threads used for transforming data */
+    private Integer                            numberOfThreads                       = 1;
+
+    /** Are checks of transformations instrumented */
+    private Boolean                            instrumentationEnabled                = false;
+
 	
     /**
      * Creates a new configuration without tuple suppression.
@@ -575,6 +610,8 @@ public class ARXConfiguration implements Serializable, Cloneable {
 		result.geneticAlgorithmProductionFraction = this.geneticAlgorithmProductionFraction;
         result.geneticAlgorithmIterations = this.geneticAlgorithmIterations;
         result.algorithm = this.algorithm;
+        result.numberOfThreads = this.numberOfThreads;
+        result.instrumentationEnabled = this.instrumentationEnabled;
         if (this.attributeWeights != null) {
             result.attributeWeights = new HashMap<String, Double>(this.attributeWeights);
         } else {
@@ -889,6 +926,18 @@ public class ARXConfiguration implements Serializable, Cloneable {
         }
     }
     
+    /**
+     * Returns the number of threads used for anonymizing data. The default is 1.
+     * See {@link #setNumberOfThreads(int)} for details.
+     * @return
+     */
+    public int getNumberOfThreads() {
+        if (this.numberOfThreads == null) {
+            this.numberOfThreads = 1;
+        }
+        return this.numberOfThreads;
+    }
+    
     /**
      * Returns an instance of the class, if any. Throws an exception if more than one such model exists.
      *
@@ -1009,6 +1058,17 @@ public class ARXConfiguration implements Serializable, Cloneable {
         return (suppressedAttributeTypes & (1 << type.getType())) != 0;
     }
     
+    /**
+     * Returns whether checks of transformations are instrumented. The default is false.
+     * @return
+     */
+    public boolean isInstrumentationEnabled() {
+        if (this.instrumentationEnabled == null) {
+            this.instrumentationEnabled = false;
+        }
+        return this.instrumentationEnabled;
+    }
+    
     /**
      * Is practical monotonicity assumed.
      *
@@ -1226,6 +1286,18 @@ public class ARXConfiguration implements Serializable, Cloneable {
 		this.geneticAlgorithmSubpopulationSize = geneticAlgorithmSubpopulationSize;
 	}
 
+	/**
+     * Enables or disables the instrumentation of checks of transformations. If enabled, counters
+     * and latency histograms are recorded for the individual phases of each check, which can be
+     * obtained via <code>ARXProcessStatistics.getCheckStatistics()</code> or, for runs in the
+     * same JVM, via the MXBean registered with <code>ARXCheckStatisticsMonitor.register()</code>.
+     * The default is false.
+     * @param enabled
+     */
+    public void setInstrumentationEnabled(boolean enabled) {
+        this.instrumentationEnabled = enabled;
+    }
+
 	/**
      * The heuristic search algorithm will terminate after the given number of transformations
      * have been checked. The default is <code>Integer.MAX_VALUE</code>, i.e. no limit. ARX supports different
@@ -1284,6 +1356,25 @@ public class ARXConfiguration implements Serializable, Cloneable {
         this.relMaxOutliers = max;
     }
 
+    /**
+     * Sets the number of threads used for anonymizing data. The default is 1, i.e. sequential
+     * processing. The setting is used in three ways. Firstly, transformations checked by the
+     * main checker, which includes all transformations checked by the optimal algorithms and
+     * the transformation of the final output, partition records into ranges which are
+     * transformed and grouped concurrently before the partial results are merged. Secondly,
+     * the genetic algorithm checks the individuals of a generation concurrently with one
+     * worker per thread. Thirdly, the LIGHTNING algorithm explores the solution space
+     * concurrently with one worker per thread. Workers transform records sequentially and
+     * the main checker is idle while they are running, which means that the number of threads
+     * transforming data never exceeds the configured value. The setting is also used for
+     * encoding input data and for computing some statistics.
+     * @param numberOfThreads
+     */
+    public void setNumberOfThreads(int numberOfThreads) {
+        if (numberOfThreads <= 0) { throw new IllegalArgumentException("Parameter must be > 0"); }
+        this.numberOfThreads = numberOfThreads;
+    }
+
 	/**
      * Set, if practical monotonicity assumed.
      *
@@ -1455,6 +1546,57 @@ public class ARXConfiguration implements Serializable, Cloneable {
         return result;
     }
     
+    /**
+     * Clones this config for checking transformations concurrently.<br>
+     * - All privacy models will be cloned and initialized<br>
+     * - The quality model will be cloned and initialized<br>
+     * Returns null if a model cannot be cloned, e.g. differential privacy, which is initialized by the DataManager.
+     * 
+     * @param manager
+     * @return
+     */
+    protected ARXConfiguration getInstanceForWorker(DataManager manager) {
+
+        // Clone the quality model
+        Metric<?> metric = this.getQualityModel();
+        MetricDescription description = metric.getDescription();
+        if (description == null) {
+            return null;
+        }
+        Metric<?> cloneMetric;
+        try {
+            cloneMetric = description.createInstance(metric.getConfiguration());
+        } catch (UnsupportedOperationException e) {
+            return null;
+        }
+        if (cloneMetric.getClass() != metric.getClass()) {
+            return null;
+        }
+        
+        // Clone all criteria
+        HashSet<PrivacyCriterion> criteria = new HashSet<PrivacyCriterion>();
+        for (PrivacyCriterion criterion : this.getPrivacyModels()) {
+            if (criterion instanceof EDDifferentialPrivacy) {
+                return null;
+            }
+            PrivacyCriterion clone = criterion.clone();
+            if (clone.getClass() != criterion.getClass()) {
+                return null;
+            }
+            criteria.add(clone);
+        }
+        
+        // Clone and initialize the config
+        ARXConfiguration result = this.clone();
+        result.criteria = criteria;
+        result.metric = cloneMetric;
+        result.initialize(manager);
+        cloneMetric.initialize(manager, manager.getDataDefinition(), manager.getDataGeneralized(), manager.getHierarchies(), result);
+        
+        // Return
+        return result;
+    }
+    
     /**
      * Returns an internal variant of the class which provides a broader interface
      *
@@ -273,6 +273,9 @@ public class ARXProcessStatistics implements Serializable {
     /** Duration */
     private long              duration;
 
+    /** Statistics about checks, if instrumented */
+    private ARXCheckStatistics checkStatistics;
+
     /**
      * Clone constructor
      * @param other
@@ -283,6 +286,7 @@ public class ARXProcessStatistics implements Serializable {
         this.transformationsTotalLargeLattice = other.transformationsTotalLargeLattice;
         this.duration = other.duration;
         this.initialNumberOfRecords = other.initialNumberOfRecords;
+        this.checkStatistics = other.checkStatistics != null ? other.checkStatistics.merge(null) : null;
         this.steps = new ArrayList<>();
         for (Step step : other.steps) {
             this.steps.add(step.clone());
@@ -302,8 +306,9 @@ public class ARXProcessStatistics implements Serializable {
      * @param optimum
      * @param isOptimal
      * @param duration
+     * @param checkStatistics
      */
-    protected ARXProcessStatistics(ARXLattice lattice, ARXNode optimum, boolean isOptimal, long duration) {
+    protected ARXProcessStatistics(ARXLattice lattice, ARXNode optimum, boolean isOptimal, long duration, ARXCheckStatistics checkStatistics) {
         
         // Add step
         if (optimum != null) {
@@ -312,6 +317,7 @@ public class ARXProcessStatistics implements Serializable {
 
         // Compute statistics
         this.duration += duration;
+        this.checkStatistics = checkStatistics;
         this.transformationsTotal += lattice.getVirtualSize().longValue();  
         this.transformationsTotalLargeLattice = BigInteger.valueOf(0);
         this.transformationsTotalLargeLattice = this.transformationsTotalLargeLattice.add(lattice.getVirtualSize());
@@ -355,6 +361,7 @@ public class ARXProcessStatistics implements Serializable {
         this.transformationsTotalLargeLattice = this.transformationsTotalLargeLattice.add(result.solutionSpace.getSize());
         this.transformationsTotal += result.solutionSpace.getSize().longValue();
         this.duration += duration;
+        this.checkStatistics = result.checker.getStatistics();
         
         // Collect number of checked transformations
         for (ObjectIterator<?> iterator = result.solutionSpace.getMaterializedTransformations(); iterator.hasNext();) {
@@ -370,6 +377,15 @@ public class ARXProcessStatistics implements Serializable {
         return new ARXProcessStatistics(this);
     }
     
+    /**
+     * Returns counters and latency histograms for the individual phases of checking transformations.
+     * Returns null, if instrumentation has not been enabled.
+     * @return
+     */
+    public ARXCheckStatistics getCheckStatistics() {
+        return this.checkStatistics;
+    }
+    
     /**
      * Returns the duration of the process
      * @return
@@ -486,5 +502,8 @@ public class ARXProcessStatistics implements Serializable {
         this.transformationsTotal += stats.transformationsTotal;
         this.transformationsChecked += stats.transformationsChecked;
         this.duration += stats.duration;
+        if (stats.checkStatistics != null) {
+            this.checkStatistics = stats.checkStatistics.merge(this.checkStatistics);
+        }
     }
 }
\ No newline at end of file
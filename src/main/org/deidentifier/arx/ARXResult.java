@@ -149,8 +149,8 @@ public class ARXResult {
         // Initialize the metric
         metric.initialize(manager, definition, manager.getDataGeneralized(), manager.getHierarchies(), config);
 
-        this.buffer = new DataMatrix(manager.getDataGeneralized().getArray().getNumRows(), 
-                                     manager.getDataGeneralized().getArray().getNumColumns());
+        this.buffer = manager.getDataGeneralized().getArray().newInstance(manager.getDataGeneralized().getArray().getNumRows(), 
+                                                                          manager.getDataGeneralized().getArray().getNumColumns());
         
         // Initialize the result
         this.registry = handle.getRegistry();
@@ -160,7 +160,7 @@ public class ARXResult {
         this.lattice = lattice;
         this.optimalTransformation = lattice.getOptimum();
         this.solutionSpace = solutionSpace;
-        this.statistics = statistics != null ? statistics : new ARXProcessStatistics(lattice, optimalTransformation, lattice._legacySearchedWithFlash(), time);
+        this.statistics = statistics != null ? statistics : new ARXProcessStatistics(lattice, optimalTransformation, lattice._legacySearchedWithFlash(), time, null);
         this.optimumFound = this.statistics.isSolutationAvailable() ? this.statistics.getStep(0).isOptimal() : false;
         this.duration = this.statistics.getDuration();
     }
@@ -201,7 +201,7 @@ public class ARXResult {
         this.duration = duration;
         this.solutionSpace = solutionSpace;
         this.optimumFound = optimumFound;
-        this.statistics = new ARXProcessStatistics(lattice, optimalTransformation, optimumFound, duration);
+        this.statistics = new ARXProcessStatistics(lattice, optimalTransformation, optimumFound, duration, checker.getStatistics());
     }
 
     /**
@@ -963,6 +963,16 @@ public class ARXResult {
         return result;
     }
 
+    /**
+     * Returns whether the given matrix is the buffer, which is shared by all handles that have not been forked.
+     *
+     * @param matrix
+     * @return
+     */
+    protected boolean isBuffer(DataMatrix matrix) {
+        return matrix == this.buffer;
+    }
+
     /**
      * Releases the buffer.
      *
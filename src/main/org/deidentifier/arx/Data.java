@@ -22,6 +22,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
@@ -131,6 +132,20 @@ public abstract class Data { // NO_UCD
         /** Length*/
         private Integer length;
 
+        /** The input, if any */
+        private CSVDataInput       input    = null;
+
+        /**
+         * Creates a new instance.
+         *
+         * @param input the input
+         */
+        private IterableData(final CSVDataInput input) {
+            this.iterator = input.iterator();
+            this.length = null;
+            this.input = input;
+        }
+
         /**
          * Creates a new instance.
          *
@@ -160,6 +175,18 @@ public abstract class Data { // NO_UCD
         protected Iterator<String[]> iterator() {
             return iterator;
         }
+
+        @Override
+        protected List<Iterator<String[]>> iterators() {
+            if (input == null || getNumberOfThreads() == 1) {
+                return super.iterators();
+            }
+            try {
+                return input.iterators(getNumberOfThreads());
+            } catch (IOException e) {
+                throw new RuntimeException("Error while splitting input", e);
+            }
+        }
     }
 
     /**
@@ -193,7 +220,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final File file, final Charset charset) throws IOException {
-        return new IterableData(new CSVDataInput(file, charset).iterator());
+        return new IterableData(new CSVDataInput(file, charset));
     }
 
     /**
@@ -205,7 +232,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final File file, final Charset charset, final char delimiter) throws IOException {
-        return new IterableData(new CSVDataInput(file, charset, delimiter).iterator());
+        return new IterableData(new CSVDataInput(file, charset, delimiter));
     }
 
     /**
@@ -218,7 +245,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final File file, final Charset charset, final char delimiter, final char quote) throws IOException {
-        return new IterableData(new CSVDataInput(file, charset, delimiter, quote).iterator());
+        return new IterableData(new CSVDataInput(file, charset, delimiter, quote));
     }
 
     /**
@@ -232,7 +259,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final File file, final Charset charset, final char delimiter, final char quote, final char escape) throws IOException {
-        return new IterableData(new CSVDataInput(file, charset, delimiter, quote, escape).iterator());
+        return new IterableData(new CSVDataInput(file, charset, delimiter, quote, escape));
     }
 
     /**
@@ -247,7 +274,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final File file, final Charset charset, final char delimiter, final char quote, final char escape, final char[] linebreak) throws IOException {
-        return new IterableData(new CSVDataInput(file, charset, delimiter, quote, escape, linebreak).iterator());
+        return new IterableData(new CSVDataInput(file, charset, delimiter, quote, escape, linebreak));
     }
 
     /**
@@ -259,7 +286,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final File file, final Charset charset, final CSVSyntax config) throws IOException {
-        return new IterableData(new CSVDataInput(file, charset, config).iterator());
+        return new IterableData(new CSVDataInput(file, charset, config));
     }
 
     /**
@@ -272,7 +299,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final File file, final Charset charset, final CSVSyntax config, final CSVOptions options) throws IOException {
-        return new IterableData(new CSVDataInput(file, charset, config, options).iterator());
+        return new IterableData(new CSVDataInput(file, charset, config, options));
     }
 
     /**
@@ -285,7 +312,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final File file, final Charset charset, final CSVSyntax config, final DataType<?>[] datatypes) throws IOException {
-        return new IterableData(new CSVDataInput(file, charset, config, datatypes).iterator());
+        return new IterableData(new CSVDataInput(file, charset, config, datatypes));
     }
     /**
      * Creates a new data object from a CSV file. Assumes that the file contains a header.
@@ -295,7 +322,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final InputStream stream, final Charset charset) throws IOException {
-        return new IterableData(new CSVDataInput(stream, charset).iterator());
+        return new IterableData(new CSVDataInput(stream, charset));
     }
 
     /**
@@ -307,7 +334,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final InputStream stream, final Charset charset, final char delimiter) throws IOException {
-        return new IterableData(new CSVDataInput(stream, charset, delimiter).iterator());
+        return new IterableData(new CSVDataInput(stream, charset, delimiter));
     }
 
     /**
@@ -333,7 +360,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final InputStream stream, final Charset charset, final char delimiter, final char quote) throws IOException {
-        return new IterableData(new CSVDataInput(stream, charset, delimiter, quote).iterator());
+        return new IterableData(new CSVDataInput(stream, charset, delimiter, quote));
     }
 
     /**
@@ -347,7 +374,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final InputStream stream, final Charset charset, final char delimiter, final char quote, final char escape) throws IOException {
-        return new IterableData(new CSVDataInput(stream, charset, delimiter, quote, escape).iterator());
+        return new IterableData(new CSVDataInput(stream, charset, delimiter, quote, escape));
     }
 
     /**
@@ -362,7 +389,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final InputStream stream, final Charset charset, final char delimiter, final char quote, final char escape, final char[] linebreak) throws IOException {
-        return new IterableData(new CSVDataInput(stream, charset, delimiter, quote, escape, linebreak).iterator());
+        return new IterableData(new CSVDataInput(stream, charset, delimiter, quote, escape, linebreak));
     }
 
     /**
@@ -374,7 +401,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final InputStream stream, final Charset charset, final CSVSyntax config) throws IOException {
-        return new IterableData(new CSVDataInput(stream, charset, config).iterator());
+        return new IterableData(new CSVDataInput(stream, charset, config));
     }
 
     /**
@@ -387,7 +414,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final InputStream stream, final Charset charset, final CSVSyntax config, final DataType<?>[] datatypes) throws IOException {
-        return new IterableData(new CSVDataInput(stream, charset, config, datatypes).iterator());
+        return new IterableData(new CSVDataInput(stream, charset, config, datatypes));
     }
 
     /**
@@ -461,7 +488,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final String path, final Charset charset) throws IOException {
-        return new IterableData(new CSVDataInput(path, charset).iterator());
+        return new IterableData(new CSVDataInput(path, charset));
     }
 
     /**
@@ -473,7 +500,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final String path, final Charset charset, final char delimiter) throws IOException {
-        return new IterableData(new CSVDataInput(path, charset, delimiter).iterator());
+        return new IterableData(new CSVDataInput(path, charset, delimiter));
     }
 
     /**
@@ -486,7 +513,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final String path, final Charset charset, final char delimiter, final char quote) throws IOException {
-        return new IterableData(new CSVDataInput(path, charset, delimiter, quote).iterator());
+        return new IterableData(new CSVDataInput(path, charset, delimiter, quote));
     }
 
     /**
@@ -500,7 +527,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final String path, final Charset charset, final char delimiter, final char quote, final char escape) throws IOException {
-        return new IterableData(new CSVDataInput(path, charset, delimiter, quote, escape).iterator());
+        return new IterableData(new CSVDataInput(path, charset, delimiter, quote, escape));
     }
 
     /**
@@ -515,7 +542,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final String path, final Charset charset, final char delimiter, final char quote, final char escape, final char[] linebreak) throws IOException {
-        return new IterableData(new CSVDataInput(path, charset, delimiter, quote, escape, linebreak).iterator());
+        return new IterableData(new CSVDataInput(path, charset, delimiter, quote, escape, linebreak));
     }
 
     /**
@@ -528,7 +555,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final String path, final Charset charset, final CSVSyntax config, final CSVOptions options) throws IOException {
-        return new IterableData(new CSVDataInput(path, charset, config, options).iterator());
+        return new IterableData(new CSVDataInput(path, charset, config, options));
     }
 
     /**
@@ -541,7 +568,7 @@ public abstract class Data { // NO_UCD
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static Data create(final String path, final Charset charset, final CSVSyntax config, final DataType<?>[] datatypes) throws IOException {
-        return new IterableData(new CSVDataInput(path, charset, config, datatypes).iterator());
+        return new IterableData(new CSVDataInput(path, charset, config, datatypes));
     }
 
     /**
@@ -560,6 +587,15 @@ public abstract class Data { // NO_UCD
     /** The data definition. */
     private DataDefinition  definition = new DataDefinition();
 
+    /** Whether the data is stored outside of the Java heap. */
+    private boolean         offHeap    = false;
+
+    /** Directory for memory-mapped storage, null for direct memory. */
+    private File            offHeapDirectory;
+
+    /** Number of threads used for parsing and encoding. */
+    private int             numberOfThreads = 1;
+
     /**
      * Returns the data definition.
      *
@@ -583,6 +619,55 @@ public abstract class Data { // NO_UCD
         return handle;
     }
 
+    /**
+     * Sets the number of threads used for parsing and encoding data from CSV files. If more than
+     * one thread is used, the file is split at line breaks into parts, which are parsed and
+     * encoded concurrently before the results are merged. This requires that values do not contain
+     * line breaks. The default is 1. Must be called before obtaining a data handle.
+     *
+     * @param numberOfThreads
+     */
+    public void setNumberOfThreads(int numberOfThreads) {
+        if (numberOfThreads <= 0) { throw new IllegalArgumentException("Parameter must be > 0"); }
+        this.numberOfThreads = numberOfThreads;
+    }
+
+    /**
+     * Stores the encoded data outside of the Java heap in direct memory. This reduces
+     * garbage collection overhead for large datasets. Datasets with more than 2^31-1
+     * cells are always stored outside of the heap. Must be called before
+     * obtaining a data handle.
+     *
+     * @param offHeap
+     */
+    public void setOffHeapStorage(boolean offHeap) {
+        this.offHeap = offHeap;
+        this.offHeapDirectory = null;
+    }
+
+    /**
+     * Stores the encoded data outside of the Java heap in memory-mapped files,
+     * which are created in the given directory. Must be called before
+     * obtaining a data handle.
+     *
+     * @param directory
+     */
+    public void setOffHeapStorage(File directory) {
+        if (directory == null || !directory.isDirectory()) {
+            throw new IllegalArgumentException("Directory does not exist");
+        }
+        this.offHeap = true;
+        this.offHeapDirectory = directory;
+    }
+
+    /**
+     * Returns the directory for memory-mapped storage, null for direct memory
+     * @return
+     */
+    protected File getOffHeapDirectory() {
+        return offHeapDirectory;
+    }
+
     /**
      * Override to return a length to improve loading
      * @return
@@ -591,10 +676,36 @@ public abstract class Data { // NO_UCD
         return null;
     }
 
+    /**
+     * Returns the number of threads used for parsing and encoding
+     * @return
+     */
+    protected int getNumberOfThreads() {
+        return numberOfThreads;
+    }
+
+    /**
+     * Returns whether the data is stored outside of the Java heap
+     * @return
+     */
+    protected boolean isOffHeapStorage() {
+        return offHeap;
+    }
+
     /**
      * Iterator.
      *
      * @return the iterator
      */
     protected abstract Iterator<String[]> iterator();
+
+    /**
+     * Returns iterators over disjoint parts of the data, which can be processed concurrently.
+     * The first iterator returns the header.
+     *
+     * @return the iterators
+     */
+    protected List<Iterator<String[]>> iterators() {
+        return Arrays.asList(iterator());
+    }
 }
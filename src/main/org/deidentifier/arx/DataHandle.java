@@ -44,12 +44,14 @@ import org.deidentifier.arx.DataType.ARXInteger;
 import org.deidentifier.arx.DataType.DataTypeDescription;
 import org.deidentifier.arx.aggregates.StatisticsBuilder;
 import org.deidentifier.arx.certificate.elements.ElementData;
+import org.deidentifier.arx.framework.data.TypedValues;
 import org.deidentifier.arx.io.CSVDataOutput;
 import org.deidentifier.arx.io.CSVSyntax;
 import org.deidentifier.arx.risk.RiskEstimateBuilder;
 import org.deidentifier.arx.risk.RiskModelHistogram;
 
 import cern.colt.Swapper;
+import cern.colt.function.IntComparator;
 
 import com.carrotsearch.hppc.ObjectIntOpenHashMap;
 
@@ -130,6 +132,11 @@ public abstract class DataHandle {
         String value = getValue(row, col);
         DataType<?> type = getDataType(getAttributeName(col));
         if (type instanceof ARXDate) {
+            TypedValues view = internalGetTypedValues(col, type);
+            int code = getTypedCode(view, row, col);
+            if (code != -1) {
+                return view.isNull(code) ? null : new Date(view.getLong(code));
+            }
             return ((ARXDate) type).parse(value);
         } else {
             throw new ParseException("Invalid datatype: " + type.getClass().getSimpleName(), col);
@@ -173,8 +180,18 @@ public abstract class DataHandle {
         String value = getValue(row, col);
         DataType<?> type = getDataType(getAttributeName(col));
         if (type instanceof ARXDecimal) {
+            TypedValues view = internalGetTypedValues(col, type);
+            int code = getTypedCode(view, row, col);
+            if (code != -1) {
+                return view.isNull(code) ? null : view.getDouble(code);
+            }
             return ((ARXDecimal) type).parse(value);
         } else if (type instanceof ARXInteger) {
+            TypedValues view = internalGetTypedValues(col, type);
+            int code = getTypedCode(view, row, col);
+            if (code != -1) {
+                return view.isNull(code) ? null : (double) view.getLong(code);
+            }
             Long _long = ((ARXInteger) type).parse(value);
             return _long == null ? null : _long.doubleValue();
         } else {
@@ -194,9 +211,19 @@ public abstract class DataHandle {
         String value = getValue(row, col);
         DataType<?> type = getDataType(getAttributeName(col));
         if (type instanceof ARXDecimal) {
+            TypedValues view = internalGetTypedValues(col, type);
+            int code = getTypedCode(view, row, col);
+            if (code != -1) {
+                return view.isNull(code) ? null : (float) view.getDouble(code);
+            }
             Double _double = ((ARXDecimal) type).parse(value);
             return _double == null ? null : _double.floatValue();
         } else if (type instanceof ARXInteger) {
+            TypedValues view = internalGetTypedValues(col, type);
+            int code = getTypedCode(view, row, col);
+            if (code != -1) {
+                return view.isNull(code) ? null : (float) view.getLong(code);
+            }
             Long _long = ((ARXInteger) type).parse(value);
             return _long == null ? null : _long.floatValue();
         } else {
@@ -224,6 +251,11 @@ public abstract class DataHandle {
         String value = getValue(row, col);
         DataType<?> type = getDataType(getAttributeName(col));
         if (type instanceof ARXInteger) {
+            TypedValues view = internalGetTypedValues(col, type);
+            int code = getTypedCode(view, row, col);
+            if (code != -1) {
+                return view.isNull(code) ? null : (int) view.getLong(code);
+            }
             Long _long = ((ARXInteger) type).parse(value);
             return _long == null ? null : _long.intValue();
         } else {
@@ -243,6 +275,11 @@ public abstract class DataHandle {
         String value = getValue(row, col);
         DataType<?> type = getDataType(getAttributeName(col));
         if (type instanceof ARXInteger) {
+            TypedValues view = internalGetTypedValues(col, type);
+            int code = getTypedCode(view, row, col);
+            if (code != -1) {
+                return view.isNull(code) ? null : view.getLong(code);
+            }
             return ((ARXInteger) type).parse(value);
         } else {
             throw new ParseException("Invalid datatype: " + type.getClass().getSimpleName(), col);
@@ -317,7 +354,8 @@ public abstract class DataHandle {
 
         checkReleased();
         checkColumn(column);
-        double distinct = this.getDistinctValues(column).length;
+        String[] values = this.getDistinctValues(column);
+        double distinct = values.length;
         List<Pair<DataType<?>, Double>> result = new ArrayList<Pair<DataType<?>, Double>>();
         DataTypeDescription<U> description = DataType.list(clazz);
         if (description == null) {
@@ -326,14 +364,14 @@ public abstract class DataHandle {
         if (description.hasFormat()) {
             for (String format : description.getExampleFormats()) {
                 DataType<U> type = description.newInstance(format, locale);
-                double matching = getNumConformingValues(column, type) / distinct;
+                double matching = getNumConformingValues(values, type) / distinct;
                 if (matching >= threshold) {
                     result.add(new Pair<DataType<?>, Double>(type, matching));
                 }
             }
         } else {
             DataType<U> type = description.newInstance();
-            double matching = getNumConformingValues(column, type) / distinct;
+            double matching = getNumConformingValues(values, type) / distinct;
             if (matching >= threshold) {
                 result.add(new Pair<DataType<?>, Double>(type, matching));
             }
@@ -447,11 +485,7 @@ public abstract class DataHandle {
     public int getNumConformingValues(int column, DataType<?> type) {
         checkReleased();
         checkColumn(column);
-        int count = 0;
-        for (String value : this.getDistinctValues(column)) {
-            count += type.isValid(value) ? 1 : 0;
-        }
-        return count;
+        return getNumConformingValues(this.getDistinctValues(column), type);
     }
 
     /**
@@ -976,8 +1010,11 @@ public abstract class DataHandle {
             for (int i = 0; i < columns.length; i++) {
 
                 int index = columns[i];
-                int cmp = columnToDataType[index].compare(internalGetValue(row1, index, false),
-                                                   internalGetValue(row2, index, false));
+                TypedValues view = internalGetTypedValues(index, columnToDataType[index]);
+                int cmp = view != null ? view.compare(internalGetEncodedValue(row1, index, false),
+                                                      internalGetEncodedValue(row2, index, false))
+                                       : columnToDataType[index].compare(internalGetValue(row1, index, false),
+                                                                         internalGetValue(row2, index, false));
                 if (cmp != 0) {
                     return ascending ? cmp : -cmp;
                 }
@@ -988,6 +1025,29 @@ public abstract class DataHandle {
         }
     }
 
+    /**
+     * Returns a comparator for the encoded values of the given column, which is consistent
+     * with {@link #internalCompare(int, int, int[], boolean)}. Returns null if the column
+     * is ignored when sorting.
+     *
+     * @param col the col
+     * @return the comparator
+     */
+    protected IntComparator internalGetComparator(final int col) {
+        final DataType<?> type = columnToDataType[col];
+        final TypedValues view = internalGetTypedValues(col, type);
+        return new IntComparator() {
+            @Override
+            public int compare(int code1, int code2) {
+                try {
+                    return view.compare(code1, code2);
+                } catch (final Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+    }
+
     /**
      * Internal representation of get encoded value. Returns -1 for suppressed values.
      *
@@ -997,6 +1057,16 @@ public abstract class DataHandle {
      */
     protected abstract int internalGetEncodedValue(int row, int col, boolean ignoreSuppression);
 
+    /**
+     * Returns a typed view on the values of the given column, which is indexed by encoded values.
+     * Returns null if the column has no values.
+     *
+     * @param col the col
+     * @param type the type
+     * @return the view
+     */
+    protected abstract TypedValues internalGetTypedValues(int col, DataType<?> type);
+
     /**
      * Internal representation of get value.
      *
@@ -1062,4 +1132,36 @@ public abstract class DataHandle {
     protected void setView(DataHandle handle) {
         subset = handle;
     }
+
+    /**
+     * Returns the number of values that conform to the given data type.
+     *
+     * @param values the values
+     * @param type the type
+     * @return the num conforming values
+     */
+    private int getNumConformingValues(String[] values, DataType<?> type) {
+        int count = 0;
+        for (String value : values) {
+            count += type.isValid(value) ? 1 : 0;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the code of the given cell in the given typed view. Returns -1 if the cell
+     * must be parsed from its string representation, e.g. because it has been suppressed.
+     *
+     * @param view the view, may be null
+     * @param row the row
+     * @param col the col
+     * @return the code
+     */
+    private int getTypedCode(TypedValues view, int row, int col) {
+        if (view == null) {
+            return -1;
+        }
+        int code = internalGetEncodedValue(row, col, false);
+        return code != -1 && view.isValid(code) ? code : -1;
+    }
 }
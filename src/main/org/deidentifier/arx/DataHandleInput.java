@@ -22,11 +22,15 @@ import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 import org.deidentifier.arx.DataHandleInternal.InterruptHandler;
 import org.deidentifier.arx.aggregates.StatisticsBuilder;
+import org.deidentifier.arx.common.TaskExecutor;
 import org.deidentifier.arx.framework.data.DataMatrix;
+import org.deidentifier.arx.framework.data.DataMatrixBuilder;
 import org.deidentifier.arx.framework.data.Dictionary;
+import org.deidentifier.arx.framework.data.TypedValues;
 
 /**
  * An implementation of the DataHandle interface for input data.
@@ -64,8 +68,9 @@ public class DataHandleInput extends DataHandle {
      */
     protected DataHandleInput(final Data data) {
         
-        // Obtain and check iterator
-        Iterator<String[]> iterator = data.iterator();
+        // Obtain and check iterators
+        List<Iterator<String[]>> iterators = data.iterators();
+        Iterator<String[]> iterator = iterators.get(0);
         if (!iterator.hasNext()) { 
             throw new IllegalArgumentException("Data object is empty!"); 
         }
@@ -82,27 +87,25 @@ public class DataHandleInput extends DataHandle {
         // Init dictionary
         this.dictionary = new Dictionary(header.length);
         
+        // Parts of the data are encoded concurrently
+        if (iterators.size() > 1) {
+            
+            this.data = encode(data, iterators);
+            
         // Optimized code-path, if the number of records is known
-        if (data.getLength() != null && data.getLength() > 0) {
+        } else if (data.getLength() != null && data.getLength() > 0) {
             
             // Records
             int records = data.getLength();
 
             // Build array
-            this.data = new DataMatrix(records, header.length);
+            this.data = createMatrix(data, records, header.length);
             
             // Encode data on the fly
             int row = 0;
+            int[] tuple = new int[header.length];
             while (iterator.hasNext()) {
-    
-                // Process a tuple
-                String[] strings = iterator.next();
-                int[] tuple = new int[header.length];
-                for (int i = 0; i < header.length; i++) {
-                    String value = (i < strings.length) ? strings[i] : DataType.NULL_VALUE;
-                    value = (value != null) ? value : DataType.NULL_VALUE;
-                    tuple[i] = dictionary.register(i, value);
-                }
+                encode(iterator.next(), dictionary, tuple);
                 this.data.setRow(row, tuple);
                 row++;
             }
@@ -114,26 +117,17 @@ public class DataHandleInput extends DataHandle {
 
         } else { 
     
-            // Encode data
-            List<int[]> vals = new ArrayList<int[]>();
+            // Encode data into chunks
+            DataMatrixBuilder builder = new DataMatrixBuilder(header.length);
+            int[] tuple = new int[header.length];
             while (iterator.hasNext()) {
-    
-                // Process a tuple
-                String[] strings = iterator.next();
-                int[] tuple = new int[header.length];
-                for (int i = 0; i < header.length; i++) {
-                    String value = (i < strings.length) ? strings[i] : DataType.NULL_VALUE;
-                    value = (value != null) ? value : DataType.NULL_VALUE;
-                    tuple[i] = dictionary.register(i, value);
-                }
-                vals.add(tuple);
+                encode(iterator.next(), dictionary, tuple);
+                builder.append(tuple);
             }
     
             // Build array
-            this.data = new DataMatrix(vals.size(), header.length);
-            for (int row = 0; row < vals.size(); row++) {
-                this.data.setRow(row, vals.get(row));
-            }
+            this.data = createMatrix(data, builder.getNumRows(), header.length);
+            builder.copyTo(this.data, 0, null);
         }
 
         // finalize dictionary
@@ -216,6 +210,91 @@ public class DataHandleInput extends DataHandle {
         };
     }
 
+    /**
+     * Creates a matrix with the type of storage requested for the given data
+     * @param data
+     * @param rows
+     * @param columns
+     * @return
+     */
+    private DataMatrix createMatrix(Data data, int rows, int columns) {
+        if (data.isOffHeapStorage()) {
+            return DataMatrix.createOffHeap(rows, columns, data.getOffHeapDirectory());
+        }
+        return DataMatrix.create(rows, columns);
+    }
+
+    /**
+     * Encodes the given tuple
+     * @param strings
+     * @param dictionary
+     * @param tuple
+     */
+    private void encode(String[] strings, Dictionary dictionary, int[] tuple) {
+        for (int i = 0; i < tuple.length; i++) {
+            String value = (i < strings.length) ? strings[i] : DataType.NULL_VALUE;
+            value = (value != null) ? value : DataType.NULL_VALUE;
+            tuple[i] = dictionary.register(i, value);
+        }
+    }
+
+    /**
+     * Encodes the parts of the data concurrently. Each part is encoded with a separate
+     * dictionary. Dictionaries are merged in the order of the parts, which results in the
+     * same encoding as sequential processing.
+     * 
+     * @param data
+     * @param iterators
+     * @return
+     */
+    private DataMatrix encode(Data data, List<Iterator<String[]>> iterators) {
+
+        // Prepare
+        final int columns = header.length;
+        final Dictionary[] dictionaries = new Dictionary[iterators.size()];
+        final DataMatrixBuilder[] builders = new DataMatrixBuilder[iterators.size()];
+
+        // Encode parts
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        for (int i = 0; i < iterators.size(); i++) {
+            final int part = i;
+            final Iterator<String[]> iterator = iterators.get(i);
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    Dictionary dictionary = new Dictionary(columns);
+                    DataMatrixBuilder builder = new DataMatrixBuilder(columns);
+                    int[] tuple = new int[columns];
+                    while (iterator.hasNext()) {
+                        encode(iterator.next(), dictionary, tuple);
+                        builder.append(tuple);
+                    }
+                    dictionary.finalizeAll();
+                    dictionaries[part] = dictionary;
+                    builders[part] = builder;
+                    return null;
+                }
+            });
+        }
+        TaskExecutor.execute("ARX data encoder", data.getNumberOfThreads(), tasks);
+
+        // Merge
+        int rows = 0;
+        for (DataMatrixBuilder builder : builders) {
+            rows += builder.getNumRows();
+        }
+        DataMatrix result = createMatrix(data, rows, columns);
+        int row = 0;
+        for (int i = 0; i < builders.length; i++) {
+            int[][] mapping = dictionary.registerAll(dictionaries[i]);
+            builders[i].copyTo(result, row, mapping);
+            row += builders[i].getNumRows();
+            dictionaries[i] = null;
+            builders[i] = null;
+        }
+        return result;
+    }
+
     /**
      * Flags suppressed records
      */
@@ -267,6 +346,8 @@ public class DataHandleInput extends DataHandle {
      */
     protected void doRelease() {
         this.setLocked(false);
+        if (dataGeneralized != null) dataGeneralized.release();
+        if (dataAnalyzed != null) dataAnalyzed.release();
         dataGeneralized = null;
         dataAnalyzed = null;
     }
@@ -335,6 +416,11 @@ public class DataHandleInput extends DataHandle {
         return data.get(row, column);
     }
 
+    @Override
+    protected TypedValues internalGetTypedValues(final int column, final DataType<?> type) {
+        return dictionary.getTypedValues(column, type);
+    }
+
     @Override
     protected String internalGetValue(final int row, final int column, final boolean ignoreSuppression) {
         return dictionary.getMapping()[column][internalGetEncodedValue(row, column, ignoreSuppression)];
@@ -388,9 +474,25 @@ public class DataHandleInput extends DataHandle {
                 found = true;
             }
         }
+        if (found) {
+            dictionary.resetTypedValues(column);
+        }
         return found;
     }
 
+    /**
+     * Reorders the given rows. Afterwards, row rows[i] contains the data previously stored
+     * in row rows[permutation[i]].
+     *
+     * @param rows
+     * @param permutation
+     */
+    protected void internalPermute(final int[] rows, final int[] permutation) {
+        data.permute(rows, permutation);
+        if (dataGeneralized != null) dataGeneralized.permute(rows, permutation);
+        if (dataAnalyzed != null) dataAnalyzed.permute(rows, permutation);
+    }
+
     /**
      * Swaps the rows.
      *
@@ -18,6 +18,7 @@
 package org.deidentifier.arx;
 
 import org.deidentifier.arx.aggregates.StatisticsBuilder;
+import org.deidentifier.arx.framework.data.TypedValues;
 
 /**
  * Wrapper class that provides information to StatisticsBuilder.
@@ -224,6 +225,17 @@ public class DataHandleInternal {
         return handle.internalGetValue(row, col, ignoreSuppression);
     }
 
+    /**
+     * Returns a typed view on the values of the given column, which is indexed by encoded values.
+     * Returns null if the column has no values.
+     * @param column
+     * @param type
+     * @return
+     */
+    public TypedValues getTypedValues(int column, DataType<?> type) {
+        return handle.internalGetTypedValues(column, type);
+    }
+
     /**
      * Returns the internal id of the given value
      * @param column
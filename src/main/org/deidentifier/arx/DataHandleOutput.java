@@ -33,6 +33,9 @@ import org.deidentifier.arx.aggregates.StatisticsBuilder;
 import org.deidentifier.arx.framework.data.Data;
 import org.deidentifier.arx.framework.data.DataManager;
 import org.deidentifier.arx.framework.data.DataMatrix;
+import org.deidentifier.arx.framework.data.TypedValues;
+
+import cern.colt.function.IntComparator;
 
 /**
  * An implementation of the class DataHandle for output data.
@@ -346,6 +349,8 @@ public class DataHandleOutput extends DataHandle {
      */
     protected void doRelease() {
         result.releaseBuffer(this);
+        release(dataGeneralized);
+        release(dataAggregated);
         node = null;
         dataInput = null;
         dataGeneralized = null;
@@ -553,12 +558,15 @@ public class DataHandleOutput extends DataHandle {
             int cmp = 0;
             
             try {
-                String s1 = internalGetValue(row1, col, false);
-                String s2 = internalGetValue(row2, col, false);
-                cmp = (s1 == DataType.ANY_VALUE && s2 == DataType.ANY_VALUE) ? 0
-                        : (s1 == DataType.ANY_VALUE ? +1
-                                : (s2 == DataType.ANY_VALUE ? -1
-                                        : columnToDataType[col].compare(s1, s2)));
+                TypedValues view = internalGetTypedValues(col, columnToDataType[col]);
+                int code1 = internalGetEncodedValue(row1, col, false);
+                int code2 = internalGetEncodedValue(row2, col, false);
+                boolean any1 = code1 == -1 || view.getValue(code1) == DataType.ANY_VALUE;
+                boolean any2 = code2 == -1 || view.getValue(code2) == DataType.ANY_VALUE;
+                cmp = (any1 && any2) ? 0
+                        : (any1 ? +1
+                                : (any2 ? -1
+                                        : view.compare(code1, code2)));
             } catch (final Exception e) {
                 throw new RuntimeException(e);
             }
@@ -570,6 +578,38 @@ public class DataHandleOutput extends DataHandle {
         return 0;
     }
 
+    /**
+     * Returns a comparator for the encoded values of the given column, which is consistent
+     * with {@link #internalCompare(int, int, int[], boolean)}. Suppressed values, which are
+     * encoded as -1, are sorted last.
+     * 
+     * @param col
+     * @return
+     */
+    @Override
+    protected IntComparator internalGetComparator(final int col) {
+        
+        // Identifying attributes are removed from output data
+        if (columnToData[col] == null) {
+            return null;
+        }
+        
+        // Compare
+        final TypedValues view = internalGetTypedValues(col, columnToDataType[col]);
+        return new IntComparator() {
+            @Override
+            public int compare(int code1, int code2) {
+                try {
+                    boolean any1 = code1 == -1 || view.getValue(code1) == DataType.ANY_VALUE;
+                    boolean any2 = code2 == -1 || view.getValue(code2) == DataType.ANY_VALUE;
+                    return (any1 && any2) ? 0 : (any1 ? +1 : (any2 ? -1 : view.compare(code1, code2)));
+                } catch (final Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+    }
+
     @Override
     protected int internalGetEncodedValue(final int row,
                                           final int col,
@@ -594,6 +634,12 @@ public class DataHandleOutput extends DataHandle {
         }
     }
     
+    @Override
+    protected TypedValues internalGetTypedValues(final int col, final DataType<?> type) {
+        Data data = columnToData[col];
+        return data == null ? null : data.getDictionary().getTypedValues(columnToIndex[col], type);
+    }
+    
     /**
      * Gets the value internal.
      * 
@@ -702,11 +748,32 @@ public class DataHandleOutput extends DataHandle {
                 found = true;
             }
         }
+        if (found) {
+            data.getDictionary().resetTypedValues(index);
+        }
         
         // Return
         return found;
     }
 
+    /**
+     * Reorders the given rows. Afterwards, row rows[i] contains the data previously stored
+     * in row rows[permutation[i]].
+     * 
+     * @param rows
+     * @param permutation
+     */
+    protected void internalPermute(final int[] rows, final int[] permutation) {
+        
+        // Permute generalized data
+        dataGeneralized.getArray().permute(rows, permutation);
+        
+        // Permute aggregated data
+        if (dataAggregated.getArray().getNumRows() != 0) {
+            dataAggregated.getArray().permute(rows, permutation);
+        }
+    }
+
     /**
      * Swap internal.
      * 
@@ -756,4 +823,14 @@ public class DataHandleOutput extends DataHandle {
             }
         }
     }
+
+    /**
+     * Releases the matrix of the given data, unless it is the buffer shared with the result
+     * @param data
+     */
+    private void release(Data data) {
+        if (data != null && data.getArray() != null && !result.isBuffer(data.getArray())) {
+            data.getArray().release();
+        }
+    }
 }
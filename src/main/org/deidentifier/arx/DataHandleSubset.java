@@ -22,6 +22,9 @@ import java.util.Set;
 
 import org.deidentifier.arx.DataHandleInternal.InterruptHandler;
 import org.deidentifier.arx.aggregates.StatisticsBuilder;
+import org.deidentifier.arx.framework.data.TypedValues;
+
+import cern.colt.function.IntComparator;
 
 
 /**
@@ -210,11 +213,21 @@ public class DataHandleSubset extends DataHandle {
         return source.internalCompare(this.subset.getArray()[row1], this.subset.getArray()[row2], columns, ascending);
     }
     
+    @Override
+    protected IntComparator internalGetComparator(int col) {
+        return source.internalGetComparator(col);
+    }
+    
     @Override
     protected int internalGetEncodedValue(int row, int col, boolean ignoreSuppression) {
         return source.internalGetEncodedValue(this.subset.getArray()[row], col, ignoreSuppression);
     }
 
+    @Override
+    protected TypedValues internalGetTypedValues(int col, DataType<?> type) {
+        return source.internalGetTypedValues(col, type);
+    }
+
     @Override
     protected String internalGetValue(int row, int col, boolean ignoreSuppression) {
         return source.internalGetValue(this.subset.getArray()[row], col, ignoreSuppression);
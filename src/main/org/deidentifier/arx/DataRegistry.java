@@ -17,14 +17,17 @@
 
 package org.deidentifier.arx;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
 import org.deidentifier.arx.ARXLattice.ARXNode;
 
-import cern.colt.GenericSorting;
+import cern.colt.Sorting;
 import cern.colt.Swapper;
 import cern.colt.function.IntComparator;
 
@@ -99,6 +102,194 @@ class DataRegistry {
         return subset;
     }
     
+    /**
+     * Returns the number of bits required to represent the given non-negative value
+     *
+     * @param value
+     * @return
+     */
+    private int getBits(int value) {
+        return Integer.SIZE - Integer.numberOfLeadingZeros(value);
+    }
+
+    /**
+     * Returns a permutation which sorts the given range of rows. Afterwards, position from + i
+     * holds the row previously located at position from + permutation[i]. Rows are compared by
+     * the ranks of their values and ties are resolved by their position, which makes sorting
+     * stable. If ranks and positions fit into a long, the resulting keys are sorted as primitives,
+     * in parallel if multiple threads have been configured.
+     *
+     * @param handle
+     * @param from
+     * @param to
+     * @param ascending
+     * @param columns
+     * @return
+     */
+    private int[] getPermutation(final DataHandle handle,
+                                 final int from,
+                                 final int to,
+                                 final boolean ascending,
+                                 final int... columns) {
+
+        // Obtain ranks
+        final List<int[]> ranks = new ArrayList<int[]>();
+        final List<Integer> widths = new ArrayList<Integer>();
+        int length = to - from;
+        int bits = getBits(length);
+        for (int column : columns) {
+            int[] _ranks = getRanks(handle, from, to, ascending, column);
+            if (_ranks != null) {
+                int max = 0;
+                for (int rank : _ranks) {
+                    max = Math.max(max, rank);
+                }
+                ranks.add(_ranks);
+                widths.add(getBits(max));
+                bits += getBits(max);
+            }
+        }
+
+        // Sort keys
+        int[] permutation = new int[length];
+        if (bits < Long.SIZE) {
+            long[] keys = new long[length];
+            for (int index = 0; index < length; index++) {
+                long key = 0L;
+                for (int i = 0; i < ranks.size(); i++) {
+                    key = (key << widths.get(i)) | ranks.get(i)[index];
+                }
+                keys[index] = (key << getBits(length)) | index;
+            }
+            ARXConfiguration config = handle.getConfiguration();
+            if (config != null && config.getNumberOfThreads() > 1) {
+                Arrays.parallelSort(keys);
+            } else {
+                Arrays.sort(keys);
+            }
+            long mask = (1L << getBits(length)) - 1L;
+            for (int index = 0; index < length; index++) {
+                permutation[index] = (int) (keys[index] & mask);
+            }
+            return permutation;
+        }
+
+        // Sort positions
+        for (int index = 0; index < length; index++) {
+            permutation[index] = index;
+        }
+        Sorting.mergeSort(permutation, 0, length, new IntComparator() {
+            @Override
+            public int compare(int index1, int index2) {
+                for (int[] _ranks : ranks) {
+                    int cmp = Integer.compare(_ranks[index1], _ranks[index2]);
+                    if (cmp != 0) {
+                        return cmp;
+                    }
+                }
+                return 0;
+            }
+        });
+        return permutation;
+    }
+
+    /**
+     * Returns the ranks of the values of the given column in the given range of rows, which are
+     * consistent with the handle's comparator. Equal values have equal ranks and only values which
+     * occur in the range are compared. Returns null if the column is ignored when sorting.
+     *
+     * @param handle
+     * @param from
+     * @param to
+     * @param ascending
+     * @param column
+     * @return
+     */
+    private int[] getRanks(final DataHandle handle,
+                           final int from,
+                           final int to,
+                           final boolean ascending,
+                           final int column) {
+
+        // Prepare
+        final IntComparator comparator = handle.internalGetComparator(column);
+        if (comparator == null) {
+            return null;
+        }
+
+        // Collect codes, shifted by one, as suppressed values are encoded as -1
+        int[] ranks = new int[to - from];
+        boolean[] present = new boolean[16];
+        int distinct = 0;
+        for (int row = from; row < to; row++) {
+            int code = handle.internalGetEncodedValue(row, column, false) + 1;
+            if (code >= present.length) {
+                present = Arrays.copyOf(present, Math.max(code + 1, present.length * 2));
+            }
+            if (!present[code]) {
+                present[code] = true;
+                distinct++;
+            }
+            ranks[row - from] = code;
+        }
+
+        // Sort distinct codes
+        int[] codes = new int[distinct];
+        for (int code = 0, index = 0; code < present.length; code++) {
+            if (present[code]) {
+                codes[index++] = code;
+            }
+        }
+        Sorting.mergeSort(codes, 0, codes.length, new IntComparator() {
+            @Override
+            public int compare(int code1, int code2) {
+                return comparator.compare(code1 - 1, code2 - 1);
+            }
+        });
+
+        // Rank codes
+        int[] table = new int[present.length];
+        int rank = 0;
+        for (int index = 0; index < codes.length; index++) {
+            if (index > 0 && comparator.compare(codes[index - 1] - 1, codes[index] - 1) != 0) {
+                rank++;
+            }
+            table[codes[index]] = rank;
+        }
+        if (!ascending) {
+            for (int code : codes) {
+                table[code] = rank - table[code];
+            }
+        }
+
+        // Rank rows
+        for (int index = 0; index < ranks.length; index++) {
+            ranks[index] = table[ranks[index]];
+        }
+        return ranks;
+    }
+
+    /**
+     * Performs the given permutation of the given rows with swaps. Afterwards, row rows[i]
+     * contains the data previously stored in row rows[permutation[i]].
+     *
+     * @param swapper
+     * @param rows
+     * @param permutation
+     */
+    private void permute(Swapper swapper, int[] rows, int[] permutation) {
+        boolean[] done = new boolean[permutation.length];
+        for (int start = 0; start < permutation.length; start++) {
+            int position = start;
+            while (!done[position] && permutation[position] != start) {
+                done[position] = true;
+                swapper.swap(rows[position], rows[permutation[position]]);
+                position = permutation[position];
+            }
+            done[position] = true;
+        }
+    }
+
     /**
      * Sort.
      *
@@ -116,30 +307,30 @@ class DataRegistry {
                          final boolean ascending,
                          final int... columns) {
 
-        final DataHandle outer = handle;
         final DataHandleSubset subset = getSubset();
+        final int[] permutation = getPermutation(handle, from, to, ascending, columns);
+        final int[] rows = new int[permutation.length];
+        for (int index = 0; index < rows.length; index++) {
+            rows[index] = from + index;
+        }
         
-        final IntComparator c = new IntComparator() {
-            @Override
-            public int compare(final int arg0, final int arg1) {
-                return outer.internalCompare(arg0, arg1, columns, ascending);
-            }
-        };
-        final Swapper s = new Swapper() {
-            @Override
-            public void swap(final int arg0, final int arg1) {
-                if (input != null) input.internalSwap(arg0, arg1);
-                for (DataHandleOutput handle : output.values()) handle.internalSwap(arg0, arg1);
-                if (subset != null) subset.internalSwap(arg0, arg1);
-                if (swapper != null) swapper.swap(arg0, arg1);
-            }
-        };
-        
-        GenericSorting.mergeSort(from, to, c, s);
+        // Permute each matrix in one pass
+        if (input != null) input.internalPermute(rows, permutation);
+        for (DataHandleOutput outhandle : output.values()) outhandle.internalPermute(rows, permutation);
         
-        if (subset != null){
+        // Subsets and swappers only support swaps
+        if (subset != null) {
+            permute(new Swapper() {
+                @Override
+                public void swap(final int arg0, final int arg1) {
+                    subset.internalSwap(arg0, arg1);
+                }
+            }, rows, permutation);
             subset.internalRebuild();
         }
+        if (swapper != null) {
+            permute(swapper, rows, permutation);
+        }
     }
 
     /**
@@ -159,30 +350,20 @@ class DataRegistry {
                               final boolean ascending,
                               final int... columns) {
 
-        final DataHandleSubset outer = handle;
-        final IntComparator c = new IntComparator() {
-            @Override
-            public int compare(final int arg0, final int arg1) {
-                return outer.internalCompare(arg0, arg1, columns, ascending);
-            }
-        };
-        final Swapper s = new Swapper() {
-            @Override
-            public void swap(final int arg0, final int arg1) {
-                if (input != null) {
-                    input.internalSwap(outer.internalTranslate(arg0), outer.internalTranslate(arg1));
-                }
-                for (DataHandleOutput handle : output.values()) {
-                    handle.internalSwap(outer.internalTranslate(arg0), outer.internalTranslate(arg1));
-                }
-                if (swapper != null) {
-                    swapper.swap(outer.internalTranslate(arg0), outer.internalTranslate(arg1));
-                }
-            }
-        };
+        final int[] permutation = getPermutation(handle, from, to, ascending, columns);
+        final int[] rows = new int[permutation.length];
+        for (int index = 0; index < rows.length; index++) {
+            rows[index] = handle.internalTranslate(from + index);
+        }
+        
+        // Permute each matrix in one pass
+        if (input != null) input.internalPermute(rows, permutation);
+        for (DataHandleOutput outhandle : output.values()) outhandle.internalPermute(rows, permutation);
         
         // No need to swap and rebuild the subset views
-        GenericSorting.mergeSort(from, to, c, s);
+        if (swapper != null) {
+            permute(swapper, rows, permutation);
+        }
     }
     
     /**
@@ -18,12 +18,20 @@
 package org.deidentifier.arx;
 
 import java.text.ParseException;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
 
 import org.deidentifier.arx.DataType.ARXDate;
 import org.deidentifier.arx.DataType.ARXDecimal;
+import org.deidentifier.arx.common.TaskExecutor;
+
+import com.carrotsearch.hppc.LongByteOpenHashMap;
 
 import de.linearbits.objectselector.IAccessor;
 import de.linearbits.objectselector.Selector;
@@ -31,7 +39,10 @@ import de.linearbits.objectselector.SelectorBuilder;
 import de.linearbits.objectselector.datatypes.DataType;
 
 /**
- * A selector for tuples.
+ * A selector for tuples. Values are accessed via the dictionary of the data: each distinct
+ * value of an attribute is parsed only once. When rows are selected in bulk, the expression
+ * is evaluated only once for each distinct combination of the values of the attributes it
+ * refers to.
  *
  * @author Fabian Prasser
  * @author Florian Kohlmayer
@@ -48,6 +59,9 @@ public class DataSelector { // NO_UCD
         /** The data handle. */
         private final DataHandle handle;
         
+        /** The data handle, if values can be accessed via its dictionary, null otherwise. */
+        private final DataHandleInput input;
+        
         /** The data definition. */
         private final DataDefinition definition;
         
@@ -57,6 +71,9 @@ public class DataSelector { // NO_UCD
         /** The indices. */
         private final Map<String, Integer> indices;
         
+        /** Parsed values per column and code, or the exception thrown when parsing it. */
+        private final Object[][] values;
+        
         /**
          * Creates a new instance.
          *
@@ -64,9 +81,11 @@ public class DataSelector { // NO_UCD
          */
         protected DataAccessor(Data data){
             this.handle = data.getHandle();
+            this.input = handle instanceof DataHandleInput ? (DataHandleInput)handle : null;
             this.definition = data.getDefinition();
             this.types = getTypes();
             this.indices = getIndices();
+            this.values = new Object[handle.getNumColumns()][];
         }
         
         @Override
@@ -83,9 +102,15 @@ public class DataSelector { // NO_UCD
         public Object getValue(Integer arg0, String arg1) {
             
             int column = indices.get(arg1);
-            DataType<?> type = types.get(arg1);
-            String value = handle.getValue(arg0, column);
-            return type.fromString(value);
+            if (input == null) {
+                return types.get(arg1).fromString(handle.getValue(arg0, column));
+            }
+            input.checkRow(arg0, input.getNumRows());
+            Object value = getValue(column, getCode(arg0, column));
+            if (value instanceof RuntimeException) {
+                throw (RuntimeException)value;
+            }
+            return value;
         }
 
         @Override
@@ -98,6 +123,90 @@ public class DataSelector { // NO_UCD
             return true;
         }
 
+        /**
+         * Returns the code of the given cell
+         * 
+         * @param row
+         * @param column
+         * @return
+         */
+        private int getCode(int row, int column) {
+            return input.internalGetEncodedValue(row, column, false);
+        }
+
+        /**
+         * Returns the indices of the given attributes and makes sure that their values have
+         * been parsed. Returns null if values cannot be accessed via codes.
+         * 
+         * @param fields
+         * @return
+         */
+        private int[] getColumns(Set<String> fields) {
+            if (input == null) {
+                return null;
+            }
+            int[] result = new int[fields.size()];
+            int index = 0;
+            for (String field : fields) {
+                Integer column = indices.get(field);
+                if (column == null) {
+                    return null;
+                }
+                result[index] = column;
+                getValues(result[index++]);
+            }
+            return result;
+        }
+
+        /**
+         * Returns the size of the domain of the given column
+         * 
+         * @param column
+         * @return
+         */
+        private int getDomainSize(int column) {
+            return input.dictionary.getMapping()[column].length;
+        }
+
+        /**
+         * Returns the parsed value for the given code
+         * 
+         * @param column
+         * @param code
+         * @return
+         */
+        private Object getValue(int column, int code) {
+            Object[] values = this.values[column];
+            if (values == null || code >= values.length) {
+                values = getValues(column);
+            }
+            return values[code];
+        }
+
+        /**
+         * Parses all values of the given column, if this has not been done before
+         * 
+         * @param column
+         * @return
+         */
+        private Object[] getValues(int column) {
+            String[] mapping = input.dictionary.getMapping()[column];
+            Object[] values = this.values[column];
+            if (values == null || values.length != mapping.length) {
+                DataType<?> type = types.get(handle.getAttributeName(column));
+                values = new Object[mapping.length];
+                for (int code = 0; code < mapping.length; code++) {
+                    try {
+                        values[code] = type.fromString(mapping[code]);
+                    } catch (RuntimeException e) {
+                        values[code] = e;
+                    }
+                }
+                this.values[column] = values;
+            }
+            return values;
+        }
+
         /**
          * Returns the indices.
          *
@@ -139,6 +248,72 @@ public class DataSelector { // NO_UCD
         }        
     }
     
+    /**
+     * A step of building the expression, which can be applied to further builders.
+     *
+     * @author Fabian Prasser
+     */
+    private static interface BuilderStep {
+        
+        /**
+         * Applies the step to the given builder
+         * 
+         * @param builder
+         */
+        public void apply(SelectorBuilder<Integer> builder);
+    }
+
+    /**
+     * A builder which collects all attributes referred to by the expression. Every operator
+     * of the expression, specified via the builder or via a query, refers to the attribute set
+     * with the last call to {@link #field(String)}.
+     *
+     * @author Fabian Prasser
+     */
+    private static class FieldCollectingBuilder extends SelectorBuilder<Integer> {
+
+        /** The attributes. Not initialized in the declaration, because the constructor of the superclass parses queries. */
+        private Set<String> fields;
+
+        /**
+         * Creates a new instance
+         * 
+         * @param accessor
+         */
+        FieldCollectingBuilder(IAccessor<Integer> accessor) {
+            super(accessor);
+        }
+
+        /**
+         * Creates a new instance
+         * 
+         * @param accessor
+         * @param query
+         * @throws ParseException
+         */
+        FieldCollectingBuilder(IAccessor<Integer> accessor, String query) throws ParseException {
+            super(accessor, query);
+        }
+
+        @Override
+        public SelectorBuilder<Integer> field(String name) {
+            getFields().add(name);
+            return super.field(name);
+        }
+
+        /**
+         * Returns the attributes referred to by the expression
+         * 
+         * @return
+         */
+        Set<String> getFields() {
+            if (fields == null) {
+                fields = new LinkedHashSet<String>();
+            }
+            return fields;
+        }
+    }
+    
     /**
      * 
      *
@@ -161,11 +336,26 @@ public class DataSelector { // NO_UCD
         return new DataSelector(data, query);
     }
    
+    /** Maximal number of combinations of values for which results are memorized in an array */
+    private static final int               MAX_DENSE_MEMO = 1 << 16;
+
+    /** The data. */
+    private final Data                     data;
+
+    /** The query, if any. */
+    private final String                   query;
+
+    /** The steps of building the expression, in addition to the query. */
+    private final List<BuilderStep>        steps    = new ArrayList<BuilderStep>();
+
+    /** The accessor. */
+    private final DataAccessor             accessor;
+
     /** The builder. */
-    private final SelectorBuilder<Integer> builder;
+    private final FieldCollectingBuilder   builder;
 
     /** The selector. */
-    private Selector<Integer> selector = null;
+    private Selector<Integer>              selector = null;
 
     /**
      * 
@@ -173,7 +363,10 @@ public class DataSelector { // NO_UCD
      * @param data
      */
     private DataSelector(Data data){
-        this.builder = new SelectorBuilder<Integer>(new DataAccessor(data)); 
+        this.data = data;
+        this.query = null;
+        this.accessor = new DataAccessor(data);
+        this.builder = new FieldCollectingBuilder(accessor); 
     }
 
     /**
@@ -184,7 +377,10 @@ public class DataSelector { // NO_UCD
      * @throws ParseException
      */
     private DataSelector(Data data, String query) throws ParseException {
-        this.builder = new SelectorBuilder<Integer>(new DataAccessor(data), query);
+        this.data = data;
+        this.query = query;
+        this.accessor = new DataAccessor(data);
+        this.builder = new FieldCollectingBuilder(accessor, query);
     }
     
     /**
@@ -193,8 +389,12 @@ public class DataSelector { // NO_UCD
      * @return
      */
     public DataSelector and(){
-        this.builder.and();
-        return this;
+        return apply(new BuilderStep() {
+            @Override
+            public void apply(SelectorBuilder<Integer> builder) {
+                builder.and();
+            }
+        });
     }
     
     /**
@@ -203,8 +403,12 @@ public class DataSelector { // NO_UCD
      * @return
      */
     public DataSelector begin(){
-        this.builder.begin();
-        return this;
+        return apply(new BuilderStep() {
+            @Override
+            public void apply(SelectorBuilder<Integer> builder) {
+                builder.begin();
+            }
+        });
     }
     
     /**
@@ -222,8 +426,12 @@ public class DataSelector { // NO_UCD
      * @return
      */
     public DataSelector end(){
-        this.builder.end();
-        return this;
+        return apply(new BuilderStep() {
+            @Override
+            public void apply(SelectorBuilder<Integer> builder) {
+                builder.end();
+            }
+        });
     }
     
     /**
@@ -233,8 +441,12 @@ public class DataSelector { // NO_UCD
      * @return
      */
     public DataSelector equals(final Date val){
-        this.builder.equals(val);
-        return this;
+        return apply(new BuilderStep() {
+            @Override
+            public void apply(SelectorBuilder<Integer> builder) {
+                builder.equals(val);
+            }
+        });
     }
     
     /**
@@ -244,8 +456,12 @@ public class DataSelector { // NO_UCD
      * @return
      */
     public DataSelector equals(final double val){
-        this.builder.equals(val);
-        return this;
+        return apply(new BuilderStep() {
+            @Override
+            public void apply(SelectorBuilder<Integer> builder) {
+                builder.equals(val);
+            }
+        });
     }
     
     /**
@@ -255,8 +471,12 @@ public class DataSelector { // NO_UCD
      * @return
      */
     public DataSelector equals(final String val){
-        this.builder.equals(val);
-        return this;
+        return apply(new BuilderStep() {
+            @Override
+            public void apply(SelectorBuilder<Integer> builder) {
+                builder.equals(val);
+            }
+        });
     }
     
     /**
@@ -265,9 +485,13 @@ public class DataSelector { // NO_UCD
      * @param name
      * @return
      */
-    public DataSelector field(String name){
-        this.builder.field(name);
-        return this;
+    public DataSelector field(final String name){
+        return apply(new BuilderStep() {
+            @Override
+            public void apply(SelectorBuilder<Integer> builder) {
+                builder.field(name);
+            }
+        });
     }
     
     /**
@@ -277,8 +501,12 @@ public class DataSelector { // NO_UCD
      * @return
      */
     public DataSelector geq(final Date val){
-        this.builder.geq(val);
-        return this;
+        return apply(new BuilderStep() {
+            @Override
+            public void apply(SelectorBuilder<Integer> builder) {
+                builder.geq(val);
+            }
+        });
     }
     
     /**
@@ -288,8 +516,12 @@ public class DataSelector { // NO_UCD
      * @return
      */
     public DataSelector geq(final double val){
-        this.builder.geq(val);
-        return this;
+        return apply(new BuilderStep() {
+            @Override
+            public void apply(SelectorBuilder<Integer> builder) {
+                builder.geq(val);
+            }
+        });
     }
     
     /**
@@ -299,8 +531,12 @@ public class DataSelector { // NO_UCD
      * @return
      */
     public DataSelector geq(final String val){
-        this.builder.geq(val);
-        return this;
+        return apply(new BuilderStep() {
+            @Override
+            public void apply(SelectorBuilder<Integer> builder) {
+                builder.geq(val);
+            }
+        });
     }
     
     /**
@@ -310,8 +546,12 @@ public class DataSelector { // NO_UCD
      * @return
      */
     public DataSelector greater(final Date val){
-        this.builder.greater(val);
-        return this;
+        return apply(new BuilderStep() {
+            @Override
+            public void apply(SelectorBuilder<Integer> builder) {
+                builder.greater(val);
+            }
+        });
     }
     
     /**
@@ -321,8 +561,12 @@ public class DataSelector { // NO_UCD
      * @return
      */
     public DataSelector greater(final double val){
-        this.builder.greater(val);
-        return this;
+        return apply(new BuilderStep() {
+            @Override
+            public void apply(SelectorBuilder<Integer> builder) {
+                builder.greater(val);
+            }
+        });
     }
     
     /**
@@ -332,8 +576,12 @@ public class DataSelector { // NO_UCD
      * @return
      */
     public DataSelector greater(final String val){
-        this.builder.greater(val);
-        return this;
+        return apply(new BuilderStep() {
+            @Override
+            public void apply(SelectorBuilder<Integer> builder) {
+                builder.greater(val);
+            }
+        });
     }
     
     /**
@@ -343,13 +591,7 @@ public class DataSelector { // NO_UCD
      * @return
      */
     public boolean isSelected(int row){
-        if (selector == null) {
-            try {
-                build();
-            } catch (ParseException e) {
-                throw new RuntimeException(e);
-            }
-        }
+        compile();
         return selector.isSelected(row);
     }
 
@@ -363,8 +605,12 @@ public class DataSelector { // NO_UCD
      * @return
      */
     public DataSelector leq(final Date val){
-        this.builder.leq(val);
-        return this;
+        return apply(new BuilderStep() {
+            @Override
+            public void apply(SelectorBuilder<Integer> builder) {
+                builder.leq(val);
+            }
+        });
     }
     
     /*
@@ -377,8 +623,12 @@ public class DataSelector { // NO_UCD
      * @return
      */
     public DataSelector leq(final double val){
-        this.builder.leq(val);
-        return this;
+        return apply(new BuilderStep() {
+            @Override
+            public void apply(SelectorBuilder<Integer> builder) {
+                builder.leq(val);
+            }
+        });
     }
     
     /* **************************************
@@ -391,8 +641,12 @@ public class DataSelector { // NO_UCD
      * @return
      */
     public DataSelector leq(final String val){
-        this.builder.leq(val);
-        return this;
+        return apply(new BuilderStep() {
+            @Override
+            public void apply(SelectorBuilder<Integer> builder) {
+                builder.leq(val);
+            }
+        });
     }
     
     /**
@@ -402,8 +656,12 @@ public class DataSelector { // NO_UCD
      * @return
      */
     public DataSelector less(final Date val){
-        this.builder.less(val);
-        return this;
+        return apply(new BuilderStep() {
+            @Override
+            public void apply(SelectorBuilder<Integer> builder) {
+                builder.less(val);
+            }
+        });
     }
     
     /**
@@ -413,8 +671,12 @@ public class DataSelector { // NO_UCD
      * @return
      */
     public DataSelector less(final double val){
-        this.builder.less(val);
-        return this;
+        return apply(new BuilderStep() {
+            @Override
+            public void apply(SelectorBuilder<Integer> builder) {
+                builder.less(val);
+            }
+        });
     }
     
     /**
@@ -424,8 +686,12 @@ public class DataSelector { // NO_UCD
      * @return
      */
     public DataSelector less(final String val){
-        this.builder.less(val);
-        return this;
+        return apply(new BuilderStep() {
+            @Override
+            public void apply(SelectorBuilder<Integer> builder) {
+                builder.less(val);
+            }
+        });
     }
 
     /**
@@ -434,7 +700,183 @@ public class DataSelector { // NO_UCD
      * @return
      */
     public DataSelector or(){
-        this.builder.or();
+        return apply(new BuilderStep() {
+            @Override
+            public void apply(SelectorBuilder<Integer> builder) {
+                builder.or();
+            }
+        });
+    }
+
+    /**
+     * Returns the set of all rows selected by the expression.
+     *
+     * @return
+     */
+    public RowSet select() {
+        return select(1);
+    }
+
+    /**
+     * Returns the set of all rows selected by the expression. Blocks of rows are
+     * evaluated concurrently by the given number of threads, each with its own
+     * instance of the expression.
+     *
+     * @param numThreads
+     * @return
+     */
+    public RowSet select(int numThreads) {
+        
+        // Check
+        if (numThreads < 1) {
+            throw new IllegalArgumentException("Number of threads must be positive");
+        }
+        
+        // Prepare
+        compile();
+        final int[] columns = accessor.getColumns(builder.getFields());
+        final int rows = accessor.handle.getNumRows();
+        final long[] array = new long[(rows + 63) >>> 6];
+        final int blocks = Math.max(1, Math.min(numThreads, array.length));
+        int wordsPerBlock = (array.length + blocks - 1) / blocks;
+        
+        // Blocks are aligned to words, which are thus written by one thread only
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        for (int block = 0; block < blocks; block++) {
+            final int from = Math.min(rows, block * wordsPerBlock * 64);
+            final int to = Math.min(rows, (block + 1) * wordsPerBlock * 64);
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    if (blocks == 1) {
+                        select(accessor, selector, columns, from, to, array);
+                    } else {
+                        DataAccessor accessor = new DataAccessor(data);
+                        select(accessor, createSelector(accessor), columns, from, to, array);
+                    }
+                    return null;
+                }
+            });
+        }
+        
+        // Execute and return
+        TaskExecutor.execute("ARX selector", blocks, tasks);
+        return new RowSet(rows, array);
+    }
+
+    /**
+     * Applies the given step to the builder and stores it
+     * 
+     * @param step
+     * @return
+     */
+    private DataSelector apply(BuilderStep step) {
+        step.apply(this.builder);
+        this.steps.add(step);
         return this;
     }
+
+    /**
+     * Builds the selector, if this has not been done before
+     */
+    private synchronized void compile() {
+        if (selector == null) {
+            try {
+                build();
+            } catch (ParseException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    /**
+     * Builds another instance of the expression, which accesses data via the given accessor
+     * 
+     * @param accessor
+     * @return
+     * @throws ParseException
+     */
+    private Selector<Integer> createSelector(DataAccessor accessor) throws ParseException {
+        SelectorBuilder<Integer> builder = query == null ? new SelectorBuilder<Integer>(accessor) : new SelectorBuilder<Integer>(accessor, query);
+        for (BuilderStep step : steps) {
+            step.apply(builder);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Selects all rows in the given range. If the columns of the attributes the expression refers
+     * to are known, the result for a row is memorized for the combination of their codes.
+     * 
+     * @param accessor
+     * @param selector
+     * @param columns The columns, null if rows must be evaluated one by one
+     * @param from
+     * @param to
+     * @param array
+     */
+    private void select(DataAccessor accessor, Selector<Integer> selector, int[] columns, int from, int to, long[] array) {
+        
+        // Evaluate one by one
+        if (columns == null) {
+            for (int row = from; row < to; row++) {
+                if (selector.isSelected(row)) {
+                    array[row >>> 6] |= 1L << (row & 63);
+                }
+            }
+            return;
+        }
+        
+        // Prepare radix for combining codes into keys
+        long[] radix = new long[columns.length];
+        long combinations = 1;
+        for (int i = 0; i < columns.length; i++) {
+            radix[i] = combinations;
+            long size = accessor.getDomainSize(columns[i]);
+            combinations = combinations > Long.MAX_VALUE / Math.max(1, size) ? -1 : combinations * size;
+            if (combinations < 0) {
+                break;
+            }
+        }
+        
+        // Prepare memo: 0 = unknown, 1 = selected, 2 = not selected
+        byte[] dense = combinations >= 0 && combinations <= MAX_DENSE_MEMO ? new byte[(int)combinations] : null;
+        LongByteOpenHashMap sparse = combinations > MAX_DENSE_MEMO ? new LongByteOpenHashMap() : null;
+        
+        // Select
+        for (int row = from; row < to; row++) {
+            
+            boolean selected;
+            if (dense != null || sparse != null) {
+                
+                // Key
+                long key = 0;
+                for (int i = 0; i < columns.length; i++) {
+                    key += accessor.getCode(row, columns[i]) * radix[i];
+                }
+                
+                // Lookup
+                if (dense != null) {
+                    if (dense[(int)key] == 0) {
+                        dense[(int)key] = selector.isSelected(row) ? (byte)1 : (byte)2;
+                    }
+                    selected = dense[(int)key] == 1;
+                } else {
+                    byte result = sparse.get(key);
+                    if (result == 0) {
+                        result = selector.isSelected(row) ? (byte)1 : (byte)2;
+                        sparse.put(key, result);
+                    }
+                    selected = result == 1;
+                }
+            } else {
+                selected = selector.isSelected(row);
+            }
+            
+            // Store
+            if (selected) {
+                array[row >>> 6] |= 1L << (row & 63);
+            }
+        }
+    }
 }
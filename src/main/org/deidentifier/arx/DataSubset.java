@@ -143,23 +143,16 @@ public class DataSubset implements Serializable {
      */
     public static DataSubset create(Data data, DataSelector selector){
         
-        // Init
-        int rows = data.getHandle().getNumRows();
-        RowSet bitset = RowSet.create(data);
-        ArrayList<Integer> list = new ArrayList<Integer>();
-        
-        // Check
-        for (int i=0; i<rows; i++){
-            if (selector.isSelected(i)) {
-                bitset.add(i);
-                list.add(i);
-            }
-        }
+        // Select
+        RowSet bitset = selector.select();
         
         // Convert
-        int[] array = new int[list.size()];
-        for (int i=0; i<list.size(); i++){
-            array[i] = list.get(i);
+        int[] array = new int[bitset.size()];
+        int index = 0;
+        for (int i = 0; i < bitset.length() && index < array.length; i++) {
+            if (bitset.contains(i)) {
+                array[index++] = i;
+            }
         }
         
         // Return
@@ -86,6 +86,20 @@ public class RowSet implements Serializable, Cloneable {
         this.array = new long[chunks];
     }
 
+    /**
+     * Creates a new instance from the given bits
+     *
+     * @param length
+     * @param array
+     */
+    RowSet(int length, long[] array) {
+        this.length = length;
+        this.array = array;
+        for (long bits : array) {
+            this.size += Long.bitCount(bits);
+        }
+    }
+
     /**
      * Sets a bit
      *
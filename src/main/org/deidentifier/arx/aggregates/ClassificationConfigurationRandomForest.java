@@ -93,6 +93,7 @@ public class ClassificationConfigurationRandomForest extends ARXClassificationCo
      * @param numberOfFolds
      * @param seed
      * @param vectorLength
+     * @param numberOfThreads
      * @param numberOfTrees
      * @param numberOfVariablesToSplit
      * @param minimumSizeOfLeafNodes
@@ -105,13 +106,14 @@ public class ClassificationConfigurationRandomForest extends ARXClassificationCo
                                                     int numberOfFolds,
                                                     long seed,
                                                     int vectorLength,
+                                                    int numberOfThreads,
                                                     int numberOfTrees,
                                                     int numberOfVariablesToSplit,
                                                     int minimumSizeOfLeafNodes,
                                                     int maximumNumberOfLeafNodes,
                                                     double subsample,
                                                     SplitRule splitRule) {
-        super(deterministic, maxRecords, numberOfFolds, seed, vectorLength);
+        super(deterministic, maxRecords, numberOfFolds, seed, vectorLength, numberOfThreads);
         this.numberOfTrees = numberOfTrees;
         this.numberOfVariablesToSplit = numberOfVariablesToSplit;
         this.minimumSizeOfLeafNodes = minimumSizeOfLeafNodes;
@@ -127,6 +129,7 @@ public class ClassificationConfigurationRandomForest extends ARXClassificationCo
                                                          super.getNumFolds(),
                                                          super.getSeed(),
                                                          super.getVectorLength(),
+                                                         super.getNumberOfThreads(),
                                                          numberOfTrees,
                                                          numberOfVariablesToSplit,
                                                          minimumSizeOfLeafNodes,
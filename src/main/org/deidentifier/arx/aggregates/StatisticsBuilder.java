@@ -19,6 +19,8 @@ package org.deidentifier.arx.aggregates;
 
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
@@ -27,9 +29,8 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
-import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
-import org.apache.commons.math3.stat.descriptive.moment.GeometricMean;
 import org.deidentifier.arx.ARXClassificationConfiguration;
 import org.deidentifier.arx.ARXConfiguration;
 import org.deidentifier.arx.ARXFeatureScaling;
@@ -41,13 +42,16 @@ import org.deidentifier.arx.DataType;
 import org.deidentifier.arx.DataType.ARXString;
 import org.deidentifier.arx.DataType.DataTypeWithRatioScale;
 import org.deidentifier.arx.aggregates.StatisticsContingencyTable.Entry;
+import org.deidentifier.arx.aggregates.StatisticsSummary.StatisticsSummaryNumeric;
 import org.deidentifier.arx.aggregates.StatisticsSummary.StatisticsSummaryOrdinal;
 import org.deidentifier.arx.common.Groupify;
 import org.deidentifier.arx.common.Groupify.Group;
+import org.deidentifier.arx.common.TaskExecutor;
 import org.deidentifier.arx.common.TupleWrapper;
 import org.deidentifier.arx.common.WrappedBoolean;
 import org.deidentifier.arx.common.WrappedInteger;
 import org.deidentifier.arx.exceptions.ComputationInterruptedException;
+import org.deidentifier.arx.framework.data.TypedValues;
 
 import cern.colt.GenericSorting;
 import cern.colt.Swapper;
@@ -766,7 +770,7 @@ public class StatisticsBuilder {
         }
 
         // Build and return
-        return new StatisticsQuality(input.getHandle(), output, config, interrupt, progress, qis);
+        return new StatisticsQuality(input, output.getStatistics().handle, config, interrupt, progress, qis);
     }
 
     /**
@@ -792,10 +796,9 @@ public class StatisticsBuilder {
         // Reset stop flag
         interrupt.value = false;
         
-        Map<String, DescriptiveStatistics> statistics = new HashMap<String, DescriptiveStatistics>();
+        Map<String, StatisticsSummaryNumeric> statistics = new HashMap<String, StatisticsSummaryNumeric>();
         Map<String, StatisticsSummaryOrdinal> ordinal = new HashMap<String, StatisticsSummaryOrdinal>();
         Map<String, DataScale> scales = new HashMap<String, DataScale>();
-        Map<String, GeometricMean> geomean = new HashMap<String, GeometricMean>();
         
         // Detect scales
         for (int col = 0; col < handle.getNumColumns(); col++) {
@@ -817,55 +820,122 @@ public class StatisticsBuilder {
             
             // Store
             scales.put(attribute, scale);
-            statistics.put(attribute, new DescriptiveStatistics());
-            geomean.put(attribute, new GeometricMean());
+            statistics.put(attribute, new StatisticsSummaryNumeric());
             ordinal.put(attribute, getSummaryStatisticsOrdinal(handle.getGeneralization(attribute),
                                                                handle.getDataType(attribute),
                                                                handle.getBaseDataType(attribute),
                                                                getHierarchy(col, true)));
         }
         
-        // Compute summary statistics
-        for (int row = 0; row < handle.getNumRows(); row++) {
-            
-            // Check, if we should include this row
-            boolean include = true;
-            if (listwiseDeletion) {
-                for (int col = 0; col < handle.getNumColumns(); col++) {
-                    if (handle.isOutlier(row) || DataType.isNull(handle.getValue(row, col))) {
-                        include = false;
-                        break;
-                    }
+        // Prepare threads, which are shared by all steps
+        TaskExecutor executor = new TaskExecutor("ARX statistics", Math.min(getNumberOfThreads(), handle.getNumColumns()));
+        try {
+            return getSummaryStatistics(listwiseDeletion, executor, statistics, ordinal, scales);
+        } finally {
+            executor.shutdown();
+        }
+    }
+    
+    /**
+     * Returns summary statistics for all attributes.
+     * 
+     * @param listwiseDeletion A flag enabling list-wise deletion
+     * @param executor
+     * @param statistics
+     * @param ordinal
+     * @param scales
+     * @return
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private <T> Map<String, StatisticsSummary<?>> getSummaryStatistics(boolean listwiseDeletion,
+                                                                       TaskExecutor executor,
+                                                                       Map<String, StatisticsSummaryNumeric> statistics,
+                                                                       Map<String, StatisticsSummaryOrdinal> ordinal,
+                                                                       Map<String, DataScale> scales) {
+        
+        // Determine rows to exclude
+        final BitSet excluded = listwiseDeletion ? getRowsToExclude(executor) : null;
+        
+        // Compute histograms over codes, one column per task
+        final int[][] histograms = new int[handle.getNumColumns()][];
+        final String[][] values = new String[handle.getNumColumns()][];
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        for (int col = 0; col < handle.getNumColumns(); col++) {
+            final int column = col;
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    values[column] = new String[0];
+                    histograms[column] = getHistogram(column, excluded, values);
+                    return null;
                 }
-            }
+            });
+        }
+        executor.execute(tasks);
+        
+        // Compute ordinal statistics, using the parsed values of the dictionaries
+        final double[][] doubleValues = new double[handle.getNumColumns()][];
+        final boolean[][] included = new boolean[handle.getNumColumns()][];
+        for (int col = 0; col < handle.getNumColumns(); col++) {
             
             // Check
             checkInterrupt();
             
-            // If yes, add
-            if (include) {
+            // Meta
+            String attribute = handle.getAttributeName(col);
+            DataType<?> type = handle.getDataType(attribute);
+            int[] histogram = histograms[col];
+            included[col] = new boolean[histogram.length];
+            TypedValues view = null;
+            if (type instanceof DataTypeWithRatioScale) {
+                doubleValues[col] = new double[histogram.length];
+                view = handle.getTypedValues(col, type);
+            }
+            
+            // For each distinct value
+            for (int code = 0; code < histogram.length; code++) {
                 
-                // For each column
-                for (int col = 0; col < handle.getNumColumns(); col++) {
-                    
-                    // Meta
-                    String value = handle.getValue(row, col);
-                    String attribute = handle.getAttributeName(col);
-                    DataType<?> type = handle.getDataType(attribute);
-                    
-                    // Analyze
-                    if (!DataType.isAny(value) && !DataType.isNull(value)) {
-                        ordinal.get(attribute).addValue(value);
-                        if (type instanceof DataTypeWithRatioScale) {
-                            double doubleValue = ((DataTypeWithRatioScale) type).toDouble(type.parse(value));
-                            statistics.get(attribute).addValue(doubleValue);
-                            geomean.get(attribute).increment(doubleValue + 1d);
-                        }
+                // Analyze
+                String value = values[col][code];
+                if (histogram[code] != 0 && !DataType.isAny(value) && !DataType.isNull(value)) {
+                    included[col][code] = true;
+                    ordinal.get(attribute).addValue(value, histogram[code]);
+                    if (view != null && code != 0 && view.isValid(code - 1) && !view.isNull(code - 1)) {
+                        doubleValues[col][code] = view.getDouble(code - 1);
+                    } else if (doubleValues[col] != null) {
+                        doubleValues[col][code] = ((DataTypeWithRatioScale) type).toDouble(type.parse(value));
                     }
                 }
             }
         }
         
+        // Compute numeric statistics in the order of rows, one column per task
+        tasks.clear();
+        for (int col = 0; col < handle.getNumColumns(); col++) {
+            final int column = col;
+            final StatisticsSummaryNumeric summary = statistics.get(handle.getAttributeName(col));
+            if (doubleValues[col] != null) {
+                tasks.add(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        for (int pass = 0; pass < StatisticsSummaryNumeric.PASSES; pass++) {
+                            for (int row = 0; row < handle.getNumRows(); row++) {
+                                if ((row & 0xFFFF) == 0) {
+                                    checkInterrupt();
+                                }
+                                int code = handle.getEncodedValue(row, column, false) + 1;
+                                if (included[column][code] && (excluded == null || !excluded.get(row))) {
+                                    summary.addValue(pass, doubleValues[column][code]);
+                                }
+                            }
+                        }
+                        return null;
+                    }
+                });
+            }
+        }
+        executor.execute(tasks);
+        
         // Convert
         Map<String, StatisticsSummary<?>> result = new HashMap<String, StatisticsSummary<?>>();
         for (int col = 0; col < handle.getNumColumns(); col++) {
@@ -900,14 +970,17 @@ public class StatisticsBuilder {
                                                                type.parse(stats.getMax())));
             } else if (scale == DataScale.INTERVAL) {
                 StatisticsSummaryOrdinal stats = ordinal.get(attribute);
-                DescriptiveStatistics stats2 = statistics.get(attribute);
+                StatisticsSummaryNumeric stats2 = statistics.get(attribute);
                 boolean isPeriod = type.getDescription().getWrappedClass() == Date.class;
                 
                 // TODO: Something is wrong with commons math's kurtosis
                 double kurtosis = stats2.getKurtosis();
                 kurtosis = kurtosis < 0d ? Double.NaN : kurtosis;
+                double mean = stats2.getMean();
+                double variance = stats2.getVariance();
+                double populationVariance = stats2.getPopulationVariance();
                 double range = stats2.getMax() - stats2.getMin();
-                double stddev = Math.sqrt(stats2.getVariance());
+                double stddev = Math.sqrt(variance);
                 
                 result.put(attribute, new StatisticsSummary<T>(DataScale.INTERVAL,
                                                                stats.getNumberOfMeasures(),
@@ -920,34 +993,37 @@ public class StatisticsBuilder {
                                                                type.parse(stats.getMin()),
                                                                stats.getMax(),
                                                                type.parse(stats.getMax()),
-                                                               toString(type, stats2.getMean(), false, false),
-                                                               toValue(type, stats2.getMean()),
-                                                               stats2.getMean(),
-                                                               toString(type, stats2.getVariance(), isPeriod, true),
-                                                               toValue(type, stats2.getVariance()),
-                                                               stats2.getVariance(),
-                                                               toString(type, stats2.getPopulationVariance(), isPeriod, true),
-                                                               toValue(type, stats2.getPopulationVariance()),
-                                                               stats2.getPopulationVariance(),
+                                                               toString(type, mean, false, false),
+                                                               toValue(type, mean),
+                                                               mean,
+                                                               toString(type, variance, isPeriod, true),
+                                                               toValue(type, variance),
+                                                               variance,
+                                                               toString(type, populationVariance, isPeriod, true),
+                                                               toValue(type, populationVariance),
+                                                               populationVariance,
                                                                toString(type, stddev, isPeriod, false),
                                                                toValue(type, stddev),
                                                                stddev,
                                                                toString(type, range, isPeriod, false),
                                                                toValue(type, range),
-                                                               stats2.getMax() - stats2.getMin(),
+                                                               range,
                                                                toString(type, kurtosis, isPeriod, false),
                                                                toValue(type, kurtosis),
                                                                kurtosis));
             } else if (scale == DataScale.RATIO) {
                 StatisticsSummaryOrdinal stats = ordinal.get(attribute);
-                DescriptiveStatistics stats2 = statistics.get(attribute);
-                GeometricMean geo = geomean.get(attribute);
+                StatisticsSummaryNumeric stats2 = statistics.get(attribute);
                 
                 // TODO: Something is wrong with commons math's kurtosis
                 double kurtosis = stats2.getKurtosis();
                 kurtosis = kurtosis < 0d ? Double.NaN : kurtosis;
+                double mean = stats2.getMean();
+                double variance = stats2.getVariance();
+                double populationVariance = stats2.getPopulationVariance();
                 double range = stats2.getMax() - stats2.getMin();
-                double stddev = Math.sqrt(stats2.getVariance());
+                double stddev = Math.sqrt(variance);
+                double geometricMean = stats2.getGeometricMeanPlusOne() - 1d;
                 
                 result.put(attribute, new StatisticsSummary<T>(DataScale.RATIO,
                                                                stats.getNumberOfMeasures(),
@@ -960,15 +1036,15 @@ public class StatisticsBuilder {
                                                                type.parse(stats.getMin()),
                                                                stats.getMax(),
                                                                type.parse(stats.getMax()),
-                                                               toString(type, stats2.getMean(), false, false),
-                                                               toValue(type, stats2.getMean()),
-                                                               stats2.getMean(),
-                                                               toString(type, stats2.getVariance(), false, false),
-                                                               toValue(type, stats2.getVariance()),
-                                                               stats2.getVariance(),
-                                                               toString(type, stats2.getPopulationVariance(), false, false),
-                                                               toValue(type, stats2.getPopulationVariance()),
-                                                               stats2.getPopulationVariance(),
+                                                               toString(type, mean, false, false),
+                                                               toValue(type, mean),
+                                                               mean,
+                                                               toString(type, variance, false, false),
+                                                               toValue(type, variance),
+                                                               variance,
+                                                               toString(type, populationVariance, false, false),
+                                                               toValue(type, populationVariance),
+                                                               populationVariance,
                                                                toString(type, stddev, false, false),
                                                                toValue(type, stddev),
                                                                stddev,
@@ -978,8 +1054,8 @@ public class StatisticsBuilder {
                                                                toString(type, kurtosis, false, false),
                                                                toValue(type, kurtosis),
                                                                kurtosis,
-                                                               toString(type, geo.getResult() - 1d, false, false),
-                                                               toValue(type, geo.getResult() - 1d),
+                                                               toString(type, geometricMean, false, false),
+                                                               toValue(type, geometricMean),
                                                                stats2.getGeometricMean()));
             }
         }
@@ -996,6 +1072,16 @@ public class StatisticsBuilder {
         }
     }
     
+    /**
+     * Returns the number of threads configured for the associated anonymization, one if there is none
+     * 
+     * @return
+     */
+    private int getNumberOfThreads() {
+        ARXConfiguration config = handle.getConfiguration();
+        return config == null ? 1 : config.getNumberOfThreads();
+    }
+    
     /**
      * Returns the appropriate hierarchy, if any.
      *
@@ -1018,6 +1104,41 @@ public class StatisticsBuilder {
         }
     }
     
+    /**
+     * Returns a histogram of the codes in the given column, shifted by one to account for
+     * suppressed values, which are encoded as -1. The value of each code found is stored in
+     * the given array.
+     * 
+     * @param column
+     * @param excluded Rows to ignore, may be null
+     * @param values
+     * @return
+     */
+    private int[] getHistogram(int column, BitSet excluded, String[][] values) {
+        
+        int[] histogram = new int[0];
+        for (int row = 0; row < handle.getNumRows(); row++) {
+            
+            // Check
+            if ((row & 0xFFFF) == 0) {
+                checkInterrupt();
+            }
+            
+            // Count
+            if (excluded == null || !excluded.get(row)) {
+                int code = handle.getEncodedValue(row, column, false) + 1;
+                if (code >= histogram.length) {
+                    histogram = Arrays.copyOf(histogram, Math.max(code + 1, histogram.length * 2));
+                    values[column] = Arrays.copyOf(values[column], histogram.length);
+                }
+                if (histogram[code]++ == 0) {
+                    values[column][code] = handle.getValue(row, column, false);
+                }
+            }
+        }
+        return histogram;
+    }
+    
     /**
      * Scales the given string array.
      *
@@ -1054,6 +1175,62 @@ public class StatisticsBuilder {
         return result;
     }
     
+    /**
+     * Returns the rows to exclude with list-wise deletion, i.e. suppressed rows and
+     * rows with a missing value in any column
+     * 
+     * @param executor
+     * @return
+     */
+    private BitSet getRowsToExclude(TaskExecutor executor) {
+        
+        // Missing values, one column per task
+        final BitSet[] missing = new BitSet[handle.getNumColumns()];
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        for (int col = 0; col < handle.getNumColumns(); col++) {
+            final int column = col;
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    BitSet result = new BitSet();
+                    byte[] isNull = new byte[0];
+                    for (int row = 0; row < handle.getNumRows(); row++) {
+                        if ((row & 0xFFFF) == 0) {
+                            checkInterrupt();
+                        }
+                        int code = handle.getEncodedValue(row, column, false) + 1;
+                        if (code >= isNull.length) {
+                            isNull = Arrays.copyOf(isNull, Math.max(code + 1, isNull.length * 2));
+                        }
+                        if (isNull[code] == 0) {
+                            isNull[code] = DataType.isNull(handle.getValue(row, column, false)) ? (byte) 1 : (byte) 2;
+                        }
+                        if (isNull[code] == 1) {
+                            result.set(row);
+                        }
+                    }
+                    missing[column] = result;
+                    return null;
+                }
+            });
+        }
+        executor.execute(tasks);
+        
+        // Merge
+        BitSet result = new BitSet();
+        if (handle.getNumColumns() != 0) {
+            for (BitSet rows : missing) {
+                result.or(rows);
+            }
+            for (int row = 0; row < handle.getNumRows(); row++) {
+                if (handle.isOutlier(row)) {
+                    result.set(row);
+                }
+            }
+        }
+        return result;
+    }
+    
     /**
      * Returns a summary statistics object for the given attribute
      * @param generalization
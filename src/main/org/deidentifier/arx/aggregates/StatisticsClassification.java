@@ -24,6 +24,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.deidentifier.arx.ARXClassificationConfiguration;
 import org.deidentifier.arx.ARXFeatureScaling;
@@ -35,6 +37,7 @@ import org.deidentifier.arx.aggregates.classification.MultiClassLogisticRegressi
 import org.deidentifier.arx.aggregates.classification.MultiClassNaiveBayes;
 import org.deidentifier.arx.aggregates.classification.MultiClassRandomForest;
 import org.deidentifier.arx.aggregates.classification.MultiClassZeroR;
+import org.deidentifier.arx.common.TaskExecutor;
 import org.deidentifier.arx.common.WrappedBoolean;
 import org.deidentifier.arx.common.WrappedInteger;
 import org.deidentifier.arx.exceptions.ComputationInterruptedException;
@@ -52,6 +55,55 @@ import cern.colt.function.IntComparator;
  */
 public class StatisticsClassification {
 
+    /**
+     * The results of evaluating one type of classifier, stored in the order of evaluation
+     * 
+     * @author Fabian Prasser
+     */
+    private static class Evaluation {
+
+        /** Confidences - (index, conf-1, ..., conf-numClasses), (index, conf-1, ..., numClasses), etc. */
+        private final double[]  confidences;
+        /** Errors */
+        private final double[]  errors;
+        /** Correct classifications */
+        private final boolean[] correct;
+        /** Whether a record has been classified */
+        private final boolean[] classified;
+        /** Number of classes */
+        private final int       numClasses;
+
+        /**
+         * Creates a new instance
+         * @param numRecords
+         * @param numClasses
+         */
+        private Evaluation(int numRecords, int numClasses) {
+            this.confidences = new double[numRecords * (1 + numClasses)];
+            this.errors = new double[numRecords];
+            this.correct = new boolean[numRecords];
+            this.classified = new boolean[numRecords];
+            this.numClasses = numClasses;
+        }
+
+        /**
+         * Stores the result for the record at the given position
+         * @param position
+         * @param index
+         * @param result
+         * @param actualValue
+         */
+        private void set(int position, int index, ClassificationResult result, String actualValue) {
+            this.correct[position] = result.correct(actualValue);
+            this.errors[position] = result.error(actualValue);
+            this.classified[position] = true;
+            double[] confidences = result.confidences();
+            int offset = position * (numClasses + 1);
+            this.confidences[offset] = index;
+            System.arraycopy(confidences, 0, this.confidences, offset + 1, confidences.length);
+        }
+    }
+
     /**
      * A ROC curve
      * 
@@ -312,11 +364,11 @@ public class StatisticsClassification {
      * @param progress 
      * @throws ParseException 
      */
-    StatisticsClassification(DataHandleInternal inputHandle,
-                             DataHandleInternal outputHandle,
+    StatisticsClassification(final DataHandleInternal inputHandle,
+                             final DataHandleInternal outputHandle,
                              String[] features,
                              String clazz,
-                             ARXClassificationConfiguration<?> config,
+                             final ARXClassificationConfiguration<?> config,
                              ARXFeatureScaling scaling, 
                              WrappedBoolean interrupt,
                              WrappedInteger progress) throws ParseException {
@@ -348,110 +400,58 @@ public class StatisticsClassification {
         
         // Train and evaluate
         int k = numSamples > config.getNumFolds() ? config.getNumFolds() : numSamples;
-        List<List<Integer>> folds = getFolds(inputHandle.getNumRows(), numSamples, k);
+        final List<List<Integer>> folds = getFolds(inputHandle.getNumRows(), numSamples, k);
 
         // Track
+        final double total = 100d / ((double)numSamples * (double)folds.size());
+        final AtomicLong done = new AtomicLong();
+        
+        // Position of the first record of each fold in the order of evaluation
+        int[] offsets = new int[folds.size()];
         int classifications = 0;
-        double total = 100d / ((double)numSamples * (double)folds.size());
-        double done = 0d;
+        for (int fold = 0; fold < folds.size(); fold++) {
+            offsets[fold] = classifications;
+            classifications += folds.get(fold).size();
+        }
         
-        // ROC
-        double[] inputConfidences = new double[numSamples * ( 1 + numClasses)];
-        double[] outputConfidences = (inputHandle == outputHandle) ? null : new double[numSamples * ( 1 + numClasses)];
-        double[] zerorConfidences = new double[numSamples * ( 1 + numClasses)];
-        int confidencesIndex = 0;
-                
-        // For each fold as a validation set
-        for (int evaluationFold = 0; evaluationFold < folds.size(); evaluationFold++) {
-            
-            // Create classifiers
-            ClassificationMethod inputClassifier = getClassifier(interrupt, specification, config, inputHandle);
-            ClassificationMethod inputZeroR = new MultiClassZeroR(interrupt, specification);
-            ClassificationMethod outputClassifier = null;
-            if (inputHandle != outputHandle) {
-                outputClassifier = getClassifier(interrupt, specification, config, inputHandle);
-            }
-            
-            // Try
-            try {
-                
-                // Train with all training sets
-                boolean trained = false;
-                for (int trainingFold = 0; trainingFold < folds.size(); trainingFold++) {
-                    if (trainingFold != evaluationFold) {                        
-                        for (int index : folds.get(trainingFold)) {
-                            checkInterrupt();
-                            inputClassifier.train(inputHandle, outputHandle, index);
-                            inputZeroR.train(inputHandle, outputHandle, index);
-                            if (outputClassifier != null && !outputHandle.isOutlier(index)) {
-                                outputClassifier.train(outputHandle, outputHandle, index);
-                                trained = true;
-                            }
-                            this.progress.value = (int)((++done) * total);
-                        }
-                    }
-                }
-                
-                // Close
-                inputClassifier.close();
-                inputZeroR.close();
-                if (outputClassifier != null && trained) {
-                    outputClassifier.close();
-                }
-                
-                // Now validate
-                for (int index : folds.get(evaluationFold)) {
-                    
-                    // Check
-                    checkInterrupt();
-                    
-                    // Classify
-                    ClassificationResult resultInput = inputClassifier.classify(inputHandle, index);
-                    ClassificationResult resultInputZR = inputZeroR.classify(inputHandle, index);
-                    ClassificationResult resultOutput = outputClassifier == null || !trained ? null : outputClassifier.classify(outputHandle, index);
-                    classifications++;
-                        
-                    // Correct result
-                    String actualValue = outputHandle.getValue(index, specification.classIndex, true);
-                        
-                    // Maintain data about ZeroR
-                    this.zeroRAverageError += resultInputZR.error(actualValue);
-                    this.zeroRAccuracy += resultInputZR.correct(actualValue) ? 1d : 0d;
-                    double[] confidences = resultInputZR.confidences();
-                    zerorConfidences[confidencesIndex] = index;
-                    System.arraycopy(confidences, 0, zerorConfidences, confidencesIndex + 1, confidences.length);
-
-                    // Maintain data about input-based classifier
-                    boolean correct = resultInput.correct(actualValue);
-                    this.originalAverageError += resultInput.error(actualValue);
-                    this.originalAccuracy += correct ? 1d : 0d;
-                    confidences = resultInput.confidences();
-                    inputConfidences[confidencesIndex] = index;
-                    System.arraycopy(confidences, 0, inputConfidences, confidencesIndex + 1, confidences.length);
-
-                    // Maintain data about output-based                     
-                    if (resultOutput != null) {
-                        correct = resultOutput.correct(actualValue);
-                        this.averageError += resultOutput.error(actualValue);
-                        this.accuracy += correct ? 1d : 0d;
-                        confidences = resultOutput.confidences();
-                        outputConfidences[confidencesIndex] = index;
-                        System.arraycopy(confidences, 0, outputConfidences, confidencesIndex + 1, confidences.length);
-                    }
-                        
-                    // Next
-                    confidencesIndex += numClasses + 1;
-                    
-                    this.progress.value = (int)((++done) * total);
-                }
-            } catch (Exception e) {
-                if (e instanceof ComputationInterruptedException) {
-                    throw e;
-                } else {
-                    throw new UnexpectedErrorException(e);
+        // Results
+        final Evaluation zeror = new Evaluation(classifications, numClasses);
+        final Evaluation input = new Evaluation(classifications, numClasses);
+        final Evaluation output = (inputHandle == outputHandle) ? null : new Evaluation(classifications, numClasses);
+        
+        // Tasks, one for each fold as a validation set
+        List<Callable<Void>> tasks = new ArrayList<>();
+        int numThreads = Math.min(config.getNumberOfThreads(), folds.size());
+        for (int fold = 0; fold < folds.size(); fold++) {
+            final int evaluationFold = fold;
+            final int offset = offsets[fold];
+            final ClassificationDataSpecification taskSpecification = numThreads <= 1 ? specification : specification.clone();
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    evaluate(inputHandle, outputHandle, taskSpecification, config, folds, evaluationFold, offset, zeror, input, output, done, total);
+                    return null;
                 }
+            });
+        }
+        
+        // Execute
+        TaskExecutor.execute("ARX classification", numThreads, tasks);
+        
+        // Aggregate in the order of evaluation
+        for (int position = 0; position < classifications; position++) {
+            this.zeroRAverageError += zeror.errors[position];
+            this.zeroRAccuracy += zeror.correct[position] ? 1d : 0d;
+            this.originalAverageError += input.errors[position];
+            this.originalAccuracy += input.correct[position] ? 1d : 0d;
+            if (output != null && output.classified[position]) {
+                this.averageError += output.errors[position];
+                this.accuracy += output.correct[position] ? 1d : 0d;
             }
         }
+        double[] zerorConfidences = zeror.confidences;
+        double[] inputConfidences = input.confidences;
+        double[] outputConfidences = output == null ? null : output.confidences;
         
         // Maintain data about inputZR
         this.zeroRAverageError /= (double)classifications;
@@ -543,6 +543,104 @@ public class StatisticsClassification {
         return brier / (double) records;
     }
 
+    /**
+     * Trains classifiers with all but the given fold and evaluates them with the given fold
+     * @param inputHandle
+     * @param outputHandle
+     * @param specification
+     * @param config
+     * @param folds
+     * @param evaluationFold
+     * @param offset - Position of the first record of the fold in the order of evaluation
+     * @param zeror
+     * @param input
+     * @param output
+     * @param done
+     * @param total
+     */
+    private void evaluate(DataHandleInternal inputHandle,
+                          DataHandleInternal outputHandle,
+                          ClassificationDataSpecification specification,
+                          ARXClassificationConfiguration<?> config,
+                          List<List<Integer>> folds,
+                          int evaluationFold,
+                          int offset,
+                          Evaluation zeror,
+                          Evaluation input,
+                          Evaluation output,
+                          AtomicLong done,
+                          double total) {
+
+        // Create classifiers
+        ClassificationMethod inputClassifier = getClassifier(interrupt, specification, config, inputHandle);
+        ClassificationMethod inputZeroR = new MultiClassZeroR(interrupt, specification);
+        ClassificationMethod outputClassifier = null;
+        if (inputHandle != outputHandle) {
+            outputClassifier = getClassifier(interrupt, specification, config, inputHandle);
+        }
+        
+        // Try
+        try {
+            
+            // Train with all training sets
+            boolean trained = false;
+            for (int trainingFold = 0; trainingFold < folds.size(); trainingFold++) {
+                if (trainingFold != evaluationFold) {                        
+                    for (int index : folds.get(trainingFold)) {
+                        checkInterrupt();
+                        inputClassifier.train(inputHandle, outputHandle, index);
+                        inputZeroR.train(inputHandle, outputHandle, index);
+                        if (outputClassifier != null && !outputHandle.isOutlier(index)) {
+                            outputClassifier.train(outputHandle, outputHandle, index);
+                            trained = true;
+                        }
+                        this.progress.value = (int)(done.incrementAndGet() * total);
+                    }
+                }
+            }
+            
+            // Close
+            inputClassifier.close();
+            inputZeroR.close();
+            if (outputClassifier != null && trained) {
+                outputClassifier.close();
+            }
+            
+            // Now validate
+            int position = offset;
+            for (int index : folds.get(evaluationFold)) {
+                
+                // Check
+                checkInterrupt();
+                
+                // Classify
+                ClassificationResult resultInput = inputClassifier.classify(inputHandle, index);
+                ClassificationResult resultInputZR = inputZeroR.classify(inputHandle, index);
+                ClassificationResult resultOutput = outputClassifier == null || !trained ? null : outputClassifier.classify(outputHandle, index);
+                    
+                // Correct result
+                String actualValue = outputHandle.getValue(index, specification.classIndex, true);
+                    
+                // Maintain data
+                zeror.set(position, index, resultInputZR, actualValue);
+                input.set(position, index, resultInput, actualValue);
+                if (resultOutput != null) {
+                    output.set(position, index, resultOutput, actualValue);
+                }
+                    
+                // Next
+                position++;
+                this.progress.value = (int)(done.incrementAndGet() * total);
+            }
+        } catch (Exception e) {
+            if (e instanceof ComputationInterruptedException) {
+                throw e;
+            } else {
+                throw new UnexpectedErrorException(e);
+            }
+        }
+    }
+
     /**
      * Returns the resulting accuracy. Obtained by generating a
      * classification model from the output (or input) dataset.
@@ -23,11 +23,14 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 import org.deidentifier.arx.ARXConfiguration;
 import org.deidentifier.arx.DataHandle;
+import org.deidentifier.arx.DataHandleInternal;
 import org.deidentifier.arx.DataType;
 import org.deidentifier.arx.aggregates.quality.QualityConfiguration;
+import org.deidentifier.arx.aggregates.quality.QualityData;
 import org.deidentifier.arx.aggregates.quality.QualityDomainShare;
 import org.deidentifier.arx.aggregates.quality.QualityDomainShareRaw;
 import org.deidentifier.arx.aggregates.quality.QualityDomainShareRedaction;
@@ -42,8 +45,7 @@ import org.deidentifier.arx.aggregates.quality.QualityModelRowOrientedAmbiguity;
 import org.deidentifier.arx.aggregates.quality.QualityModelRowOrientedDiscernibility;
 import org.deidentifier.arx.aggregates.quality.QualityModelRowOrientedSSESST;
 import org.deidentifier.arx.aggregates.quality.QualityModelRowOrientedSquaredError;
-import org.deidentifier.arx.common.Groupify;
-import org.deidentifier.arx.common.TupleWrapper;
+import org.deidentifier.arx.common.TaskExecutor;
 import org.deidentifier.arx.common.WrappedBoolean;
 import org.deidentifier.arx.common.WrappedInteger;
 import org.deidentifier.arx.exceptions.ComputationInterruptedException;
@@ -55,6 +57,99 @@ import org.deidentifier.arx.exceptions.ComputationInterruptedException;
  */
 public class StatisticsQuality {
 
+    /**
+     * Evaluates a quality model. If the model fails, the task silently yields an empty measure.
+     *
+     * @param <T>
+     */
+    private abstract static class QualityTask<T> implements Callable<Void> {
+
+        /** Workload */
+        protected final int            workload;
+        /** Progress */
+        protected final WrappedInteger progress = new WrappedInteger();
+        /** Result */
+        private T                      result;
+
+        /**
+         * Creates a new instance
+         * @param workload
+         */
+        QualityTask(int workload) {
+            this.workload = workload;
+        }
+
+        @Override
+        public Void call() {
+            try {
+                result = evaluate();
+            } catch (Exception e) {
+                // Fail silently
+                progress.value = workload;
+                result = getEmptyResult();
+            }
+            return null;
+        }
+
+        /**
+         * Returns the result
+         * @return
+         */
+        T getResult() {
+            return result;
+        }
+
+        /**
+         * Evaluates the model
+         * @return
+         */
+        protected abstract T evaluate();
+
+        /**
+         * Returns an empty measure
+         * @return
+         */
+        protected abstract T getEmptyResult();
+    }
+
+    /**
+     * Evaluates a column-oriented quality model
+     */
+    private abstract static class QualityTaskColumnOriented extends QualityTask<QualityMeasureColumnOriented> {
+
+        /**
+         * Creates a new instance
+         * @param workload
+         */
+        QualityTaskColumnOriented(int workload) {
+            super(workload);
+        }
+
+        @Override
+        protected QualityMeasureColumnOriented getEmptyResult() {
+            return new QualityMeasureColumnOriented();
+        }
+    }
+
+    /**
+     * Evaluates a row-oriented quality model
+     */
+    private abstract static class QualityTaskRowOriented extends QualityTask<QualityMeasureRowOriented> {
+
+        /**
+         * Creates a new instance
+         * @param workload
+         */
+        QualityTaskRowOriented(int workload) {
+            super(workload);
+        }
+
+        @Override
+        protected QualityMeasureRowOriented getEmptyResult() {
+            return new QualityMeasureRowOriented();
+        }
+    }
+
     /** Column-oriented model */
     private QualityMeasureColumnOriented       loss;
     /** Column-oriented model */
@@ -82,6 +177,9 @@ public class StatisticsQuality {
     /** Quality */
     private final QualityMeasureColumnOriented missings;
 
+    /** Interval in which the progress of concurrently evaluated models is aggregated */
+    private static final long                  PROGRESS_INTERVAL = 100;
+
     /** State */
     private WrappedBoolean                     stop;
     /** State */
@@ -96,8 +194,8 @@ public class StatisticsQuality {
      * @param progress
      * @param qis
      */
-    StatisticsQuality(DataHandle input,
-                      DataHandle output,
+    StatisticsQuality(DataHandleInternal input,
+                      DataHandleInternal output,
                       ARXConfiguration config,
                       WrappedBoolean stop,
                       WrappedInteger progress,
@@ -108,27 +206,28 @@ public class StatisticsQuality {
         this.progress = progress;
         
         // Build config
-        QualityConfiguration configuration = new QualityConfiguration();
+        final QualityConfiguration configuration = new QualityConfiguration();
         // TODO: Do something with ARXConfiguration here.
         
         // Extract quasi-identifiers
-        int[] indices = getIndicesOfQuasiIdentifiers(qis, input);
+        int[] indices = getIndicesOfQuasiIdentifiers(qis, input.getHandle());
         
         // Basic measures
-        this.attributes = getAttributes(output, indices);
-        this.datatypes = getDataTypes(output, indices);
+        this.attributes = getAttributes(output.getHandle(), indices);
+        this.datatypes = getDataTypes(output.getHandle(), indices);
         this.progress.value = 2;
-        this.missings = getMissings(output, indices);
-        this.progress.value = 4;
 
         // Special case: we are checking the input dataset
-        if (input == output) {
+        if (input.getHandle() == output.getHandle()) {
+            
+            // Missings
+            this.missings = getMissings(output.getHandle(), null, indices);
             
             // Column oriented
-            this.loss = new QualityMeasureColumnOriented(input, indices);
-            this.entropy = new QualityMeasureColumnOriented(input, indices);
-            this.precision = new QualityMeasureColumnOriented(input, indices);
-            this.mse = new QualityMeasureColumnOriented(input, indices);
+            this.loss = new QualityMeasureColumnOriented(input.getHandle(), indices);
+            this.entropy = new QualityMeasureColumnOriented(input.getHandle(), indices);
+            this.precision = new QualityMeasureColumnOriented(input.getHandle(), indices);
+            this.mse = new QualityMeasureColumnOriented(input.getHandle(), indices);
 
             // Row oriented
             this.aecs = new QualityMeasureRowOriented(0d, 0d, 1d);
@@ -142,224 +241,99 @@ public class StatisticsQuality {
             return;
         }
         
-        // Pre-computed frequently needed data
-        Groupify<TupleWrapper> groupedInput = this.getGroupify(input, indices);
+        // Pre-computed frequently needed data, shared by all models
+        final QualityData data = new QualityData(input, output, indices, stop);
         this.progress.value = 6;
-        Groupify<TupleWrapper> groupedOutput = this.getGroupify(output, indices);
+        this.missings = getMissings(output.getHandle(), data, indices);
         this.progress.value = 8;
-        String[][][] hierarchies = getHierarchies(input, indices, configuration);
-        QualityDomainShare[] shares = getDomainShares(input, indices, hierarchies, configuration);
-        int suppressedInput = getSuppressed(input);
-        int suppressedOutput = getSuppressed(output);
-        this.progress.value = 10;
         
-        // Build
-        int workload = 10;
-        try {
-            
-            this.loss = new QualityModelColumnOrientedLoss(stop,
-                                                           progress,
-                                                           workload,
-                                                           input,
-                                                           output,
-                                                           suppressedInput,
-                                                           suppressedOutput,
-                                                           groupedInput,
-                                                           groupedOutput,
-                                                           hierarchies,
-                                                           shares,
-                                                           indices,
-                                                           configuration).evaluate();
-            this.checkInterrupt();
-        } catch (Exception e) {
-            // Fail silently
-            this.loss = new QualityMeasureColumnOriented();
-            this.progress.value += workload;
-        }
-        
-        // Build
-        workload = 15;
-        try {
-            this.entropy = new QualityModelColumnOrientedNonUniformEntropy(stop,
-                                                                           progress,
-                                                                           workload,
-                                                                           input,
-                                                                           output,
-                                                                           suppressedInput,
-                                                                           suppressedOutput,
-                                                                           groupedInput,
-                                                                           groupedOutput,
-                                                                           hierarchies,
-                                                                           shares,
-                                                                           indices,
-                                                                           configuration).evaluate();
-            this.checkInterrupt();
-        } catch (Exception e) {
-            // Fail silently
-            this.entropy = new QualityMeasureColumnOriented();
-            this.progress.value += workload;
-        }
-
-        // Build
-        workload = 10;
-        try {
-            this.precision = new QualityModelColumnOrientedPrecision(stop,
-                                                                     progress,
-                                                                     workload,
-                                                                     input,
-                                                                     output,
-                                                                     suppressedInput,
-                                                                     suppressedOutput,
-                                                                     groupedInput,
-                                                                     groupedOutput,
-                                                                     hierarchies,
-                                                                     shares,
-                                                                     indices,
-                                                                     configuration).evaluate();
-            this.checkInterrupt();
-        } catch (Exception e) {
-            // Fail silently
-            this.precision = new QualityMeasureColumnOriented();
-            this.progress.value += workload;
-        }
-
-        // Build
-        workload = 10;
-        try {
-            this.mse = new QualityModelColumnOrientedSquaredError(stop,
-                                                                  progress,
-                                                                  workload,
-                                                                  input,
-                                                                  output,
-                                                                  suppressedInput,
-                                                                  suppressedOutput,
-                                                                  groupedInput,
-                                                                  groupedOutput,
-                                                                  hierarchies,
-                                                                  shares,
-                                                                  indices,
-                                                                  configuration).evaluate();
-            this.checkInterrupt();
-        } catch (Exception e) {
-            // Fail silently
-            this.mse = new QualityMeasureColumnOriented();
-            this.progress.value += workload;
-        }
-
-        // Build
-        workload = 5;
-        try {
-            this.aecs = new QualityModelRowOrientedAECS(stop,
-                                                        progress,
-                                                        workload,
-                                                        input,
-                                                        output,
-                                                        suppressedInput,
-                                                        suppressedOutput,
-                                                        groupedInput,
-                                                        groupedOutput,
-                                                        hierarchies,
-                                                        shares,
-                                                        indices,
-                                                        configuration).evaluate();
-            this.checkInterrupt();
-        } catch (Exception e) {
-            // Fail silently
-            this.aecs = new QualityMeasureRowOriented();
-            this.progress.value += workload;
-        }
-
-        // Build
-        workload = 10;
-        try {
-            this.ambiguity = new QualityModelRowOrientedAmbiguity(stop,
-                                                                  progress,
-                                                                  workload,
-                                                                  input,
-                                                                  output,
-                                                                  suppressedInput,
-                                                                  suppressedOutput,
-                                                                  groupedInput,
-                                                                  groupedOutput,
-                                                                  hierarchies,
-                                                                  shares,
-                                                                  indices,
-                                                                  configuration).evaluate();
-            this.checkInterrupt();
-        } catch (Exception e) {
-            // Fail silently
-            this.ambiguity = new QualityMeasureRowOriented();
-            this.progress.value += workload;
-        }
+        // Pre-computed frequently needed data
+        final String[][][] hierarchies = getHierarchies(input.getHandle(), indices, configuration);
+        final QualityDomainShare[] shares = getDomainShares(input.getHandle(), indices, hierarchies, configuration);
+        this.progress.value = 10;
         
-        // Build
-        workload = 5;
-        try {
-            this.discernibility = new QualityModelRowOrientedDiscernibility(stop,
-                                                                            progress,
-                                                                            workload,
-                                                                            input,
-                                                                            output,
-                                                                            suppressedInput,
-                                                                            suppressedOutput,
-                                                                            groupedInput,
-                                                                            groupedOutput,
-                                                                            hierarchies,
-                                                                            shares,
-                                                                            indices,
-                                                                            configuration).evaluate();
-            this.checkInterrupt();
-        } catch (Exception e) {
-            // Fail silently
-            this.discernibility = new QualityMeasureRowOriented();
-            this.progress.value += workload;
-        }
+        // Models are independent of each other and track their progress separately
+        QualityTask<QualityMeasureColumnOriented> loss = new QualityTaskColumnOriented(10) {
+            @Override
+            protected QualityMeasureColumnOriented evaluate() {
+                return new QualityModelColumnOrientedLoss(stop, progress, workload, data, hierarchies, shares, configuration).evaluate();
+            }
+        };
+        QualityTask<QualityMeasureColumnOriented> entropy = new QualityTaskColumnOriented(15) {
+            @Override
+            protected QualityMeasureColumnOriented evaluate() {
+                return new QualityModelColumnOrientedNonUniformEntropy(stop, progress, workload, data, hierarchies, shares, configuration).evaluate();
+            }
+        };
+        QualityTask<QualityMeasureColumnOriented> precision = new QualityTaskColumnOriented(10) {
+            @Override
+            protected QualityMeasureColumnOriented evaluate() {
+                return new QualityModelColumnOrientedPrecision(stop, progress, workload, data, hierarchies, shares, configuration).evaluate();
+            }
+        };
+        QualityTask<QualityMeasureColumnOriented> mse = new QualityTaskColumnOriented(10) {
+            @Override
+            protected QualityMeasureColumnOriented evaluate() {
+                return new QualityModelColumnOrientedSquaredError(stop, progress, workload, data, hierarchies, shares, configuration).evaluate();
+            }
+        };
+        QualityTask<QualityMeasureRowOriented> aecs = new QualityTaskRowOriented(5) {
+            @Override
+            protected QualityMeasureRowOriented evaluate() {
+                return new QualityModelRowOrientedAECS(stop, progress, workload, data, hierarchies, shares, configuration).evaluate();
+            }
+        };
+        QualityTask<QualityMeasureRowOriented> ambiguity = new QualityTaskRowOriented(10) {
+            @Override
+            protected QualityMeasureRowOriented evaluate() {
+                return new QualityModelRowOrientedAmbiguity(stop, progress, workload, data, hierarchies, shares, configuration).evaluate();
+            }
+        };
+        QualityTask<QualityMeasureRowOriented> discernibility = new QualityTaskRowOriented(5) {
+            @Override
+            protected QualityMeasureRowOriented evaluate() {
+                return new QualityModelRowOrientedDiscernibility(stop, progress, workload, data, hierarchies, shares, configuration).evaluate();
+            }
+        };
+        QualityTask<QualityMeasureRowOriented> ssesst = new QualityTaskRowOriented(10) {
+            @Override
+            protected QualityMeasureRowOriented evaluate() {
+                return new QualityModelRowOrientedSSESST(stop, progress, workload, data, hierarchies, shares, configuration).evaluate();
+            }
+        };
+        QualityTask<QualityMeasureRowOriented> sse = new QualityTaskRowOriented(15) {
+            @Override
+            protected QualityMeasureRowOriented evaluate() {
+                return new QualityModelRowOrientedSquaredError(stop, progress, workload, data, hierarchies, shares, configuration).evaluate();
+            }
+        };
+        final List<QualityTask<?>> tasks = Arrays.<QualityTask<?>>asList(loss, entropy, precision, mse, aecs, ambiguity, discernibility, ssesst, sse);
 
-        // Build
-        workload = 10;
+        // Evaluate and periodically aggregate progress
+        int numThreads = config == null ? 1 : config.getNumberOfThreads();
+        TaskExecutor executor = new TaskExecutor("ARX quality", Math.min(numThreads, tasks.size()));
         try {
-            this.ssesst = new QualityModelRowOrientedSSESST(stop,
-                                                            progress,
-                                                            workload,
-                                                            input,
-                                                            output,
-                                                            suppressedInput,
-                                                            suppressedOutput,
-                                                            groupedInput,
-                                                            groupedOutput,
-                                                            hierarchies,
-                                                            shares,
-                                                            indices,
-                                                            configuration).evaluate();
-            this.checkInterrupt();
-        } catch (Exception e) {
-            // Fail silently
-            this.ssesst = new QualityMeasureRowOriented();
-            this.progress.value += workload;
-        }
-        
-        // Build
-        workload = 15;
-        try {
-            this.sse = new QualityModelRowOrientedSquaredError(stop,
-                                                               progress,
-                                                               workload,
-                                                               input,
-                                                               output,
-                                                               suppressedInput,
-                                                               suppressedOutput,
-                                                               groupedInput,
-                                                               groupedOutput,
-                                                               hierarchies,
-                                                               shares,
-                                                               indices,
-                                                               configuration).evaluate();
-            this.checkInterrupt();
-        } catch (Exception e) {
-            // Fail silently
-            this.sse = new QualityMeasureRowOriented();
-            this.progress.value += workload;
+            executor.execute(tasks, new Runnable() {
+                @Override
+                public void run() {
+                    setProgress(tasks);
+                }
+            }, PROGRESS_INTERVAL);
+        } finally {
+            executor.shutdown();
         }
+        this.checkInterrupt();
+
+        // Store
+        this.loss = loss.getResult();
+        this.entropy = entropy.getResult();
+        this.precision = precision.getResult();
+        this.mse = mse.getResult();
+        this.aecs = aecs.getResult();
+        this.ambiguity = ambiguity.getResult();
+        this.discernibility = discernibility.getResult();
+        this.ssesst = ssesst.getResult();
+        this.sse = sse.getResult();
     }
 
     /**
@@ -503,7 +477,7 @@ public class StatisticsQuality {
             throw new ComputationInterruptedException("Interrupted");
         }
     }
-    
+
     /**
      * Returns a list of the attributes covered
      * @param output
@@ -579,31 +553,6 @@ public class StatisticsQuality {
         return shares;
     }
 
-    /**
-     * Returns a groupified version of the dataset
-     * 
-     * @param handle
-     * @param indices
-     * @return
-     */
-    private Groupify<TupleWrapper> getGroupify(DataHandle handle, int[] indices) {
-        
-        // Prepare
-        int capacity = handle.getNumRows() / 10;
-        capacity = capacity > 10 ? capacity : 10;
-        Groupify<TupleWrapper> groupify = new Groupify<TupleWrapper>(capacity);
-        int numRows = handle.getNumRows();
-        for (int row = 0; row < numRows; row++) {
-            if (!handle.isOutlier(row)) {
-                TupleWrapper tuple = new TupleWrapper(handle, indices, row);
-                groupify.add(tuple);
-            }
-            checkInterrupt();
-        }
-        
-        return groupify;
-    }
-
     /**
      * Returns hierarchies, creates trivial hierarchies if no hierarchy is found.
      * Adds an additional level, if there is no root node
@@ -698,10 +647,11 @@ public class StatisticsQuality {
     /**
      * Returns the fraction of missing values
      * @param output
+     * @param data Pre-computed data, null if values should be read from the handle
      * @param indices
      * @return
      */
-    private QualityMeasureColumnOriented getMissings(DataHandle output, int[] indices) {
+    private QualityMeasureColumnOriented getMissings(DataHandle output, QualityData data, int[] indices) {
         
         // Prepare
         double[] minimum = new double[indices.length];
@@ -728,12 +678,12 @@ public class StatisticsQuality {
             for (int row = 0; row < output.getNumRows(); row++) {
                 
                 // Suppressed record
-                if (output.isOutlier(row)) {
+                if (data != null ? data.isOutlier(output, row) : output.isOutlier(row)) {
                     missings += 1d; 
                 } else {
                     
                     // Suppressed value
-                    String value = output.getValue(row, column);
+                    String value = data != null ? data.getValue(output, row, column) : output.getValue(row, column);
                     if (value.equals(DataType.ANY_VALUE) ||
                         value.equals(DataType.NULL_VALUE) ||
                         value.equals(ROOT_VALUE)) {
@@ -753,15 +703,14 @@ public class StatisticsQuality {
     }
 
     /**
-     * Returns the number of suppressed records
-     * @param handle
-     * @return
+     * Sets the overall progress to the sum of the progress of all models
+     * @param tasks
      */
-    private int getSuppressed(DataHandle handle) {
-        int suppressed = 0;
-        for (int row = 0; row < handle.getNumRows(); row++) {
-            suppressed += handle.isOutlier(row) ? 1 : 0;
+    private void setProgress(List<QualityTask<?>> tasks) {
+        int value = 10;
+        for (QualityTask<?> task : tasks) {
+            value += task.progress.value;
         }
-        return suppressed;
+        this.progress.value = value;
     }
 }
@@ -20,10 +20,11 @@ import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 
+import org.apache.commons.math3.util.FastMath;
 import org.deidentifier.arx.DataScale;
 import org.deidentifier.arx.DataType;
 import org.deidentifier.arx.DataType.DataTypeWithRatioScale;
@@ -44,8 +45,8 @@ public class StatisticsSummary<T> {
 
         /** Var */
         private final Comparator<String> comparator;
-        /** Var */
-        private final List<String>       values = new ArrayList<String>();
+        /** Distinct values and their frequencies */
+        private final Map<String, Integer> counts = new LinkedHashMap<String, Integer>();
         /** Var */
         private String                   mode;
         /** Var */
@@ -93,7 +94,17 @@ public class StatisticsSummary<T> {
          * @param value
          */
         public void addValue(String value) {
-            this.values.add(value);
+            this.addValue(value, 1);
+        }
+        
+        /**
+         * Adds a value with the given frequency
+         * @param value
+         * @param count
+         */
+        public void addValue(String value, int count) {
+            Integer previous = this.counts.get(value);
+            this.counts.put(value, previous == null ? count : previous + count);
         }
         
         /**
@@ -145,24 +156,27 @@ public class StatisticsSummary<T> {
         }
         
         /**
-         * Returns the index of the next element that does not equal the element at the given index
-         * @param index
+         * Returns the value at the given position, when all values are sorted and
+         * repeated according to their frequencies
          * @param values
+         * @param position
          * @return
          */
-        private int moveWhileEqual(int index, List<String> values) {
-            String element = values.get(index);
-            // We can do == because of dictionary compression
-            while (index < values.size() && values.get(index) == element) { 
-                index++;
+        private String getValueAt(List<String> values, int position) {
+            for (String value : values) {
+                position -= counts.get(value);
+                if (position < 0) {
+                    return value;
+                }
             }
-            return index;
+            throw new IllegalStateException("Invalid position");
         }
 
         /**
          * Analyzes the data
          */
         void analyze() {
+            List<String> values = new ArrayList<String>(counts.keySet());
             Collections.sort(values, comparator);
             
             if (values.size() == 0) {
@@ -175,46 +189,43 @@ public class StatisticsSummary<T> {
             } else {
                 
                 // Determine simple things
+                numberOfMeasures = 0;
+                for (int count : counts.values()) {
+                    numberOfMeasures += count;
+                }
                 min = values.get(0);
                 max = values.get(values.size() - 1);
-                if (values.size() % 2 == 1) {
-                    median = values.get(values.size() / 2);
+                if (numberOfMeasures % 2 == 1) {
+                    median = getValueAt(values, numberOfMeasures / 2);
                 } else if (type != null && type instanceof DataTypeWithRatioScale<?>) {
                     DataType<T> dType = (DataType<T>)type;
                     @SuppressWarnings("unchecked")
                     DataTypeWithRatioScale<T> rType = (DataTypeWithRatioScale<T>)dType;
-                    double median1 = rType.toDouble(dType.parse(values.get(values.size() / 2 - 1)));
-                    double median2 = rType.toDouble(dType.parse(values.get(values.size() / 2)));
+                    double median1 = rType.toDouble(dType.parse(getValueAt(values, numberOfMeasures / 2 - 1)));
+                    double median2 = rType.toDouble(dType.parse(getValueAt(values, numberOfMeasures / 2)));
                     median = dType.format(rType.fromDouble((median1 + median2) / 2d));
                 } else {
-                    String median1 = values.get(values.size() / 2 - 1);
-                    String median2 = values.get(values.size() / 2);
+                    String median1 = getValueAt(values, numberOfMeasures / 2 - 1);
+                    String median2 = getValueAt(values, numberOfMeasures / 2);
                     if (median1 == median2) {
                         median = median1;
                     } else {
                         median = DataType.NULL_VALUE;
                     }
                 }
-                numberOfMeasures = values.size();
                 
                 // Determine distinct number of measures
-                Set<String> distinct = new HashSet<String>();
-                distinct.addAll(values);
-                distinctNumberOfValues = distinct.size();
-                distinct.clear();
+                distinctNumberOfValues = values.size();
                 
                 // Determine mode
                 int count = 0;
-                int index = 0;
                 mode = values.get(0);
-                while (index < values.size()) {
-                    int nIndex = moveWhileEqual(index, values);
-                    int nCount = nIndex - index;
+                for (String value : values) {
+                    int nCount = counts.get(value);
                     if (nCount > count) {
-                        mode = values.get(index);
+                        mode = value;
                         count = nCount;
                     }
-                    index = nIndex;
                 }
                 
                 // Convert to correct output format
@@ -227,7 +238,169 @@ public class StatisticsSummary<T> {
             }
             
             // Clear
-            values.clear();
+            counts.clear();
+        }
+    }
+
+    /**
+     * Summary statistics for variables with interval or ratio scale. All measurements are
+     * added in {@link #PASSES} passes in the same order. Results are identical to the respective
+     * implementations of commons-math, without retaining the measurements.
+     * @author Fabian Prasser
+     *
+     */
+    static final class StatisticsSummaryNumeric {
+
+        /** Number of passes over the measurements */
+        static final int PASSES = 3;
+
+        /** Number of measurements */
+        private long     numberOfMeasures;
+        /** Sum */
+        private double   sum;
+        /** Sum of logarithms */
+        private double   sumOfLogs;
+        /** Sum of logarithms of all values increased by one */
+        private double   sumOfLogsPlusOne;
+        /** Min */
+        private double   min          = Double.NaN;
+        /** Max */
+        private double   max          = Double.NaN;
+        /** First moment, computed incrementally */
+        private double   moment1;
+        /** Second moment, computed incrementally */
+        private double   moment2;
+        /** Sum of deviations from the preliminary mean */
+        private double   correction;
+        /** Sum of fourth powers of deviations from the first moment */
+        private double   deviations4;
+        /** Sum of deviations from the mean */
+        private double   deviations1;
+        /** Sum of squared deviations from the mean */
+        private double   deviations2;
+
+        /**
+         * Adds a value in the given pass
+         * @param pass
+         * @param value
+         */
+        public void addValue(int pass, double value) {
+            switch (pass) {
+            case 0:
+                numberOfMeasures++;
+                sum += value;
+                sumOfLogs += FastMath.log(value);
+                sumOfLogsPlusOne += FastMath.log(value + 1d);
+                min = Double.isNaN(min) || value < min ? value : min;
+                max = Double.isNaN(max) || value > max ? value : max;
+                double dev = value - moment1;
+                double nDev = dev / numberOfMeasures;
+                moment1 += nDev;
+                moment2 += ((double) numberOfMeasures - 1d) * dev * nDev;
+                break;
+            case 1:
+                correction += value - sum / numberOfMeasures;
+                deviations4 += FastMath.pow(value - moment1, 4d);
+                break;
+            case 2:
+                double deviation = value - getMean();
+                deviations2 += deviation * deviation;
+                deviations1 += deviation;
+                break;
+            default:
+                throw new IllegalArgumentException("Invalid pass: " + pass);
+            }
+        }
+
+        /**
+         * Returns the geometric mean
+         * @return
+         */
+        public double getGeometricMean() {
+            return numberOfMeasures == 0 ? Double.NaN : FastMath.exp(sumOfLogs / numberOfMeasures);
+        }
+
+        /**
+         * Returns the geometric mean of all values increased by one
+         * @return
+         */
+        public double getGeometricMeanPlusOne() {
+            return numberOfMeasures == 0 ? Double.NaN : FastMath.exp(sumOfLogsPlusOne / numberOfMeasures);
+        }
+
+        /**
+         * Returns the kurtosis
+         * @return
+         */
+        public double getKurtosis() {
+            if (numberOfMeasures <= 3) {
+                return Double.NaN;
+            }
+            double n = numberOfMeasures;
+            double stdDev = FastMath.sqrt(moment2 / (n - 1d));
+            double accum = deviations4 / FastMath.pow(stdDev, 4d);
+            double coefficientOne = (n * (n + 1d)) / ((n - 1d) * (n - 2d) * (n - 3d));
+            double termTwo = (3d * FastMath.pow(n - 1d, 2d)) / ((n - 2d) * (n - 3d));
+            return (coefficientOne * accum) - termTwo;
+        }
+
+        /**
+         * Returns the maximum
+         * @return
+         */
+        public double getMax() {
+            return max;
+        }
+
+        /**
+         * Returns the arithmetic mean
+         * @return
+         */
+        public double getMean() {
+            if (numberOfMeasures == 0) {
+                return Double.NaN;
+            }
+            double n = numberOfMeasures;
+            return sum / n + (correction / n);
+        }
+
+        /**
+         * Returns the minimum
+         * @return
+         */
+        public double getMin() {
+            return min;
+        }
+
+        /**
+         * Returns the population variance
+         * @return
+         */
+        public double getPopulationVariance() {
+            return getVariance(false);
+        }
+
+        /**
+         * Returns the sample variance
+         * @return
+         */
+        public double getVariance() {
+            return getVariance(true);
+        }
+
+        /**
+         * Returns the variance
+         * @param biasCorrected
+         * @return
+         */
+        private double getVariance(boolean biasCorrected) {
+            if (numberOfMeasures == 0) {
+                return Double.NaN;
+            } else if (numberOfMeasures == 1) {
+                return 0d;
+            }
+            double n = numberOfMeasures;
+            return (deviations2 - (deviations1 * deviations1 / n)) / (biasCorrected ? n - 1d : n);
         }
     }
 
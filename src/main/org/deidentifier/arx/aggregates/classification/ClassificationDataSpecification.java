@@ -92,6 +92,30 @@ public class ClassificationDataSpecification {
         }
     }
 
+    /**
+     * Clone constructor
+     * @param other
+     */
+    private ClassificationDataSpecification(ClassificationDataSpecification other) {
+        this.interrupt = other.interrupt;
+        this.featureIndices = other.featureIndices;
+        this.classIndex = other.classIndex;
+        this.classMap = other.classMap;
+        this.featureMetadata = new ClassificationFeatureMetadata[other.featureMetadata.length];
+        for (int i = 0; i < featureMetadata.length; i++) {
+            this.featureMetadata[i] = other.featureMetadata[i].clone();
+        }
+    }
+
+    /**
+     * Returns a copy of this specification which can be used concurrently to this instance.
+     * Immutable data is shared.
+     */
+    @Override
+    public ClassificationDataSpecification clone() {
+        return new ClassificationDataSpecification(this);
+    }
+
     /**
      * Checks whether an interruption happened.
      */
@@ -66,6 +66,26 @@ public class ClassificationFeatureMetadata {
         }
     }
 
+    /**
+     * Clone constructor
+     * @param other
+     */
+    private ClassificationFeatureMetadata(ClassificationFeatureMetadata other) {
+        this.attribute = other.attribute;
+        this.type = other.type.clone();
+        this.numeric = other.numeric;
+        this.isTypePreservingMicroaggregation = other.isTypePreservingMicroaggregation;
+        this.expression = other.expression != null ? new Expression(other.expression) : null;
+    }
+
+    /**
+     * Returns a copy of this instance, as expressions and data types are not thread-safe
+     */
+    @Override
+    public ClassificationFeatureMetadata clone() {
+        return new ClassificationFeatureMetadata(this);
+    }
+
     /**
      * Returns the name of the feature
      * @return
@@ -0,0 +1,360 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2020 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.aggregates.quality;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.deidentifier.arx.DataHandle;
+import org.deidentifier.arx.DataHandleInternal;
+import org.deidentifier.arx.common.EncodedGroupify;
+import org.deidentifier.arx.common.Groupify;
+import org.deidentifier.arx.common.Groupify.Group;
+import org.deidentifier.arx.common.TupleWrapper;
+import org.deidentifier.arx.common.WrappedBoolean;
+import org.deidentifier.arx.exceptions.ComputationInterruptedException;
+
+/**
+ * Data shared by all quality models. It is obtained in one scan over the encoded values
+ * of the quasi-identifiers in the input and the output and comprises the value of each code,
+ * suppressed records and the sizes of equivalence classes. Quality models access values
+ * via this class instead of the data handles, which means that they can be evaluated
+ * concurrently. Columns converted to numbers are computed once and shared.
+ *
+ * @author Fabian Prasser
+ */
+public class QualityData {
+
+    /**
+     * Encoded view of a data handle
+     *
+     * @author Fabian Prasser
+     */
+    private static class Encoding {
+
+        /** Handle */
+        private final DataHandle         handle;
+
+        /** Handle, null if values are accessed via the handle */
+        private final DataHandleInternal internal;
+
+        /** Column -> code + 1 -> value, null if values are accessed via the handle */
+        private final String[][]         values;
+
+        /** Suppressed records, null if accessed via the handle */
+        private final BitSet             outliers;
+
+        /** Number of suppressed records */
+        private final int                suppressed;
+
+        /** Sizes of equivalence classes */
+        private final int[]              classes;
+
+        /**
+         * Scans the given handle
+         *
+         * @param handle
+         * @param indices
+         * @param interrupt
+         */
+        private Encoding(DataHandleInternal handle, int[] indices, WrappedBoolean interrupt) {
+
+            // Prepare
+            this.handle = handle.getHandle();
+            this.internal = handle;
+            this.values = new String[handle.getNumColumns()][];
+            this.outliers = new BitSet();
+            for (int column : indices) {
+                this.values[column] = new String[16];
+            }
+            int capacity = Math.max(10, handle.getNumRows() / 10);
+            EncodedGroupify groupify = new EncodedGroupify(handle, indices, capacity);
+
+            // Scan
+            int suppressed = 0;
+            for (int row = 0; row < handle.getNumRows(); row++) {
+
+                // Values
+                for (int column : indices) {
+                    int code = handle.getEncodedValue(row, column, false) + 1;
+                    String[] mapping = values[column];
+                    if (code >= mapping.length) {
+                        mapping = Arrays.copyOf(mapping, Math.max(code + 1, mapping.length * 2));
+                        values[column] = mapping;
+                    }
+                    if (mapping[code] == null) {
+                        mapping[code] = handle.getValue(row, column, false);
+                    }
+                }
+
+                // Records
+                if (handle.isOutlier(row)) {
+                    outliers.set(row);
+                    suppressed++;
+                } else {
+                    groupify.add(row);
+                }
+
+                // Check
+                if (interrupt.value) {
+                    throw new ComputationInterruptedException("Interrupted");
+                }
+            }
+
+            // Store
+            this.suppressed = suppressed;
+            this.classes = new int[groupify.size()];
+            for (int group = 0; group < classes.length; group++) {
+                classes[group] = groupify.getCount(group);
+            }
+        }
+
+        /**
+         * Uses the given handle, grouping and number of suppressed records
+         *
+         * @param handle
+         * @param suppressed
+         * @param groupify
+         */
+        private Encoding(DataHandle handle, int suppressed, Groupify<TupleWrapper> groupify) {
+            this.handle = handle;
+            this.internal = null;
+            this.values = null;
+            this.outliers = null;
+            this.suppressed = suppressed;
+            this.classes = new int[groupify.size()];
+            int index = 0;
+            Group<TupleWrapper> group = groupify.first();
+            while (group != null) {
+                classes[index++] = group.getCount();
+                group = group.next();
+            }
+        }
+
+        /**
+         * Returns the value in the given cell
+         *
+         * @param row
+         * @param column
+         * @return
+         */
+        private String getValue(int row, int column) {
+            if (internal == null) {
+                return handle.getValue(row, column);
+            }
+            return values[column][internal.getEncodedValue(row, column, false) + 1];
+        }
+
+        /**
+         * Returns whether the given record is suppressed
+         *
+         * @param row
+         * @return
+         */
+        private boolean isOutlier(int row) {
+            return outliers == null ? handle.isOutlier(row) : outliers.get(row);
+        }
+    }
+
+    /** Input */
+    private final Encoding               input;
+
+    /** Output */
+    private final Encoding               output;
+
+    /** Indices of quasi-identifiers */
+    private final int[]                  indices;
+
+    /** Columns converted to numbers, which may be null */
+    private final Map<Integer, double[][]> numbers = new HashMap<>();
+
+    /**
+     * Scans the given handles. Input and output may be the same.
+     *
+     * @param input
+     * @param output
+     * @param indices
+     * @param interrupt
+     */
+    public QualityData(DataHandleInternal input,
+                       DataHandleInternal output,
+                       int[] indices,
+                       WrappedBoolean interrupt) {
+        this.indices = indices;
+        this.input = new Encoding(input, indices, interrupt);
+        this.output = input.getHandle() == output.getHandle() ? this.input : new Encoding(output, indices, interrupt);
+    }
+
+    /**
+     * Uses the given handles, groupings of records which are not suppressed and numbers of
+     * suppressed records. Values are accessed via the handles.
+     *
+     * @param input
+     * @param output
+     * @param suppressedInput
+     * @param suppressedOutput
+     * @param groupedInput
+     * @param groupedOutput
+     * @param indices
+     */
+    public QualityData(DataHandle input,
+                       DataHandle output,
+                       int suppressedInput,
+                       int suppressedOutput,
+                       Groupify<TupleWrapper> groupedInput,
+                       Groupify<TupleWrapper> groupedOutput,
+                       int[] indices) {
+        this.indices = indices;
+        this.input = new Encoding(input, suppressedInput, groupedInput);
+        this.output = new Encoding(output, suppressedOutput, groupedOutput);
+    }
+
+    /**
+     * Returns the indices of quasi-identifiers
+     *
+     * @return
+     */
+    public int[] getIndices() {
+        return indices;
+    }
+
+    /**
+     * Returns the input
+     *
+     * @return
+     */
+    public DataHandle getInput() {
+        return input.handle;
+    }
+
+    /**
+     * Returns the sizes of equivalence classes in the input, excluding suppressed records
+     *
+     * @return
+     */
+    public int[] getInputClasses() {
+        return input.classes;
+    }
+
+    /**
+     * Returns the output
+     *
+     * @return
+     */
+    public DataHandle getOutput() {
+        return output.handle;
+    }
+
+    /**
+     * Returns the sizes of equivalence classes in the output, excluding suppressed records
+     *
+     * @return
+     */
+    public int[] getOutputClasses() {
+        return output.classes;
+    }
+
+    /**
+     * Returns the number of suppressed records in the input
+     *
+     * @return
+     */
+    public int getSuppressedRecordsInInput() {
+        return input.suppressed;
+    }
+
+    /**
+     * Returns the number of suppressed records in the output
+     *
+     * @return
+     */
+    public int getSuppressedRecordsInOutput() {
+        return output.suppressed;
+    }
+
+    /**
+     * Returns the value of a quasi-identifier in the given handle, which must be the input or the output
+     *
+     * @param handle
+     * @param row
+     * @param column
+     * @return
+     */
+    public String getValue(DataHandle handle, int row, int column) {
+        return getEncoding(handle).getValue(row, column);
+    }
+
+    /**
+     * Returns whether the given record is suppressed in the given handle, which must be the input or the output
+     *
+     * @param handle
+     * @param row
+     * @return
+     */
+    public boolean isOutlier(DataHandle handle, int row) {
+        return getEncoding(handle).isOutlier(row);
+    }
+
+    /**
+     * Returns the encoding of the given handle
+     *
+     * @param handle
+     * @return
+     */
+    private Encoding getEncoding(DataHandle handle) {
+        if (handle == output.handle) {
+            return output;
+        } else if (handle == input.handle) {
+            return input;
+        } else {
+            throw new IllegalArgumentException("Unknown data handle");
+        }
+    }
+
+    /**
+     * Returns whether the given column has already been converted to numbers
+     *
+     * @param column
+     * @return
+     */
+    boolean isColumnAsNumbersAvailable(int column) {
+        return numbers.containsKey(column);
+    }
+
+    /**
+     * Returns the given column converted to numbers
+     *
+     * @param column
+     * @return
+     */
+    double[][] getColumnAsNumbers(int column) {
+        return numbers.get(column);
+    }
+
+    /**
+     * Stores the given column converted to numbers
+     *
+     * @param column
+     * @param columnAsNumbers
+     */
+    void setColumnAsNumbers(int column, double[][] columnAsNumbers) {
+        numbers.put(column, columnAsNumbers);
+    }
+}
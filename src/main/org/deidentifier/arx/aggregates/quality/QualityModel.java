@@ -26,8 +26,6 @@ import java.util.Set;
 
 import org.deidentifier.arx.DataHandle;
 import org.deidentifier.arx.DataType.DataTypeWithRatioScale;
-import org.deidentifier.arx.common.Groupify;
-import org.deidentifier.arx.common.TupleWrapper;
 import org.deidentifier.arx.common.WrappedBoolean;
 import org.deidentifier.arx.common.WrappedInteger;
 import org.deidentifier.arx.exceptions.ComputationInterruptedException;
@@ -44,26 +42,8 @@ abstract class QualityModel<T> {
     /** Log */
     private static final double          LOG2         = Math.log(2);
 
-    /** Input */
-    private final DataHandle             input;
-
-    /** Output */
-    private final DataHandle             output;
-
-    /** Input */
-    private final int                    suppressedInput;
-
-    /** Output */
-    private final int                    suppressedOutput;
-
-    /** Grouped */
-    private final Groupify<TupleWrapper> groupedInput;
-
-    /** Grouped */
-    private final Groupify<TupleWrapper> groupedOutput;
-
-    /** Input */
-    private final int[]                  indices;
+    /** Data */
+    private final QualityData            data;
 
     /** Flag */
     private final WrappedBoolean         interrupt;
@@ -101,37 +81,21 @@ abstract class QualityModel<T> {
      * @param interrupt
      * @param progress
      * @param totalWorkload
-     * @param input
-     * @param output
-     * @param groupedInput
-     * @param groupedOutput
+     * @param data
      * @param hierarchies
      * @param shares
-     * @param indices
      * @param config
      */
     QualityModel(WrappedBoolean interrupt,
                  WrappedInteger progress,
                  int totalWorkload,
-                 DataHandle input,
-                 DataHandle output,
-                 int suppressedInput,
-                 int suppressedOutput,
-                 Groupify<TupleWrapper> groupedInput,
-                 Groupify<TupleWrapper> groupedOutput,
+                 QualityData data,
                  String[][][] hierarchies,
                  QualityDomainShare[] shares,
-                 int[] indices,
                  QualityConfiguration config) {
         
         // Store data
-        this.input = input;
-        this.output = output;
-        this.suppressedInput = suppressedInput;
-        this.suppressedOutput = suppressedOutput;
-        this.groupedInput = groupedInput;
-        this.groupedOutput = groupedOutput;
-        this.indices = indices;
+        this.data = data;
         this.shares = shares;
         this.hierarchies = hierarchies;
         this.interrupt = interrupt;
@@ -141,6 +105,7 @@ abstract class QualityModel<T> {
         this.suppressedValue = config.getSuppressedValue();
         
         // Collect roots
+        int[] indices = data.getIndices();
         for (int index = 0; index < indices.length; index++) {
             int column = indices[index];
             String root = getRoot(hierarchies[index]);
@@ -188,6 +153,28 @@ abstract class QualityModel<T> {
                                            String[][] hierarchy,
                                            int column) {
         
+        // Columns are shared by all models. Parsers are not thread-safe.
+        synchronized (data) {
+            if (!data.isColumnAsNumbersAvailable(column)) {
+                data.setColumnAsNumbers(column, parseColumnsAsNumbers(input, output, hierarchy, column));
+            }
+            return data.getColumnAsNumbers(column);
+        }
+    }
+
+    /**
+     * Parses a columns from the input and output dataset into numbers
+     * @param input
+     * @param output
+     * @param hierarchy
+     * @param column
+     * @return
+     */
+    private double[][] parseColumnsAsNumbers(DataHandle input,
+                                             DataHandle output,
+                                             String[][] hierarchy,
+                                             int column) {
+        
         // Try to parse the input into a number
         double[] inputAsNumbers = getNumbersFromNumericColumn(input, column);
         double[] outputAsNumbers = null;
@@ -239,17 +226,17 @@ abstract class QualityModel<T> {
     }
 
     /**
-     * Returns grouped input
+     * Returns the sizes of equivalence classes in the input
      */
-    protected Groupify<TupleWrapper> getGroupedInput() {
-        return groupedInput;
+    protected int[] getInputClasses() {
+        return data.getInputClasses();
     }
 
     /**
-     * Returns grouped output
+     * Returns the sizes of equivalence classes in the output
      */
-    protected Groupify<TupleWrapper> getGroupedOutput() {
-        return groupedOutput;
+    protected int[] getOutputClasses() {
+        return data.getOutputClasses();
     }
     
     /**
@@ -263,7 +250,7 @@ abstract class QualityModel<T> {
      * Returns relevant indices
      */
     protected int[] getIndices() {
-        return indices;
+        return data.getIndices();
     }
 
     /**
@@ -272,7 +259,7 @@ abstract class QualityModel<T> {
      * @return
      */
     protected DataHandle getInput() {
-        return this.input;
+        return data.getInput();
     }
 
     /**
@@ -349,7 +336,7 @@ abstract class QualityModel<T> {
             
             // Map values
             for (int row = 0; row < handle.getNumRows(); row++) {
-                String value = handle.getValue(row, column);
+                String value = getValue(handle, row, column);
                 
                 result[row * 2] = min.get(value);
                 result[row * 2 + 1] = max.get(value);
@@ -386,7 +373,7 @@ abstract class QualityModel<T> {
 
                 QualityConfigurationValueParser<?> parser = QualityConfigurationValueParser.create(input.getDataType(attribute));
                 for (int row = 0; row < input.getNumRows(); row++) {
-                    double number = parser.getDouble(input.getValue(row, column));
+                    double number = parser.getDouble(getValue(input, row, column));
                     result[row * 2] = number;
                     result[row * 2 + 1] = number;
                     
@@ -432,11 +419,11 @@ abstract class QualityModel<T> {
                 QualityConfigurationValueParser<?> parser = QualityConfigurationValueParser.create(output.getDataType(attribute));
                 for (int row = 0; row < output.getNumRows(); row++) {
                     
-                    if (output.isOutlier(row)) {
+                    if (isOutlier(output, row)) {
                         result[row * 2] = minimum;
                         result[row * 2 + 1] = maximum;    
                     } else {   
-                        double number = parser.getDouble(output.getValue(row, column));
+                        double number = parser.getDouble(getValue(output, row, column));
                         result[row * 2] = number;
                         result[row * 2 + 1] = number;
                     }
@@ -489,7 +476,7 @@ abstract class QualityModel<T> {
             for (int row = 0; row < output.getNumRows(); row++) {
                 
                 // Access
-                String value = output.getValue(row, column);
+                String value = getValue(output, row, column);
                 double number = inputAsNumbers[row * 2];
                 overallMin = Math.min(overallMin, number);
                 overallMax = Math.max(overallMax, number);
@@ -515,13 +502,13 @@ abstract class QualityModel<T> {
                 checkInterrupt();
                 
                 // Check 1
-                if (output.isOutlier(row)) {
+                if (isOutlier(output, row)) {
                     result[row * 2] = overallMin;
                     result[row * 2 + 1] = overallMax;
                     continue;
                 }
                 
-                String value = output.getValue(row, column);
+                String value = getValue(output, row, column);
                 
                 // Check 2
                 if (isSuppressed(column, value)) {
@@ -551,7 +538,7 @@ abstract class QualityModel<T> {
      * @return
      */
     protected DataHandle getOutput() {
-        return this.output;
+        return data.getOutput();
     }
 
     /**
@@ -577,8 +564,8 @@ abstract class QualityModel<T> {
             // Create a sample of the data
             List<String> sample = new ArrayList<>();
             for (int row = 0; row < output.getNumRows() && sample.size() < 50; row++) {
-                if (!output.isOutlier(row)) {
-                    sample.add(output.getValue(row, column));
+                if (!isOutlier(output, row)) {
+                    sample.add(getValue(output, row, column));
                 }
             }
             
@@ -591,10 +578,10 @@ abstract class QualityModel<T> {
                 
                 // Parse
                 double[] range;
-                if (output.isOutlier(row)) {
+                if (isOutlier(output, row)) {
                     range = new double[]{minimum, maximum};
                 } else {
-                    String value = output.getValue(row, column);
+                    String value = getValue(output, row, column);
                     if (isSuppressed(column, value)) {
                         range = new double[]{minimum, maximum};    
                     } else {
@@ -624,7 +611,7 @@ abstract class QualityModel<T> {
      * @return
      */
     protected int getSuppressedRecordsInInput() {
-        return suppressedInput;
+        return data.getSuppressedRecordsInInput();
     }
 
     /**
@@ -632,7 +619,7 @@ abstract class QualityModel<T> {
      * @return
      */
     protected int getSuppressedRecordsInOutput() {
-        return suppressedOutput;
+        return data.getSuppressedRecordsInOutput();
     }
 
     /**
@@ -643,6 +630,29 @@ abstract class QualityModel<T> {
         return suppressedValue;
     }
 
+    /**
+     * Returns the value of a quasi-identifier
+     * 
+     * @param handle
+     * @param row
+     * @param column
+     * @return
+     */
+    protected String getValue(DataHandle handle, int row, int column) {
+        return data.getValue(handle, row, column);
+    }
+
+    /**
+     * Returns whether a record is suppressed
+     * 
+     * @param handle
+     * @param row
+     * @return
+     */
+    protected boolean isOutlier(DataHandle handle, int row) {
+        return data.isOutlier(handle, row);
+    }
+
     /**
      * Returns whether a value is suppressed
      * 
@@ -654,10 +664,10 @@ abstract class QualityModel<T> {
     protected boolean isSuppressed(DataHandle handle, int row, int column) {
 
         // Check flag
-        if (handle.isOutlier(row)) {
+        if (isOutlier(handle, row)) {
             return true;
         } else {
-            return isSuppressed(column, handle.getValue(row, column));
+            return isSuppressed(column, getValue(handle, row, column));
         }
     }
 
@@ -670,11 +680,11 @@ abstract class QualityModel<T> {
     protected boolean isSuppressed(DataHandle handle, int[] indices, int row) {
 
         // Check flag
-        if (handle.isOutlier(row)) { return true; }
+        if (isOutlier(handle, row)) { return true; }
 
         // Check values
         for (int i = 1; i < indices.length; i++) {
-            if (!handle.getValue(row, indices[i - 1]).equals(handle.getValue(row, indices[i]))) { return false; }
+            if (!getValue(handle, row, indices[i - 1]).equals(getValue(handle, row, indices[i]))) { return false; }
         }
         return true;
     }
@@ -33,6 +33,33 @@ import org.deidentifier.arx.common.WrappedInteger;
  */
 public class QualityModelColumnOrientedLoss extends QualityModel<QualityMeasureColumnOriented> {
     
+    /**
+     * Creates a new instance
+     * 
+     * @param interrupt
+     * @param progress
+     * @param totalWorkload
+     * @param data
+     * @param hierarchies
+     * @param shares
+     * @param config
+     */
+    public QualityModelColumnOrientedLoss(WrappedBoolean interrupt,
+                                          WrappedInteger progress,
+                                          int totalWorkload,
+                                          QualityData data,
+                                          String[][][] hierarchies,
+                                          QualityDomainShare[] shares,
+                                          QualityConfiguration config) {
+        super(interrupt,
+              progress,
+              totalWorkload,
+              data,
+              hierarchies,
+              shares,
+              config);
+    }
+    
     /**
      * Creates a new instance
      * 
@@ -63,19 +90,13 @@ public class QualityModelColumnOrientedLoss extends QualityModel<QualityMeasureC
                                           QualityDomainShare[] shares,
                                           int[] indices,
                                           QualityConfiguration config) {
-        super(interrupt,
-              progress,
-              totalWorkload,
-              input,
-              output,
-              suppressedInput,
-              suppressedOutput,
-              groupedInput,
-              groupedOutput,
-              hierarchies,
-              shares,
-              indices,
-              config);
+        this(interrupt,
+             progress,
+             totalWorkload,
+             new QualityData(input, output, suppressedInput, suppressedOutput, groupedInput, groupedOutput, indices),
+             hierarchies,
+             shares,
+             config);
     }
     
     @Override
@@ -104,7 +125,7 @@ public class QualityModelColumnOrientedLoss extends QualityModel<QualityMeasureC
                 try {
                     double share = 1d;
                     if (!isSuppressed(output, indices, row)) {
-                        share = shares[i].getShare(output.getValue(row, column), 0);
+                        share = shares[i].getShare(getValue(output, row, column), 0);
                     }
                     result[i] += share;
                 } catch (Exception e) {
@@ -47,6 +47,33 @@ import org.deidentifier.arx.common.WrappedInteger;
  */
 public class QualityModelColumnOrientedNonUniformEntropy extends QualityModel<QualityMeasureColumnOriented> {
 
+    /**
+     * Creates a new instance
+     * 
+     * @param interrupt
+     * @param progress
+     * @param totalWorkload
+     * @param data
+     * @param hierarchies
+     * @param shares
+     * @param config
+     */
+    public QualityModelColumnOrientedNonUniformEntropy(WrappedBoolean interrupt,
+                                                       WrappedInteger progress,
+                                                       int totalWorkload,
+                                                       QualityData data,
+                                                       String[][][] hierarchies,
+                                                       QualityDomainShare[] shares,
+                                                       QualityConfiguration config) {
+                     super(interrupt,
+                           progress,
+                           totalWorkload,
+                           data,
+                           hierarchies,
+                           shares,
+                           config);
+    }
+    
     /**
      * Creates a new instance
      * 
@@ -77,19 +104,13 @@ public class QualityModelColumnOrientedNonUniformEntropy extends QualityModel<Qu
                                                        QualityDomainShare[] shares,
                                                        int[] indices,
                                                        QualityConfiguration config) {
-                     super(interrupt,
-                           progress,
-                           totalWorkload,
-                           input,
-                           output,
-                           suppressedInput,
-                           suppressedOutput,
-                           groupedInput,
-                           groupedOutput,
-                           hierarchies,
-                           shares,
-                           indices,
-                           config);
+        this(interrupt,
+             progress,
+             totalWorkload,
+             new QualityData(input, output, suppressedInput, suppressedOutput, groupedInput, groupedOutput, indices),
+             hierarchies,
+             shares,
+             config);
     }
     
     @Override
@@ -121,7 +142,7 @@ public class QualityModelColumnOrientedNonUniformEntropy extends QualityModel<Qu
                 // Determine generalization levels
                 final int[] transformations = new int[output.getNumRows()];
                 for (int row = 0; row < output.getNumRows(); row++) {
-                    transformations[row] = inverseGeneralizationFunction.get(output.getValue(row, column));
+                    transformations[row] = inverseGeneralizationFunction.get(getValue(output, row, column));
                 }
                 
                 // Group and sort all generalization levels
@@ -155,7 +176,7 @@ public class QualityModelColumnOrientedNonUniformEntropy extends QualityModel<Qu
                     for (int row = 0; row < input.getNumRows(); row++) {
 
                         // Input and output value for this cell
-                        String value = input.getValue(row, column);
+                        String value = getValue(input, row, column);
                         String inputValue = levelIndex == 0 ? value : generalizationFunctions[previousLevel].get(value);
                         String outputValue = generalizationFunctions[currentLevel].get(value);
                         
@@ -176,7 +197,7 @@ public class QualityModelColumnOrientedNonUniformEntropy extends QualityModel<Qu
                 DataHandle input = getInput();
                 Map<String, Double> inputFrequencies = getInputFrequencies(transformations, column, 0);
                 for (int row = 0; row < input.getNumRows(); row++) {
-                    max[i] += log2(inputFrequencies.get(input.getValue(row, column)) / (double)input.getNumRows());
+                    max[i] += log2(inputFrequencies.get(getValue(input, row, column)) / (double)input.getNumRows());
 
                     // Check
                     checkInterrupt();
@@ -248,7 +269,7 @@ public class QualityModelColumnOrientedNonUniformEntropy extends QualityModel<Qu
         Map<String, Double> result = new HashMap<String, Double>();
         for (int row = 0; row < input.getNumRows(); row++) {
             if (transformations[row] >= level) {
-                String value = input.getValue(row, column);
+                String value = getValue(input, row, column);
                 Double count = result.get(value);
                 result.put(value, count != null ? count + 1d : 1d);
             }
@@ -310,7 +331,7 @@ public class QualityModelColumnOrientedNonUniformEntropy extends QualityModel<Qu
         DataHandle input = getInput();
         for (int row = 0; row < input.getNumRows(); row++) {
             if (transformations[row] >= level) {
-                String value = generalizationFunctions[target].get(input.getValue(row, column));
+                String value = generalizationFunctions[target].get(getValue(input, row, column));
                 Double count = result.get(value);
                 result.put(value, count != null ? count + 1d : 1d);
             }
@@ -36,6 +36,33 @@ import org.deidentifier.arx.common.WrappedInteger;
  */
 public class QualityModelColumnOrientedPrecision extends QualityModel<QualityMeasureColumnOriented> {
 
+    /**
+     * Creates a new instance
+     * 
+     * @param interrupt
+     * @param progress
+     * @param totalWorkload
+     * @param data
+     * @param hierarchies
+     * @param shares
+     * @param config
+     */
+    public QualityModelColumnOrientedPrecision(WrappedBoolean interrupt,
+                                               WrappedInteger progress,
+                                               int totalWorkload,
+                                               QualityData data,
+                                               String[][][] hierarchies,
+                                               QualityDomainShare[] shares,
+                                               QualityConfiguration config) {
+             super(interrupt,
+                   progress,
+                   totalWorkload,
+                   data,
+                   hierarchies,
+                   shares,
+                   config);
+    }
+    
     /**
      * Creates a new instance
      * 
@@ -66,19 +93,13 @@ public class QualityModelColumnOrientedPrecision extends QualityModel<QualityMea
                                                QualityDomainShare[] shares,
                                                int[] indices,
                                                QualityConfiguration config) {
-             super(interrupt,
-                   progress,
-                   totalWorkload,
-                   input,
-                   output,
-                   suppressedInput,
-                   suppressedOutput,
-                   groupedInput,
-                   groupedOutput,
-                   hierarchies,
-                   shares,
-                   indices,
-                   config);
+        this(interrupt,
+             progress,
+             totalWorkload,
+             new QualityData(input, output, suppressedInput, suppressedOutput, groupedInput, groupedOutput, indices),
+             hierarchies,
+             shares,
+             config);
     }
     
     @Override
@@ -108,7 +129,7 @@ public class QualityModelColumnOrientedPrecision extends QualityModel<QualityMea
                 try {
                     double precision = 1d;
                     if (!isSuppressed(output, indices, row)) {
-                        Double temp = precisions[i].get(output.getValue(row, column));
+                        Double temp = precisions[i].get(getValue(output, row, column));
                         precision = temp != null ? temp : 1d;
                     }
                     result[i] += precision;
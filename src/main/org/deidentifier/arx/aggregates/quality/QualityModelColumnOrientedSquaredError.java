@@ -31,6 +31,33 @@ import org.deidentifier.arx.common.WrappedInteger;
 public class QualityModelColumnOrientedSquaredError extends QualityModel<QualityMeasureColumnOriented> {
     
 
+    /**
+     * Creates a new instance
+     * 
+     * @param interrupt
+     * @param progress
+     * @param totalWorkload
+     * @param data
+     * @param hierarchies
+     * @param shares
+     * @param config
+     */
+    public QualityModelColumnOrientedSquaredError(WrappedBoolean interrupt,
+                                                  WrappedInteger progress,
+                                                  int totalWorkload,
+                                                  QualityData data,
+                                                  String[][][] hierarchies,
+                                                  QualityDomainShare[] shares,
+                                                  QualityConfiguration config) {
+                super(interrupt,
+                      progress,
+                      totalWorkload,
+                      data,
+                      hierarchies,
+                      shares,
+                      config);
+    }
+    
     /**
      * Creates a new instance
      * 
@@ -61,19 +88,13 @@ public class QualityModelColumnOrientedSquaredError extends QualityModel<Quality
                                                   QualityDomainShare[] shares,
                                                   int[] indices,
                                                   QualityConfiguration config) {
-                super(interrupt,
-                      progress,
-                      totalWorkload,
-                      input,
-                      output,
-                      suppressedInput,
-                      suppressedOutput,
-                      groupedInput,
-                      groupedOutput,
-                      hierarchies,
-                      shares,
-                      indices,
-                      config);
+        this(interrupt,
+             progress,
+             totalWorkload,
+             new QualityData(input, output, suppressedInput, suppressedOutput, groupedInput, groupedOutput, indices),
+             hierarchies,
+             shares,
+             config);
     }
     
     @Override
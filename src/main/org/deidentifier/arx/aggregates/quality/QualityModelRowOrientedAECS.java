@@ -19,7 +19,6 @@ package org.deidentifier.arx.aggregates.quality;
 
 import org.deidentifier.arx.DataHandle;
 import org.deidentifier.arx.common.Groupify;
-import org.deidentifier.arx.common.Groupify.Group;
 import org.deidentifier.arx.common.TupleWrapper;
 import org.deidentifier.arx.common.WrappedBoolean;
 import org.deidentifier.arx.common.WrappedInteger;
@@ -34,6 +33,33 @@ import org.deidentifier.arx.common.WrappedInteger;
  */
 public class QualityModelRowOrientedAECS extends QualityModel<QualityMeasureRowOriented> {
 
+    /**
+     * Creates a new instance
+     * 
+     * @param interrupt
+     * @param progress
+     * @param totalWorkload
+     * @param data
+     * @param hierarchies
+     * @param shares
+     * @param config
+     */
+    public QualityModelRowOrientedAECS(WrappedBoolean interrupt,
+                                       WrappedInteger progress,
+                                       int totalWorkload,
+                                       QualityData data,
+                                       String[][][] hierarchies,
+                                       QualityDomainShare[] shares,
+                                       QualityConfiguration config) {
+     super(interrupt,
+           progress,
+           totalWorkload,
+           data,
+           hierarchies,
+           shares,
+           config);
+    }
+    
     /**
      * Creates a new instance
      * 
@@ -64,19 +90,13 @@ public class QualityModelRowOrientedAECS extends QualityModel<QualityMeasureRowO
                                        QualityDomainShare[] shares,
                                        int[] indices,
                                        QualityConfiguration config) {
-     super(interrupt,
-           progress,
-           totalWorkload,
-           input,
-           output,
-           suppressedInput,
-           suppressedOutput,
-           groupedInput,
-           groupedOutput,
-           hierarchies,
-           shares,
-           indices,
-           config);
+        this(interrupt,
+             progress,
+             totalWorkload,
+             new QualityData(input, output, suppressedInput, suppressedOutput, groupedInput, groupedOutput, indices),
+             hierarchies,
+             shares,
+             config);
     }
 
     @Override
@@ -88,13 +108,13 @@ public class QualityModelRowOrientedAECS extends QualityModel<QualityMeasureRowO
             setSteps(2);
             
             // Calculate
-            double min = getAverageGroupSize(getGroupedInput());
+            double min = getAverageGroupSize(getInputClasses());
 
             // Progress
             setStepPerformed();
             
             double max = getInput().getNumRows();
-            double result = getAverageGroupSize(getGroupedOutput());
+            double result = getAverageGroupSize(getOutputClasses());
 
             // Progress
             setStepsDone();
@@ -112,19 +132,17 @@ public class QualityModelRowOrientedAECS extends QualityModel<QualityMeasureRowO
     }
 
     /**
-     * Returns the average group size for this groupify
-     * @param groupify
+     * Returns the average group size for these classes
+     * @param classes
      * @return
      */
-    private double getAverageGroupSize(Groupify<TupleWrapper> groupify) {
+    private double getAverageGroupSize(int[] classes) {
         // Calculate
-        Group<TupleWrapper> group = groupify.first();
         double count = 1d;
-        double sum = group.getCount();
-        while (group.hasNext()) {
-            group = group.next();
+        double sum = classes[0];
+        for (int i = 1; i < classes.length; i++) {
             count++;
-            sum += group.getCount();
+            sum += classes[i];
 
             // Check
             checkInterrupt();
@@ -33,6 +33,33 @@ import org.deidentifier.arx.common.WrappedInteger;
  */
 public class QualityModelRowOrientedAmbiguity extends QualityModel<QualityMeasureRowOriented> {
 
+    /**
+     * Creates a new instance
+     * 
+     * @param interrupt
+     * @param progress
+     * @param totalWorkload
+     * @param data
+     * @param hierarchies
+     * @param shares
+     * @param config
+     */
+    public QualityModelRowOrientedAmbiguity(WrappedBoolean interrupt,
+                                            WrappedInteger progress,
+                                            int totalWorkload,
+                                            QualityData data,
+                                            String[][][] hierarchies,
+                                            QualityDomainShare[] shares,
+                                            QualityConfiguration config) {
+          super(interrupt,
+                progress,
+                totalWorkload,
+                data,
+                hierarchies,
+                shares,
+                config);
+    }
+    
     /**
      * Creates a new instance
      * 
@@ -63,19 +90,13 @@ public class QualityModelRowOrientedAmbiguity extends QualityModel<QualityMeasur
                                             QualityDomainShare[] shares,
                                             int[] indices,
                                             QualityConfiguration config) {
-          super(interrupt,
-                progress,
-                totalWorkload,
-                input,
-                output,
-                suppressedInput,
-                suppressedOutput,
-                groupedInput,
-                groupedOutput,
-                hierarchies,
-                shares,
-                indices,
-                config);
+        this(interrupt,
+             progress,
+             totalWorkload,
+             new QualityData(input, output, suppressedInput, suppressedOutput, groupedInput, groupedOutput, indices),
+             hierarchies,
+             shares,
+             config);
     }
 
     @Override
@@ -99,7 +120,7 @@ public class QualityModelRowOrientedAmbiguity extends QualityModel<QualityMeasur
                 double rowMax = 1d;
                 for (int i = 0; i < indices.length; i++) {
                     int column = indices[i];
-                    rowResult *= shares[i].getShare(output.getValue(row, column), 0) * shares[i].getDomainSize();
+                    rowResult *= shares[i].getShare(getValue(output, row, column), 0) * shares[i].getDomainSize();
                     rowMin *= 1d;
                     rowMax *= shares[i].getDomainSize();
                 }
@@ -19,7 +19,6 @@ package org.deidentifier.arx.aggregates.quality;
 
 import org.deidentifier.arx.DataHandle;
 import org.deidentifier.arx.common.Groupify;
-import org.deidentifier.arx.common.Groupify.Group;
 import org.deidentifier.arx.common.TupleWrapper;
 import org.deidentifier.arx.common.WrappedBoolean;
 import org.deidentifier.arx.common.WrappedInteger;
@@ -35,6 +34,33 @@ import org.deidentifier.arx.common.WrappedInteger;
  */
 public class QualityModelRowOrientedDiscernibility extends QualityModel<QualityMeasureRowOriented> {
 
+    /**
+     * Creates a new instance
+     * 
+     * @param interrupt
+     * @param progress
+     * @param totalWorkload
+     * @param data
+     * @param hierarchies
+     * @param shares
+     * @param config
+     */
+    public QualityModelRowOrientedDiscernibility(WrappedBoolean interrupt,
+                                                 WrappedInteger progress,
+                                                 int totalWorkload,
+                                                 QualityData data,
+                                                 String[][][] hierarchies,
+                                                 QualityDomainShare[] shares,
+                                                 QualityConfiguration config) {
+               super(interrupt,
+                     progress,
+                     totalWorkload,
+                     data,
+                     hierarchies,
+                     shares,
+                     config);
+    }
+    
     /**
      * Creates a new instance
      * 
@@ -65,19 +91,13 @@ public class QualityModelRowOrientedDiscernibility extends QualityModel<QualityM
                                                  QualityDomainShare[] shares,
                                                  int[] indices,
                                                  QualityConfiguration config) {
-               super(interrupt,
-                     progress,
-                     totalWorkload,
-                     input,
-                     output,
-                     suppressedInput,
-                     suppressedOutput,
-                     groupedInput,
-                     groupedOutput,
-                     hierarchies,
-                     shares,
-                     indices,
-                     config);
+        this(interrupt,
+             progress,
+             totalWorkload,
+             new QualityData(input, output, suppressedInput, suppressedOutput, groupedInput, groupedOutput, indices),
+             hierarchies,
+             shares,
+             config);
     }
 
     @Override
@@ -90,14 +110,14 @@ public class QualityModelRowOrientedDiscernibility extends QualityModel<QualityM
             
             // Calculate
             double rows = getInput().getNumRows();
-            double min = getDiscernibility(getGroupedInput(), rows);
+            double min = getDiscernibility(getInputClasses(), rows);
             min += (double)getSuppressedRecordsInInput() * rows;
 
             // Progress
             setStepPerformed();
             
             double max = rows * rows;
-            double result = getDiscernibility(getGroupedOutput(), rows);
+            double result = getDiscernibility(getOutputClasses(), rows);
             result += (double)getSuppressedRecordsInOutput() * rows;
 
             // Progress
@@ -117,18 +137,16 @@ public class QualityModelRowOrientedDiscernibility extends QualityModel<QualityM
 
     /**
      * Get discernibility
-     * @param groupify
+     * @param classes
      * @param rows
      * @return
      */
-    private double getDiscernibility(Groupify<TupleWrapper> groupify, double rows) {
-        Group<TupleWrapper> e = groupify.first();
-        double sum = e.getCount() * e.getCount();
-        while (e.hasNext()) {
+    private double getDiscernibility(int[] classes, double rows) {
+        double sum = classes[0] * classes[0];
+        for (int i = 1; i < classes.length; i++) {
             
             // Compute
-            e = e.next();
-            sum += e.getCount() * e.getCount();
+            sum += classes[i] * classes[i];
 
             // Check
             checkInterrupt();
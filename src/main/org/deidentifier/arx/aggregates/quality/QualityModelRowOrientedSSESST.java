@@ -35,6 +35,33 @@ import org.deidentifier.arx.common.WrappedInteger;
  */
 public class QualityModelRowOrientedSSESST extends QualityModel<QualityMeasureRowOriented> {
 
+    /**
+     * Creates a new instance
+     * 
+     * @param interrupt
+     * @param progress
+     * @param totalWorkload
+     * @param data
+     * @param hierarchies
+     * @param shares
+     * @param config
+     */
+    public QualityModelRowOrientedSSESST(WrappedBoolean interrupt,
+                                         WrappedInteger progress,
+                                         int totalWorkload,
+                                         QualityData data,
+                                         String[][][] hierarchies,
+                                         QualityDomainShare[] shares,
+                                         QualityConfiguration config) {
+       super(interrupt,
+             progress,
+             totalWorkload,
+             data,
+             hierarchies,
+             shares,
+             config);
+    }
+    
     /**
      * Creates a new instance
      * 
@@ -65,18 +92,12 @@ public class QualityModelRowOrientedSSESST extends QualityModel<QualityMeasureRo
                                          QualityDomainShare[] shares,
                                          int[] indices,
                                          QualityConfiguration config) {
-       super(interrupt,
+        this(interrupt,
              progress,
              totalWorkload,
-             input,
-             output,
-             suppressedInput,
-             suppressedOutput,
-             groupedInput,
-             groupedOutput,
+             new QualityData(input, output, suppressedInput, suppressedOutput, groupedInput, groupedOutput, indices),
              hierarchies,
              shares,
-             indices,
              config);
     }
 
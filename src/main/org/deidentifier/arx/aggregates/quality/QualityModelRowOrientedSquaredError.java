@@ -35,6 +35,33 @@ import org.deidentifier.arx.common.WrappedInteger;
  */
 public class QualityModelRowOrientedSquaredError extends QualityModel<QualityMeasureRowOriented> {
 
+    /**
+     * Creates a new instance
+     * 
+     * @param interrupt
+     * @param progress
+     * @param totalWorkload
+     * @param data
+     * @param hierarchies
+     * @param shares
+     * @param config
+     */
+    public QualityModelRowOrientedSquaredError(WrappedBoolean interrupt,
+                                               WrappedInteger progress,
+                                               int totalWorkload,
+                                               QualityData data,
+                                               String[][][] hierarchies,
+                                               QualityDomainShare[] shares,
+                                               QualityConfiguration config) {
+             super(interrupt,
+                   progress,
+                   totalWorkload,
+                   data,
+                   hierarchies,
+                   shares,
+                   config);
+    }
+    
     /**
      * Creates a new instance
      * 
@@ -65,19 +92,13 @@ public class QualityModelRowOrientedSquaredError extends QualityModel<QualityMea
                                                QualityDomainShare[] shares,
                                                int[] indices,
                                                QualityConfiguration config) {
-             super(interrupt,
-                   progress,
-                   totalWorkload,
-                   input,
-                   output,
-                   suppressedInput,
-                   suppressedOutput,
-                   groupedInput,
-                   groupedOutput,
-                   hierarchies,
-                   shares,
-                   indices,
-                   config);
+        this(interrupt,
+             progress,
+             totalWorkload,
+             new QualityData(input, output, suppressedInput, suppressedOutput, groupedInput, groupedOutput, indices),
+             hierarchies,
+             shares,
+             config);
     }
 
     @Override
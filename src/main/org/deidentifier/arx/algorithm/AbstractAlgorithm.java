@@ -164,8 +164,18 @@ public abstract class AbstractAlgorithm {
      * @return
      */
     protected boolean mustStop() {
+        return mustStop(getCheckCount());
+    }
+
+    /**
+     * Returns whether we have exceeded the allowed time or would exceed the allowed
+     * number of steps after the given number of checks.
+     * @param checks
+     * @return
+     */
+    protected boolean mustStop(int checks) {
         return ((int)(System.currentTimeMillis() - timeStart) > timeLimit) ||
-               (checker.getNumChecksPerformed() >= checkLimit);
+               (checks >= checkLimit);
     }
 
     /**
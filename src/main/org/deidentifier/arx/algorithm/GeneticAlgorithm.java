@@ -18,14 +18,21 @@ package org.deidentifier.arx.algorithm;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
 
 import org.apache.commons.math3.distribution.EnumeratedDistribution;
 import org.apache.commons.math3.random.AbstractRandomGenerator;
 import org.apache.commons.math3.util.Pair;
+import org.deidentifier.arx.common.TaskExecutor;
 import org.deidentifier.arx.framework.check.TransformationChecker;
 import org.deidentifier.arx.framework.check.TransformationChecker.ScoreType;
+import org.deidentifier.arx.framework.check.TransformationResult;
 import org.deidentifier.arx.framework.check.history.History.StorageStrategy;
 import org.deidentifier.arx.framework.lattice.SolutionSpace;
 import org.deidentifier.arx.framework.lattice.Transformation;
@@ -111,6 +118,12 @@ public class GeneticAlgorithm extends AbstractAlgorithm {
     private int                         geneticAlgorithmSubpopulationSize;
     /** Configuration */
     private double                      geneticAlgorithmProductionFraction;
+    /** Number of threads for checking individuals */
+    private final int                   numThreads;
+    /** Workers, created lazily */
+    private TransformationChecker[]     workers;
+    /** Executor, created lazily */
+    private TaskExecutor                executor;
 
     /**
      * Creates a new instance
@@ -155,6 +168,18 @@ public class GeneticAlgorithm extends AbstractAlgorithm {
         this.geneticAlgorithmSubpopulationSize = geneticAlgorithmSubpopulationSize;
         this.geneticAlgorithmProductionFraction = geneticAlgorithmpProductionFraction;
         this.random = geneticAlgorithmDeterministic ? new Random(0xDEADBEEF) : new Random();
+        this.numThreads = checker.getConfiguration().getNumberOfThreads();
+    }
+
+    @Override
+    public int getCheckCount() {
+        int count = super.getCheckCount();
+        if (workers != null) {
+            for (TransformationChecker worker : workers) {
+                count += worker.getNumChecksPerformed();
+            }
+        }
+        return count;
     }
 
     @Override
@@ -162,99 +187,67 @@ public class GeneticAlgorithm extends AbstractAlgorithm {
 
         // Prepare
         super.startTraverse();
-
-        // k is defined in a way that stops very small sub-populations
-        // from breaking the algorithm, as very small values fail to
-        // solve. The GA requires diversity, and small sub-populations do not
-        // provide enough information to satisfy that
-        int k = this.maxLevels.length + geneticAlgorithmSubpopulationSize;
-        int itr = geneticAlgorithmIterations;
-        int imm = geneticAlgorithmImmigrationInterval;
-        int immigrationCount = (int) geneticAlgorithmImmigrationFraction * k;
-
-        // Build sub-populations
-        GeneticAlgorithmSubpopulation z1 = new GeneticAlgorithmSubpopulation();
-        GeneticAlgorithmSubpopulation z2 = new GeneticAlgorithmSubpopulation();
-
-        // Fill sub-population 1
-        for (int i = 0; i < k; i++) {
-
-            // Prepare
-            int[] generalization = new int[maxLevels.length];
-
-            // Create "triangle" structure to cover the solution space
-            if (i < this.maxLevels.length) {
-
-                // Fill 0 .. i with max generalization levels
-                for (int j = 0; j <= i; j++) {
-                    generalization[j] = maxLevels[j];
-                }
-
-                // Fill the rest with min generalization levels
-                for (int j = i + 1; j < maxLevels.length; j++) {
-                    generalization[j] = minLevels[j];
-                }
-
-            } else {
-
-                // Generate random individual
-                for (int j = 0; j < maxLevels.length; j++) {
-                    generalization[j] = getRandomGeneralizationLevel(j);
+        
+        // Traverse and release workers
+        try {
+            return traverseInternal();
+        } finally {
+            if (executor != null) {
+                executor.shutdown();
+                executor = null;
+            }
+            if (workers != null) {
+                for (TransformationChecker worker : workers) {
+                    worker.reset();
                 }
             }
-
-            // Stop
-            if (mustStop()) { return false; }
-
-            z1.addIndividual(getIndividual(generalization));
         }
+    }
 
-        // Fill sub-population 2
-        for (int i = 0; i < k; i++) {
-
-            // Prepare
-            int[] generalization = new int[maxLevels.length];
+    /**
+     * Checks the given transformations concurrently. Transformations are assigned to workers
+     * in a round-robin manner and each worker checks its transformations in the given order,
+     * which makes the process reproducible.
+     * 
+     * @param transformations
+     * @return
+     */
+    private Map<Object, TransformationResult> check(final List<Transformation<?>> transformations) {
 
-            // Generate random individual
-            for (int j = 0; j < maxLevels.length; j++) {
-                generalization[j] = getRandomGeneralizationLevel(j);
+        // Prepare
+        if (workers == null) {
+            workers = checker.createWorkers(numThreads);
+            for (TransformationChecker worker : workers) {
+                worker.getHistory().setStorageStrategy(StorageStrategy.ALL);
             }
-
-            // Stop
-            if (mustStop()) { return false; }
-
-            z2.addIndividual(getIndividual(generalization));
+            executor = new TaskExecutor("ARX genetic algorithm", numThreads);
         }
 
-        // Main iterator
-        for (int t = 0; t < itr; t++) {
-
-            // Sort by fitness descending
-            z1.sort();
-            z2.sort();
-
-            // Swap individuals between GASubpopulations periodically
-            if (t % imm == 0) {
-
-                // Moves the imff fittest individuals between groups
-                z1.moveFittestIndividuals(z2, immigrationCount);
-                z2.moveFittestIndividuals(z1, immigrationCount);
+        // Prepare tasks
+        List<Callable<TransformationResult[]>> tasks = new ArrayList<>();
+        for (int i = 0; i < workers.length; i++) {
+            final int offset = i;
+            tasks.add(new Callable<TransformationResult[]>() {
+                @Override
+                public TransformationResult[] call() throws Exception {
+                    TransformationResult[] results = new TransformationResult[transformations.size()];
+                    for (int j = offset; j < transformations.size(); j += workers.length) {
+                        results[j] = workers[offset].check(transformations.get(j), true, ScoreType.INFORMATION_LOSS);
+                    }
+                    return results;
+                }
+            });
+        }
 
-                // Sort by fitness descending
-                z1.sort();
-                z2.sort();
+        // Execute and collect
+        List<TransformationResult[]> results = executor.execute(tasks);
+        Map<Object, TransformationResult> result = new HashMap<>();
+        for (int i = 0; i < workers.length; i++) {
+            for (int j = i; j < transformations.size(); j += workers.length) {
+                result.put(transformations.get(j).getIdentifier(), results.get(i)[j]);
             }
-
-            // Iterate
-            iterateSubpopulation(z1);
-            iterateSubpopulation(z2);
-
-            // Stop
-            if (mustStop()) { return false; }
         }
-
-        // Check whether we found a solution
-        return getGlobalOptimum() != null;
+        return result;
     }
 
     /**
@@ -273,6 +266,61 @@ public class GeneticAlgorithm extends AbstractAlgorithm {
         return transformation;
     }
 
+    /**
+     * Returns the individuals with the given generalization levels. Limits are checked before
+     * or after each individual, and the individuals which have been evaluated until a limit was
+     * reached are returned. If multiple threads are configured, the individuals are checked
+     * concurrently, with results being identical to sequential processing.
+     * 
+     * @param generalizations
+     * @param checkLimitsBefore
+     * @return
+     */
+    private List<Transformation<?>> getIndividuals(List<int[]> generalizations, boolean checkLimitsBefore) {
+
+        // Prepare
+        List<Transformation<?>> result = new ArrayList<>();
+
+        // Sequential processing
+        if (numThreads == 1) {
+            for (int[] generalization : generalizations) {
+                if (checkLimitsBefore && mustStop()) { break; }
+                result.add(getIndividual(generalization));
+                if (!checkLimitsBefore && mustStop()) { break; }
+            }
+            return result;
+        }
+
+        // Determine individuals and transformations to check, as in sequential processing
+        int checks = getCheckCount();
+        Set<Object> identifiers = new HashSet<>();
+        List<Transformation<?>> transformations = new ArrayList<>();
+        for (int[] generalization : generalizations) {
+            if (checkLimitsBefore && mustStop(checks)) { break; }
+            Transformation<?> transformation = this.solutionSpace.getTransformation(generalization);
+            if (!transformation.hasProperty(this.solutionSpace.getPropertyChecked()) &&
+                identifiers.add(transformation.getIdentifier())) {
+                transformations.add(transformation);
+                checks++;
+            }
+            result.add(transformation);
+            if (!checkLimitsBefore && mustStop(checks)) { break; }
+        }
+
+        // Check concurrently
+        Map<Object, TransformationResult> results = check(transformations);
+
+        // Merge in order
+        for (Transformation<?> transformation : result) {
+            if (!transformation.hasProperty(this.solutionSpace.getPropertyChecked())) {
+                transformation.setChecked(results.get(transformation.getIdentifier()));
+            }
+            trackOptimum(transformation);
+            trackProgressFromLimits();
+        }
+        return result;
+    }
+
     /**
      * Returns a mutated transformation, which means that a random parent is
      * selected. <br>
@@ -282,9 +330,9 @@ public class GeneticAlgorithm extends AbstractAlgorithm {
      * representing the locations of mutated places <br>
      * - Replace selected places with random levels
      * 
-     * @return
+     * @return the generalization levels of the mutated transformation
      */
-    private Transformation<?> getMutatedIndividual(Transformation<?> transformation) {
+    private int[] getMutatedIndividual(Transformation<?> transformation) {
 
         // Prepare
         int[] generalization = transformation.getGeneralization().clone();
@@ -310,7 +358,7 @@ public class GeneticAlgorithm extends AbstractAlgorithm {
         }
 
         // Done
-        return getIndividual(generalization);
+        return generalization;
     }
 
     /**
@@ -405,6 +453,7 @@ public class GeneticAlgorithm extends AbstractAlgorithm {
         // Crossover individuals
         Transformation<?>[] parents1 = getRandomIndividuals(population, productionCount, crossoverCount);
         Transformation<?>[] parents2 = getRandomIndividuals(population, productionCount, crossoverCount);
+        List<int[]> children = new ArrayList<>();
         for (int crossover = 0; crossover < crossoverCount; crossover++) {
 
             // Create crossover child
@@ -412,25 +461,135 @@ public class GeneticAlgorithm extends AbstractAlgorithm {
             for (int i = 0; i < maxLevels.length; i++) {
                 vec[i] = (random.nextDouble() < 0.5 ? parents1[crossover] : parents2[crossover]).getGeneralization()[i];
             }
+            children.add(vec);
+        }
 
-            // Stop
-            if (mustStop()) { return; }
-
-            // Replace
-            population.setIndividual(k - crossover - 1, getIndividual(vec));
+        // Replace
+        List<Transformation<?>> individuals = getIndividuals(children, true);
+        for (int crossover = 0; crossover < individuals.size(); crossover++) {
+            population.setIndividual(k - crossover - 1, individuals.get(crossover));
         }
 
+        // Stop
+        if (individuals.size() < crossoverCount) { return; }
+
         // Mutate individuals
+        List<int[]> mutants = new ArrayList<>();
         for (int mutation = eliteCount; mutation < k - crossoverCount; mutation++) {
+            mutants.add(getMutatedIndividual(oldPopulation.getIndividual(random.nextInt(k))));
+        }
+
+        // Replace
+        individuals = getIndividuals(mutants, false);
+        for (int mutation = 0; mutation < individuals.size(); mutation++) {
+            population.setIndividual(eliteCount + mutation, individuals.get(mutation));
+        }
+    }
+
+    /**
+     * Traverses the solution space
+     * 
+     * @return
+     */
+    private boolean traverseInternal() {
+
+        // k is defined in a way that stops very small sub-populations
+        // from breaking the algorithm, as very small values fail to
+        // solve. The GA requires diversity, and small sub-populations do not
+        // provide enough information to satisfy that
+        int k = this.maxLevels.length + geneticAlgorithmSubpopulationSize;
+        int itr = geneticAlgorithmIterations;
+        int imm = geneticAlgorithmImmigrationInterval;
+        int immigrationCount = (int) geneticAlgorithmImmigrationFraction * k;
+
+        // Build sub-populations
+        GeneticAlgorithmSubpopulation z1 = new GeneticAlgorithmSubpopulation();
+        GeneticAlgorithmSubpopulation z2 = new GeneticAlgorithmSubpopulation();
+
+        // Fill sub-population 1
+        List<int[]> generalizations = new ArrayList<>();
+        for (int i = 0; i < k; i++) {
+
+            // Prepare
+            int[] generalization = new int[maxLevels.length];
+
+            // Create "triangle" structure to cover the solution space
+            if (i < this.maxLevels.length) {
+
+                // Fill 0 .. i with max generalization levels
+                for (int j = 0; j <= i; j++) {
+                    generalization[j] = maxLevels[j];
+                }
+
+                // Fill the rest with min generalization levels
+                for (int j = i + 1; j < maxLevels.length; j++) {
+                    generalization[j] = minLevels[j];
+                }
+
+            } else {
+
+                // Generate random individual
+                for (int j = 0; j < maxLevels.length; j++) {
+                    generalization[j] = getRandomGeneralizationLevel(j);
+                }
+            }
+            generalizations.add(generalization);
+        }
+        for (Transformation<?> individual : getIndividuals(generalizations, true)) {
+            z1.addIndividual(individual);
+        }
+
+        // Stop
+        if (z1.individualCount() < k) { return false; }
+
+        // Fill sub-population 2
+        generalizations.clear();
+        for (int i = 0; i < k; i++) {
+
+            // Prepare
+            int[] generalization = new int[maxLevels.length];
+
+            // Generate random individual
+            for (int j = 0; j < maxLevels.length; j++) {
+                generalization[j] = getRandomGeneralizationLevel(j);
+            }
+            generalizations.add(generalization);
+        }
+        for (Transformation<?> individual : getIndividuals(generalizations, true)) {
+            z2.addIndividual(individual);
+        }
 
-            // Mutate
-            Transformation<?> individual = getMutatedIndividual(oldPopulation.getIndividual(random.nextInt(k)));
-            if (individual != null) {
-                population.setIndividual(mutation, individual);
+        // Stop
+        if (z2.individualCount() < k) { return false; }
+
+        // Main iterator
+        for (int t = 0; t < itr; t++) {
+
+            // Sort by fitness descending
+            z1.sort();
+            z2.sort();
+
+            // Swap individuals between GASubpopulations periodically
+            if (t % imm == 0) {
+
+                // Moves the imff fittest individuals between groups
+                z1.moveFittestIndividuals(z2, immigrationCount);
+                z2.moveFittestIndividuals(z1, immigrationCount);
+
+                // Sort by fitness descending
+                z1.sort();
+                z2.sort();
             }
 
+            // Iterate
+            iterateSubpopulation(z1);
+            iterateSubpopulation(z2);
+
             // Stop
-            if (mustStop()) { return; }
+            if (mustStop()) { return false; }
         }
+
+        // Check whether we found a solution
+        return getGlobalOptimum() != null;
     }
 }
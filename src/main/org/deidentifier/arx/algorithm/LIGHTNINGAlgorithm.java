@@ -17,12 +17,18 @@
 
 package org.deidentifier.arx.algorithm;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.List;
 import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.deidentifier.arx.common.TaskExecutor;
 import org.deidentifier.arx.framework.check.TransformationChecker;
 import org.deidentifier.arx.framework.check.TransformationChecker.ScoreType;
+import org.deidentifier.arx.framework.check.TransformationResult;
 import org.deidentifier.arx.framework.check.history.History.StorageStrategy;
 import org.deidentifier.arx.framework.lattice.SolutionSpace;
 import org.deidentifier.arx.framework.lattice.Transformation;
@@ -37,6 +43,12 @@ import de.linearbits.jhpl.PredictiveProperty;
  * Prasser, F., Bild, R., Eicher, J., Spengler, H., Kohlmayer, F., & Kuhn, K. A. (2016). 
  * Lightning: Utility-Driven Anonymization of High-Dimensional Data.
  * Transactions on Data Privacy, 9(2), 161-185.
+ * <br>
+ * If multiple threads are configured, the bottom-up search is performed by several workers,
+ * which concurrently expand the most promising transformations from a shared queue. Each worker
+ * checks transformations with its own checker, while properties stored in the solution space,
+ * the queue and the optimum are shared. The order in which transformations are expanded, and thus the result obtained within
+ * the given limits, may differ from sequential processing.
  * 
  * @author Fabian Prasser
  * @author Raffael Bild
@@ -63,8 +75,20 @@ public class LIGHTNINGAlgorithm extends AbstractAlgorithm{
     private final PredictiveProperty propertyExpanded;
     /** Property */
     private final PredictiveProperty propertyInsufficientUtility;
+    /** Property used by workers to claim checks of transformations */
+    private final PredictiveProperty propertyVisited;
     /** The number indicating how often a depth-first-search will be performed */
     private final int                stepping;
+    /** Number of threads for the bottom-up search */
+    private final int                numThreads;
+    /** Workers, if searching concurrently */
+    private TransformationChecker[]  workers;
+    /** Number of steps performed concurrently, guarded by the queue */
+    private int                      step;
+    /** Number of workers processing a transformation, guarded by the queue */
+    private int                      active;
+    /** Number of checks claimed by workers */
+    private final AtomicInteger      checks = new AtomicInteger();
     
     /**
     * Constructor
@@ -81,7 +105,19 @@ public class LIGHTNINGAlgorithm extends AbstractAlgorithm{
         this.propertyChecked = space.getPropertyChecked();
         this.propertyExpanded = space.getPropertyExpanded();
         this.propertyInsufficientUtility = space.getPropertyInsufficientUtility();
+        this.propertyVisited = space.getPropertyVisited();
         this.solutionSpace.setAnonymityPropertyPredictable(false);
+        this.numThreads = checker.getConfiguration().getNumberOfThreads();
+    }
+
+    /**
+    * Returns the number of checks performed. When searching concurrently, checks are counted when
+    * workers claim them, which means that checks in progress are included and that the check limit
+    * is never exceeded.
+    */
+    @Override
+    public int getCheckCount() {
+        return super.getCheckCount() + checks.get();
     }
 
     @Override
@@ -99,6 +135,12 @@ public class LIGHTNINGAlgorithm extends AbstractAlgorithm{
         assureChecked(bottom);
         queue.add(bottom.getIdentifier());
         
+        // Search concurrently
+        if (numThreads > 1) {
+            traverseConcurrently(queue);
+            return !this.mustStop() && (this.getGlobalOptimum() != null);
+        }
+        
         // Start bottom-up best-first search combined with depth-first search
         int step = 0;
         Object nextId;
@@ -150,6 +192,45 @@ public class LIGHTNINGAlgorithm extends AbstractAlgorithm{
         }
     }
     
+    /**
+    * Claims one of the remaining checks for a worker. Returns false if the check limit has been reached.
+    * @return
+    */
+    private boolean claimCheck() {
+        int performed = super.getCheckCount();
+        while (true) {
+            int claimed = checks.get();
+            if (performed + claimed >= getCheckLimit()) {
+                return false;
+            }
+            if (checks.compareAndSet(claimed, claimed + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+    * Performs a depth first search (without backtracking) starting from the the given transformation
+    * with the given worker
+    * @param queue
+    * @param transformation
+    * @param worker
+    */
+    private void dfsConcurrently(PriorityQueue<Object> queue, Transformation<?> transformation, TransformationChecker worker) {
+        synchronized (queue) {
+            if (mustStop()) {
+                return;
+            }
+        }
+        Transformation<?> next = expandConcurrently(queue, transformation, worker);
+        if (next != null) {
+            synchronized (queue) {
+                queue.remove(next.getIdentifier());
+            }
+            dfsConcurrently(queue, next, worker);
+        }
+    }
+    
     /**
     * Returns the successor with minimal information loss, if any, null otherwise.
     * @param queue
@@ -179,6 +260,62 @@ public class LIGHTNINGAlgorithm extends AbstractAlgorithm{
         return result;
     }
     
+    /**
+    * Returns the successor with minimal information loss, if any, null otherwise. Successors are
+    * checked with the given worker without holding the lock on the queue. The transformation
+    * is marked as expanded first, which makes sure that it is expanded by one worker only.
+    * Successors are marked as visited before they are checked, which makes sure that each
+    * successor is checked by one worker only. Successors visited by other workers are skipped,
+    * because these workers add them to the queue.
+    * @param queue
+    * @param transformation
+    * @param worker
+    * @return
+    */
+    private Transformation<?> expandConcurrently(PriorityQueue<Object> queue, Transformation<?> transformation, TransformationChecker worker) {
+        
+        // Claim transformation
+        if (!transformation.setPropertyIfAbsent(propertyExpanded)) {
+            return null;
+        }
+        
+        // Check successors
+        Transformation<?> result = null;
+        TransformationList<?> list = transformation.getSuccessors();
+        for (int i = 0; i < list.size(); i++) {
+            Transformation<?> successor = solutionSpace.getTransformation(list.getQuick(i));
+            if (successor.hasProperty(propertyExpanded) || successor.hasProperty(propertyInsufficientUtility)) {
+                continue;
+            }
+            TransformationResult checkResult = null;
+            if (!successor.hasProperty(propertyChecked)) {
+                if (!successor.setPropertyIfAbsent(propertyVisited)) {
+                    continue;
+                }
+                if (!claimCheck()) {
+                    return null;
+                }
+                checkResult = worker.check(successor, true, ScoreType.INFORMATION_LOSS);
+            }
+            synchronized (queue) {
+                if (checkResult != null && !successor.hasProperty(propertyChecked)) {
+                    successor.setChecked(checkResult);
+                    trackOptimum(successor);
+                    trackProgressFromLimits();
+                }
+                queue.add(successor.getIdentifier());
+                queue.notifyAll();
+                if (result == null || successor.getInformationLoss().compareTo(result.getInformationLoss()) < 0) {
+                    result = successor;
+                }
+                if (mustStop()) {
+                    return null;
+                }
+            }
+        }
+        return result;
+    }
+    
     /**
     * Returns whether we can prune this Transformation
     * @param transformation
@@ -209,4 +346,94 @@ public class LIGHTNINGAlgorithm extends AbstractAlgorithm{
         // We have to process this transformation
         return false;
     }
+    
+    /**
+    * Performs the bottom-up search with multiple workers
+    * @param queue
+    */
+    private void traverseConcurrently(final PriorityQueue<Object> queue) {
+        
+        // Prepare
+        step = 0;
+        active = 0;
+        checks.set(0);
+        workers = checker.createWorkers(numThreads);
+        for (TransformationChecker worker : workers) {
+            worker.getHistory().setStorageStrategy(StorageStrategy.ALL);
+        }
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (final TransformationChecker worker : workers) {
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    traverseWorker(queue, worker);
+                    return null;
+                }
+            });
+        }
+        
+        // Search
+        try {
+            TaskExecutor.execute("ARX lightning", numThreads, tasks);
+        } finally {
+            for (TransformationChecker worker : workers) {
+                worker.reset();
+            }
+        }
+    }
+    
+    /**
+    * Repeatedly takes the most promising transformation from the queue and processes it with the
+    * given worker. Returns when a limit has been reached or when the queue is empty and no other
+    * worker may add further transformations.
+    * @param queue
+    * @param worker
+    * @throws InterruptedException
+    */
+    private void traverseWorker(PriorityQueue<Object> queue, TransformationChecker worker) throws InterruptedException {
+        
+        while (true) {
+            
+            // Take next transformation
+            Transformation<?> next;
+            boolean depthFirst;
+            synchronized (queue) {
+                while (true) {
+                    if (mustStop()) {
+                        queue.notifyAll();
+                        return;
+                    }
+                    Object nextId = queue.poll();
+                    if (nextId != null) {
+                        next = solutionSpace.getTransformation(nextId);
+                        if (!prune(next, true)) {
+                            break;
+                        }
+                    } else if (active == 0) {
+                        queue.notifyAll();
+                        return;
+                    } else {
+                        queue.wait();
+                    }
+                }
+                step++;
+                depthFirst = step % stepping == 0;
+                active++;
+            }
+            
+            // Process
+            try {
+                if (depthFirst) {
+                    dfsConcurrently(queue, next, worker);
+                } else {
+                    expandConcurrently(queue, next, worker);
+                }
+            } finally {
+                synchronized (queue) {
+                    active--;
+                    queue.notifyAll();
+                }
+            }
+        }
+    }
 }
\ No newline at end of file
@@ -41,6 +41,7 @@ import org.deidentifier.arx.certificate.elements.ElementTitle;
 import org.deidentifier.arx.certificate.resources.Watermark;
 import org.deidentifier.arx.criteria.PrivacyCriterion;
 import org.deidentifier.arx.io.CSVDataChecksum;
+import org.deidentifier.arx.io.CSVDataOutput;
 import org.deidentifier.arx.io.CSVSyntax;
 
 import rst.pdfbox.layout.elements.Document;
@@ -110,7 +111,35 @@ public class ARXCertificate { // NO_UCD
                                         DataHandle output,
                                         CSVSyntax syntax,
                                         ElementData metadata) {
-        return new ARXCertificate(input, definition, config, result, transformation, output, syntax, metadata);
+        return ARXCertificate.create(input, definition, config, result, transformation, output, syntax, metadata, null);
+    }
+
+    /**
+     * Renders the document into the given output stream.
+     * Includes the given SHA-256 checksum of the output data, which has been calculated
+     * with the given syntax, e.g. when writing the data with {@link CSVDataOutput#writeWithSHA256Checksum(java.util.Iterator)}.
+     * If the checksum is null, it will be calculated.
+     * 
+     * @param input
+     * @param definition
+     * @param config
+     * @param result
+     * @param transformation
+     * @param output
+     * @param syntax
+     * @param metadata
+     * @param checksum
+     */
+    public static ARXCertificate create(DataHandle input,
+                                        DataDefinition definition,
+                                        ARXConfiguration config,
+                                        ARXResult result,
+                                        ARXNode transformation,
+                                        DataHandle output,
+                                        CSVSyntax syntax,
+                                        ElementData metadata,
+                                        String checksum) {
+        return new ARXCertificate(input, definition, config, result, transformation, output, syntax, metadata, checksum);
     }
 
     /** The document style */
@@ -128,11 +157,13 @@ public class ARXCertificate { // NO_UCD
      * @param output
      * @param csvConfig 
      * @param metadata
+     * @param checksum
      */
     ARXCertificate(DataHandle input, DataDefinition definition,
                    ARXConfiguration config, ARXResult result, 
                    ARXNode transformation, DataHandle output, 
-                   CSVSyntax csvConfig, ElementData metadata) {
+                   CSVSyntax csvConfig, ElementData metadata,
+                   String checksum) {
         
         this.style = CertificateStyle.create();
 
@@ -165,11 +196,12 @@ public class ARXCertificate { // NO_UCD
             this.add(new ElementSubtitle((section++)+". Output data"));
             this.add(asList(output.render()));
             if (csvConfig != null) {
-                String checksum = null;
-                try {
-                    checksum = new CSVDataChecksum(csvConfig).getSHA256Checksum(output.iterator());
-                } catch (NoSuchAlgorithmException e) {
-                    checksum = "Could not calculate hash";
+                if (checksum == null) {
+                    try {
+                        checksum = new CSVDataChecksum(csvConfig).getSHA256Checksum(output.iterator(), config.getNumberOfThreads());
+                    } catch (NoSuchAlgorithmException e) {
+                        checksum = "Could not calculate hash";
+                    }
                 }
                 this.add(asList(new ElementData("Checksum").addProperty("SHA-256", checksum)));
             }
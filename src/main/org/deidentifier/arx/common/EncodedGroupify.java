@@ -0,0 +1,291 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2020 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.common;
+
+import java.util.Arrays;
+
+import org.deidentifier.arx.DataHandleInternal;
+
+import com.carrotsearch.hppc.ObjectIntOpenHashMap;
+
+/**
+ * Groups the records of a data handle by their values in a set of columns. Records are
+ * grouped on the encoded values stored in the handle's data matrix, which are mapped to
+ * identifiers in a way that equal strings yield equal identifiers. Groups are stored in
+ * a hash table with open addressing and linear probing, without creating any objects per
+ * record.
+ *
+ * @author Fabian Prasser
+ */
+public class EncodedGroupify {
+
+    /** Load factor */
+    private static final float                   LOAD_FACTOR = 0.75f;
+
+    /** The handle */
+    private final DataHandleInternal             handle;
+
+    /** The columns */
+    private final int[]                          indices;
+
+    /** Column -> encoded value + 1 -> identifier + 1 */
+    private final int[][]                        codes;
+
+    /** Column -> string -> identifier */
+    private final ObjectIntOpenHashMap<String>[] identifiers;
+
+    /** Buffer for the current tuple */
+    private final int[]                          tuple;
+
+    /** Hash table, containing group index + 1 */
+    private int[]                                table;
+
+    /** Group index * columns -> identifiers */
+    private int[]                                tuples;
+
+    /** Group index -> hash code */
+    private int[]                                hashcodes;
+
+    /** Group index -> count */
+    private int[]                                counts;
+
+    /** Group index -> first record */
+    private int[]                                representatives;
+
+    /** Number of groups */
+    private int                                  size;
+
+    /** Maximal number of groups before rehashing */
+    private int                                  threshold;
+
+    /**
+     * Creates a new instance
+     *
+     * @param handle
+     * @param indices
+     * @param capacity
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public EncodedGroupify(DataHandleInternal handle, int[] indices, int capacity) {
+
+        // Store
+        this.handle = handle;
+        this.indices = indices;
+        this.tuple = new int[indices.length];
+        this.codes = new int[indices.length][];
+        this.identifiers = new ObjectIntOpenHashMap[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            this.codes[i] = new int[16];
+            this.identifiers[i] = new ObjectIntOpenHashMap<String>();
+        }
+
+        // Table
+        int buckets = Integer.highestOneBit(Math.max(capacity, 8) - 1) << 1;
+        this.table = new int[buckets];
+        this.threshold = (int) (buckets * LOAD_FACTOR);
+        this.tuples = new int[threshold * indices.length];
+        this.hashcodes = new int[threshold];
+        this.counts = new int[threshold];
+        this.representatives = new int[threshold];
+    }
+
+    /**
+     * Adds the given record and returns the index of its group
+     *
+     * @param row
+     * @return
+     */
+    public int add(int row) {
+
+        // Map to identifiers
+        int hashcode = 23;
+        for (int i = 0; i < indices.length; i++) {
+            int identifier = getIdentifier(i, row);
+            tuple[i] = identifier;
+            hashcode = (37 * hashcode) + identifier;
+        }
+        hashcode ^= (hashcode >>> 16);
+
+        // Probe
+        int mask = table.length - 1;
+        int slot = hashcode & mask;
+        while (table[slot] != 0) {
+            int group = table[slot] - 1;
+            if (hashcodes[group] == hashcode && equals(group)) {
+                counts[group]++;
+                return group;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        // Create group
+        if (size == threshold) {
+            rehash();
+            mask = table.length - 1;
+            slot = hashcode & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+        }
+        int group = size++;
+        System.arraycopy(tuple, 0, tuples, group * indices.length, indices.length);
+        hashcodes[group] = hashcode;
+        counts[group] = 1;
+        representatives[group] = row;
+        table[slot] = group + 1;
+        return group;
+    }
+
+    /**
+     * Returns the number of records in the given group
+     *
+     * @param group
+     * @return
+     */
+    public int getCount(int group) {
+        return counts[group];
+    }
+
+    /**
+     * Returns the identifier of the value in the given column of the given group
+     *
+     * @param group
+     * @param column
+     * @return
+     */
+    public int getGroupIdentifier(int group, int column) {
+        return tuples[group * indices.length + column];
+    }
+
+    /**
+     * Returns the number of columns
+     *
+     * @return
+     */
+    public int getNumberOfColumns() {
+        return indices.length;
+    }
+
+    /**
+     * Returns the first record which has been added to the given group
+     *
+     * @param group
+     * @return
+     */
+    public int getRepresentative(int group) {
+        return representatives[group];
+    }
+
+    /**
+     * Returns the identifier of the given value in the given column, -1 if it has not been added
+     *
+     * @param column
+     * @param value
+     * @return
+     */
+    public int getValueIdentifier(int column, String value) {
+        ObjectIntOpenHashMap<String> map = identifiers[column];
+        return map.containsKey(value) ? map.lget() : -1;
+    }
+
+    /**
+     * Returns the number of groups
+     *
+     * @return
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns whether the given group matches the current tuple
+     *
+     * @param group
+     * @return
+     */
+    private boolean equals(int group) {
+        int offset = group * indices.length;
+        for (int i = 0; i < indices.length; i++) {
+            if (tuples[offset + i] != tuple[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the identifier of the value in the given column and row.
+     * Strings are only decoded for values which have not been seen before.
+     *
+     * @param column
+     * @param row
+     * @return
+     */
+    private int getIdentifier(int column, int row) {
+
+        // Encoded value, -1 for suppressed values
+        int code = handle.getEncodedValue(row, indices[column], false) + 1;
+        int[] mapping = codes[column];
+        if (code < mapping.length && mapping[code] != 0) {
+            return mapping[code] - 1;
+        }
+
+        // Decode and map
+        String value = handle.getValue(row, indices[column], false);
+        ObjectIntOpenHashMap<String> map = identifiers[column];
+        int identifier;
+        if (map.containsKey(value)) {
+            identifier = map.lget();
+        } else {
+            identifier = map.size();
+            map.put(value, identifier);
+        }
+
+        // Store
+        if (code >= mapping.length) {
+            mapping = Arrays.copyOf(mapping, Math.max(code + 1, mapping.length * 2));
+            codes[column] = mapping;
+        }
+        mapping[code] = identifier + 1;
+        return identifier;
+    }
+
+    /**
+     * Doubles the size of the hash table
+     */
+    private void rehash() {
+
+        // Grow
+        table = new int[table.length * 2];
+        threshold = (int) (table.length * LOAD_FACTOR);
+        tuples = Arrays.copyOf(tuples, threshold * indices.length);
+        hashcodes = Arrays.copyOf(hashcodes, threshold);
+        counts = Arrays.copyOf(counts, threshold);
+        representatives = Arrays.copyOf(representatives, threshold);
+
+        // Re-insert
+        int mask = table.length - 1;
+        for (int group = 0; group < size; group++) {
+            int slot = hashcodes[group] & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = group + 1;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2020 Fabian Prasser and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.deidentifier.arx.common;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.deidentifier.arx.exceptions.UnexpectedErrorException;
+
+/**
+ * Executes tasks with a fixed number of daemon threads. With a single thread, tasks are
+ * executed by the calling thread and no threads are created. Runtime exceptions thrown by
+ * tasks, e.g. ComputationInterruptedExceptions, are rethrown, other exceptions are wrapped
+ * into UnexpectedErrorExceptions.
+ * 
+ * @author Fabian Prasser
+ */
+public class TaskExecutor {
+
+    /**
+     * Executes the given tasks with at most the given number of threads and returns their results in order
+     * 
+     * @param name
+     * @param numThreads
+     * @param tasks
+     * @return
+     */
+    public static <T> List<T> execute(String name, int numThreads, List<? extends Callable<T>> tasks) {
+        TaskExecutor executor = new TaskExecutor(name, Math.min(numThreads, tasks.size()));
+        try {
+            return executor.execute(tasks);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Returns the exception to throw for the given exception thrown by a task
+     * 
+     * @param cause
+     * @return
+     */
+    private static RuntimeException getException(Throwable cause) {
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        } else if (cause instanceof Error) {
+            throw (Error) cause;
+        } else {
+            return new UnexpectedErrorException(cause);
+        }
+    }
+
+    /** Number of threads */
+    private final int            numThreads;
+
+    /** Executor, null if tasks are executed sequentially */
+    private final ExecutorService executor;
+
+    /**
+     * Creates a new instance. Tasks are executed sequentially if the number of threads is at most one.
+     * 
+     * @param name Name of the threads
+     * @param numThreads
+     */
+    public TaskExecutor(final String name, int numThreads) {
+        this.numThreads = Math.max(numThreads, 1);
+        this.executor = this.numThreads == 1 ? null : Executors.newFixedThreadPool(this.numThreads, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Executes the given tasks and returns their results in order. If a task fails,
+     * the remaining tasks are cancelled.
+     * 
+     * @param tasks
+     * @return
+     */
+    public <T> List<T> execute(List<? extends Callable<T>> tasks) {
+        return execute(tasks, null, 0L);
+    }
+
+    /**
+     * Executes the given tasks and returns their results in order. If a task fails,
+     * the remaining tasks are cancelled. The listener is called after sequential
+     * execution of each task, and in the given interval in milliseconds while waiting
+     * for concurrently executed tasks.
+     * 
+     * @param tasks
+     * @param listener
+     * @param interval
+     * @return
+     */
+    public <T> List<T> execute(List<? extends Callable<T>> tasks, Runnable listener, long interval) {
+
+        // Sequential
+        List<T> result = new ArrayList<T>();
+        if (executor == null) {
+            for (Callable<T> task : tasks) {
+                try {
+                    result.add(task.call());
+                } catch (Exception e) {
+                    throw getException(e);
+                }
+                if (listener != null) {
+                    listener.run();
+                }
+            }
+            return result;
+        }
+
+        // Parallel
+        List<Future<T>> futures = new ArrayList<Future<T>>();
+        try {
+            for (Callable<T> task : tasks) {
+                futures.add(executor.submit(task));
+            }
+            for (Future<T> future : futures) {
+                result.add(get(future, listener, interval));
+            }
+            if (listener != null) {
+                listener.run();
+            }
+            return result;
+        } catch (RuntimeException | Error e) {
+            for (Future<T> future : futures) {
+                future.cancel(true);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Waits for the given task and returns its result
+     * 
+     * @param future
+     * @return
+     */
+    public <T> T get(Future<T> future) {
+        return get(future, null, 0L);
+    }
+
+    /**
+     * Returns the number of threads
+     * 
+     * @return
+     */
+    public int getNumThreads() {
+        return numThreads;
+    }
+
+    /**
+     * Shuts down the threads. Tasks which are still running are interrupted.
+     */
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Submits the given task. When tasks are executed sequentially, it is executed immediately.
+     * Results must be obtained with {@link #get(Future)}.
+     * 
+     * @param task
+     * @return
+     */
+    public <T> Future<T> submit(Callable<T> task) {
+        if (executor == null) {
+            FutureTask<T> future = new FutureTask<T>(task);
+            future.run();
+            return future;
+        }
+        return executor.submit(task);
+    }
+
+    /**
+     * Waits for the given task and returns its result. The listener is called in the given interval.
+     * 
+     * @param future
+     * @param listener
+     * @param interval
+     * @return
+     */
+    private <T> T get(Future<T> future, Runnable listener, long interval) {
+        try {
+            if (listener == null) {
+                return future.get();
+            }
+            while (true) {
+                try {
+                    return future.get(interval, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    listener.run();
+                }
+            }
+        } catch (InterruptedException e) {
+            throw new UnexpectedErrorException(e);
+        } catch (ExecutionException e) {
+            throw getException(e.getCause() != null ? e.getCause() : e);
+        }
+    }
+}
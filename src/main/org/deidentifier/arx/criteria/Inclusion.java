@@ -45,6 +45,11 @@ public class Inclusion extends DPresence {
         super(subset);
     }
 
+    @Override
+    public Inclusion clone() {
+        return new Inclusion(this.getDataSubset().clone());
+    }
+
     @Override
     public PrivacyCriterion clone(DataSubset subset) {
         return new Inclusion(subset);
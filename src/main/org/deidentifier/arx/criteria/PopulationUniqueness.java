@@ -23,7 +23,7 @@ import org.deidentifier.arx.ARXSolverConfiguration;
 import org.deidentifier.arx.certificate.elements.ElementData;
 import org.deidentifier.arx.framework.check.groupify.HashGroupifyDistribution;
 import org.deidentifier.arx.framework.data.DataManager;
-import org.deidentifier.arx.risk.RiskModelPopulationUniqueness;
+import org.deidentifier.arx.risk.PopulationUniquenessCache;
 import org.deidentifier.arx.risk.RiskModelPopulationUniqueness.PopulationUniquenessModel;
 
 /**
@@ -45,6 +45,9 @@ public class PopulationUniqueness extends RiskBasedCriterion { // NO_UCD
     /** The solver config */
     private ARXSolverConfiguration    solverConfig;
 
+    /** Estimates for histograms which have already been probed */
+    private transient PopulationUniquenessCache cache;
+
     /**
      * Creates a new instance of this criterion. Uses Dankar's method for estimating population uniqueness.
      * This constructor will clone the population model, making further changes to it will not influence
@@ -144,6 +147,11 @@ public class PopulationUniqueness extends RiskBasedCriterion { // NO_UCD
         if (this.populationModel != null) {
             this.populationModel.makeBackwardsCompatible(manager.getDataGeneralized().getDataLength());
         }
+        
+        // Reset estimates
+        synchronized (this) {
+            this.cache = null;
+        }
     }
 
     @Override
@@ -180,16 +188,7 @@ public class PopulationUniqueness extends RiskBasedCriterion { // NO_UCD
             return true;
         }
 
-        RiskModelPopulationUniqueness riskModel = new RiskModelPopulationUniqueness(this.populationModel,
-                                                                                    distribution.getHistogram(),
-                                                                                    solverConfig);
-        
-        double populationUniques = 0d;
-        if (this.statisticalModel == PopulationUniquenessModel.DANKAR) {
-            populationUniques = riskModel.getFractionOfUniqueTuplesDankar(false);
-        } else {
-            populationUniques = riskModel.getFractionOfUniqueTuples(this.statisticalModel);
-        }
+        double populationUniques = getCache().getFractionOfUniqueTuples(distribution.getHistogram());
         if (populationUniques > 0d && populationUniques <= getRiskThreshold()) {
             return true;
         } else if (populationUniques == 0d && distribution.getFractionOfRecordsInClassesOfSize(1) == 0d) {
@@ -198,4 +197,16 @@ public class PopulationUniqueness extends RiskBasedCriterion { // NO_UCD
             return false;
         }
     }
+
+    /**
+     * Returns the cache of estimates
+     * 
+     * @return
+     */
+    private synchronized PopulationUniquenessCache getCache() {
+        if (this.cache == null) {
+            this.cache = new PopulationUniquenessCache(this.statisticalModel, this.populationModel, this.solverConfig);
+        }
+        return this.cache;
+    }
 }
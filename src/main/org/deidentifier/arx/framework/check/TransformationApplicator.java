@@ -17,6 +17,8 @@
 
 package org.deidentifier.arx.framework.check;
 
+import java.util.BitSet;
+
 import org.deidentifier.arx.ARXConfiguration.ARXConfigurationInternal;
 import org.deidentifier.arx.framework.check.groupify.HashGroupify;
 import org.deidentifier.arx.framework.data.Data;
@@ -116,16 +118,16 @@ public class TransformationApplicator {
                                                   hierarchies,
                                                   config);
         
-        HashGroupify currentGroupify = new HashGroupify(initialSize,
-                                                        config, 
-                                                        aggregation.getHeader().length,
-                                                        inputGeneralized.getArray(),
-                                                        outputGeneralized,
-                                                        inputAnalyzed,
-                                                        inputGeneralized.getDictionary().getSuppressedCodes());
+        HashGroupify currentGroupify = HashGroupify.create(initialSize,
+                                                           config, 
+                                                           aggregation.getHeader().length,
+                                                           inputGeneralized.getArray(),
+                                                           outputGeneralized,
+                                                           inputAnalyzed,
+                                                           inputGeneralized.getDictionary().getSuppressedCodes());
         
         // Apply transition and groupify
-        currentGroupify = transformer.apply(0L, transformation.getGeneralization(), currentGroupify);
+        currentGroupify = transformer.apply(new BitSet(), transformation.getGeneralization(), currentGroupify);
         currentGroupify.stateAnalyze(transformation, true);
         if (!currentGroupify.isPrivacyModelFulfilled() && !config.isSuppressionAlwaysEnabled()) {
             currentGroupify.stateResetSuppression();
@@ -141,15 +143,17 @@ public class TransformationApplicator {
         Data microaggregatedOutput = Data.createWrapper(new DataMatrix(0,0), new String[0], new int[0], new Dictionary(0));
         Data generalizedOutput = Data.createWrapper(transformer.getBuffer(), inputGeneralized.getHeader(), inputGeneralized.getColumns(), inputGeneralized.getDictionary());
         
-        // Perform microaggregation. This has to be done before suppression.
-        if (aggregation.getColdQIsFunctions().length > 0 ||
-            aggregation.getHotQIsNotGeneralizedFunctions().length > 0 ||
-            aggregation.getHotQIsGeneralizedFunctions().length > 0) {
+        // Perform microaggregation and suppression. Microaggregation has to be done before suppression,
+        // if both are required, they are performed in one pass.
+        boolean microaggregate = aggregation.getColdQIsFunctions().length > 0 ||
+                                 aggregation.getHotQIsNotGeneralizedFunctions().length > 0 ||
+                                 aggregation.getHotQIsGeneralizedFunctions().length > 0;
+        boolean suppress = config.getAbsoluteSuppressionLimit() != 0 || !currentGroupify.isPrivacyModelFulfilled();
+        if (microaggregate && suppress) {
+            microaggregatedOutput = currentGroupify.performMicroaggregationAndSuppression(aggregation, microaggregationDictionary);
+        } else if (microaggregate) {
             microaggregatedOutput = currentGroupify.performMicroaggregation(aggregation, microaggregationDictionary);
-        }
-        
-        // Perform suppression
-        if (config.getAbsoluteSuppressionLimit() != 0 || !currentGroupify.isPrivacyModelFulfilled()) {
+        } else if (suppress) {
             currentGroupify.performSuppression();
         }
         
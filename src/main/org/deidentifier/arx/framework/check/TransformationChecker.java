@@ -17,6 +17,10 @@
 
 package org.deidentifier.arx.framework.check;
 
+import org.deidentifier.arx.ARXCheckStatistics;
+import org.deidentifier.arx.ARXCheckStatistics.Counter;
+import org.deidentifier.arx.ARXCheckStatistics.Phase;
+import org.deidentifier.arx.ARXCheckStatisticsMonitor;
 import org.deidentifier.arx.ARXConfiguration;
 import org.deidentifier.arx.ARXConfiguration.ARXConfigurationInternal;
 import org.deidentifier.arx.framework.check.TransformationCheckerStateMachine.Transition;
@@ -90,6 +94,21 @@ public class TransformationChecker {
     /** Count the number of checks performed */
     private int                                     numChecksPerformed = 0;
 
+    /** The history max size */
+    private final int                               historyMaxSize;
+
+    /** A history threshold */
+    private final double                            snapshotSizeDataset;
+
+    /** A history threshold */
+    private final double                            snapshotSizeSnapshot;
+
+    /** Guards privacy models and quality model, if they are shared with workers */
+    private final Object                            monitor;
+
+    /** Statistics, if instrumented. Shared with workers */
+    private final ARXCheckStatistics                statistics;
+
     /**
      * Creates a new transformation checker.
      * 
@@ -108,6 +127,40 @@ public class TransformationChecker {
                                  final double snapshotSizeDataset,
                                  final double snapshotSizeSnapshot,
                                  final SolutionSpace<?> solutionSpace) {
+        this(manager, metric, config, historyMaxSize, snapshotSizeDataset, snapshotSizeSnapshot, solutionSpace,
+             manager.getDataGeneralized().getArray(), manager.getDataAnalyzed().getArray(),
+             config.getNumberOfThreads(), new Object(),
+             config.isInstrumentationEnabled() ? new ARXCheckStatistics(ARXCheckStatisticsMonitor.getStatistics()) : null);
+    }
+
+    /**
+     * Creates a new transformation checker.
+     * 
+     * @param manager The manager
+     * @param metric The metric
+     * @param config The configuration
+     * @param historyMaxSize The history max size
+     * @param snapshotSizeDataset A history threshold
+     * @param snapshotSizeSnapshot A history threshold
+     * @param solutionSpace
+     * @param inputGeneralized
+     * @param inputAnalyzed
+     * @param numThreads
+     * @param monitor
+     * @param statistics
+     */
+    private TransformationChecker(final DataManager manager,
+                                  final Metric<?> metric,
+                                  final ARXConfigurationInternal config,
+                                  final int historyMaxSize,
+                                  final double snapshotSizeDataset,
+                                  final double snapshotSizeSnapshot,
+                                  final SolutionSpace<?> solutionSpace,
+                                  final DataMatrix inputGeneralized,
+                                  final DataMatrix inputAnalyzed,
+                                  final int numThreads,
+                                  final Object monitor,
+                                  final ARXCheckStatistics statistics) {
         
         // Store data
         this.metric = metric;
@@ -116,6 +169,11 @@ public class TransformationChecker {
         this.dataGeneralized = manager.getDataGeneralized();
         this.solutionSpace = solutionSpace;
         this.minimalClassSizeRequired = config.getMinimalGroupSize() != Integer.MAX_VALUE;
+        this.historyMaxSize = historyMaxSize;
+        this.snapshotSizeDataset = snapshotSizeDataset;
+        this.snapshotSizeSnapshot = snapshotSizeSnapshot;
+        this.monitor = monitor;
+        this.statistics = statistics;
         
         // Initialize all operators
         int initialSize = (int) (manager.getDataGeneralized().getDataLength() * 0.01d);
@@ -140,25 +198,31 @@ public class TransformationChecker {
                                    solutionSpace);
         
         this.stateMachine = new TransformationCheckerStateMachine(history);
-        this.transformer = new Transformer(manager.getDataGeneralized().getArray(),
-                                           manager.getDataAnalyzed().getArray(),
+        this.transformer = new Transformer(inputGeneralized,
+                                           inputAnalyzed,
                                            manager.getAggregationInformation().getHotThreshold(),
                                            manager.getHierarchies(),
                                            config,
+                                           numThreads,
                                            dictionarySensValue,
                                            dictionarySensFreq);
         
-        this.currentGroupify = new HashGroupify(initialSize, config, manager.getAggregationInformation().getHotThreshold(),
-                                                manager.getDataGeneralized().getArray(),
+        this.currentGroupify = HashGroupify.create(initialSize, config, manager.getAggregationInformation().getHotThreshold(),
+                                                   inputGeneralized,
+                                                   transformer.getBuffer(),
+                                                   inputAnalyzed,
+                                                   manager.getDataGeneralized().getDictionary().getSuppressedCodes());
+        
+        this.lastGroupify = HashGroupify.create(initialSize, config, manager.getAggregationInformation().getHotThreshold(),
+                                                inputGeneralized,
                                                 transformer.getBuffer(),
-                                                manager.getDataAnalyzed().getArray(),
+                                                inputAnalyzed,
                                                 manager.getDataGeneralized().getDictionary().getSuppressedCodes());
         
-        this.lastGroupify = new HashGroupify(initialSize, config, manager.getAggregationInformation().getHotThreshold(),
-                                             manager.getDataGeneralized().getArray(),
-                                             transformer.getBuffer(),
-                                             manager.getDataAnalyzed().getArray(),
-                                             manager.getDataGeneralized().getDictionary().getSuppressedCodes());
+        // Instrumentation
+        this.history.setStatistics(statistics);
+        this.currentGroupify.setStatistics(statistics);
+        this.lastGroupify.setStatistics(statistics);
     }
 
     /**
@@ -184,16 +248,26 @@ public class TransformationChecker {
         
         // If the result is already know, simply return it
         if (node.getData() != null && node.getData() instanceof TransformationResult) {
+            if (statistics != null) {
+                statistics.add(Counter.CACHED_RESULTS, 1);
+            }
             return (TransformationResult) node.getData();
         }
         
+        // Start measuring, if instrumented
+        final long start = getTime();
+        long time;
+        
         // Store snapshot from last check
+        time = getTime();
         if (stateMachine.getLastTransformation() != null) {
-            history.store(solutionSpace.getTransformation(stateMachine.getLastTransformation()), currentGroupify, stateMachine.getLastTransition().snapshot);
+            history.store(solutionSpace.getTransformation(stateMachine.getLastTransformation()), currentGroupify, stateMachine.getLastTransition().snapshotClasses);
+            time = record(Phase.HISTORY, time);
         }
         
         // Transition
         final Transition transition = stateMachine.transition(node.getGeneralization());
+        time = record(Phase.TRANSITION, time);
         
         // Switch groupifies
         final HashGroupify temp = lastGroupify;
@@ -204,46 +278,98 @@ public class TransformationChecker {
         switch (transition.type) {
         case UNOPTIMIZED:
             currentGroupify = transformer.apply(transition.projection, node.getGeneralization(), currentGroupify);
+            record(Phase.TRANSFORM_UNOPTIMIZED, time);
             break;
         case ROLLUP:
             currentGroupify = transformer.applyRollup(transition.projection, node.getGeneralization(), lastGroupify, currentGroupify);
+            record(Phase.TRANSFORM_ROLLUP, time);
             break;
         case SNAPSHOT:
-            currentGroupify = transformer.applySnapshot(transition.projection, node.getGeneralization(), currentGroupify, transition.snapshot);
+            currentGroupify = transformer.applySnapshot(transition.projection, node.getGeneralization(), currentGroupify, transition.snapshot, transition.snapshotClasses);
+            record(Phase.TRANSFORM_SNAPSHOT, time);
             break;
         }
         
-        // We are done with transforming and adding
-        currentGroupify.stateAnalyze(node, forceMeasureInfoLoss);
-        if (forceMeasureInfoLoss && !currentGroupify.isPrivacyModelFulfilled() && !config.isSuppressionAlwaysEnabled()) {
-            currentGroupify.stateResetSuppression();
+        // Privacy models and quality model may be shared with workers
+        synchronized (monitor) {
+            
+            // We are done with transforming and adding
+            time = getTime();
+            currentGroupify.stateAnalyze(node, forceMeasureInfoLoss);
+            if (forceMeasureInfoLoss && !currentGroupify.isPrivacyModelFulfilled() && !config.isSuppressionAlwaysEnabled()) {
+                currentGroupify.stateResetSuppression();
+            }
+            time = record(Phase.PRIVACY_MODEL, time);
+            
+            // Compute information loss and lower bound
+            InformationLoss<?> loss = null;
+            InformationLoss<?> bound = null;
+            
+            switch (scoreType) {
+            case DP_SCORE:
+                // Evaluate score function
+                loss = metric.getScore(node, currentGroupify);
+                break;
+            case INFORMATION_LOSS:
+                // Calculate conventional information loss and bound
+                InformationLossWithBound<?> result = (currentGroupify.isPrivacyModelFulfilled() || forceMeasureInfoLoss) ?
+                                                      metric.getInformationLoss(node, currentGroupify) : null;
+                loss = result != null ? result.getInformationLoss() : null;
+                bound = result != null ? result.getLowerBound() : metric.getLowerBound(node, currentGroupify);
+                break;
+            default:
+                throw new RuntimeException("The score type " + scoreType + " is not supported");
+            }
+            record(Phase.QUALITY_MODEL, time);
+            record(Phase.CHECK, start);
+            
+            // Return result;
+            return new TransformationResult(currentGroupify.isPrivacyModelFulfilled(),
+                                          minimalClassSizeRequired ? currentGroupify.isMinimalClassSizeFulfilled() : null,
+                                          loss,
+                                          bound);
         }
-        
-        // Compute information loss and lower bound
-        InformationLoss<?> loss = null;
-        InformationLoss<?> bound = null;
-        
-        switch (scoreType) {
-        case DP_SCORE:
-            // Evaluate score function
-            loss = metric.getScore(node, currentGroupify);
-            break;
-        case INFORMATION_LOSS:
-            // Calculate conventional information loss and bound
-            InformationLossWithBound<?> result = (currentGroupify.isPrivacyModelFulfilled() || forceMeasureInfoLoss) ?
-                                                  metric.getInformationLoss(node, currentGroupify) : null;
-            loss = result != null ? result.getInformationLoss() : null;
-            bound = result != null ? result.getLowerBound() : metric.getLowerBound(node, currentGroupify);
-            break;
-        default:
-            throw new RuntimeException("The score type " + scoreType + " is not supported");
+    }
+    
+    /**
+     * Creates workers, which can check transformations concurrently to this checker. Each worker
+     * maintains its own history and buffers, and performs transformations sequentially. It uses
+     * its own copies of the privacy models and quality model. If they cannot be copied, access to
+     * them is synchronized between the checker and all of its workers. The memory limit of the
+     * history of this checker is split evenly between the checker and its workers.
+     * 
+     * @param number
+     * @return
+     */
+    public TransformationChecker[] createWorkers(int number) {
+        history.setMemoryLimit(Math.max(1L, history.getMemoryLimit() / (number + 1)));
+        TransformationChecker[] workers = new TransformationChecker[number];
+        for (int i = 0; i < number; i++) {
+            workers[i] = createWorker();
         }
-        
-        // Return result;
-        return new TransformationResult(currentGroupify.isPrivacyModelFulfilled(),
-                                      minimalClassSizeRequired ? currentGroupify.isMinimalClassSizeFulfilled() : null,
-                                      loss,
-                                      bound);
+        return workers;
+    }
+
+    /**
+     * Creates a worker with the same history limits as this checker
+     * 
+     * @return
+     */
+    private TransformationChecker createWorker() {
+        ARXConfigurationInternal workerConfig = config.getInstanceForWorker(manager);
+        TransformationChecker worker = new TransformationChecker(manager,
+                                                                 workerConfig != null ? workerConfig.getQualityModel() : metric,
+                                                                 workerConfig != null ? workerConfig : config,
+                                                                 historyMaxSize, snapshotSizeDataset, snapshotSizeSnapshot,
+                                                                 solutionSpace,
+                                                                 manager.getDataGeneralized().getArray().getView(),
+                                                                 getView(manager.getDataAnalyzed().getArray()),
+                                                                 1,
+                                                                 workerConfig != null ? new Object() : monitor,
+                                                                 statistics);
+        worker.history.setMemoryLimit(history.getMemoryLimit());
+        worker.history.setSpill(history.getSpillDirectory(), history.getSpillLimit());
+        return worker;
     }
     
     /**
@@ -310,6 +436,14 @@ public class TransformationChecker {
     public DataMatrix getOutputBuffer() {
         return this.transformer.getBuffer();
     }
+    
+    /**
+     * Returns the statistics recorded by this checker and its workers, null if not instrumented
+     * @return
+     */
+    public ARXCheckStatistics getStatistics() {
+        return this.statistics;
+    }
 
     /**
      * Frees memory
@@ -318,7 +452,41 @@ public class TransformationChecker {
         stateMachine.reset();
         history.reset();
         history.setSize(0);
-        currentGroupify.stateClear();
-        lastGroupify.stateClear();
+        currentGroupify.stateRelease();
+        lastGroupify.stateRelease();
+        transformer.shutdown();
+    }
+
+    /**
+     * Returns the current time, if instrumented
+     * @return
+     */
+    private long getTime() {
+        return statistics != null ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Records the time elapsed since the given time for the given phase, if instrumented,
+     * and returns the current time
+     * @param phase
+     * @param time
+     * @return
+     */
+    private long record(Phase phase, long time) {
+        if (statistics == null) {
+            return 0L;
+        }
+        long now = System.nanoTime();
+        statistics.add(phase, now - time);
+        return now;
+    }
+
+    /**
+     * Returns a view on the given matrix, if any
+     * @param matrix
+     * @return
+     */
+    private DataMatrix getView(DataMatrix matrix) {
+        return matrix == null ? null : matrix.getView();
     }
 }
\ No newline at end of file
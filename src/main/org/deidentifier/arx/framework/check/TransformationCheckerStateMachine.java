@@ -17,6 +17,8 @@
 
 package org.deidentifier.arx.framework.check;
 
+import java.util.BitSet;
+
 import org.deidentifier.arx.framework.check.history.History;
 
 /**
@@ -38,11 +40,14 @@ public class TransformationCheckerStateMachine {
     public static class Transition {
 
         /** Which columns can be projected away?. */
-        public long           projection;
+        public BitSet         projection;
 
-        /** Snapshot, if available. */
+        /** Snapshot, if available. The array may be larger than the snapshot. */
         public int[]          snapshot;
 
+        /** Number of classes in the snapshot, if available. */
+        public int            snapshotClasses;
+
         /** The actual type of the transition. */
         public TransitionType type;
     };
@@ -77,6 +82,9 @@ public class TransformationCheckerStateMachine {
     /** The current snapshot, if any. */
     private int[]      snapshot = null;
 
+    /** The number of classes in the current snapshot. */
+    private int        snapshotClasses;
+
     /** The node for the current snapshot. */
     private int[]      snapshotTransformation;
 
@@ -131,7 +139,7 @@ public class TransformationCheckerStateMachine {
         // First transition
         if (lastTransition == null) {
             result.type = TransitionType.UNOPTIMIZED;
-            result.projection = 0L;
+            result.projection = new BitSet();
             result.snapshot = null;
         } else {
             switch (lastTransition.type) {
@@ -140,6 +148,7 @@ public class TransformationCheckerStateMachine {
                 if (isPossibleSnapshot(transformation)) {
                     result.type = TransitionType.SNAPSHOT;
                     result.snapshot = snapshot;
+                    result.snapshotClasses = snapshotClasses;
                 } else if (isPossibleRollup(transformation)) {
                     result.type = TransitionType.ROLLUP;
                     result.snapshot = null;
@@ -151,15 +160,16 @@ public class TransformationCheckerStateMachine {
             case ROLLUP:
             case SNAPSHOT:
                 if (isPossibleSnapshot(transformation)) {
-                    result.projection = isPredecessor(snapshotTransformation, lastTransformation) ? getProjection(transformation) : 0L;
+                    result.projection = isPredecessor(snapshotTransformation, lastTransformation) ? getProjection(transformation) : new BitSet();
                     result.type = TransitionType.SNAPSHOT;
                     result.snapshot = snapshot;
+                    result.snapshotClasses = snapshotClasses;
                 } else if (isPossibleRollup(transformation)) {
                     result.projection = getProjection(transformation);
                     result.type = TransitionType.ROLLUP;
                     result.snapshot = null;
                 } else {
-                    result.projection = 0L;
+                    result.projection = new BitSet();
                     result.type = TransitionType.UNOPTIMIZED;
                     result.snapshot = null;
                 }
@@ -181,11 +191,11 @@ public class TransformationCheckerStateMachine {
      * @param transformation the current transformation
      * @return the projection
      */
-    private long getProjection(final int[] transformation) {
-        long projection = 0L;
+    private BitSet getProjection(final int[] transformation) {
+        BitSet projection = new BitSet(transformation.length);
         for (int i = 0; i < transformation.length; i++) {
             if (transformation[i] == lastTransformation[i]) {
-                projection |= 1L << i;
+                projection.set(i);
             }
         }
         return projection;
@@ -212,6 +222,7 @@ public class TransformationCheckerStateMachine {
      */
     private boolean isPossibleSnapshot(final int[] transformation) {
         snapshot = history.get(transformation);
+        snapshotClasses = history.getNumberOfClasses();
         snapshotTransformation = history.getTransformation();
         if (snapshot != null) { return true; }
         return false;
@@ -17,7 +17,12 @@
 
 package org.deidentifier.arx.framework.check;
 
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
 import org.deidentifier.arx.ARXConfiguration.ARXConfigurationInternal;
+import org.deidentifier.arx.common.TaskExecutor;
 import org.deidentifier.arx.framework.check.TransformationCheckerStateMachine.TransitionType;
 import org.deidentifier.arx.framework.check.distribution.IntArrayDictionary;
 import org.deidentifier.arx.framework.check.groupify.HashGroupify;
@@ -50,6 +55,9 @@ import org.deidentifier.arx.framework.data.GeneralizationHierarchy;
  */
 public class Transformer {
 
+    /** Minimal number of records processed by each thread */
+    private static final int                  MIN_RECORDS_PER_THREAD = 10000;
+
     /** The config. */
     protected final ARXConfigurationInternal  config;
 
@@ -80,6 +88,18 @@ public class Transformer {
     /** Number of columns to analyze */
     protected final int                       dataAnalyzedNumberOfColumns;
 
+    /** Number of threads to use for transforming data */
+    protected final int                       numThreads;
+
+    /** The executor, created lazily */
+    private TaskExecutor                      executor;
+
+    /** The instances for each partition, created lazily */
+    private AbstractTransformer[][]           partitionInstances;
+
+    /** The groupify operators for each partition, created lazily */
+    private HashGroupify[]                    partitionGroupifies;
+
     /**
      * Instantiates a new transformer.
      *
@@ -88,6 +108,7 @@ public class Transformer {
      * @param dataAnalyzedNumberOfColumns
      * @param hierarchies
      * @param config
+     * @param numThreads
      * @param dictionarySensValue
      * @param dictionarySensFreq
      */
@@ -96,6 +117,7 @@ public class Transformer {
                        final int dataAnalyzedNumberOfColumns,
                        final GeneralizationHierarchy[] hierarchies,
                        final ARXConfigurationInternal config,
+                       final int numThreads,
                        final IntArrayDictionary dictionarySensValue,
                        final IntArrayDictionary dictionarySensFreq) {
 
@@ -104,15 +126,16 @@ public class Transformer {
         this.dataAnalyzedNumberOfColumns = dataAnalyzedNumberOfColumns;
         this.hierarchies = hierarchies;
         this.instances = new AbstractTransformer[16];
-        this.outputGeneralized = new DataMatrix(inputGeneralized.getNumRows(), 
-                                                inputGeneralized.getNumColumns());
+        this.outputGeneralized = inputGeneralized.newInstance(inputGeneralized.getNumRows(), 
+                                                              inputGeneralized.getNumColumns());
 
         this.dimensions = inputGeneralized.getNumColumns();
         this.dictionarySensValue = dictionarySensValue;
         this.dictionarySensFreq = dictionarySensFreq;
         this.inputAnalyzed = inputAnalyzed;
+        this.numThreads = numThreads;
 
-        buildTransformers();
+        buildTransformers(this.instances, inputGeneralized, inputAnalyzed);
     }
 
     /**
@@ -145,16 +168,11 @@ public class Transformer {
         this.dimensions = inputGeneralized.getNumColumns();
         this.dictionarySensValue = null;
         this.dictionarySensFreq = null;
+        this.numThreads = 1;
 
         // Build just one applicator
         this.instances = new AbstractTransformer[1];
-        this.instances[0] = new TransformerAll(inputGeneralized,
-                                               hierarchies,
-                                               inputAnalyzed,
-                                               dataAnalyzedNumberOfColumns,
-                                               dictionarySensValue,
-                                               dictionarySensFreq,
-                                               config);
+        buildTransformers(this.instances, inputGeneralized, inputAnalyzed);
     }
 
     /**
@@ -165,7 +183,7 @@ public class Transformer {
      * @param target the target
      * @return the hash groupify
      */
-    public HashGroupify apply(final long projection,
+    public HashGroupify apply(final BitSet projection,
                                final int[] transformation,
                                final HashGroupify target) {
         
@@ -174,6 +192,7 @@ public class Transformer {
                              null,
                              target,
                              null,
+                             0,
                              TransitionType.UNOPTIMIZED);
     }
 
@@ -186,7 +205,7 @@ public class Transformer {
      * @param target the target
      * @return the hash groupify
      */
-    public HashGroupify applyRollup(final long projection,
+    public HashGroupify applyRollup(final BitSet projection,
                                      final int[] state,
                                      final HashGroupify source,
                                      final HashGroupify target) {
@@ -196,6 +215,7 @@ public class Transformer {
                              source,
                              target,
                              null,
+                             0,
                              TransitionType.ROLLUP);
     }
 
@@ -206,18 +226,21 @@ public class Transformer {
      * @param state the state
      * @param target the target
      * @param snapshot the snapshot
+     * @param snapshotClasses the number of classes in the snapshot
      * @return the hash groupify
      */
-    public HashGroupify applySnapshot(final long projection,
+    public HashGroupify applySnapshot(final BitSet projection,
                                        final int[] state,
                                        final HashGroupify target,
-                                       final int[] snapshot) {
+                                       final int[] snapshot,
+                                       final int snapshotClasses) {
         
         return applyInternal(projection,
                              state,
                              null,
                              target,
                              snapshot,
+                             snapshotClasses,
                              TransitionType.SNAPSHOT);
     }
 
@@ -230,10 +253,104 @@ public class Transformer {
         return outputGeneralized;
     }
 
+    /**
+     * Releases the threads used for transforming data, if any. They will be
+     * recreated on demand.
+     */
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+
+    /**
+     * Applies an unoptimized transition by transforming consecutive ranges of
+     * records concurrently. Each thread groups its range with a separate operator
+     * working on views of the data. The partial results are merged into the target
+     * in the order of the ranges, which yields the same classes, counts, distributions
+     * and representatives as sequential processing.
+     * 
+     * @param projection the projection
+     * @param state the state
+     * @param target the target
+     * @param partitions the number of partitions
+     * @return the hash groupify
+     */
+    private HashGroupify applyParallel(final BitSet projection,
+                                       final int[] state,
+                                       final HashGroupify target,
+                                       final int partitions) {
+
+        // Prepare
+        if (executor == null) {
+            executor = new TaskExecutor("ARX transformer", numThreads);
+        }
+        if (partitionInstances == null) {
+            int capacity = (int) (inputGeneralized.getNumRows() * 0.01d / numThreads);
+            partitionInstances = new AbstractTransformer[numThreads][];
+            partitionGroupifies = new HashGroupify[numThreads];
+            for (int i = 0; i < numThreads; i++) {
+                partitionGroupifies[i] = target.createPartition(capacity);
+                partitionInstances[i] = new AbstractTransformer[instances.length];
+                buildTransformers(partitionInstances[i],
+                                  partitionGroupifies[i].getInputData(),
+                                  inputAnalyzed != null ? inputAnalyzed.getView() : null);
+            }
+        }
+
+        // Transform ranges
+        List<AbstractTransformer> transformers = new ArrayList<>();
+        int rows = inputGeneralized.getNumRows();
+        for (int i = 0; i < partitions; i++) {
+            AbstractTransformer transformer = getTransformer(partitionInstances[i], projection);
+            transformer.init(projection,
+                             state,
+                             partitionGroupifies[i],
+                             null,
+                             null,
+                             TransitionType.UNOPTIMIZED,
+                             (int) ((long) rows * i / partitions),
+                             (int) ((long) rows * (i + 1) / partitions),
+                             null,
+                             partitionGroupifies[i].getOutputData());
+            transformers.add(transformer);
+        }
+
+        // Merge
+        List<HashGroupify> results = executor.execute(transformers);
+        target.stateClear();
+        for (HashGroupify result : results) {
+            target.addFromGroupify(result);
+        }
+        
+        // Free memory
+        for (int i = 0; i < partitions; i++) {
+            partitionGroupifies[i].stateClear();
+        }
+        return target;
+    }
+
     /**
      * Builds the applicators.
+     * 
+     * @param instances
+     * @param inputGeneralized
+     * @param inputAnalyzed
      */
-    private void buildTransformers() {
+    private void buildTransformers(final AbstractTransformer[] instances,
+                                   final DataMatrix inputGeneralized,
+                                   final DataMatrix inputAnalyzed) {
+        if (instances.length == 1) {
+            instances[0] = new TransformerAll(inputGeneralized,
+                                              hierarchies,
+                                              inputAnalyzed,
+                                              dataAnalyzedNumberOfColumns,
+                                              dictionarySensValue,
+                                              dictionarySensFreq,
+                                              config);
+            return;
+        }
         instances[15] = new Transformer15(inputGeneralized,
                                           hierarchies,
                                           inputAnalyzed,
@@ -356,14 +473,16 @@ public class Transformer {
      * @param source the source
      * @param target the target
      * @param snapshot the snapshot
+     * @param snapshotClasses the number of classes in the snapshot
      * @param transition the transition
      * @return the hash groupify
      */
-    protected HashGroupify applyInternal(final long projection,
+    protected HashGroupify applyInternal(final BitSet projection,
                                           final int[] state,
                                           final HashGroupify source,
                                           final HashGroupify target,
                                           final int[] snapshot,
+                                          final int snapshotClasses,
                                           final TransitionType transition) {
 
         int startIndex = 0;
@@ -383,13 +502,21 @@ public class Transformer {
             break;
         case SNAPSHOT:
             startIndex = 0;
-            stopIndex = snapshot.length / config.getSnapshotLength();
+            stopIndex = snapshotClasses;
             break;
         }
 
+        // Transform concurrently, if possible
+        if (transition == TransitionType.UNOPTIMIZED && numThreads > 1) {
+            int partitions = Math.min(numThreads, stopIndex / MIN_RECORDS_PER_THREAD);
+            if (partitions > 1) {
+                return applyParallel(projection, state, target, partitions);
+            }
+        }
+
         AbstractTransformer transformer = null;
 
-        transformer = getTransformer(projection);
+        transformer = getTransformer(instances, projection);
         
         transformer.init(projection,
                  state,
@@ -408,11 +535,12 @@ public class Transformer {
     /**
      * Gets the applicator.
      * 
+     * @param instances the instances
      * @param projection the projection
      * @return the applicator
      */
-    protected AbstractTransformer getTransformer(final long projection) {
-        final int index = dimensions - Long.bitCount(projection);
+    protected AbstractTransformer getTransformer(final AbstractTransformer[] instances, final BitSet projection) {
+        final int index = dimensions - projection.cardinality();
         if (index > (instances.length - 1)) {
             return instances[0];
         } else {
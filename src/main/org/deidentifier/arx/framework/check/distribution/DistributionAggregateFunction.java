@@ -18,19 +18,16 @@ package org.deidentifier.arx.framework.check.distribution;
 
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
 
-import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
+import org.apache.commons.math3.util.FastMath;
 import org.deidentifier.arx.DataType;
 import org.deidentifier.arx.DataType.DataTypeWithRatioScale;
 
 import cern.colt.GenericSorting;
 import cern.colt.Swapper;
 import cern.colt.function.IntComparator;
-import cern.colt.list.DoubleArrayList;
 
 /**
  * This abstract class represents a function that aggregates values from a frequency distribution
@@ -51,9 +48,6 @@ public abstract class DistributionAggregateFunction implements Serializable {
         /** SVUID. */
         private static final long               serialVersionUID = 8379579591466576517L;
 
-        /** Commons math object to calculate the statistic. */
-        private transient DescriptiveStatistics stats;
-
         /** Minimum */
         private Double                          minimum          = null;
 
@@ -85,13 +79,12 @@ public abstract class DistributionAggregateFunction implements Serializable {
 
         @Override
         public <T> String aggregate(Distribution distribution) {
-            stats.clear();
             @SuppressWarnings("unchecked")
             DataType<T> type = (DataType<T>)this.type;
             @SuppressWarnings("unchecked")
             DataTypeWithRatioScale<T> rType = (DataTypeWithRatioScale<T>) this.type;
-            addAll(stats, distribution, rType, 0d);
-            return stats.getN() == 0 ? DataType.NULL_VALUE : type.format(rType.fromDouble(stats.getMean()));
+            double mean = getMean(distribution);
+            return Double.isNaN(mean) ? DataType.NULL_VALUE : type.format(rType.fromDouble(mean));
         }
 
         /**
@@ -109,23 +102,58 @@ public abstract class DistributionAggregateFunction implements Serializable {
 
         @Override
         public <T> double getError(Distribution distribution) {
-            stats.clear();
-            @SuppressWarnings("unchecked")
-            DataTypeWithRatioScale<T> rType = (DataTypeWithRatioScale<T>) this.type;
-            addAll(stats, distribution, rType, 0d);
-            return getNMSE(minimum, maximum, stats.getValues(), stats.getMean());
+            return getNMSE(minimum, maximum, distribution, 0d, getMean(distribution));
         }
 
         @Override
         public void initialize(String[] dictionary, DataType<?> type) {
             super.initialize(dictionary, type);
-            this.stats = new DescriptiveStatistics();
             if (minimum == null || maximum == null) {
                 double[] values = getMinMax(dictionary, (DataTypeWithRatioScale<?>)type);
                 this.minimum = values[0];
                 this.maximum = values[1];
             }
-        }        
+        }
+
+        /**
+         * Returns the arithmetic mean, NaN if there are no values. Like commons math, a correction
+         * term is added to the mean for improved accuracy.
+         * 
+         * @param distribution
+         * @return
+         */
+        private double getMean(Distribution distribution) {
+            
+            // Sum
+            int[] buckets = distribution.getBuckets();
+            double count = 0d;
+            double sum = 0d;
+            for (int i = 0; i < buckets.length; i += 2) {
+                if (buckets[i] != -1) {
+                    double value = getValue(buckets[i]);
+                    if (!Double.isNaN(value)) {
+                        count += buckets[i + 1];
+                        sum += value * buckets[i + 1];
+                    }
+                }
+            }
+            if (count == 0d) {
+                return Double.NaN;
+            }
+            
+            // Correct
+            double mean = sum / count;
+            double correction = 0d;
+            for (int i = 0; i < buckets.length; i += 2) {
+                if (buckets[i] != -1) {
+                    double value = getValue(buckets[i]);
+                    if (!Double.isNaN(value)) {
+                        correction += (value - mean) * buckets[i + 1];
+                    }
+                }
+            }
+            return mean + (correction / count);
+        }
     }
 
     /**
@@ -139,9 +167,6 @@ public abstract class DistributionAggregateFunction implements Serializable {
         /** SVUID. */
         private static final long               serialVersionUID = -3835477735362966307L;
 
-        /** Commons math object to calculate the statistic. */
-        private transient DescriptiveStatistics stats;
-
         /** Minimum */
         private Double                          minimum          = null;
 
@@ -173,13 +198,12 @@ public abstract class DistributionAggregateFunction implements Serializable {
 
         @Override
         public <T> String aggregate(Distribution distribution) {
-            stats.clear();
             @SuppressWarnings("unchecked")
             DataType<T> type = (DataType<T>)this.type;
             @SuppressWarnings("unchecked")
             DataTypeWithRatioScale<T> rType = (DataTypeWithRatioScale<T>) this.type;
-            addAll(stats, distribution, rType, 1d);
-            return stats.getN() == 0 ? DataType.NULL_VALUE : type.format(rType.fromDouble(stats.getGeometricMean() - 1d));
+            double mean = getGeometricMean(distribution);
+            return Double.isNaN(mean) ? DataType.NULL_VALUE : type.format(rType.fromDouble(mean - 1d));
         }
 
         /**
@@ -198,23 +222,40 @@ public abstract class DistributionAggregateFunction implements Serializable {
 
         @Override
         public <T> double getError(Distribution distribution) {
-            stats.clear();
-            @SuppressWarnings("unchecked")
-            DataTypeWithRatioScale<T> rType = (DataTypeWithRatioScale<T>) this.type;
-            addAll(stats, distribution, rType, 1d);
-            return getNMSE(minimum, maximum, stats.getValues(), stats.getGeometricMean() - 1d);
+            return getNMSE(minimum, maximum, distribution, 1d, getGeometricMean(distribution) - 1d);
         }
         
         @Override
         public void initialize(String[] dictionary, DataType<?> type) {
             super.initialize(dictionary, type);
-            this.stats = new DescriptiveStatistics();
             if (minimum == null || maximum == null) {
                 double[] values = getMinMax(dictionary, (DataTypeWithRatioScale<?>)type);
                 this.minimum = values[0];
                 this.maximum = values[1];
             }
         }
+
+        /**
+         * Returns the geometric mean of all values + 1, NaN if there are no values
+         * 
+         * @param distribution
+         * @return
+         */
+        private double getGeometricMean(Distribution distribution) {
+            int[] buckets = distribution.getBuckets();
+            double count = 0d;
+            double sum = 0d;
+            for (int i = 0; i < buckets.length; i += 2) {
+                if (buckets[i] != -1) {
+                    double value = getValue(buckets[i]);
+                    if (!Double.isNaN(value)) {
+                        count += buckets[i + 1];
+                        sum += FastMath.log(value + 1d) * buckets[i + 1];
+                    }
+                }
+            }
+            return count == 0d ? Double.NaN : FastMath.exp(sum / count);
+        }
     }
 
     /**
@@ -325,6 +366,14 @@ public abstract class DistributionAggregateFunction implements Serializable {
         @Override
         public <T> String aggregate(Distribution distribution) {
             
+            // Use numeric representation, if possible
+            if (type instanceof DataTypeWithRatioScale) {
+                String result = aggregateNumeric(distribution);
+                if (result != null) {
+                    return result;
+                }
+            }
+            
             @SuppressWarnings("unchecked")
             final DataType<T> type = (DataType<T>)this.type;
             
@@ -410,15 +459,6 @@ public abstract class DistributionAggregateFunction implements Serializable {
             
             @SuppressWarnings("unchecked")
             DataTypeWithRatioScale<T> rType = (DataTypeWithRatioScale<T>) this.type;
-            DoubleArrayList list = new DoubleArrayList();
-            Iterator<Double> it = DistributionIterator.createIteratorDouble(distribution, dictionary, rType);
-            while (it.hasNext()) {
-                Double value = it.next();
-                value = value == null ? (ignoreMissingData ? null : 0d) : value;
-                if (value != null) {
-                    list.add(value);
-                }
-            }
             
             // Determine and check mode
             String mean = aggregate(distribution);
@@ -427,8 +467,7 @@ public abstract class DistributionAggregateFunction implements Serializable {
             }
             
             // Compute error
-            return getNMSE(minimum, maximum, Arrays.copyOf(list.elements(), list.size()), 
-                                             rType.toDouble(rType.parse(mean)));
+            return getNMSE(minimum, maximum, distribution, 0d, rType.toDouble(rType.parse(mean)));
         }
         
         @Override
@@ -443,6 +482,90 @@ public abstract class DistributionAggregateFunction implements Serializable {
             }
         }
 
+        /**
+         * Determines the median on the numeric representation of the dictionary.
+         * Returns null, if the distribution contains missing values.
+         * 
+         * @param distribution
+         * @return
+         */
+        private <T> String aggregateNumeric(Distribution distribution) {
+            
+            @SuppressWarnings("unchecked")
+            final DataTypeWithRatioScale<T> rType = (DataTypeWithRatioScale<T>) this.type;
+            final double[] dictionaryValues = getValues();
+            
+            // Collect
+            int[] buckets = distribution.getBuckets();
+            int size = 0;
+            for (int i = 0; i < buckets.length; i += 2) {
+                if (buckets[i] != -1) {
+                    if (Double.isNaN(dictionaryValues[buckets[i]])) {
+                        return null;
+                    }
+                    size++;
+                }
+            }
+            final int[] codes = new int[size];
+            final int[] frequencies = new int[size];
+            size = 0;
+            for (int i = 0; i < buckets.length; i += 2) {
+                if (buckets[i] != -1) {
+                    codes[size] = buckets[i];
+                    frequencies[size++] = buckets[i + 1];
+                }
+            }
+            
+            // Sort
+            GenericSorting.mergeSort(0, size, new IntComparator() {
+                @Override
+                public int compare(int arg0, int arg1) {
+                    return Double.compare(dictionaryValues[codes[arg0]], dictionaryValues[codes[arg1]]);
+                }
+            }, new Swapper() {
+                @Override
+                public void swap(int arg0, int arg1) {
+                    int temp = codes[arg0];
+                    codes[arg0] = codes[arg1];
+                    codes[arg1] = temp;
+                    temp = frequencies[arg0];
+                    frequencies[arg0] = frequencies[arg1];
+                    frequencies[arg1] = temp;
+                }
+            });
+            
+            // Accumulate
+            int total = 0;
+            for (int i = 0; i < size; i++) {
+                total += frequencies[i];
+                frequencies[i] = total - 1;
+            }
+            
+            // Switch
+            if (total % 2 == 1) {
+                return rType.format(rType.parse(dictionary[getCodeAt(codes, frequencies, total / 2)]));
+            } else {
+                double median1 = dictionaryValues[getCodeAt(codes, frequencies, total / 2 - 1)];
+                double median2 = dictionaryValues[getCodeAt(codes, frequencies, total / 2)];
+                return rType.format(rType.fromDouble((median1 + median2) / 2d));
+            }
+        }
+
+        /**
+         * Returns the code at
+         * @param codes
+         * @param frequencies
+         * @param index
+         * @return
+         */
+        private int getCodeAt(int[] codes, int[] frequencies, int index) {
+            int pointer = 0;
+            while (frequencies[pointer] < index) {
+                pointer++;
+            }
+            return codes[pointer];
+        }
+
         /**
          * Returns the value at
          * @param values
@@ -529,18 +652,6 @@ public abstract class DistributionAggregateFunction implements Serializable {
                 return 0d;
             }
             
-            @SuppressWarnings("unchecked")
-            DataTypeWithRatioScale<T> rType = (DataTypeWithRatioScale<T>) this.type;
-            DoubleArrayList list = new DoubleArrayList();
-            Iterator<Double> it = DistributionIterator.createIteratorDouble(distribution, dictionary, rType);
-            while (it.hasNext()) {
-                Double value = it.next();
-                value = value == null ? (ignoreMissingData ? null : 0d) : value;
-                if (value != null) {
-                    list.add(value);
-                }
-            }
-            
             // Determine and check mode
             int mode = getMode(distribution);
             if (mode == -1) {
@@ -548,8 +659,7 @@ public abstract class DistributionAggregateFunction implements Serializable {
             }
             
             // Compute error
-            return getNMSE(minimum, maximum, Arrays.copyOf(list.elements(), list.size()), 
-                                             rType.toDouble(rType.parse(dictionary[mode])));
+            return getNMSE(minimum, maximum, distribution, 0d, getValues()[mode]);
         }
 
         @Override
@@ -662,6 +772,9 @@ public abstract class DistributionAggregateFunction implements Serializable {
     
     /** Type */
     protected transient DataType<?> type;
+    
+    /** Numeric representation of the dictionary, NaN for missing values */
+    private transient double[]      values;
 
     /**
      * Instantiates a new function.
@@ -725,6 +838,7 @@ public abstract class DistributionAggregateFunction implements Serializable {
     public void initialize(String[] dictionary, DataType<?> type) {
         this.dictionary = dictionary;
         this.type = type;
+        this.values = null;
     }
     
     /**
@@ -736,24 +850,33 @@ public abstract class DistributionAggregateFunction implements Serializable {
     }
     
     /**
-     * Adds all values from the distribution to the given descriptive statistics object
-     * @param statistics
-     * @param distribution
-     * @param type
-     * @param offset will be added to values
+     * Returns the value of the given code, with missing values replaced by 0 or NaN,
+     * if they are to be ignored. Requires a data type with ratio scale.
+     * @param code
+     * @return
+     */
+    protected double getValue(int code) {
+        double value = getValues()[code];
+        return Double.isNaN(value) && !ignoreMissingData ? 0d : value;
+    }
+    
+    /**
+     * Returns the numeric representation of the dictionary, NaN for missing values.
+     * Requires a data type with ratio scale. The dictionary is parsed only once.
+     * @return
      */
-    protected <T> void addAll(DescriptiveStatistics statistics, 
-                           Distribution distribution,
-                           DataTypeWithRatioScale<T> type,
-                           double offset) {
-        Iterator<Double> it = DistributionIterator.createIteratorDouble(distribution, dictionary, type);
-        while (it.hasNext()) {
-            Double value = it.next();
-            value = value == null ? (ignoreMissingData ? null : 0d) : value;
-            if (value != null) {
-                statistics.addValue(value + offset);
+    @SuppressWarnings("unchecked")
+    protected <T> double[] getValues() {
+        if (values == null) {
+            DataTypeWithRatioScale<T> rType = (DataTypeWithRatioScale<T>) this.type;
+            double[] result = new double[dictionary.length];
+            for (int i = 0; i < result.length; i++) {
+                Double value = rType.toDouble(rType.parse(dictionary[i]));
+                result[i] = value == null ? Double.NaN : value;
             }
+            values = result;
         }
+        return values;
     }
 
     /**
@@ -780,29 +903,38 @@ public abstract class DistributionAggregateFunction implements Serializable {
     }
 
     /**
-     * Calculates the mean square error after normalizing everything into [0,1]
+     * Calculates the mean square error of the values in the distribution after normalizing everything into [0,1]
      * 
      * @param min
      * @param max
-     * @param values
+     * @param distribution
+     * @param offset will be added to values
      * @param aggregate
      * @return
      */
-    protected double getNMSE(double min, double max, double[] values, double aggregate) {
+    protected double getNMSE(double min, double max, Distribution distribution, double offset, double aggregate) {
         
         // Prepare
         double normalizationFactor = 1d / (max - min);
         double normalizedAggregate = (aggregate - min) * normalizationFactor;
         
         // NMSE and Sum 1
+        int[] buckets = distribution.getBuckets();
         double nmse = 0d;
-        for (int i = 0; i < values.length; i++) {
-            double normalizedValue = (values[i] - min) * normalizationFactor;
-            double diff = normalizedValue - normalizedAggregate;
-            nmse += diff * diff;
+        double count = 0d;
+        for (int i = 0; i < buckets.length; i += 2) {
+            if (buckets[i] != -1) {
+                double value = getValue(buckets[i]);
+                if (!Double.isNaN(value)) {
+                    double normalizedValue = (value + offset - min) * normalizationFactor;
+                    double diff = normalizedValue - normalizedAggregate;
+                    nmse += diff * diff * buckets[i + 1];
+                    count += buckets[i + 1];
+                }
+            }
         }
 
         // Normalize and return
-        return nmse / (double)values.length;
+        return nmse / count;
     }
 }
@@ -17,6 +17,9 @@
 
 package org.deidentifier.arx.framework.check.groupify;
 
+import org.deidentifier.arx.ARXCheckStatistics;
+import org.deidentifier.arx.ARXCheckStatistics.Counter;
+import org.deidentifier.arx.ARXConfiguration;
 import org.deidentifier.arx.ARXConfiguration.ARXConfigurationInternal;
 import org.deidentifier.arx.RowSet;
 import org.deidentifier.arx.criteria.DPresence;
@@ -32,11 +35,13 @@ import org.deidentifier.arx.framework.data.Dictionary;
 import org.deidentifier.arx.framework.lattice.Transformation;
 import org.deidentifier.arx.metric.Metric;
 
-import com.carrotsearch.hppc.ObjectIntOpenHashMap;
+import com.carrotsearch.hppc.ObjectObjectOpenHashMap;
 
 /**
  * A hash groupify operator. It implements a hash table with chaining and keeps
- * track of additional properties per equivalence class
+ * track of additional properties per equivalence class. Instances should be created
+ * via {@link #create(int, ARXConfigurationInternal, int, DataMatrix, DataMatrix, DataMatrix, int[])},
+ * which chooses {@link HashGroupifyCompact} for configurations without distributions.
  * 
  * @author Fabian Prasser
  * @author Florian Kohlmayer
@@ -44,10 +49,13 @@ import com.carrotsearch.hppc.ObjectIntOpenHashMap;
 public class HashGroupify {
 
     /** Criteria. */
-    private final PrivacyCriterion[]     classBasedCriteria;
+    protected final PrivacyCriterion[]     classBasedCriteria;
+
+    /** The config. */
+    protected final ARXConfigurationInternal config;
 
     /** The current number of outliers. */
-    private int                          currentNumOutliers;
+    protected int                          currentNumOutliers;
 
     /** The entry array. */
     private HashGroupifyEntry[]          hashTableBuckets;
@@ -71,46 +79,75 @@ public class HashGroupify {
     private final boolean                heuristicForSampleBasedCriteria;
 
     /** The parameter k, if k-anonymity is contained in the set of criteria. */
-    private final int                    minimalClassSize;
+    protected final int                    minimalClassSize;
 
     /** Is the result k-anonymous?. */
-    private boolean                      minimalClassSizeFulfilled;
+    protected boolean                      minimalClassSizeFulfilled;
 
     /** True, if the contained d-presence criterion is not inclusion. */
-    private final boolean                privacyModelContainsDPresence;
+    protected final boolean                privacyModelContainsDPresence;
 
     /** The research subset, if d-presence is contained in the set of criteria. */
-    private final RowSet                 privacyModelDefinesSubset;
+    protected final RowSet                 privacyModelDefinesSubset;
 
     /** Is the result anonymous. */
-    private boolean                      privacyModelFulfilled;
+    protected boolean                      privacyModelFulfilled;
 
     /** Criteria. */
-    private final SampleBasedCriterion[] sampleBasedCriteria;
+    protected final SampleBasedCriterion[] sampleBasedCriteria;
 
     /** Allowed tuple outliers. */
-    private final int                    suppressionLimit;
+    protected final int                    suppressionLimit;
 
     /** Utility measure */
     private final Metric<?>              utilityMeasure;
 
     /** Input */
-    private final DataMatrix             dataInput;
+    protected final DataMatrix             dataInput;
 
     /** Output */
-    private final DataMatrix             dataOutput;
+    protected final DataMatrix             dataOutput;
 
     /** Output */
-    private final DataMatrix             dataAnalyzed;
+    protected final DataMatrix             dataAnalyzed;
 
     /** Number of columns (from index 0) that need to be analyzed in hot-mode */
-    private final int                    dataAnalyzedNumberOfColumns;
+    protected final int                    dataAnalyzedNumberOfColumns;
 
     /** Suppressed codes */
-    private final int[]                  suppressedCodes;
+    protected final int[]                  suppressedCodes;
+
+    /** Statistics, if instrumented */
+    protected ARXCheckStatistics           statistics;
     
     /** Hash code of fully generalized records*/
-    private final int                    suppressedHashCode;
+    protected final int                    suppressedHashCode;
+
+    /**
+     * Creates a new hash groupify operator, which is suitable for the given configuration.
+     *
+     * @param capacity The capacity
+     * @param config The config
+     * @param dataAnalyzedNumberOfColumns
+     * @param input
+     * @param output
+     * @param analyzed
+     * @param suppressedCodes
+     * @return
+     */
+    public static HashGroupify create(int capacity,
+                                      ARXConfigurationInternal config,
+                                      int dataAnalyzedNumberOfColumns,
+                                      DataMatrix input,
+                                      DataMatrix output,
+                                      DataMatrix analyzed,
+                                      int[] suppressedCodes) {
+        if ((config.getRequirements() & ARXConfiguration.REQUIREMENT_DISTRIBUTION) == 0) {
+            return new HashGroupifyCompact(capacity, config, dataAnalyzedNumberOfColumns, input, output, analyzed, suppressedCodes);
+        } else {
+            return new HashGroupify(capacity, config, dataAnalyzedNumberOfColumns, input, output, analyzed, suppressedCodes);
+        }
+    }
 
     /**
      * Constructs a new hash groupify operator.
@@ -132,6 +169,7 @@ public class HashGroupify {
                         int[] suppressedCodes) {
         
         // Store
+        this.config = config;
         this.dataInput = input;
         this.dataOutput = output;
         this.dataAnalyzed = analyzed;
@@ -240,6 +278,30 @@ public class HashGroupify {
         }
     }
     
+    /**
+     * Adds all classes from another groupify operator, which has been built over a disjoint
+     * range of records of the same output data. Classes are added in their original order,
+     * which makes merging the operators for consecutive ranges equivalent to processing all
+     * records sequentially.
+     * @param other
+     */
+    public void addFromGroupify(HashGroupify other) {
+        HashGroupifyEntry element = other.hashTableFirstEntry;
+        while (element != null) {
+            final HashGroupifyEntry entry = addInternal(element.row, element.hashcode, element.representative, element.count, element.pcount);
+            if (element.distributions != null) {
+                if (entry.distributions == null) {
+                    entry.distributions = element.distributions;
+                } else {
+                    for (int i = 0; i < entry.distributions.length; i++) {
+                        entry.distributions[i].merge(element.distributions[i]);
+                    }
+                }
+            }
+            element = element.nextOrdered;
+        }
+    }
+    
     /**
      * Adds a class from a snapshot
      * @param generalized
@@ -275,6 +337,24 @@ public class HashGroupify {
         }
     }
     
+    /**
+     * Creates a new, empty operator with the same configuration. It operates on views of the data
+     * processed by this operator, which share the backing data but maintain their own iterators.
+     * The instance can thus be used concurrently with this operator, as long as disjoint ranges
+     * of records are processed.
+     * @param capacity
+     * @return
+     */
+    public HashGroupify createPartition(int capacity) {
+        return create(capacity,
+                      config,
+                      dataAnalyzedNumberOfColumns,
+                      dataInput.getView(),
+                      dataOutput.getView(),
+                      dataAnalyzed != null ? dataAnalyzed.getView() : null,
+                      suppressedCodes);
+    }
+    
     /**
      * Returns the entry for the given tuple
      * @param tuple
@@ -365,76 +445,36 @@ public class HashGroupify {
      */
     public Data performMicroaggregation(DataAggregationInformation microaggregationData,
                                         Dictionary dictionary) {
-        
-        // Initialize
-        int[] indices = microaggregationData.getMicroaggregationIndices();
-        DistributionAggregateFunction[] functions = microaggregationData.getMicroaggregationFunctions();
-        String[] header = microaggregationData.getMicroaggregationHeader();
-        int[] columns = microaggregationData.getMicroaggregationColumns();
-        
-        // Prepare result
-        Data result = Data.createWrapper(new DataMatrix(dataOutput.getNumRows(), indices.length), header, columns, dictionary);
-
-        // TODO: To improve performance, microaggregation and marking of outliers could be performed in one pass
-        ObjectIntOpenHashMap<Distribution> cache = new ObjectIntOpenHashMap<Distribution>();
-        for (int row = 0; row < dataOutput.getNumRows(); row++) {
-            if (privacyModelDefinesSubset == null || privacyModelDefinesSubset.contains(row)) {
-                final int hash = dataOutput.hashCode(row);
-                final int index = hash & (hashTableBuckets.length - 1);
-                HashGroupifyEntry m = hashTableBuckets[index];
-                while ((m != null) && ((m.hashcode != hash) || !dataOutput.equalsIgnoringOutliers(row, m.row))) {
-                    m = m.next;
-                }
-                if (m == null) { throw new RuntimeException("Invalid state! Groupify the data before performing microaggregation!"); }
-                result.getArray().iterator(row);
-                for (int i = 0; i < indices.length; i++) {
-                    int columnIndex = indices[i];
-                    Distribution distribution = m.distributions[columnIndex];
-                    int code = cache.getOrDefault(distribution, -1);
-                    if (code == -1) {
-                        String value = functions[i].aggregate(distribution);
-                        code = result.getDictionary().register(i, value);
-                        cache.put(distribution, code);
-                    }
-                    result.getArray().iterator_write(code);
-                }
-            }
-        }
-        
-        // Finalize
-        result.getDictionary().finalizeAll();
-        
-        // Returns the result
-        return result;
+        return perform(microaggregationData, dictionary, false);
+    }
+    
+    /**
+     * Returns a data object with microaggregation performed and suppresses records in the output
+     * dataset, as implemented by performSuppression(). Each record is only assigned to its class once.
+     * @param microaggregationData
+     * @param dictionary
+     * @return
+     */
+    public Data performMicroaggregationAndSuppression(DataAggregationInformation microaggregationData,
+                                                      Dictionary dictionary) {
+        return perform(microaggregationData, dictionary, true);
     }
     
     /**
      * Suppresses all records in the output dataset which <br>
      * (a) do not satisfy privacy requirements, or <br>
      * (b) are not included in the research subset
-     * @param dictionary 
      */
     public void performSuppression() {
-        
-        for (int row = 0; row < dataOutput.getNumRows(); row++) {
-            if (privacyModelDefinesSubset == null || privacyModelDefinesSubset.contains(row)) {
-                final int hash = dataOutput.hashCode(row);
-                final int index = hash & (hashTableBuckets.length - 1);
-                HashGroupifyEntry m = hashTableBuckets[index];
-                while ((m != null) && ((m.hashcode != hash) || !dataOutput.equalsIgnoringOutliers(row, m.row))) {
-                    m = m.next;
-                }
-                if (m == null) {
-                    throw new RuntimeException("Invalid state! Group the data before suppressing records!");
-                }
-                if (!m.isNotOutlier || this.isCompletelyGeneralized(m)) {
-                    dataOutput.or(row, Data.OUTLIER_MASK);
-                    m.isNotOutlier = false;
-                }
-            } else {
-                dataOutput.or(row, Data.OUTLIER_MASK);
-            }
-        }
+        perform(null, null, true);
+    }
+
+    /**
+     * Sets the statistics into which events are recorded, null to disable instrumentation
+     * @param statistics
+     */
+    public void setStatistics(ARXCheckStatistics statistics) {
+        this.statistics = statistics;
     }
 
     /**
@@ -460,6 +500,13 @@ public class HashGroupify {
         }
     }
     
+    /**
+     * Clears all entries and releases resources kept for reuse
+     */
+    public void stateRelease() {
+        this.stateClear();
+    }
+    
     /**
      * This method will reset all flags that indicate that equivalence classes are suppressed.
      */
@@ -545,6 +592,79 @@ public class HashGroupify {
         return entry;
     }
     
+    /**
+     * Performs microaggregation, if data is provided, and suppression, if requested, in one pass.
+     * Aggregates are computed once per class.
+     * @param microaggregationData
+     * @param dictionary
+     * @param suppress
+     * @return
+     */
+    protected Data perform(DataAggregationInformation microaggregationData,
+                           Dictionary dictionary,
+                           boolean suppress) {
+        
+        // Initialize
+        Data result = null;
+        int[] indices = null;
+        DistributionAggregateFunction[] functions = null;
+        ObjectObjectOpenHashMap<HashGroupifyEntry, int[]> codes = null;
+        if (microaggregationData != null) {
+            indices = microaggregationData.getMicroaggregationIndices();
+            functions = microaggregationData.getMicroaggregationFunctions();
+            String[] header = microaggregationData.getMicroaggregationHeader();
+            int[] columns = microaggregationData.getMicroaggregationColumns();
+            result = Data.createWrapper(dataOutput.newInstance(dataOutput.getNumRows(), indices.length), header, columns, dictionary);
+            
+            // Class -> column -> code
+            codes = new ObjectObjectOpenHashMap<HashGroupifyEntry, int[]>();
+        }
+        
+        // For each record
+        for (int row = 0; row < dataOutput.getNumRows(); row++) {
+            if (privacyModelDefinesSubset == null || privacyModelDefinesSubset.contains(row)) {
+                final HashGroupifyEntry m = findEntryIgnoringOutliers(row);
+                if (m == null) {
+                    throw new RuntimeException(result != null ? "Invalid state! Groupify the data before performing microaggregation!" :
+                                                                "Invalid state! Group the data before suppressing records!");
+                }
+                
+                // Microaggregate
+                if (result != null) {
+                    int[] aggregates = codes.get(m);
+                    if (aggregates == null) {
+                        aggregates = new int[indices.length];
+                        for (int i = 0; i < indices.length; i++) {
+                            String value = functions[i].aggregate(m.distributions[indices[i]]);
+                            aggregates[i] = result.getDictionary().register(i, value);
+                        }
+                        codes.put(m, aggregates);
+                    }
+                    result.getArray().iterator(row);
+                    for (int i = 0; i < indices.length; i++) {
+                        result.getArray().iterator_write(aggregates[i]);
+                    }
+                }
+                
+                // Suppress
+                if (suppress && (!m.isNotOutlier || this.isCompletelyGeneralized(m))) {
+                    dataOutput.or(row, Data.OUTLIER_MASK);
+                    m.isNotOutlier = false;
+                }
+            } else if (suppress) {
+                dataOutput.or(row, Data.OUTLIER_MASK);
+            }
+        }
+        
+        // Finalize
+        if (result != null) {
+            result.getDictionary().finalizeAll();
+        }
+        
+        // Returns the result
+        return result;
+    }
+    
     /**
      * Analyzes the content of the hash table. Checks the privacy criteria against each class.
      * @param transformation
@@ -595,7 +715,7 @@ public class HashGroupify {
      * @param earlyAbort May we perform an early abort, if we reach the threshold
      * @return
      */
-    private void analyzeSampleBasedCriteria(Transformation<?> transformation, boolean earlyAbort) {
+    protected void analyzeSampleBasedCriteria(Transformation<?> transformation, boolean earlyAbort) {
         
         // Nothing to do
         if (this.sampleBasedCriteria.length == 0) {
@@ -735,6 +855,23 @@ public class HashGroupify {
         return m;
     }
 
+    /**
+     * Returns the according entry, ignoring the outlier flags of the given row.
+     * 
+     * @param row
+     *            the row
+     * @return the hash groupify entry
+     */
+    private HashGroupifyEntry findEntryIgnoringOutliers(final int row) {
+        final int hash = dataOutput.hashCode(row);
+        final int index = hash & (hashTableBuckets.length - 1);
+        HashGroupifyEntry m = hashTableBuckets[index];
+        while ((m != null) && ((m.hashcode != hash) || !dataOutput.equalsIgnoringOutliers(row, m.row))) {
+            m = m.next;
+        }
+        return m;
+    }
+
     /**
      * Checks whether the given entry is anonymous.
      * @param transformation
@@ -744,7 +881,7 @@ public class HashGroupify {
      *              if minimal group size is not fulfilled, 
      *              (index+1) if criteria[index] is not fulfilled
      */
-    private int isPrivacyModelFulfilled(Transformation<?> transformation, HashGroupifyEntry entry) {
+    protected int isPrivacyModelFulfilled(Transformation<?> transformation, HashGroupifyEntry entry) {
         
         // Check minimal group size
         if (minimalClassSize != Integer.MAX_VALUE && entry.count < minimalClassSize) {
@@ -778,5 +915,8 @@ public class HashGroupify {
         }
         hashTableBuckets = newData;
         hashTableThreshold = HashTableUtil.calculateThreshold(hashTableBuckets.length, hashTableLoadFactor);
+        if (statistics != null) {
+            statistics.add(Counter.GROUPIFY_REHASHES, 1);
+        }
     }
 }
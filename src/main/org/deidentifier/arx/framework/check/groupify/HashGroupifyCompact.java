@@ -0,0 +1,545 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2020 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.framework.check.groupify;
+
+import java.util.Arrays;
+
+import org.deidentifier.arx.ARXCheckStatistics.Counter;
+import org.deidentifier.arx.ARXConfiguration.ARXConfigurationInternal;
+import org.deidentifier.arx.framework.check.distribution.Distribution;
+import org.deidentifier.arx.framework.data.Data;
+import org.deidentifier.arx.framework.data.DataAggregationInformation;
+import org.deidentifier.arx.framework.data.DataMatrix;
+import org.deidentifier.arx.framework.data.Dictionary;
+import org.deidentifier.arx.framework.lattice.Transformation;
+
+/**
+ * A hash groupify operator for configurations without distributions. It implements a hash
+ * table with open addressing and stores the properties of equivalence classes in parallel
+ * arrays in insertion order, which are reused after the operator has been cleared. Hash
+ * codes are mixed before probing. Classes are only represented by instances of
+ * {@link HashGroupifyEntry} when they are requested via {@link #getFirstEquivalenceClass()}
+ * or {@link #getEntry(int[])}. These instances are reused as well.
+ *
+ * @author Fabian Prasser
+ * @author Florian Kohlmayer
+ */
+public class HashGroupifyCompact extends HashGroupify {
+
+    /** Load factor. */
+    private static final float  LOAD_FACTOR   = 0.75f;
+
+    /** The buckets, containing the index of a class + 1, 0 if empty. */
+    private int[]               buckets;
+
+    /** Maximum number of classes that can be put in this map before having to rehash. */
+    private int                 threshold;
+
+    /** Current number of classes. */
+    private int                 size;
+
+    /** The keys of the classes. */
+    private int[]               rows;
+
+    /** The hash codes of the classes. */
+    private int[]               hashcodes;
+
+    /** The number of elements in the classes. Excluding elements from the public table. */
+    private int[]               counts;
+
+    /** The number of elements in the classes. Including elements from the public table. */
+    private int[]               pcounts;
+
+    /** The representative rows of the classes. */
+    private int[]               representatives;
+
+    /** Are the classes not outliers?. */
+    private boolean[]           notOutliers;
+
+    /** Instances representing the classes, if requested. */
+    private HashGroupifyEntry[] entries       = new HashGroupifyEntry[0];
+
+    /** Do the instances represent the current state?. */
+    private boolean             entriesValid  = false;
+
+    /** Instance used for checking class-based privacy models. */
+    private final HashGroupifyEntry cursor;
+
+    /**
+     * Constructs a new hash groupify operator.
+     *
+     * @param capacity The capacity
+     * @param config The config
+     * @param dataAnalyzedNumberOfColumns
+     * @param input
+     * @param output
+     * @param analyzed
+     * @param suppressedCodes
+     */
+    HashGroupifyCompact(int capacity,
+                        ARXConfigurationInternal config,
+                        int dataAnalyzedNumberOfColumns,
+                        DataMatrix input,
+                        DataMatrix output,
+                        DataMatrix analyzed,
+                        int[] suppressedCodes) {
+        super(0, config, dataAnalyzedNumberOfColumns, input, output, analyzed, suppressedCodes);
+
+        // Set capacity
+        capacity = HashTableUtil.calculateCapacity(capacity);
+        this.buckets = new int[capacity];
+        this.threshold = HashTableUtil.calculateThreshold(capacity, LOAD_FACTOR);
+        this.size = 0;
+        this.rows = new int[threshold];
+        this.hashcodes = new int[threshold];
+        this.counts = new int[threshold];
+        this.pcounts = new int[threshold];
+        this.representatives = new int[threshold];
+        this.notOutliers = new boolean[threshold];
+        this.cursor = new HashGroupifyEntry(output, 0, 0);
+    }
+
+    @Override
+    public void addFromBuffer(int generalized, int other, int representative, int count, int pcount) {
+        if (other != -1) {
+            throw new RuntimeException("Distributions are not supported by this operator");
+        }
+        addInternal(generalized, dataOutput.hashCode(generalized), representative, count, pcount);
+    }
+
+    @Override
+    public void addFromGroupify(int generalized, Distribution[] distributions, int representative, int count, int pcount) {
+        if (distributions != null) {
+            throw new RuntimeException("Distributions are not supported by this operator");
+        }
+        addInternal(generalized, dataOutput.hashCode(generalized), representative, count, pcount);
+    }
+
+    @Override
+    public void addFromGroupify(HashGroupify other) {
+        if (other instanceof HashGroupifyCompact) {
+            HashGroupifyCompact compact = (HashGroupifyCompact) other;
+            for (int i = 0; i < compact.size; i++) {
+                addInternal(compact.rows[i], compact.hashcodes[i], compact.representatives[i], compact.counts[i], compact.pcounts[i]);
+            }
+        } else {
+            HashGroupifyEntry element = other.getFirstEquivalenceClass();
+            while (element != null) {
+                addFromGroupify(element.row, element.distributions, element.representative, element.count, element.pcount);
+                element = element.nextOrdered;
+            }
+        }
+    }
+
+    @Override
+    public void addFromSnapshot(int generalized, int[][] elements, int[][] frequencies, int representative, int count, int pcount) {
+        if (elements != null) {
+            throw new RuntimeException("Distributions are not supported by this operator");
+        }
+        addInternal(generalized, dataOutput.hashCode(generalized), representative, count, pcount);
+    }
+
+    @Override
+    public HashGroupifyEntry getEntry(int[] tuple) {
+        final int hash = dataOutput.hashCode(tuple);
+        final int mask = buckets.length - 1;
+        int slot = HashTableUtil.mix(hash) & mask;
+        int index;
+        while ((index = buckets[slot]) != 0) {
+            if (hashcodes[index - 1] == hash && dataOutput.equals(rows[index - 1], tuple)) {
+                return getEntries()[index - 1];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    @Override
+    public HashGroupifyEntry getFirstEquivalenceClass() {
+        return size == 0 ? null : getEntries()[0];
+    }
+
+    @Override
+    public int getNumberOfEquivalenceClasses() {
+        return size;
+    }
+
+    @Override
+    public void stateAnalyze(Transformation<?> transformation, boolean force) {
+        entriesValid = false;
+        if (force) analyzeAll(transformation);
+        else analyzeWithEarlyAbort(transformation);
+    }
+
+    @Override
+    public void stateClear() {
+        if (size > 0) {
+            this.size = 0;
+            this.currentNumOutliers = 0;
+            this.entriesValid = false;
+            Arrays.fill(buckets, 0);
+        }
+    }
+
+    @Override
+    public void stateRelease() {
+        this.stateClear();
+        this.entries = new HashGroupifyEntry[0];
+    }
+
+    @Override
+    public void stateResetSuppression() {
+        Arrays.fill(notOutliers, 0, size, true);
+        this.currentNumOutliers = 0;
+        this.entriesValid = false;
+    }
+
+    @Override
+    protected void analyzeSampleBasedCriteria(Transformation<?> transformation, boolean earlyAbort) {
+
+        // Nothing to do
+        if (this.sampleBasedCriteria.length == 0) {
+            return;
+        }
+
+        // Criteria suppress classes via their instances
+        entriesValid = false;
+        HashGroupifyEntry[] entries = getEntries();
+        super.analyzeSampleBasedCriteria(transformation, earlyAbort);
+        for (int i = 0; i < size; i++) {
+            notOutliers[i] = entries[i].isNotOutlier;
+        }
+    }
+
+    @Override
+    protected Data perform(DataAggregationInformation microaggregationData,
+                           Dictionary dictionary,
+                           boolean suppress) {
+
+        // Check
+        if (microaggregationData != null) {
+            throw new RuntimeException("Microaggregation is not supported by this operator");
+        }
+
+        // For each record
+        entriesValid = false;
+        for (int row = 0; row < dataOutput.getNumRows(); row++) {
+            if (privacyModelDefinesSubset == null || privacyModelDefinesSubset.contains(row)) {
+                final int index = findIndexIgnoringOutliers(row);
+                if (index == -1) {
+                    throw new RuntimeException("Invalid state! Group the data before suppressing records!");
+                }
+                if (suppress && (!notOutliers[index] || this.isCompletelyGeneralized(index))) {
+                    dataOutput.or(row, Data.OUTLIER_MASK);
+                    notOutliers[index] = false;
+                }
+            } else if (suppress) {
+                dataOutput.or(row, Data.OUTLIER_MASK);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Internal adder method.
+     *
+     * @param generalized the key
+     * @param hash the hash
+     * @param representative
+     * @param count
+     * @param pcount
+     */
+    private void addInternal(final int generalized, final int hash, final int representative, int count, final int pcount) {
+
+        // Find or create class
+        int mask = buckets.length - 1;
+        int slot = HashTableUtil.mix(hash) & mask;
+        int index = -1;
+        int bucket;
+        while ((bucket = buckets[slot]) != 0) {
+            if (hashcodes[bucket - 1] == hash && dataOutput.equals(generalized, rows[bucket - 1])) {
+                index = bucket - 1;
+                break;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (index == -1) {
+            if (size + 1 > threshold) {
+                rehash();
+                mask = buckets.length - 1;
+                slot = HashTableUtil.mix(hash) & mask;
+                while (buckets[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+            }
+            index = size++;
+            buckets[slot] = index + 1;
+            rows[index] = generalized;
+            hashcodes[index] = hash;
+            counts[index] = 0;
+            pcounts[index] = 0;
+            representatives[index] = representative;
+            notOutliers[index] = false;
+        }
+        entriesValid = false;
+
+        // If we enforce d-presence and the tuple is not contained in the research subset: set its count to zero
+        count = (privacyModelDefinesSubset != null && !privacyModelDefinesSubset.contains(representative)) ? 0 : count;
+
+        // Track size: private table for d-presence, overall table, else
+        final int total = counts[index] += count;
+
+        // Indirectly check if we enforce d-presence
+        if (privacyModelDefinesSubset != null) {
+
+            // Increase size of tuples from public table
+            pcounts[index] += pcount;
+
+            // Always represent classes by their minimal representative from the research subset.
+            // See HashGroupify.addInternal() for details.
+            if (count > 0 && (total == count || representatives[index] < representative)) {
+                representatives[index] = representative;
+            }
+        }
+
+        // Compute current total number of outliers, if k-anonymity is contained in the set of criteria
+        if (total >= minimalClassSize) {
+            if (!notOutliers[index]) {
+                notOutliers[index] = true;
+                currentNumOutliers -= (total - count);
+            }
+        } else {
+            currentNumOutliers += count;
+        }
+    }
+
+    /**
+     * Analyzes the content of the hash table. Checks the privacy criteria against each class.
+     * @param transformation
+     */
+    private void analyzeAll(Transformation<?> transformation) {
+
+        // We have only checked k-anonymity so far
+        minimalClassSizeFulfilled = (currentNumOutliers <= suppressionLimit);
+
+        // Iterate over all classes
+        boolean dpresent = true;
+        currentNumOutliers = 0;
+        for (int i = 0; i < size; i++) {
+
+            // Check for anonymity
+            int anonymous = isPrivacyModelFulfilled(transformation, i);
+
+            // Determine outliers
+            if (anonymous != -1) {
+
+                // See HashGroupify.analyzeAll() for details
+                if (privacyModelContainsDPresence && counts[i] == 0 && anonymous == 1) {
+                    dpresent = false;
+                }
+
+                currentNumOutliers += counts[i];
+            }
+
+            // We only suppress classes that are contained in the research subset
+            notOutliers[i] = counts[i] != 0 ? (anonymous == -1) : true;
+        }
+
+        this.analyzeSampleBasedCriteria(transformation, false);
+        this.privacyModelFulfilled = (currentNumOutliers <= suppressionLimit) && dpresent;
+    }
+
+    /**
+     * Analyzes the content of the hash table. Checks the privacy criteria against each class.
+     * @param transformation
+     */
+    private void analyzeWithEarlyAbort(Transformation<?> transformation) {
+
+        // We have only checked k-anonymity so far
+        minimalClassSizeFulfilled = (currentNumOutliers <= suppressionLimit);
+
+        // Abort early, if only k-anonymity was specified
+        if (classBasedCriteria.length == 0 && sampleBasedCriteria.length == 0) {
+            privacyModelFulfilled = minimalClassSizeFulfilled;
+            return;
+        }
+
+        // Abort early, if k-anonymity sub-criterion is not fulfilled
+        // CAUTION: This leaves the outlier flags and currentOutliers in an inconsistent state
+        // for non-anonymous transformations
+        if (minimalClassSize != Integer.MAX_VALUE && !minimalClassSizeFulfilled) {
+            privacyModelFulfilled = false;
+            return;
+        }
+
+        // Iterate over all classes
+        currentNumOutliers = 0;
+        for (int i = 0; i < size; i++) {
+
+            // Check for anonymity
+            int anonymous = isPrivacyModelFulfilled(transformation, i);
+
+            // Determine outliers
+            if (anonymous != -1) {
+
+                // See HashGroupify.analyzeWithEarlyAbort() for details
+                if (privacyModelContainsDPresence && counts[i] == 0 && anonymous == 1) {
+                    this.privacyModelFulfilled = false;
+                    return;
+                }
+                currentNumOutliers += counts[i];
+
+                // Break as soon as too many classes are not anonymous
+                if (currentNumOutliers > suppressionLimit) {
+                    this.privacyModelFulfilled = false;
+                    return;
+                }
+            }
+
+            // We only suppress classes that are contained in the research subset
+            notOutliers[i] = counts[i] != 0 ? (anonymous == -1) : true;
+        }
+
+        this.analyzeSampleBasedCriteria(transformation, true);
+        this.privacyModelFulfilled = (currentNumOutliers <= suppressionLimit);
+    }
+
+    /**
+     * Returns the index of the according class, ignoring the outlier flags of the given row.
+     *
+     * @param row
+     *            the row
+     * @return the index, -1 if there is no such class
+     */
+    private int findIndexIgnoringOutliers(final int row) {
+        final int hash = dataOutput.hashCode(row);
+        final int mask = buckets.length - 1;
+        int slot = HashTableUtil.mix(hash) & mask;
+        int index;
+        while ((index = buckets[slot]) != 0) {
+            if (hashcodes[index - 1] == hash && dataOutput.equalsIgnoringOutliers(row, rows[index - 1])) {
+                return index - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns instances representing all classes in insertion order. They are linked
+     * via {@link HashGroupifyEntry#nextOrdered}.
+     *
+     * @return
+     */
+    private HashGroupifyEntry[] getEntries() {
+        if (!entriesValid) {
+            if (entries.length < size) {
+                entries = Arrays.copyOf(entries, rows.length);
+            }
+            HashGroupifyEntry previous = null;
+            for (int i = 0; i < size; i++) {
+                HashGroupifyEntry entry = entries[i];
+                if (entry == null) {
+                    entry = new HashGroupifyEntry(dataOutput, rows[i], hashcodes[i]);
+                    entries[i] = entry;
+                }
+                entry.set(rows[i], hashcodes[i], counts[i], pcounts[i], representatives[i], notOutliers[i]);
+                if (previous != null) {
+                    previous.nextOrdered = entry;
+                }
+                previous = entry;
+            }
+            entriesValid = true;
+        }
+        return entries;
+    }
+
+    /**
+     * Returns whether the given class is completely generalized
+     * @param index
+     * @return
+     */
+    private boolean isCompletelyGeneralized(int index) {
+        if (hashcodes[index] != this.suppressedHashCode) {
+            return false;
+        }
+        int column = 0;
+        dataOutput.iterator(rows[index]);
+        while (dataOutput.iterator_hasNext()) {
+            if (suppressedCodes[column++] != (dataOutput.iterator_next() & Data.REMOVE_OUTLIER_MASK)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether the given class is anonymous.
+     * @param transformation
+     * @param index
+     * @return
+     * @returns -1, if all criteria are fulfilled, 0,
+     *              if minimal group size is not fulfilled,
+     *              (index+1) if criteria[index] is not fulfilled
+     */
+    private int isPrivacyModelFulfilled(Transformation<?> transformation, int index) {
+
+        // Check minimal group size
+        if (minimalClassSize != Integer.MAX_VALUE && counts[index] < minimalClassSize) {
+            return 0;
+        }
+
+        // Check other criteria
+        if (classBasedCriteria.length == 0) {
+            return -1;
+        }
+        cursor.set(rows[index], hashcodes[index], counts[index], pcounts[index], representatives[index], notOutliers[index]);
+        return isPrivacyModelFulfilled(transformation, cursor);
+    }
+
+    /**
+     * Rehashes this operator.
+     */
+    private void rehash() {
+
+        // Buckets
+        final int length = HashTableUtil.calculateCapacity(buckets.length << 1);
+        final int mask = length - 1;
+        final int[] buckets = new int[length];
+        for (int i = 0; i < size; i++) {
+            int slot = HashTableUtil.mix(hashcodes[i]) & mask;
+            while (buckets[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            buckets[slot] = i + 1;
+        }
+        this.buckets = buckets;
+        this.threshold = HashTableUtil.calculateThreshold(length, LOAD_FACTOR);
+
+        // Classes
+        this.rows = Arrays.copyOf(rows, threshold);
+        this.hashcodes = Arrays.copyOf(hashcodes, threshold);
+        this.counts = Arrays.copyOf(counts, threshold);
+        this.pcounts = Arrays.copyOf(pcounts, threshold);
+        this.representatives = Arrays.copyOf(representatives, threshold);
+        this.notOutliers = Arrays.copyOf(notOutliers, threshold);
+        if (statistics != null) {
+            statistics.add(Counter.GROUPIFY_REHASHES, 1);
+        }
+    }
+}
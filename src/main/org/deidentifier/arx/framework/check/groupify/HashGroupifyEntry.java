@@ -35,10 +35,10 @@ public class HashGroupifyEntry {
     public int               pcount         = 0;
 
     /** The hashcode of this class. */
-    public final int         hashcode;
+    public int               hashcode;
 
     /** The key of this class. */
-    public final int         row;
+    public int               row;
 
     /** The next element in this bucket. */
     public HashGroupifyEntry next           = null;
@@ -71,6 +71,27 @@ public class HashGroupifyEntry {
         this.matrix = matrix;
     }
     
+    /**
+     * Sets the properties of this instance, which represents a class stored in the arrays
+     * of {@link HashGroupifyCompact}.
+     * 
+     * @param row the row
+     * @param hash the hash
+     * @param count the count
+     * @param pcount the pcount
+     * @param representative the representative
+     * @param isNotOutlier whether the class is not an outlier
+     */
+    void set(final int row, final int hash, final int count, final int pcount, final int representative, final boolean isNotOutlier) {
+        this.hashcode = hash;
+        this.row = row;
+        this.count = count;
+        this.pcount = pcount;
+        this.representative = representative;
+        this.isNotOutlier = isNotOutlier;
+        this.nextOrdered = null;
+    }
+    
     /**
      * Return has next
      * @return
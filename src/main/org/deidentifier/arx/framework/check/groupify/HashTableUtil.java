@@ -54,6 +54,22 @@ public class HashTableUtil {
         return x + 1;
     }
     
+    /**
+     * Mixes the bits of a hash code, to spread correlated keys across the table
+     * before using the lower bits as an index. Uses the finalizer of MurmurHash3.
+     *
+     * @param hash
+     * @return
+     */
+    public static final int mix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+    
     /**
      * Computes the threshold for rehashing.
      *
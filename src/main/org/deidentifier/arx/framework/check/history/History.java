@@ -17,9 +17,11 @@
 
 package org.deidentifier.arx.framework.check.history;
 
-import java.util.HashMap;
+import java.io.File;
 import java.util.Iterator;
 
+import org.deidentifier.arx.ARXCheckStatistics;
+import org.deidentifier.arx.ARXCheckStatistics.Counter;
 import org.deidentifier.arx.ARXConfiguration;
 import org.deidentifier.arx.ARXConfiguration.ARXConfigurationInternal;
 import org.deidentifier.arx.framework.check.distribution.Distribution;
@@ -31,7 +33,12 @@ import org.deidentifier.arx.framework.lattice.SolutionSpace;
 import org.deidentifier.arx.framework.lattice.Transformation;
 
 /**
- * The Class History.
+ * The history stores snapshots of transformations, i.e. their equivalence classes, which can be
+ * used to speed up checking their successors. Snapshots are stored in a compact encoding. The
+ * history is limited by the number of snapshots and by the number of bytes occupied by them.
+ * Snapshots are evicted by a cost/benefit score, which relates the number of records saved
+ * when using a snapshot to its size and which is refreshed whenever the snapshot is used
+ * (GreedyDual-Size). Optionally, evicted snapshots are moved to a memory-mapped file.
  * 
  * @author Fabian Prasser
  * @author Florian Kohlmayer
@@ -50,6 +57,9 @@ public class History {
     /** The actual buffer. */
     private MRUCache<MRUCacheEntryMetadata> cache                         = null;
 
+    /** Index for finding snapshots of predecessors. */
+    private final SnapshotIndex             index                         = new SnapshotIndex();
+
     /** Current configuration. */
     private final ARXConfigurationInternal  config;
 
@@ -59,9 +69,6 @@ public class History {
     /** The dictionary for values of the distributions. */
     private final IntArrayDictionary        dictionarySensValue;
 
-    /** A map from nodes to snapshots. */
-    private HashMap<Object, int[]>          nodeToSnapshot                = null;
-
     /** The current requirements. */
     private final int                       requirements;
 
@@ -71,6 +78,27 @@ public class History {
     /** Maximal number of entries. */
     private int                             size;
 
+    /** Maximal number of bytes occupied by snapshots in memory. */
+    private long                            memoryLimit                   = Long.MAX_VALUE;
+
+    /** Number of bytes occupied by snapshots in memory. */
+    private long                            memoryUsage                   = 0L;
+
+    /** Spill file for evicted snapshots, if any. */
+    private SnapshotSpillFile               spill                         = null;
+
+    /** Priority of the last evicted snapshot, added to all priorities for aging. */
+    private double                          inflation                     = 0d;
+
+    /** The number of rows. */
+    private final int                       rowCount;
+
+    /** The last decoded snapshot. The array is reused and may be larger than the snapshot. */
+    private int[]                           decodedSnapshot;
+
+    /** The entry backing the last decoded snapshot. */
+    private MRUCacheEntryMetadata           decodedMetadata;
+
     /** The snapshotSizeDataset for the size of entries. */
     private final long                      snapshotSizeDataset;
 
@@ -99,6 +127,9 @@ public class History {
     /** The current storage strategy. */
     private DependentAction                      storageTrigger;
 
+    /** Statistics, if instrumented */
+    private ARXCheckStatistics                   statistics;
+
     /**
      * Creates a new history.
      *
@@ -123,8 +154,8 @@ public class History {
         this.snapshotSizeDataset = (long) (rowCount * snapshotSizeDataset);
         this.snapshotSizeSnapshot = snapshotSizeSnapshot;
         this.cache = new MRUCache<MRUCacheEntryMetadata>(size);
-        this.nodeToSnapshot = new HashMap<Object, int[]>(size);
         this.size = size;
+        this.rowCount = rowCount;
         this.dictionarySensFreq = dictionarySensFreq;
         this.dictionarySensValue = dictionarySensValue;
         this.config = config;
@@ -141,32 +172,24 @@ public class History {
      */
     public int[] get(final int[] transformation) {
 
-        // Init
-        int[] resultSnapshot = null;
-        MRUCacheEntryMetadata resultMetadata = null;
-        int level = solutionSpace.getLevel(transformation);
-
         // Search
-        MRUCacheEntry<MRUCacheEntryMetadata> entry = cache.getHead();
-        while (entry != null) {
-            MRUCacheEntryMetadata currentMetadata = entry.data;
-            if (currentMetadata.level < level) {
-                final int[] currentSnapshot = nodeToSnapshot.get(currentMetadata.id);
-                if ((resultMetadata == null) || (currentSnapshot.length < resultSnapshot.length)) {
-                    if (solutionSpace.isParentChildOrEqual(transformation, currentMetadata.transformation)) {
-                        resultMetadata = currentMetadata;
-                        resultSnapshot = currentSnapshot;
-                    }
-                }
-            }
-            entry = entry.next;
-        }
+        MRUCacheEntryMetadata resultMetadata = index.get(transformation, solutionSpace.getLevel(transformation));
 
         // Manager
+        int[] resultSnapshot = null;
         if (resultMetadata != null) {
             cache.touch(resultMetadata);
+            index.touch(resultMetadata);
+            resultMetadata.priority = inflation + getBenefit(resultMetadata);
+            resultSnapshot = getSnapshot(resultMetadata);
         }
         this.resultMetadata = resultMetadata;
+        if (statistics != null) {
+            statistics.add(resultSnapshot != null ? Counter.SNAPSHOT_HITS : Counter.SNAPSHOT_MISSES, 1);
+            if (resultSnapshot != null && resultMetadata.data == null) {
+                statistics.add(Counter.SNAPSHOT_SPILL_HITS, 1);
+            }
+        }
 
         // Return
         return resultSnapshot;
@@ -190,6 +213,73 @@ public class History {
         return dictionarySensValue;
     }
 
+    /**
+     * Returns the maximal number of bytes occupied by snapshots in memory.
+     *
+     * @return
+     */
+    public long getMemoryLimit() {
+        return memoryLimit;
+    }
+
+    /**
+     * Returns the number of bytes occupied by snapshots in memory.
+     *
+     * @return
+     */
+    public long getMemoryUsage() {
+        return memoryUsage;
+    }
+
+    /**
+     * Returns the number of classes in the last returned snapshot, 0 if there is none.
+     *
+     * @return
+     */
+    public int getNumberOfClasses() {
+        if (resultMetadata == null) {
+            return 0;
+        } else {
+            return resultMetadata.classes;
+        }
+    }
+
+    /**
+     * Returns the number of snapshots.
+     *
+     * @return
+     */
+    public int getNumberOfSnapshots() {
+        return cache.size();
+    }
+
+    /**
+     * Returns the directory of the spill file, null for the default temporary directory.
+     *
+     * @return
+     */
+    public File getSpillDirectory() {
+        return spill == null ? null : spill.getDirectory();
+    }
+
+    /**
+     * Returns the maximal size of the spill file in bytes, 0 if disabled.
+     *
+     * @return
+     */
+    public long getSpillLimit() {
+        return spill == null ? 0L : spill.getCapacity();
+    }
+
+    /**
+     * Returns the number of bytes used in the spill file.
+     *
+     * @return
+     */
+    public long getSpillUsage() {
+        return spill == null ? 0L : spill.getSize();
+    }
+
     /**
      * Returns the current storage strategy.
      *
@@ -217,10 +307,31 @@ public class History {
      */
     public void reset() {
         this.cache.clear();
-        this.nodeToSnapshot.clear();
+        this.index.clear();
         this.dictionarySensFreq.clear();
         this.dictionarySensValue.clear();
         this.resultMetadata = null;
+        this.decodedMetadata = null;
+        this.decodedSnapshot = null;
+        this.memoryUsage = 0L;
+        this.inflation = 0d;
+        if (this.spill != null) {
+            this.spill.close();
+        }
+    }
+
+    /**
+     * Sets the maximal number of bytes occupied by snapshots in memory. Snapshots exceeding
+     * the limit are evicted immediately.
+     *
+     * @param memoryLimit
+     */
+    public void setMemoryLimit(long memoryLimit) {
+        if (memoryLimit <= 0) { throw new IllegalArgumentException("Parameter must be > 0"); }
+        this.memoryLimit = memoryLimit;
+        while (memoryUsage > memoryLimit) {
+            evict(true);
+        }
     }
 
     /**
@@ -232,6 +343,29 @@ public class History {
         this.size = size;
     }
     
+    /**
+     * Configures a memory-mapped file, into which snapshots are moved when they are evicted from memory.
+     *
+     * @param directory The directory, null for the default temporary directory
+     * @param spillLimit The maximal size of the file in bytes, 0 to disable spilling
+     */
+    public void setSpill(File directory, long spillLimit) {
+        if (spillLimit < 0) { throw new IllegalArgumentException("Parameter must be >= 0"); }
+        if (this.spill != null) {
+            clearSpill();
+            this.spill.close();
+        }
+        this.spill = spillLimit == 0 ? null : new SnapshotSpillFile(directory, spillLimit);
+    }
+
+    /**
+     * Sets the statistics into which events are recorded, null to disable instrumentation
+     * @param statistics
+     */
+    public void setStatistics(ARXCheckStatistics statistics) {
+        this.statistics = statistics;
+    }
+    
     /**
      * Sets the storage strategy
      * @param strategy
@@ -249,10 +383,10 @@ public class History {
      *
      * @param transformation The transformation
      * @param groupify The groupify operator
-     * @param snapshot The snapshot that was previously used, if any
+     * @param snapshotClasses The number of classes in the snapshot that was previously used, 0 if none
      * @return
      */
-    public boolean store(final Transformation<?> transformation, final HashGroupify groupify, final int[] snapshot) {
+    public boolean store(final Transformation<?> transformation, final HashGroupify groupify, final int snapshotClasses) {
 
         // Early abort if too large, or no space
         if (size == 0 || groupify.getNumberOfEquivalenceClasses() > snapshotSizeDataset) {
@@ -260,8 +394,8 @@ public class History {
         }
 
         // Early abort if too large
-        if (snapshot != null) {
-            final double relativeSize = (groupify.getNumberOfEquivalenceClasses() / ((double) snapshot.length / config.getSnapshotLength()));
+        if (snapshotClasses != 0) {
+            final double relativeSize = (groupify.getNumberOfEquivalenceClasses() / (double) snapshotClasses);
             if (relativeSize > snapshotSizeSnapshot) { return false; }
         }
         
@@ -274,17 +408,31 @@ public class History {
         // Clear the cache
         cleanUpHistory();
 
-        // Perform LRU eviction, if still too large
-        if (cache.size() >= size) {
-            removeHistoryEntry(cache.removeHead());
-        }
-        
         // Create the snapshot
         final int[] data = createSnapshot(groupify);
+        final byte[] encoded = SnapshotCodec.encode(data, config.getSnapshotLength());
+        if (encoded.length > memoryLimit) {
+            releaseSnapshot(data, groupify.getNumberOfEquivalenceClasses());
+            return false;
+        }
 
-        // Assign snapshot and keep reference for cache
-        nodeToSnapshot.put(transformation.getIdentifier(), data);
-        cache.append(new MRUCacheEntryMetadata(transformation));
+        // Evict, if too many entries or too large
+        if (cache.size() >= size) {
+            evict(false);
+        }
+        while (memoryUsage + encoded.length > memoryLimit) {
+            evict(true);
+        }
+
+        // Store
+        MRUCacheEntryMetadata metadata = new MRUCacheEntryMetadata(transformation, groupify.getNumberOfEquivalenceClasses(), encoded);
+        metadata.priority = inflation + getBenefit(metadata);
+        memoryUsage += metadata.size;
+        cache.append(metadata);
+        index.add(metadata);
+        if (statistics != null) {
+            statistics.add(Counter.SNAPSHOTS_STORED, 1);
+        }
 
         // Success
         return true;
@@ -305,6 +453,24 @@ public class History {
         }
     }
     
+    /**
+     * Removes all snapshots from the spill file.
+     */
+    private void clearSpill() {
+        final Iterator<MRUCacheEntryMetadata> metadata = cache.iterator();
+        while (metadata.hasNext()) {
+            final MRUCacheEntryMetadata node = metadata.next();
+            if (node.data == null) {
+                metadata.remove();
+                removeHistoryEntry(node);
+                if (statistics != null) {
+                    statistics.add(Counter.SNAPSHOTS_EVICTED, 1);
+                }
+            }
+        }
+        spill.reset();
+    }
+
     /**
      * Creates a generic snapshot for all criteria.
      *
@@ -358,16 +524,90 @@ public class History {
     }
 
     /**
-     * Removes a snapshot.
+     * Evicts the snapshot with the lowest priority. If requested, only snapshots stored in
+     * memory are considered and the snapshot is moved to the spill file, if possible.
+     *
+     * @param memory
+     */
+    private void evict(boolean memory) {
+
+        // Find victim
+        MRUCacheEntryMetadata victim = null;
+        MRUCacheEntry<MRUCacheEntryMetadata> entry = cache.getHead();
+        while (entry != null) {
+            MRUCacheEntryMetadata current = entry.data;
+            if ((!memory || current.data != null) && (victim == null || current.priority < victim.priority)) {
+                victim = current;
+            }
+            entry = entry.next;
+        }
+        inflation = victim.priority;
+
+        // Spill
+        if (memory && spill != null) {
+            if (!spill.fits(victim.size)) {
+                clearSpill();
+            }
+            if (spill.fits(victim.size)) {
+                victim.offset = spill.write(victim.data);
+                victim.data = null;
+                memoryUsage -= victim.size;
+                if (statistics != null) {
+                    statistics.add(Counter.SNAPSHOTS_SPILLED, 1);
+                }
+                return;
+            }
+        }
+
+        // Remove
+        cache.remove(victim);
+        removeHistoryEntry(victim);
+        if (statistics != null) {
+            statistics.add(Counter.SNAPSHOTS_EVICTED, 1);
+        }
+    }
+
+    /**
+     * Returns the number of records saved per byte when using the given snapshot
      *
      * @param metadata
+     * @return
      */
-    private final void removeHistoryEntry(final MRUCacheEntryMetadata metadata) {
-        final int[] snapshot = nodeToSnapshot.remove(metadata.id);
+    private double getBenefit(final MRUCacheEntryMetadata metadata) {
+        return (double) Math.max(1, rowCount - metadata.classes) / (double) Math.max(1, metadata.size);
+    }
+
+    /**
+     * Decodes the given snapshot into a reused buffer. The last decoded snapshot is kept.
+     *
+     * @param metadata
+     * @return
+     */
+    private int[] getSnapshot(final MRUCacheEntryMetadata metadata) {
+        if (metadata != decodedMetadata) {
+            byte[] data = metadata.data != null ? metadata.data : spill.read(metadata.offset, metadata.size);
+            int length = metadata.classes * config.getSnapshotLength();
+            if (decodedSnapshot == null || decodedSnapshot.length < length) {
+                decodedSnapshot = new int[length];
+            }
+            SnapshotCodec.decode(data, metadata.classes, config.getSnapshotLength(), decodedSnapshot);
+            decodedMetadata = metadata;
+        }
+        return decodedSnapshot;
+    }
+
+    /**
+     * Releases the dictionary entries referenced by a snapshot.
+     *
+     * @param snapshot
+     */
+    private void releaseSnapshot(final int[] snapshot, final int classes) {
+
+        final int length = classes * config.getSnapshotLength();
 
         switch (requirements) {
         case ARXConfiguration.REQUIREMENT_COUNTER | ARXConfiguration.REQUIREMENT_SECONDARY_COUNTER | ARXConfiguration.REQUIREMENT_DISTRIBUTION:
-            for (int i = 0; i < snapshot.length; i += config.getSnapshotLength()) {
+            for (int i = 0; i < length; i += config.getSnapshotLength()) {
                 for (int j = i + 3; j < i + config.getSnapshotLength() - 1; j += 2) {
                     dictionarySensValue.decrementRefCount(snapshot[j]);
                     dictionarySensFreq.decrementRefCount(snapshot[j+1]);
@@ -377,7 +617,7 @@ public class History {
         // TODO: If we only need a distribution, we should get rid of the primary counter
         case ARXConfiguration.REQUIREMENT_COUNTER | ARXConfiguration.REQUIREMENT_DISTRIBUTION:
         case ARXConfiguration.REQUIREMENT_DISTRIBUTION:
-            for (int i = 0; i < snapshot.length; i += config.getSnapshotLength()) {
+            for (int i = 0; i < length; i += config.getSnapshotLength()) {
                 for (int j = i + 2; j < i + config.getSnapshotLength() - 1; j += 2) {
                     dictionarySensValue.decrementRefCount(snapshot[j]);
                     dictionarySensFreq.decrementRefCount(snapshot[j+1]);
@@ -385,4 +625,22 @@ public class History {
             }
         }
     }
+
+    /**
+     * Removes a snapshot.
+     *
+     * @param metadata
+     */
+    private final void removeHistoryEntry(final MRUCacheEntryMetadata metadata) {
+        index.remove(metadata);
+        if ((requirements & ARXConfiguration.REQUIREMENT_DISTRIBUTION) != 0) {
+            releaseSnapshot(getSnapshot(metadata), metadata.classes);
+        }
+        if (metadata.data != null) {
+            memoryUsage -= metadata.size;
+        }
+        if (metadata == decodedMetadata) {
+            decodedMetadata = null;
+        }
+    }
 }
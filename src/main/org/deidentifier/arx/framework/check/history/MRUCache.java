@@ -149,6 +149,18 @@ public class MRUCache<T> {
         return obj;
     }
 
+    /**
+     * Removes the given element.
+     * 
+     * @param node the node
+     */
+    public void remove(final T node) {
+        final MRUCacheEntry<T> entry = this.elementToEntry.remove(node);
+        if (entry != null) {
+            this.remove(entry);
+        }
+    }
+
     /**
      * Size.
      * 
@@ -31,14 +31,33 @@ public class MRUCacheEntryMetadata {
     public final int   level;
     /** Id */
     public final Object  id;
+    /** Number of classes in the snapshot */
+    public final int     classes;
+    /** Size of the encoded snapshot in bytes */
+    public final int     size;
+    /** Encoded snapshot, null if spilled */
+    public byte[]        data;
+    /** Offset in the spill file, -1 if not spilled */
+    public long          offset = -1L;
+    /** Priority for eviction */
+    public double        priority;
+    /** Slot in the index, -1 if not indexed */
+    public int           slot   = -1;
+    /** Time of last access */
+    public long          access;
 
     /**
      * Creates a new instance
      * @param transformation
+     * @param classes
+     * @param data
      */
-    public MRUCacheEntryMetadata(Transformation<?> transformation) {
+    public MRUCacheEntryMetadata(Transformation<?> transformation, int classes, byte[] data) {
         this.transformation = transformation.getGeneralization().clone();
         this.level = transformation.getLevel();
         this.id = transformation.getIdentifier();
+        this.classes = classes;
+        this.size = data.length;
+        this.data = data;
     }
 }
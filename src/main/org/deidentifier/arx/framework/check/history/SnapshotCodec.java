@@ -0,0 +1,116 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2020 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.framework.check.history;
+
+import java.util.Arrays;
+
+/**
+ * Compact encoding of snapshots. Each class is stored as a sequence of variable-length
+ * integers. Representatives are mostly increasing and are therefore encoded as
+ * zig-zag coded differences to the representative of the previous class. Counts and
+ * dictionary codes are small non-negative numbers, which are encoded directly.
+ *
+ * @author Fabian Prasser
+ */
+public class SnapshotCodec {
+
+    /**
+     * Decodes a snapshot
+     *
+     * @param data
+     * @param classes
+     * @param snapshotLength
+     * @return
+     */
+    public static int[] decode(final byte[] data, final int classes, final int snapshotLength) {
+        return decode(data, classes, snapshotLength, new int[classes * snapshotLength]);
+    }
+
+    /**
+     * Decodes a snapshot into the given array, which must be large enough
+     *
+     * @param data
+     * @param classes
+     * @param snapshotLength
+     * @param result
+     * @return the given array
+     */
+    public static int[] decode(final byte[] data, final int classes, final int snapshotLength, final int[] result) {
+
+        final int length = classes * snapshotLength;
+        int offset = 0;
+        int previous = 0;
+        for (int i = 0; i < length; i++) {
+
+            // Decode varint
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[offset++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+
+            // Decode representative
+            if (i % snapshotLength == 0) {
+                value = previous + ((value >>> 1) ^ -(value & 1));
+                previous = value;
+            }
+            result[i] = value;
+        }
+        return result;
+    }
+
+    /**
+     * Encodes a snapshot
+     *
+     * @param snapshot
+     * @param snapshotLength
+     * @return
+     */
+    public static byte[] encode(final int[] snapshot, final int snapshotLength) {
+
+        byte[] result = new byte[snapshot.length + 16];
+        int offset = 0;
+        int previous = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+
+            // Encode representative
+            int value = snapshot[i];
+            if (i % snapshotLength == 0) {
+                int delta = value - previous;
+                previous = value;
+                value = (delta << 1) ^ (delta >> 31);
+            }
+
+            // Grow
+            if (offset + 5 > result.length) {
+                result = Arrays.copyOf(result, result.length * 2);
+            }
+
+            // Encode varint
+            while ((value & ~0x7F) != 0) {
+                result[offset++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            result[offset++] = (byte) value;
+        }
+        return Arrays.copyOf(result, offset);
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2020 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.framework.check.history;
+
+import java.util.Arrays;
+
+/**
+ * An index over the snapshots in the history, which finds snapshots of predecessors of a
+ * transformation without comparing it to every snapshot. Each snapshot occupies a slot. For each
+ * dimension and level, a bitmap holds the slots of all snapshots with a generalization level less
+ * than or equal to this level. Predecessors are found by intersecting one bitmap per dimension.
+ *
+ * @author Fabian Prasser
+ */
+public class SnapshotIndex {
+
+    /** Dimension -> level -> bitmap of slots with a level <= this level */
+    private long[][][]              bitmaps = new long[0][][];
+
+    /** Number of words per bitmap */
+    private int                     words   = 0;
+
+    /** Slot -> entry */
+    private MRUCacheEntryMetadata[] entries = new MRUCacheEntryMetadata[0];
+
+    /** Free slots */
+    private int[]                   free    = new int[0];
+
+    /** Number of free slots */
+    private int                     freeSize;
+
+    /** Number of slots in use or free */
+    private int                     slots;
+
+    /** Buffer for intersections */
+    private long[]                  buffer  = new long[0];
+
+    /** Clock for ordering entries by their last access */
+    private long                    clock;
+
+    /**
+     * Adds an entry
+     *
+     * @param entry
+     */
+    public void add(final MRUCacheEntryMetadata entry) {
+
+        // Prepare
+        if (bitmaps.length == 0) {
+            bitmaps = new long[entry.transformation.length][0][];
+        }
+        int slot = freeSize > 0 ? free[--freeSize] : slots++;
+        if (slot >= entries.length) {
+            grow();
+        }
+
+        // Index
+        entries[slot] = entry;
+        entry.slot = slot;
+        touch(entry);
+        int word = slot >>> 6;
+        long bit = 1L << slot;
+        for (int dimension = 0; dimension < bitmaps.length; dimension++) {
+            long[][] levels = getLevels(dimension, entry.transformation[dimension]);
+            for (int level = entry.transformation[dimension]; level < levels.length; level++) {
+                levels[level][word] |= bit;
+            }
+        }
+    }
+
+    /**
+     * Removes all entries
+     */
+    public void clear() {
+        for (long[][] levels : bitmaps) {
+            for (long[] bitmap : levels) {
+                Arrays.fill(bitmap, 0L);
+            }
+        }
+        Arrays.fill(entries, null);
+        freeSize = 0;
+        slots = 0;
+    }
+
+    /**
+     * Returns the snapshot with the least number of classes among the snapshots of
+     * transformations which are predecessors of the given transformation and have a lower level.
+     * Ties are broken by returning the entry accessed least recently.
+     *
+     * @param transformation
+     * @param level
+     * @return
+     */
+    public MRUCacheEntryMetadata get(final int[] transformation, final int level) {
+
+        // Empty
+        if (slots == freeSize) {
+            return null;
+        }
+
+        // Intersect
+        int length = ((slots - 1) >>> 6) + 1;
+        for (int dimension = 0; dimension < bitmaps.length; dimension++) {
+            long[][] levels = bitmaps[dimension];
+            long[] bitmap = levels[Math.min(transformation[dimension], levels.length - 1)];
+            boolean empty = true;
+            for (int word = 0; word < length; word++) {
+                long value = dimension == 0 ? bitmap[word] : buffer[word] & bitmap[word];
+                buffer[word] = value;
+                empty &= value == 0L;
+            }
+            if (empty) {
+                return null;
+            }
+        }
+
+        // Select
+        MRUCacheEntryMetadata result = null;
+        for (int word = 0; word < length; word++) {
+            long value = buffer[word];
+            while (value != 0L) {
+                MRUCacheEntryMetadata entry = entries[(word << 6) + Long.numberOfTrailingZeros(value)];
+                value &= value - 1;
+                if (entry.level < level && (result == null || entry.classes < result.classes ||
+                                           (entry.classes == result.classes && entry.access < result.access))) {
+                    result = entry;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Removes an entry
+     *
+     * @param entry
+     */
+    public void remove(final MRUCacheEntryMetadata entry) {
+        int slot = entry.slot;
+        int word = slot >>> 6;
+        long mask = ~(1L << slot);
+        for (int dimension = 0; dimension < bitmaps.length; dimension++) {
+            long[][] levels = bitmaps[dimension];
+            for (int level = entry.transformation[dimension]; level < levels.length; level++) {
+                levels[level][word] &= mask;
+            }
+        }
+        entries[slot] = null;
+        free[freeSize++] = slot;
+        entry.slot = -1;
+    }
+
+    /**
+     * Marks the entry as accessed
+     *
+     * @param entry
+     */
+    public void touch(final MRUCacheEntryMetadata entry) {
+        entry.access = clock++;
+    }
+
+    /**
+     * Returns the bitmaps for the given dimension, making sure that the given level exists.
+     * As bitmaps are cumulative, new levels are initialized with the bitmap of the highest level.
+     *
+     * @param dimension
+     * @param level
+     * @return
+     */
+    private long[][] getLevels(final int dimension, final int level) {
+        long[][] levels = bitmaps[dimension];
+        if (level >= levels.length) {
+            int previous = levels.length;
+            levels = Arrays.copyOf(levels, level + 1);
+            for (int i = previous; i < levels.length; i++) {
+                levels[i] = previous == 0 ? new long[words] : levels[previous - 1].clone();
+            }
+            bitmaps[dimension] = levels;
+        }
+        return levels;
+    }
+
+    /**
+     * Doubles the number of slots
+     */
+    private void grow() {
+        int capacity = Math.max(64, entries.length * 2);
+        entries = Arrays.copyOf(entries, capacity);
+        free = Arrays.copyOf(free, capacity);
+        words = capacity >>> 6;
+        buffer = new long[words];
+        for (long[][] levels : bitmaps) {
+            for (int level = 0; level < levels.length; level++) {
+                levels[level] = Arrays.copyOf(levels[level], words);
+            }
+        }
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2020 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.framework.check.history;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * A memory-mapped temporary file, into which encoded snapshots are appended. Space is
+ * not reused for individual snapshots: when the file is full, it is cleared as a whole.
+ * The file is created lazily and deleted when it is closed.
+ *
+ * @author Fabian Prasser
+ */
+public class SnapshotSpillFile {
+
+    /** Number of bits used for addressing bytes within a segment */
+    private static final int    SEGMENT_BITS = 26;
+
+    /** Number of bytes per segment */
+    private static final int    SEGMENT_SIZE = 1 << SEGMENT_BITS;
+
+    /** Mask for addressing bytes within a segment */
+    private static final long   SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    /** Directory, null for the default temporary directory */
+    private final File          directory;
+
+    /** Capacity in bytes */
+    private final long          capacity;
+
+    /** The file */
+    private File                file;
+
+    /** Access to the file */
+    private RandomAccessFile    raf;
+
+    /** Mapped segments */
+    private MappedByteBuffer[]  segments;
+
+    /** Current position */
+    private long                position;
+
+    /**
+     * Creates a new instance
+     *
+     * @param directory
+     * @param capacity
+     */
+    public SnapshotSpillFile(final File directory, final long capacity) {
+        this.directory = directory;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Releases the file. It will be recreated on demand.
+     */
+    public void close() {
+        if (raf != null) {
+            try {
+                raf.close();
+            } catch (IOException e) {
+                // Ignore
+            }
+            segments = null;
+            raf = null;
+            file.delete();
+            file = null;
+        }
+        position = 0;
+    }
+
+    /**
+     * Returns whether the given number of bytes fits into the file
+     *
+     * @param length
+     * @return
+     */
+    public boolean fits(final int length) {
+        return position + length <= capacity;
+    }
+
+    /**
+     * Returns the capacity in bytes
+     *
+     * @return
+     */
+    public long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the directory, null for the default temporary directory
+     *
+     * @return
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Returns the number of bytes used
+     *
+     * @return
+     */
+    public long getSize() {
+        return position;
+    }
+
+    /**
+     * Reads data from the file
+     *
+     * @param offset
+     * @param length
+     * @return
+     */
+    public byte[] read(final long offset, final int length) {
+        byte[] result = new byte[length];
+        int done = 0;
+        while (done < length) {
+            long address = offset + done;
+            ByteBuffer segment = segments[(int) (address >>> SEGMENT_BITS)].duplicate();
+            segment.position((int) (address & SEGMENT_MASK));
+            int chunk = Math.min(length - done, segment.remaining());
+            segment.get(result, done, chunk);
+            done += chunk;
+        }
+        return result;
+    }
+
+    /**
+     * Clears the file
+     */
+    public void reset() {
+        position = 0;
+    }
+
+    /**
+     * Appends data to the file and returns its offset. The data must fit into the file.
+     *
+     * @param data
+     * @return
+     */
+    public long write(final byte[] data) {
+
+        // Prepare
+        if (!fits(data.length)) {
+            throw new IllegalStateException("Spill file is full");
+        }
+        if (raf == null) {
+            open();
+        }
+
+        // Write
+        long offset = position;
+        int done = 0;
+        while (done < data.length) {
+            long address = offset + done;
+            int index = (int) (address >>> SEGMENT_BITS);
+            if (segments[index] == null) {
+                segments[index] = map(index);
+            }
+            ByteBuffer segment = segments[index].duplicate();
+            segment.position((int) (address & SEGMENT_MASK));
+            int chunk = Math.min(data.length - done, segment.remaining());
+            segment.put(data, done, chunk);
+            done += chunk;
+        }
+        position += data.length;
+        return offset;
+    }
+
+    /**
+     * Maps the given segment
+     *
+     * @param index
+     * @return
+     */
+    private MappedByteBuffer map(final int index) {
+        long start = (long) index << SEGMENT_BITS;
+        long size = Math.min(SEGMENT_SIZE, capacity - start);
+        try {
+            return raf.getChannel().map(MapMode.READ_WRITE, start, size);
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot map spill file", e);
+        }
+    }
+
+    /**
+     * Creates the file
+     */
+    private void open() {
+        try {
+            file = File.createTempFile("arx", ".history", directory);
+            file.deleteOnExit();
+            raf = new RandomAccessFile(file, "rw");
+            segments = new MappedByteBuffer[(int) ((capacity + SEGMENT_SIZE - 1) >>> SEGMENT_BITS)];
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot create spill file", e);
+        }
+    }
+}
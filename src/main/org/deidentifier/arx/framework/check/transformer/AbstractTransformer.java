@@ -17,6 +17,7 @@
 
 package org.deidentifier.arx.framework.check.transformer;
 
+import java.util.BitSet;
 import java.util.concurrent.Callable;
 
 import org.deidentifier.arx.ARXConfiguration;
@@ -381,7 +382,7 @@ public abstract class AbstractTransformer implements Callable<HashGroupify> {
      * @param element the element
      * @param buffer the buffer
      */
-    public void init(final long projection,
+    public void init(final BitSet projection,
                      final int[] state,
                      final HashGroupify groupify,
                      final HashGroupify source,
@@ -405,7 +406,7 @@ public abstract class AbstractTransformer implements Callable<HashGroupify> {
         // Calculate mapping
         int index = 0;
         for (int i = 0; i < dimensions; i++) {
-            if ((projection & (1L << i)) == 0) {
+            if (!projection.get(i)) {
                 mappedLevels[index] = state[i];
                 mappedColumns[index] = i;
                 mappedHierarchies[index] = hierarchies[i].getArray();
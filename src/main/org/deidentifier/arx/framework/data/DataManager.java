@@ -777,7 +777,7 @@ public class DataManager {
      * Returns the data definitions
      * @return
      */
-    protected DataDefinition getDataDefinition() {
+    public DataDefinition getDataDefinition() {
         return this.definition;
     }
 }
@@ -17,6 +17,7 @@
 
 package org.deidentifier.arx.framework.data;
 
+import java.io.File;
 import java.io.Serializable;
 
 
@@ -30,6 +31,9 @@ public class DataMatrix implements Serializable {
     /** SVUID */
     private static final long serialVersionUID = 1626391500373995527L;
 
+    /** Maximal number of cells stored in an array on the heap */
+    private static final long MAX_HEAP_CELLS   = Integer.MAX_VALUE - 8;
+
     /** Backing array */
     private final int[]       array;
 
@@ -48,6 +52,33 @@ public class DataMatrix implements Serializable {
     /** Iterate */
     private int               baseOffset       = 0;
 
+    /**
+     * Creates a new matrix. Matrices with more cells than can be stored in an
+     * array are stored outside of the Java heap.
+     *
+     * @param rows the num rows
+     * @param columns the num columns
+     * @return
+     */
+    public static DataMatrix create(final int rows, final int columns) {
+        if ((long) rows * (long) columns > MAX_HEAP_CELLS) {
+            return new DataMatrixOffHeap(rows, columns, null);
+        }
+        return new DataMatrix(rows, columns);
+    }
+
+    /**
+     * Creates a new matrix which is stored outside of the Java heap.
+     *
+     * @param rows the num rows
+     * @param columns the num columns
+     * @param directory directory for memory-mapped files, null for direct memory
+     * @return
+     */
+    public static DataMatrix createOffHeap(final int rows, final int columns, final File directory) {
+        return new DataMatrixOffHeap(rows, columns, directory);
+    }
+
     /**
      * Instantiates a new memory block.
      *
@@ -65,6 +96,19 @@ public class DataMatrix implements Serializable {
         }
     }
 
+    /**
+     * Instantiates a new view on the given backing array.
+     *
+     * @param array the array
+     * @param rows the num rows
+     * @param columns the num columns
+     */
+    private DataMatrix(final int[] array, final int rows, final int columns) {
+        this.array = array;
+        this.rows = rows;
+        this.columns = columns;
+    }
+
     /**
      * ANDs the first value of the row with the given value
      * @param row
@@ -88,6 +132,12 @@ public class DataMatrix implements Serializable {
      * @param sourceRow
      */
     public void copyFrom(int row, DataMatrix sourceMatrix, int sourceRow) {
+        if (sourceMatrix.getClass() != DataMatrix.class) {
+            for (int i = 0; i < columns; i++) {
+                this.array[row * columns + i] = sourceMatrix.get(sourceRow, i);
+            }
+            return;
+        }
         int sourceOffset = sourceRow * columns;
         int thisOffset = row * columns;
         System.arraycopy(sourceMatrix.array, sourceOffset, this.array, thisOffset, columns);
@@ -119,6 +169,22 @@ public class DataMatrix implements Serializable {
         return true;
     }
 
+    /**
+     * Reads the given row into the given buffer
+     * @param row
+     * @param buffer
+     * @param direct
+     */
+    private void getRow(int row, int[] buffer, boolean direct) {
+        if (direct) {
+            System.arraycopy(array, row * columns, buffer, 0, columns);
+        } else {
+            for (int column = 0; column < buffer.length; column++) {
+                buffer[column] = get(row, column);
+            }
+        }
+    }
+
     /**
      * Internal equals
      * @param row1
@@ -272,6 +338,16 @@ public class DataMatrix implements Serializable {
         return this.array[baseOffset + column];
     }
 
+    /**
+     * Returns a view on this matrix, which shares the backing data but maintains its
+     * own row pointer and iterator. Views can be used to concurrently access disjoint
+     * sets of rows.
+     * @return
+     */
+    public DataMatrix getView() {
+        return new DataMatrix(this.array, this.rows, this.columns);
+    }
+
     /**
      * Returns an hashcode for the given row
      * @param row
@@ -364,6 +440,16 @@ public class DataMatrix implements Serializable {
         iteratorI++;
     }
 
+    /**
+     * Creates a new, empty matrix with the same type of storage as this matrix
+     * @param rows
+     * @param columns
+     * @return
+     */
+    public DataMatrix newInstance(int rows, int columns) {
+        return create(rows, columns);
+    }
+
     /**
      * ORs the first value of the row with the given value
      * @param row
@@ -373,6 +459,65 @@ public class DataMatrix implements Serializable {
         array[row * columns] |= value;
     }
 
+    /**
+     * Reorders the given rows. Afterwards, row rows[i] contains the data previously stored
+     * in row rows[permutation[i]]. The permutation is applied cycle by cycle, which means
+     * that the data of each row is moved only once.
+     * 
+     * @param rows
+     * @param permutation
+     */
+    public void permute(int[] rows, int[] permutation) {
+
+        // Prepare
+        boolean direct = getClass() == DataMatrix.class;
+        int width = getNumColumns();
+        int[] buffer = new int[width];
+        boolean[] done = new boolean[permutation.length];
+
+        // For each cycle
+        for (int start = 0; start < permutation.length; start++) {
+            if (done[start] || permutation[start] == start) {
+                continue;
+            }
+
+            // Store first row
+            getRow(rows[start], buffer, direct);
+
+            // Move rows along the cycle
+            int position = start;
+            while (permutation[position] != start) {
+                int source = permutation[position];
+                done[position] = true;
+                if (direct) {
+                    System.arraycopy(array, rows[source] * width, array, rows[position] * width, width);
+                } else {
+                    for (int column = 0; column < width; column++) {
+                        set(rows[position], column, get(rows[source], column));
+                    }
+                }
+                position = source;
+            }
+
+            // Restore first row
+            done[position] = true;
+            if (direct) {
+                setRow(rows[position], buffer);
+            } else {
+                for (int column = 0; column < width; column++) {
+                    set(rows[position], column, buffer[column]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Releases resources held outside of the Java heap. The matrix must not be used afterwards.
+     */
+    public void release() {
+        // Empty by design
+    }
+
     /**
      * Sets a value
      * @param row
@@ -0,0 +1,115 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2020 Fabian Prasser and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.framework.data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A growable matrix which stores encoded rows in chunks of fixed size. It is used for
+ * collecting data of unknown length, without creating an array per row and without
+ * copying all data when growing.
+ *
+ * @author Fabian Prasser
+ */
+public class DataMatrixBuilder {
+
+    /** Number of cells per chunk */
+    private static final int  CHUNK_CELLS = 1 << 20;
+
+    /** The chunks */
+    private final List<int[]> chunks      = new ArrayList<int[]>();
+
+    /** The number of columns */
+    private final int         columns;
+
+    /** The number of rows per chunk */
+    private final int         rowsPerChunk;
+
+    /** The number of rows */
+    private int               rows        = 0;
+
+    /** The current chunk */
+    private int[]             chunk       = null;
+
+    /** Offset in the current chunk */
+    private int               offset      = 0;
+
+    /**
+     * Creates a new instance
+     * @param columns
+     */
+    public DataMatrixBuilder(int columns) {
+        this.columns = columns;
+        this.rowsPerChunk = Math.max(1, CHUNK_CELLS / Math.max(1, columns));
+    }
+
+    /**
+     * Appends a row
+     * @param tuple
+     */
+    public void append(int[] tuple) {
+        if (columns > 0) {
+            if (chunk == null || offset == chunk.length) {
+                chunk = new int[rowsPerChunk * columns];
+                chunks.add(chunk);
+                offset = 0;
+            }
+            System.arraycopy(tuple, 0, chunk, offset, columns);
+            offset += columns;
+        }
+        rows++;
+    }
+
+    /**
+     * Copies all rows into the given matrix, starting at the given row. Codes are translated
+     * with the given mapping column -> code -> code, if any. Chunks are released while copying,
+     * the builder can not be used afterwards.
+     * 
+     * @param matrix
+     * @param row
+     * @param mapping
+     */
+    public void copyTo(DataMatrix matrix, int row, int[][] mapping) {
+        int[] tuple = new int[columns];
+        int remaining = rows;
+        for (int i = 0; i < chunks.size(); i++) {
+            int[] chunk = chunks.get(i);
+            chunks.set(i, null);
+            int count = Math.min(remaining, rowsPerChunk);
+            for (int offset = 0; offset < count * columns; offset += columns) {
+                for (int column = 0; column < columns; column++) {
+                    int code = chunk[offset + column];
+                    tuple[column] = mapping == null ? code : mapping[column][code];
+                }
+                matrix.setRow(row++, tuple);
+            }
+            remaining -= count;
+        }
+        this.chunks.clear();
+        this.chunk = null;
+    }
+
+    /**
+     * Returns the number of rows
+     * @return
+     */
+    public int getNumRows() {
+        return rows;
+    }
+}
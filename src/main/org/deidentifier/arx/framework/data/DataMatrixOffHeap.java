@@ -0,0 +1,422 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2020 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.framework.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * A data matrix which is stored outside of the Java heap. Cells are addressed with
+ * long offsets and held in segments of direct buffers or of memory-mapped files, which
+ * allows storing more than 2^31-1 cells and does not put pressure on the garbage collector.
+ *
+ * @author Fabian Prasser
+ */
+public class DataMatrixOffHeap extends DataMatrix {
+
+    /** SVUID */
+    private static final long   serialVersionUID = -2436381307395733094L;
+
+    /** Number of bits used for addressing cells within a segment */
+    private static final int    SEGMENT_BITS     = 27;
+
+    /** Number of cells per segment */
+    private static final int    SEGMENT_SIZE     = 1 << SEGMENT_BITS;
+
+    /** Mask for addressing cells within a segment */
+    private static final long   SEGMENT_MASK     = SEGMENT_SIZE - 1;
+
+    /** Backing segments */
+    private transient IntBuffer[] segments;
+
+    /** The number of rows. */
+    private int                 rows;
+
+    /** The number of columns. */
+    private int                 columns;
+
+    /** Directory for memory-mapped files, null for direct memory */
+    private File                directory;
+
+    /** Memory-mapped file owned by this matrix, null for direct memory and views */
+    private transient File      file;
+
+    /** Iterate */
+    private transient int       iteratorI        = 0;
+
+    /** Iterate */
+    private transient long      iteratorOffset   = 0;
+
+    /** Iterate */
+    private transient long      baseOffset       = 0;
+
+    /**
+     * Instantiates a new off-heap matrix.
+     *
+     * @param rows the num rows
+     * @param columns the num columns
+     * @param directory directory for memory-mapped files, null for direct memory
+     */
+    public DataMatrixOffHeap(final int rows, final int columns, final File directory) {
+        super(0, 0);
+        if (rows < 0 || columns < 0) {
+            throw new IllegalArgumentException("Parameter must be >= 0");
+        }
+        this.rows = rows;
+        this.columns = columns;
+        this.directory = directory;
+        this.segments = allocate((long) rows * (long) columns, directory);
+    }
+
+    /**
+     * Instantiates a new view on the given matrix.
+     *
+     * @param matrix
+     */
+    private DataMatrixOffHeap(final DataMatrixOffHeap matrix) {
+        super(0, 0);
+        this.rows = matrix.rows;
+        this.columns = matrix.columns;
+        this.directory = matrix.directory;
+        this.segments = new IntBuffer[matrix.segments.length];
+        for (int i = 0; i < segments.length; i++) {
+            this.segments[i] = matrix.segments[i].duplicate();
+        }
+    }
+
+    /**
+     * Allocates the segments. If a memory-mapped file is created, it is owned by this matrix.
+     * @param cells
+     * @param directory
+     * @return
+     */
+    private IntBuffer[] allocate(long cells, File directory) {
+
+        // Prepare
+        IntBuffer[] segments = new IntBuffer[(int) ((cells + SEGMENT_SIZE - 1) >>> SEGMENT_BITS)];
+
+        // Direct memory
+        if (directory == null) {
+            for (int i = 0; i < segments.length; i++) {
+                long size = Math.min(SEGMENT_SIZE, cells - ((long) i << SEGMENT_BITS));
+                segments[i] = ByteBuffer.allocateDirect((int) size * 4).order(ByteOrder.nativeOrder()).asIntBuffer();
+            }
+            return segments;
+        }
+
+        // Memory-mapped file
+        try {
+            File file = File.createTempFile("arx", ".matrix", directory);
+            file.deleteOnExit();
+            this.file = file;
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel()) {
+                for (int i = 0; i < segments.length; i++) {
+                    long position = (long) i << SEGMENT_BITS;
+                    long size = Math.min(SEGMENT_SIZE, cells - position);
+                    segments[i] = channel.map(MapMode.READ_WRITE, position * 4, size * 4).order(ByteOrder.nativeOrder()).asIntBuffer();
+                }
+            }
+            return segments;
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot create memory-mapped storage", e);
+        }
+    }
+
+    @Override
+    public void and(int row, int value) {
+        long offset = (long) row * columns;
+        write(offset, read(offset) & value);
+    }
+
+    @Override
+    public DataMatrix clone() {
+        DataMatrixOffHeap result = new DataMatrixOffHeap(this.rows, this.columns, this.directory);
+        for (int i = 0; i < segments.length; i++) {
+            IntBuffer source = this.segments[i].duplicate();
+            IntBuffer target = result.segments[i].duplicate();
+            source.clear();
+            target.clear();
+            target.put(source);
+        }
+        return result;
+    }
+
+    @Override
+    public void copyFrom(int row, DataMatrix sourceMatrix, int sourceRow) {
+        long offset = (long) row * columns;
+        for (int i = 0; i < columns; i++) {
+            write(offset++, sourceMatrix.get(sourceRow, i));
+        }
+    }
+
+    @Override
+    public boolean equals(final int row1, final int row2) {
+        return equals(row1, row2, ~0);
+    }
+
+    @Override
+    public boolean equals(int row, int[] data) {
+        long offset = (long) row * columns;
+        for (int i = 0; i < columns; i++) {
+            if (read(offset++) != data[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean equalsIgnore(int row1, int row2, int ignore) {
+        long offset1 = (long) row1 * columns;
+        long offset2 = (long) row2 * columns;
+        for (int i = 0; i < columns; i++) {
+            if (i != ignore && read(offset1) != read(offset2)) {
+                return false;
+            }
+            offset1++;
+            offset2++;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean equalsIgnoringOutliers(int row1, int row2) {
+        return this.equals(row1, row2, Data.REMOVE_OUTLIER_MASK);
+    }
+
+    @Override
+    public int get(final int row, final int col) {
+        return read((long) row * columns + col);
+    }
+
+    @Override
+    public int getNumColumns() {
+        return columns;
+    }
+
+    @Override
+    public int getNumRows() {
+        return rows;
+    }
+
+    @Override
+    public int getValueAtColumn(int column) {
+        return read(baseOffset + column);
+    }
+
+    @Override
+    public DataMatrix getView() {
+        return new DataMatrixOffHeap(this);
+    }
+
+    @Override
+    public int hashCode(final int row) {
+        long offset = (long) row * columns;
+        int result = 23;
+        for (int i = 0; i < columns; i++) {
+            result = (37 * result) + read(offset++);
+        }
+        return result;
+    }
+
+    @Override
+    public int hashCodeIgnore(final int row, final int ignore) {
+        long offset = (long) row * columns;
+        int result = 23;
+        for (int i = 0; i < columns; i++) {
+            result = (i == ignore) ? result : ((37 * result) + read(offset));
+            offset++;
+        }
+        return result;
+    }
+
+    @Override
+    public void iterator(int row) {
+        iteratorOffset = (long) row * columns;
+        iteratorI = 0;
+    }
+
+    @Override
+    public boolean iterator_hasNext() {
+        return iteratorI < columns;
+    }
+
+    @Override
+    public int iterator_next() {
+        int result = read(iteratorOffset++);
+        iteratorI++;
+        return result;
+    }
+
+    @Override
+    public void iterator_write(int value) {
+        write(iteratorOffset++, value);
+        iteratorI++;
+    }
+
+    @Override
+    public DataMatrix newInstance(int rows, int columns) {
+        return new DataMatrixOffHeap(rows, columns, this.directory);
+    }
+
+    @Override
+    public void or(int row, int value) {
+        long offset = (long) row * columns;
+        write(offset, read(offset) | value);
+    }
+
+    /**
+     * Releases the segments and deletes the memory-mapped file owned by this matrix, if any.
+     * Platforms which do not allow deleting mapped files delete it on exit.
+     */
+    @Override
+    public void release() {
+        segments = null;
+        if (file != null) {
+            file.delete();
+            file = null;
+        }
+    }
+
+    @Override
+    public void set(int row, int column, int value) {
+        write((long) row * columns + column, value);
+    }
+
+    @Override
+    public void setRow(int row) {
+        this.baseOffset = (long) row * columns;
+    }
+
+    @Override
+    public void setRow(int row, int[] data) {
+        long offset = (long) row * columns;
+        for (int i = 0; i < data.length; i++) {
+            write(offset++, data[i]);
+        }
+    }
+
+    @Override
+    public void setValueAtColumn(int column, int value) {
+        write(baseOffset + column, value);
+    }
+
+    @Override
+    public void swap(int row1, int row2) {
+        long offset1 = (long) row1 * columns;
+        long offset2 = (long) row2 * columns;
+        for (int i = 0; i < this.columns; i++) {
+            int temp = read(offset1);
+            write(offset1, read(offset2));
+            write(offset2, temp);
+            offset1++;
+            offset2++;
+        }
+    }
+
+    /**
+     * Internal equals
+     * @param row1
+     * @param row2
+     * @param flag
+     * @return
+     */
+    private boolean equals(int row1, int row2, int flag) {
+        long offset1 = (long) row1 * columns;
+        long offset2 = (long) row2 * columns;
+        if (columns == 0) {
+            return true;
+        }
+        if ((read(offset1) & flag) != (read(offset2) & flag)) {
+            return false;
+        }
+        for (int i = 1; i < columns; i++) {
+            if (read(++offset1) != read(++offset2)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads the cell at the given offset
+     * @param offset
+     * @return
+     */
+    private int read(long offset) {
+        return segments[(int) (offset >>> SEGMENT_BITS)].get((int) (offset & SEGMENT_MASK));
+    }
+
+    /**
+     * Deserialization
+     * @param stream
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    private void readObject(ObjectInputStream stream) throws IOException, ClassNotFoundException {
+        stream.defaultReadObject();
+        long cells = (long) rows * (long) columns;
+        this.segments = allocate(cells, directory != null && directory.isDirectory() ? directory : null);
+        for (long offset = 0; offset < cells; offset++) {
+            write(offset, stream.readInt());
+        }
+    }
+
+    /**
+     * Writes the cell at the given offset
+     * @param offset
+     * @param value
+     */
+    private void write(long offset, int value) {
+        segments[(int) (offset >>> SEGMENT_BITS)].put((int) (offset & SEGMENT_MASK), value);
+    }
+
+    /**
+     * Serialization
+     * @param stream
+     * @throws IOException
+     */
+    private void writeObject(ObjectOutputStream stream) throws IOException {
+        stream.defaultWriteObject();
+        long cells = (long) rows * (long) columns;
+        for (long offset = 0; offset < cells; offset++) {
+            stream.writeInt(read(offset));
+        }
+    }
+
+    @Override
+    protected DataMatrix clone(int[] subset) {
+        DataMatrixOffHeap result = new DataMatrixOffHeap(subset.length, this.columns, this.directory);
+        long targetOffset = 0;
+        for (int source : subset) {
+            long sourceOffset = (long) source * columns;
+            for (int i = 0; i < columns; i++) {
+                result.write(targetOffset++, read(sourceOffset++));
+            }
+        }
+        return result;
+    }
+}
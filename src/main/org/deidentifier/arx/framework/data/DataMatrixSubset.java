@@ -88,6 +88,11 @@ public class DataMatrixSubset extends DataMatrix {
         return matrix.getValueAtColumn(column);
     }
 
+    @Override
+    public DataMatrix getView() {
+        return new DataMatrixSubset(matrix.getView(), subset);
+    }
+
     @Override
     public int hashCode(int row) {
         return matrix.hashCode(subset[row]);
@@ -113,6 +118,11 @@ public class DataMatrixSubset extends DataMatrix {
         matrix.iterator_write(value);
     }
 
+    @Override
+    public DataMatrix newInstance(int rows, int columns) {
+        return matrix.newInstance(rows, columns);
+    }
+
     @Override
     public void or(int row, int value) {
         matrix.or(subset[row], value);
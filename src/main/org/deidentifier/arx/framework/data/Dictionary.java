@@ -20,6 +20,8 @@ package org.deidentifier.arx.framework.data;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.deidentifier.arx.DataType;
 
@@ -36,6 +38,9 @@ public class Dictionary implements Serializable {
 	/** SVUID */
 	private static final long                        serialVersionUID = 6448285732641604559L;
 
+	/** Maximal number of typed views per dimension */
+	private static final int                         MAX_TYPED_VIEWS  = 4;
+
 	/** The resulting array mapping dimension->integer->string. */
 	private final String[][]                         mapping;
 
@@ -45,6 +50,9 @@ public class Dictionary implements Serializable {
 	/** Codes of suppressed values for each dimension */
 	private int[]                                    suppressed;
 
+	/** Typed views on the values of each dimension, created on demand and replaced on change */
+	private transient volatile TypedValues[][]       typedValues;
+
     /**
      * Instantiates a new dictionary by extracting a projection of the given dictionary
      * 
@@ -102,6 +110,7 @@ public class Dictionary implements Serializable {
         for (int i = 0; i < mapping.length; i++) {
             mapping[i] = null;
         }
+        typedValues = null;
     }
 
     /**
@@ -125,6 +134,7 @@ public class Dictionary implements Serializable {
 
         }
         maps = null;
+        typedValues = null;
     }
 
     /**
@@ -153,6 +163,52 @@ public class Dictionary implements Serializable {
         return suppressed;
     }
 
+    /**
+     * Returns a typed view on the values of the given finalized dimension. Views are created
+     * on demand, parsing each value once, and are shared between threads.
+     * 
+     * @param dimension
+     * @param type
+     * @return
+     */
+    public TypedValues getTypedValues(final int dimension, final DataType<?> type) {
+
+        // Return existing view
+        final String[] values = mapping[dimension];
+        TypedValues[][] views = this.typedValues;
+        TypedValues view = views == null ? null : getTypedValues(views[dimension], values, type);
+        if (view != null) {
+            return view;
+        }
+
+        // Create view
+        synchronized (this) {
+            views = this.typedValues;
+            view = views == null ? null : getTypedValues(views[dimension], values, type);
+            if (view != null) {
+                return view;
+            }
+            view = new TypedValues(values, type);
+
+            // Keep the most recent views of the current values
+            List<TypedValues> list = new ArrayList<TypedValues>();
+            list.add(view);
+            if (views != null && views[dimension] != null) {
+                for (TypedValues other : views[dimension]) {
+                    if (other.isViewOf(values) && list.size() < MAX_TYPED_VIEWS) {
+                        list.add(other);
+                    }
+                }
+            }
+
+            // Publish
+            views = views == null ? new TypedValues[mapping.length][] : views.clone();
+            views[dimension] = list.toArray(new TypedValues[list.size()]);
+            this.typedValues = views;
+            return view;
+        }
+    }
+
     /**
      * Returns the map with unfinalized values for the given dimension
      * @param dimension
@@ -216,6 +272,26 @@ public class Dictionary implements Serializable {
         }
     }
     
+    /**
+     * Registers all values of the given finalized dictionary, which must have the same number of
+     * dimensions. Values are registered in the order of their codes. Returns a mapping from codes
+     * of the given dictionary to codes of this dictionary for each dimension.
+     *
+     * @param dictionary
+     * @return
+     */
+    public int[][] registerAll(final Dictionary dictionary) {
+        final int[][] result = new int[maps.length][];
+        for (int dimension = 0; dimension < maps.length; dimension++) {
+            final String[] vals = dictionary.mapping[dimension];
+            result[dimension] = new int[vals.length];
+            for (int id = 0; id < vals.length; id++) {
+                result[dimension][id] = register(dimension, vals[id]);
+            }
+        }
+        return result;
+    }
+
     /**
      * Registers special values
      */
@@ -226,6 +302,39 @@ public class Dictionary implements Serializable {
         }
     }
 
+    /**
+     * Discards the typed views on the given dimension. Must be called after values have been changed.
+     * 
+     * @param dimension
+     */
+    public synchronized void resetTypedValues(final int dimension) {
+        TypedValues[][] views = this.typedValues;
+        if (views != null && views[dimension] != null) {
+            views = views.clone();
+            views[dimension] = null;
+            this.typedValues = views;
+        }
+    }
+
+    /**
+     * Returns the view of the given values and type, if any
+     * 
+     * @param views
+     * @param values
+     * @param type
+     * @return
+     */
+    private TypedValues getTypedValues(TypedValues[] views, String[] values, DataType<?> type) {
+        if (views != null) {
+            for (TypedValues view : views) {
+                if (view.isViewOf(values, type)) {
+                    return view;
+                }
+            }
+        }
+        return null;
+    }
+
     /**
      * Custom de-serialization for backwards compatibility
      * @param stream
@@ -17,6 +17,8 @@
 
 package org.deidentifier.arx.framework.data;
 
+import java.util.Arrays;
+
 import com.carrotsearch.hppc.IntIntOpenHashMap;
 import com.carrotsearch.hppc.IntOpenHashSet;
 import com.carrotsearch.hppc.ObjectIntOpenHashMap;
@@ -38,6 +40,9 @@ public class GeneralizationHierarchy {
     /** Name. */
     protected final String  attribute;
 
+    /** Level->distinct values in ascending order, computed on demand. */
+    private int[][]         distinctValuesSorted;
+
     /**
      * Creates a new generalization hierarchy.
      *
@@ -209,6 +214,25 @@ public class GeneralizationHierarchy {
         return result;
     }
 
+    /**
+     * Returns the distinct values in ascending order. The result is computed once
+     * and shared, e.g. between subset instances of a data manager. It must not be modified.
+     *
+     * @param level
+     * @return
+     */
+    public synchronized int[] getDistinctValuesSorted(final int level) {
+        if (distinctValuesSorted == null) {
+            distinctValuesSorted = new int[getHeight()][];
+        }
+        if (distinctValuesSorted[level] == null) {
+            int[] values = getDistinctValues(level);
+            Arrays.sort(values);
+            distinctValuesSorted[level] = values;
+        }
+        return distinctValuesSorted[level];
+    }
+
     /**
      * Returns the height of the hierarchy.
      *
@@ -0,0 +1,273 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2020 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.framework.data;
+
+import java.text.ParseException;
+import java.util.BitSet;
+import java.util.Date;
+
+import org.deidentifier.arx.DataType;
+import org.deidentifier.arx.DataType.ARXDate;
+import org.deidentifier.arx.DataType.ARXDecimal;
+import org.deidentifier.arx.DataType.ARXInteger;
+
+/**
+ * A typed view on the values of one dimension of a dictionary. Each distinct value is parsed
+ * exactly once into a primitive array. Values which cannot be parsed are recorded in a bitmap.
+ * Comparisons are consistent with {@link DataType#compare(String, String)}, including the
+ * exceptions thrown for invalid values. Instances are immutable and can be shared between threads.
+ *
+ * @author Fabian Prasser
+ */
+public class TypedValues {
+
+    /** Values which are compared as strings */
+    private static final int   KIND_OTHER   = 0;
+
+    /** Values parsed into longs */
+    private static final int   KIND_INTEGER = 1;
+
+    /** Values parsed into milliseconds */
+    private static final int   KIND_DATE    = 2;
+
+    /** Values parsed into doubles */
+    private static final int   KIND_DECIMAL = 3;
+
+    /** The type */
+    private final DataType<?>  type;
+
+    /** The values, code -> value */
+    private final String[]     values;
+
+    /** The kind of values */
+    private final int          kind;
+
+    /** Parsed integers or dates, may be null */
+    private final long[]       longs;
+
+    /** Parsed decimals, may be null */
+    private final double[]     doubles;
+
+    /** Codes of null values */
+    private final BitSet       nulls;
+
+    /** Codes of values which do not conform to the type */
+    private final BitSet       failures;
+
+    /**
+     * Parses the given values
+     *
+     * @param values
+     * @param type
+     */
+    TypedValues(String[] values, DataType<?> type) {
+
+        // Store
+        this.type = type;
+        this.values = values;
+        this.nulls = new BitSet();
+        this.failures = new BitSet();
+
+        // Determine kind
+        if (type instanceof ARXInteger) {
+            this.kind = KIND_INTEGER;
+        } else if (type instanceof ARXDate) {
+            this.kind = KIND_DATE;
+        } else if (type instanceof ARXDecimal) {
+            this.kind = KIND_DECIMAL;
+        } else {
+            this.kind = KIND_OTHER;
+        }
+        this.longs = kind == KIND_INTEGER || kind == KIND_DATE ? new long[values.length] : null;
+        this.doubles = kind == KIND_DECIMAL ? new double[values.length] : null;
+
+        // Data types are not thread-safe
+        synchronized (type) {
+            for (int code = 0; code < values.length; code++) {
+                String value = values[code];
+                try {
+                    switch (kind) {
+                    case KIND_INTEGER:
+                        Long _long = ((ARXInteger) type).parse(value);
+                        if (_long == null) {
+                            nulls.set(code);
+                        } else {
+                            longs[code] = _long;
+                        }
+                        break;
+                    case KIND_DATE:
+                        Date _date = ((ARXDate) type).parse(value);
+                        if (_date == null) {
+                            nulls.set(code);
+                        } else {
+                            longs[code] = _date.getTime();
+                        }
+                        break;
+                    case KIND_DECIMAL:
+                        Double _double = ((ARXDecimal) type).parse(value);
+                        if (_double == null) {
+                            nulls.set(code);
+                        } else {
+                            doubles[code] = _double;
+                        }
+                        break;
+                    default:
+                        if (!type.isValid(value)) {
+                            failures.set(code);
+                        }
+                    }
+                } catch (Exception e) {
+                    failures.set(code);
+                }
+            }
+        }
+    }
+
+    /**
+     * Compares the values with the given codes. The result and any exception thrown equal
+     * those of {@link DataType#compare(String, String)} for the according strings.
+     *
+     * @param code1
+     * @param code2
+     * @return
+     * @throws NumberFormatException
+     * @throws ParseException
+     */
+    public int compare(int code1, int code2) throws NumberFormatException, ParseException {
+
+        // Delegate
+        if (kind == KIND_OTHER || failures.get(code1) || failures.get(code2)) {
+            synchronized (type) {
+                return type.compare(values[code1], values[code2]);
+            }
+        }
+
+        // Null values are sorted last
+        boolean null1 = nulls.get(code1);
+        boolean null2 = nulls.get(code2);
+        if (null1 && null2) {
+            return 0;
+        } else if (null1) {
+            return +1;
+        } else if (null2) {
+            return -1;
+        }
+
+        // Compare
+        if (kind == KIND_DECIMAL) {
+            double d1 = doubles[code1];
+            double d2 = doubles[code2];
+            d1 = d1 == -0.0d ? 0d : d1;
+            d2 = d2 == -0.0d ? 0d : d2;
+            return Double.compare(d1, d2);
+        } else {
+            return Long.compare(longs[code1], longs[code2]);
+        }
+    }
+
+    /**
+     * Returns the parsed value with the given code as a double. Dates are represented by
+     * milliseconds. The value must be valid and not null.
+     *
+     * @param code
+     * @return
+     */
+    public double getDouble(int code) {
+        return kind == KIND_DECIMAL ? doubles[code] : longs[code];
+    }
+
+    /**
+     * Returns the parsed value with the given code as a long. Dates are represented by
+     * milliseconds. The value must be valid, not null and not a decimal.
+     *
+     * @param code
+     * @return
+     */
+    public long getLong(int code) {
+        return longs[code];
+    }
+
+    /**
+     * Returns the number of values which conform to the type
+     *
+     * @return
+     */
+    public int getNumValidValues() {
+        return values.length - failures.cardinality();
+    }
+
+    /**
+     * Returns the type
+     *
+     * @return
+     */
+    public DataType<?> getType() {
+        return type;
+    }
+
+    /**
+     * Returns the value with the given code
+     *
+     * @param code
+     * @return
+     */
+    public String getValue(int code) {
+        return values[code];
+    }
+
+    /**
+     * Returns whether the value with the given code represents null
+     *
+     * @param code
+     * @return
+     */
+    public boolean isNull(int code) {
+        return nulls.get(code);
+    }
+
+    /**
+     * Returns whether the value with the given code conforms to the type
+     *
+     * @param code
+     * @return
+     */
+    public boolean isValid(int code) {
+        return !failures.get(code);
+    }
+
+    /**
+     * Returns whether this view has been created for the given values
+     *
+     * @param values
+     * @return
+     */
+    boolean isViewOf(String[] values) {
+        return this.values == values;
+    }
+
+    /**
+     * Returns whether this view has been created for the given values and type
+     *
+     * @param values
+     * @param type
+     * @return
+     */
+    boolean isViewOf(String[] values, DataType<?> type) {
+        return this.values == values && this.type == type;
+    }
+}
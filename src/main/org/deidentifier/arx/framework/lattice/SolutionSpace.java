@@ -18,6 +18,10 @@
 package org.deidentifier.arx.framework.lattice;
 
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.deidentifier.arx.ARXConfiguration;
 import org.deidentifier.arx.ARXConfiguration.Monotonicity;
@@ -26,15 +30,21 @@ import org.deidentifier.arx.ARXLattice.ARXNode;
 import org.deidentifier.arx.ARXLattice.Anonymity;
 import org.deidentifier.arx.metric.InformationLoss;
 
-import com.carrotsearch.hppc.ObjectObjectOpenHashMap;
-
 import de.linearbits.jhpl.Lattice;
 import de.linearbits.jhpl.LatticeHighdimensional;
 import de.linearbits.jhpl.PredictiveProperty;
 import de.linearbits.jhpl.PredictiveProperty.Direction;
 
 /**
- * A class representing the solution space
+ * A class representing the solution space. Properties, data, utility and lower bounds of
+ * transformations can be accessed concurrently. Properties which are not inherited by
+ * neighbors are stored as bits in a striped map, which are set atomically. Inherited
+ * properties are stored in a JHPL lattice, which is guarded by a read-write lock, because
+ * all writes to the lattice modify a shared trie. The other attributes are stored in maps
+ * guarded by multiple locks. The objects returned by lattice.space() and lattice.nodes()
+ * are immutable and can be used without locking, except for the methods listing neighbors
+ * as arrays, which modify the lattice and are thus wrapped by getNeighboursJHPL().
+ * Iterators over transformations must not be used concurrently with modifications.
  * @author Fabian Prasser
  */
 public abstract class SolutionSpace<T> {
@@ -123,38 +133,34 @@ public abstract class SolutionSpace<T> {
     /** The backing JHPL lattice */
     protected final Lattice<Integer, Integer>                     lattice;
 
-    /** Information loss */
-    protected ObjectObjectOpenHashMap<Object, Object>             data                        = new ObjectObjectOpenHashMap<>();
-
-    /** Information loss */
-    protected ObjectObjectOpenHashMap<Object, InformationLoss<?>> lowerBound                  = new ObjectObjectOpenHashMap<>();
-
-    /** Information loss */
-    protected ObjectObjectOpenHashMap<Object, InformationLoss<?>> utility                     = new ObjectObjectOpenHashMap<>();
+    /** Guards the properties stored in the lattice */
+    private final ReentrantReadWriteLock                          lock                        = new ReentrantReadWriteLock();
+
+    /** Flag for the checked property */
+    private static final int                                      FLAG_CHECKED                = 1 << 0;
+    /** Flag for the force snapshot property */
+    private static final int                                      FLAG_FORCE_SNAPSHOT         = 1 << 1;
+    /** Flag for the visited property */
+    private static final int                                      FLAG_VISITED                = 1 << 2;
+    /** Flag for the expanded property */
+    private static final int                                      FLAG_EXPANDED               = 1 << 3;
+    /** Flag for the anonymous property, 0 if it is stored in the lattice */
+    private int                                                   flagAnonymous               = 0;
+    /** Flag for the not anonymous property, 0 if it is stored in the lattice */
+    private int                                                   flagNotAnonymous            = 0;
+    /** Next unused flag */
+    private int                                                   flagNext                    = 1 << 4;
+    /** Properties which are not inherited by neighbors */
+    private final StripedObjectIntMap<T>                          flags                       = new StripedObjectIntMap<T>();
    
     /**
-     * For de-serialization
+     * For de-serialization. Subclasses must call initialize(lattice) after their fields have been initialized.
      * @param lattice
      * @param config
      */
     protected SolutionSpace(ARXLattice lattice, ARXConfiguration config) {
         this(lattice.getBottom().getTransformation(), lattice.getTop().getTransformation());
         setMonotonicity(config);
-        for (ARXNode[] level : lattice.getLevels()) {
-            for (ARXNode node : level) {
-                int[] index = toJHPL(node.getTransformation());
-                int lvl = getLevel(index);
-                if (node.getAnonymity() == Anonymity.ANONYMOUS) {
-                    this.lattice.putProperty(index, lvl, this.getPropertyAnonymous());
-                } else if (node.getAnonymity() == Anonymity.NOT_ANONYMOUS) {
-                    this.lattice.putProperty(index, lvl, this.getPropertyNotAnonymous());
-                }
-                if (node.isChecked()) {
-                    this.lattice.putProperty(index, lvl, this.getPropertyChecked());
-                    this.setInformationLoss(node.getTransformation(), node.getHighestScore());
-                }
-            }
-        }
     }
 
     /**
@@ -375,9 +381,13 @@ public abstract class SolutionSpace<T> {
         if (predictable) {
             propertyAnonymous = new PredictiveProperty("Anonymous", Direction.UP);
             propertyNotAnonymous = new PredictiveProperty("Not anonymous", Direction.DOWN);
+            flagAnonymous = 0;
+            flagNotAnonymous = 0;
         } else {
             propertyAnonymous = new PredictiveProperty("Anonymous", Direction.NONE);
             propertyNotAnonymous = new PredictiveProperty("Not anonymous", Direction.NONE);
+            flagAnonymous = getNextFlag();
+            flagNotAnonymous = getNextFlag();
         }
     }
 
@@ -437,6 +447,140 @@ public abstract class SolutionSpace<T> {
      */
     protected abstract InformationLoss<?> getLowerBound(T identifier);
     
+    /**
+     * Initializes properties and information loss from the given lattice
+     * @param lattice
+     */
+    protected void initialize(ARXLattice lattice) {
+        for (ARXNode[] level : lattice.getLevels()) {
+            for (ARXNode node : level) {
+                Transformation<T> transformation = getTransformation(node.getTransformation());
+                if (node.getAnonymity() == Anonymity.ANONYMOUS) {
+                    transformation.setProperty(this.getPropertyAnonymous());
+                } else if (node.getAnonymity() == Anonymity.NOT_ANONYMOUS) {
+                    transformation.setProperty(this.getPropertyNotAnonymous());
+                }
+                if (node.isChecked()) {
+                    transformation.setProperty(this.getPropertyChecked());
+                    this.setInformationLoss(node.getTransformation(), node.getHighestScore());
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the neighbors of the transformation with the given index. Listing them
+     * modifies the lattice, which is why this is performed under the lock.
+     * @param index - in JHPL format
+     * @param successors - whether to return successors or predecessors
+     * @return
+     */
+    protected List<int[]> getNeighboursJHPL(int[] index, boolean successors) {
+        List<int[]> result = new ArrayList<>();
+        lock.writeLock().lock();
+        try {
+            Iterator<int[]> iter = successors ? lattice.nodes().listSuccessors(index) : lattice.nodes().listPredecessors(index);
+            for (; iter.hasNext();) {
+                result.add(iter.next().clone());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Returns whether the transformation with the given index has the given property
+     * @param identifier
+     * @param index - in JHPL format
+     * @param level - in JHPL format
+     * @param property
+     * @return
+     */
+    protected boolean hasPropertyJHPL(T identifier, int[] index, int level, PredictiveProperty property) {
+        int flag = getFlag(property);
+        if (flag != 0) {
+            return (flags.get(identifier) & flag) != 0;
+        }
+        lock.readLock().lock();
+        try {
+            return lattice.hasProperty(index, level, property);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Sets the given property to the transformation with the given index. The first flag set
+     * for a transformation is also stored in the lattice, which materializes the transformation.
+     * @param identifier
+     * @param index - in JHPL format
+     * @param level - in JHPL format
+     * @param property
+     */
+    protected void putPropertyJHPL(T identifier, int[] index, int level, PredictiveProperty property) {
+        int flag = getFlag(property);
+        if (flag != 0 && flags.or(identifier, flag) != 0) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            lattice.putProperty(index, level, property);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Sets the given property to all transformations with the given indices in one atomic operation.
+     * Must only be used for properties which are inherited by neighbors.
+     * @param indices - in JHPL format
+     * @param property
+     */
+    protected void putPropertyJHPL(List<int[]> indices, PredictiveProperty property) {
+        lock.writeLock().lock();
+        try {
+            for (int[] index : indices) {
+                lattice.putProperty(index, lattice.nodes().getLevel(index), property);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Sets the given property to the transformation with the given index, if it does not
+     * have the property already. Returns whether the property has been set.
+     * @param identifier
+     * @param index - in JHPL format
+     * @param level - in JHPL format
+     * @param property
+     * @return
+     */
+    protected boolean putPropertyIfAbsentJHPL(T identifier, int[] index, int level, PredictiveProperty property) {
+        int flag = getFlag(property);
+        if (flag != 0) {
+            int previous = flags.or(identifier, flag);
+            if ((previous & flag) != 0) {
+                return false;
+            }
+            if (previous == 0) {
+                putPropertyJHPL(index, level, property);
+            }
+            return true;
+        }
+        lock.writeLock().lock();
+        try {
+            if (lattice.hasProperty(index, level, property)) {
+                return false;
+            }
+            lattice.putProperty(index, level, property);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
     /**
      * Reverses the given array
      * @param input
@@ -486,6 +630,54 @@ public abstract class SolutionSpace<T> {
         setAnonymityPropertyPredictable(config.getMonotonicityOfPrivacy() == Monotonicity.FULL);
     }
 
+    /**
+     * Returns the flag used for the given property, 0 if it is stored in the lattice
+     * @param property
+     * @return
+     */
+    private int getFlag(PredictiveProperty property) {
+        if (property == propertyChecked) {
+            return FLAG_CHECKED;
+        } else if (property == propertyForceSnapshot) {
+            return FLAG_FORCE_SNAPSHOT;
+        } else if (property == propertyVisited) {
+            return FLAG_VISITED;
+        } else if (property == propertyExpanded) {
+            return FLAG_EXPANDED;
+        } else if (property == propertyAnonymous) {
+            return flagAnonymous;
+        } else if (property == propertyNotAnonymous) {
+            return flagNotAnonymous;
+        } else {
+            return 0;
+        }
+    }
+
+    /**
+     * Returns an unused flag, 0 if all flags are in use
+     * @return
+     */
+    private int getNextFlag() {
+        int flag = flagNext;
+        flagNext <<= 1;
+        return flag;
+    }
+
+    /**
+     * Stores the given property in the lattice
+     * @param index - in JHPL format
+     * @param level - in JHPL format
+     * @param property
+     */
+    private void putPropertyJHPL(int[] index, int level, PredictiveProperty property) {
+        lock.writeLock().lock();
+        try {
+            lattice.putProperty(index, level, property);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
     /**
      * Internal method that subtracts the offset
      * @param level
@@ -64,7 +64,16 @@ public class SolutionSpaceIntArray extends SolutionSpace<IntArrayWrapper> {
     }
 
     /** Size */
-    private BigInteger                                                   size       = null;
+    private BigInteger                                                        size       = null;
+
+    /** Data */
+    private final StripedObjectObjectMap<IntArrayWrapper, Object>             data       = new StripedObjectObjectMap<>();
+
+    /** Lower bounds */
+    private final StripedObjectObjectMap<IntArrayWrapper, InformationLoss<?>> lowerBound = new StripedObjectObjectMap<>();
+
+    /** Information loss */
+    private final StripedObjectObjectMap<IntArrayWrapper, InformationLoss<?>> utility    = new StripedObjectObjectMap<>();
 
     /**
      * Delegate constructor
@@ -73,6 +82,7 @@ public class SolutionSpaceIntArray extends SolutionSpace<IntArrayWrapper> {
      */
     public SolutionSpaceIntArray(ARXLattice lattice, ARXConfiguration config) {
         super(lattice, config);
+        initialize(lattice);
     }
 
     /**
@@ -152,7 +162,7 @@ public class SolutionSpaceIntArray extends SolutionSpace<IntArrayWrapper> {
      * @return
      */
     public InformationLoss<?> getUtility(Object identifier) {
-        return utility.getOrDefault((IntArrayWrapper)identifier, null);
+        return utility.get((IntArrayWrapper)identifier);
     }
     
     /**
@@ -164,7 +174,7 @@ public class SolutionSpaceIntArray extends SolutionSpace<IntArrayWrapper> {
     public boolean hasProperty(int[] transformation, PredictiveProperty property) {
         int[] index = toJHPL(transformation);
         int level = getLevel(index);
-        return lattice.hasProperty(index, level, property);
+        return hasPropertyJHPL(new IntArrayWrapper(transformation), index, level, property);
     }
 
     /**
@@ -192,7 +202,7 @@ public class SolutionSpaceIntArray extends SolutionSpace<IntArrayWrapper> {
      * @return
      */
     protected Object getData(IntArrayWrapper id) {
-        return data.getOrDefault(id, null);
+        return data.get(id);
     }
     
 
@@ -202,7 +212,7 @@ public class SolutionSpaceIntArray extends SolutionSpace<IntArrayWrapper> {
      * @return
      */
     protected InformationLoss<?> getInformationLoss(IntArrayWrapper identifier) {
-        return utility.getOrDefault(identifier, null);
+        return utility.get(identifier);
     }
     
     /**
@@ -211,7 +221,7 @@ public class SolutionSpaceIntArray extends SolutionSpace<IntArrayWrapper> {
      * @return
      */
     protected InformationLoss<?> getLowerBound(IntArrayWrapper identifier) {
-        return lowerBound.getOrDefault(identifier, null);
+        return lowerBound.get(identifier);
     }
 
     /**
@@ -31,6 +31,15 @@ import de.linearbits.jhpl.PredictiveProperty;
  */
 public class SolutionSpaceLong extends SolutionSpace<Long> {
 
+    /** Data */
+    private final StripedLongObjectMap<Object>             data       = new StripedLongObjectMap<>();
+
+    /** Lower bounds */
+    private final StripedLongObjectMap<InformationLoss<?>> lowerBound = new StripedLongObjectMap<>();
+
+    /** Information loss */
+    private final StripedLongObjectMap<InformationLoss<?>> utility    = new StripedLongObjectMap<>();
+
     /**
      * Delegate constructor
      * @param lattice
@@ -38,6 +47,7 @@ public class SolutionSpaceLong extends SolutionSpace<Long> {
      */
     public SolutionSpaceLong(ARXLattice lattice, ARXConfiguration config) {
         super(lattice, config);
+        initialize(lattice);
     }
 
     /**
@@ -108,7 +118,7 @@ public class SolutionSpaceLong extends SolutionSpace<Long> {
      */
     public InformationLoss<?> getUtility(Object _identifier) {
         long identifier = (Long)_identifier;
-        return utility.getOrDefault(identifier, null);
+        return utility.get(identifier);
     }
     
     /**
@@ -120,7 +130,7 @@ public class SolutionSpaceLong extends SolutionSpace<Long> {
     public boolean hasProperty(int[] transformation, PredictiveProperty property) {
         int[] index = toJHPL(transformation);
         int level = getLevel(index);
-        return lattice.hasProperty(index, level, property);
+        return hasPropertyJHPL(lattice.space().toId(index), index, level, property);
     }
 
     /**
@@ -146,7 +156,7 @@ public class SolutionSpaceLong extends SolutionSpace<Long> {
      * @return
      */
     protected Object getData(Long id) {
-        return data.getOrDefault(id, null);
+        return data.get(id);
     }
     
     /**
@@ -155,7 +165,7 @@ public class SolutionSpaceLong extends SolutionSpace<Long> {
      * @return
      */
     protected InformationLoss<?> getInformationLoss(Long identifier) {
-        return utility.getOrDefault(identifier, null);
+        return utility.get(identifier);
     }
     
     /**
@@ -164,7 +174,7 @@ public class SolutionSpaceLong extends SolutionSpace<Long> {
      * @return
      */
     protected InformationLoss<?> getLowerBound(Long identifier) {
-        return lowerBound.getOrDefault(identifier, null);
+        return lowerBound.get(identifier);
     }
 
     /**
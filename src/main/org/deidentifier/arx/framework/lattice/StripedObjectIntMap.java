@@ -0,0 +1,86 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2020 Fabian Prasser and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.framework.lattice;
+
+import com.carrotsearch.hppc.ObjectIntOpenHashMap;
+
+/**
+ * A map from objects to bit sets of up to 32 bits, which can be accessed concurrently. Entries
+ * are distributed across a fixed number of stripes, each of which is a hash map guarded by its
+ * own lock. Bits can only be set, which is performed atomically.
+ * 
+ * @author Fabian Prasser
+ * @param <K>
+ */
+class StripedObjectIntMap<K> {
+
+    /** Number of bits used for addressing stripes */
+    private static final int                STRIPE_BITS = 6;
+
+    /** Stripes */
+    private final ObjectIntOpenHashMap<K>[] stripes;
+
+    /**
+     * Creates a new instance
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    StripedObjectIntMap() {
+        this.stripes = new ObjectIntOpenHashMap[1 << STRIPE_BITS];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ObjectIntOpenHashMap<K>();
+        }
+    }
+
+    /**
+     * Returns the bits associated with the given key, 0 if there are none
+     * @param key
+     * @return
+     */
+    int get(K key) {
+        ObjectIntOpenHashMap<K> stripe = getStripe(key);
+        synchronized (stripe) {
+            return stripe.getOrDefault(key, 0);
+        }
+    }
+
+    /**
+     * Sets the given bits for the given key and returns the bits that have been set before
+     * @param key
+     * @param bits
+     * @return
+     */
+    int or(K key, int bits) {
+        ObjectIntOpenHashMap<K> stripe = getStripe(key);
+        synchronized (stripe) {
+            int previous = stripe.getOrDefault(key, 0);
+            if ((previous | bits) != previous) {
+                stripe.put(key, previous | bits);
+            }
+            return previous;
+        }
+    }
+
+    /**
+     * Returns the stripe for the given key
+     * @param key
+     * @return
+     */
+    private ObjectIntOpenHashMap<K> getStripe(K key) {
+        return stripes[(key.hashCode() * 0x9E3779B9) >>> (32 - STRIPE_BITS)];
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2020 Fabian Prasser and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.framework.lattice;
+
+import com.carrotsearch.hppc.ObjectObjectOpenHashMap;
+
+/**
+ * A map from objects to objects, which can be accessed concurrently. Entries are distributed
+ * across a fixed number of stripes, each of which is a hash map guarded by its own lock.
+ * Null values are not stored, i.e. putting null removes the entry.
+ * 
+ * @author Fabian Prasser
+ * @param <K>
+ * @param <V>
+ */
+class StripedObjectObjectMap<K, V> {
+
+    /** Number of bits used for addressing stripes */
+    private static final int                      STRIPE_BITS = 6;
+
+    /** Stripes */
+    private final ObjectObjectOpenHashMap<K, V>[] stripes;
+
+    /**
+     * Creates a new instance
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    StripedObjectObjectMap() {
+        this.stripes = new ObjectObjectOpenHashMap[1 << STRIPE_BITS];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ObjectObjectOpenHashMap<K, V>();
+        }
+    }
+
+    /**
+     * Returns the value associated with the given key, null if there is none
+     * @param key
+     * @return
+     */
+    V get(K key) {
+        ObjectObjectOpenHashMap<K, V> stripe = getStripe(key);
+        synchronized (stripe) {
+            return stripe.getOrDefault(key, null);
+        }
+    }
+
+    /**
+     * Associates the given value with the given key
+     * @param key
+     * @param value
+     */
+    void put(K key, V value) {
+        ObjectObjectOpenHashMap<K, V> stripe = getStripe(key);
+        synchronized (stripe) {
+            if (value == null) {
+                stripe.remove(key);
+            } else {
+                stripe.put(key, value);
+            }
+        }
+    }
+
+    /**
+     * Returns the stripe for the given key
+     * @param key
+     * @return
+     */
+    private ObjectObjectOpenHashMap<K, V> getStripe(K key) {
+        return stripes[(key.hashCode() * 0x9E3779B9) >>> (32 - STRIPE_BITS)];
+    }
+}
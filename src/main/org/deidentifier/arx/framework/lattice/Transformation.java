@@ -138,19 +138,21 @@ public abstract class Transformation<T> {
      */
     public boolean hasProperty(PredictiveProperty property) {
         getLevel();
-        return this.lattice.hasProperty(this.transformationJHPL, this.levelJHPL, property);
+        return this.solutionSpace.hasPropertyJHPL(this.identifier, this.transformationJHPL, this.levelJHPL, property);
     }
 
     /**
-     * Sets the properties to the given node.
+     * Sets the properties to the given node. The checked property is set last, which means
+     * that other threads observing it will also observe all other results.
      *
      * @param node the node
      * @param result the result
      */
     public void setChecked(TransformationResult result) {
         
-        // Set checked
-        this.setProperty(solutionSpace.getPropertyChecked());
+        // Infoloss
+        this.setInformationLoss(result.informationLoss);
+        this.setLowerBound(result.lowerBound);
         
         // Anonymous
         if (result.privacyModelFulfilled){
@@ -168,9 +170,8 @@ public abstract class Transformation<T> {
             }
         }
 
-        // Infoloss
-        this.setInformationLoss(result.informationLoss);
-        this.setLowerBound(result.lowerBound);
+        // Set checked
+        this.setProperty(solutionSpace.getPropertyChecked());
     }
 
     /**
@@ -203,7 +204,18 @@ public abstract class Transformation<T> {
      */
     public void setProperty(PredictiveProperty property) {
         getLevel();
-        this.lattice.putProperty(this.transformationJHPL, this.levelJHPL, property);
+        this.solutionSpace.putPropertyJHPL(this.identifier, this.transformationJHPL, this.levelJHPL, property);
+    }
+    
+    /**
+     * Sets a property, if the transformation does not have it already. The operation is
+     * atomic, which means that exactly one of multiple threads will succeed.
+     * @param property
+     * @return Whether the property has been set
+     */
+    public boolean setPropertyIfAbsent(PredictiveProperty property) {
+        getLevel();
+        return this.solutionSpace.putPropertyIfAbsentJHPL(this.identifier, this.transformationJHPL, this.levelJHPL, property);
     }
     
     /**
@@ -224,31 +236,31 @@ public abstract class Transformation<T> {
         builder.append(" - Generalization: ").append(Arrays.toString(getGeneralization())).append("\n");
         builder.append(" - Level: ").append(getLevel()).append("\n");
         builder.append(" - Properties:\n");
-        if (lattice.hasProperty(transformationJHPL, this.levelJHPL, solutionSpace.getPropertyAnonymous())) {
+        if (hasProperty(solutionSpace.getPropertyAnonymous())) {
             builder.append("   * ANONYMOUS: ").append(solutionSpace.getPropertyAnonymous().getDirection()).append("\n");    
         }
-        if (lattice.hasProperty(transformationJHPL, this.levelJHPL, solutionSpace.getPropertyNotAnonymous())) {
+        if (hasProperty(solutionSpace.getPropertyNotAnonymous())) {
             builder.append("   * NOT_ANONYMOUS: ").append(solutionSpace.getPropertyNotAnonymous().getDirection()).append("\n");
         }
-        if (lattice.hasProperty(transformationJHPL, this.levelJHPL, solutionSpace.getPropertyKAnonymous())) {
+        if (hasProperty(solutionSpace.getPropertyKAnonymous())) {
             builder.append("   * K_ANONYMOUS: ").append(solutionSpace.getPropertyKAnonymous().getDirection()).append("\n");
         }
-        if (lattice.hasProperty(transformationJHPL, this.levelJHPL, solutionSpace.getPropertyNotKAnonymous())) {
+        if (hasProperty(solutionSpace.getPropertyNotKAnonymous())) {
             builder.append("   * NOT_K_ANONYMOUS: ").append(solutionSpace.getPropertyNotKAnonymous().getDirection()).append("\n");
         }
-        if (lattice.hasProperty(transformationJHPL, this.levelJHPL, solutionSpace.getPropertyChecked())) {
+        if (hasProperty(solutionSpace.getPropertyChecked())) {
             builder.append("   * CHECKED: ").append(solutionSpace.getPropertyChecked().getDirection()).append("\n");    
         }
-        if (lattice.hasProperty(transformationJHPL, this.levelJHPL, solutionSpace.getPropertyForceSnapshot())) {
+        if (hasProperty(solutionSpace.getPropertyForceSnapshot())) {
             builder.append("   * FORCE_SNAPSHOT: ").append(solutionSpace.getPropertyForceSnapshot().getDirection()).append("\n");
         }
-        if (lattice.hasProperty(transformationJHPL, this.levelJHPL, solutionSpace.getPropertyInsufficientUtility())) {
+        if (hasProperty(solutionSpace.getPropertyInsufficientUtility())) {
             builder.append("   * INSUFFICIENT_UTILITY: ").append(solutionSpace.getPropertyInsufficientUtility().getDirection()).append("\n");
         }
-        if (lattice.hasProperty(transformationJHPL, this.levelJHPL, solutionSpace.getPropertySuccessorsPruned())) {
+        if (hasProperty(solutionSpace.getPropertySuccessorsPruned())) {
             builder.append("   * SUCCESSORS_PRUNED: ").append(solutionSpace.getPropertySuccessorsPruned().getDirection()).append("\n");
         }
-        if (lattice.hasProperty(transformationJHPL, this.levelJHPL, solutionSpace.getPropertyVisited())) {
+        if (hasProperty(solutionSpace.getPropertyVisited())) {
             builder.append("   * VISITED: ").append(solutionSpace.getPropertyVisited().getDirection()).append("\n");
         }
         builder.append("}");
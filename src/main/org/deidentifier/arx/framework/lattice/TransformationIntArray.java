@@ -18,7 +18,6 @@
 package org.deidentifier.arx.framework.lattice;
 
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
 
 import org.deidentifier.arx.framework.lattice.SolutionSpaceIntArray.IntArrayWrapper;
@@ -53,8 +52,8 @@ public class TransformationIntArray extends Transformation<IntArrayWrapper> {
     public TransformationList<IntArrayWrapper> getPredecessors() {
         
         List<IntArrayWrapper> result = new ArrayList<>();
-        for (Iterator<int[]> iter = lattice.nodes().listPredecessors(transformationJHPL); iter.hasNext();) {
-            result.add(new IntArrayWrapper(solutionSpace.fromJHPL(iter.next())));
+        for (int[] predecessor : solutionSpace.getNeighboursJHPL(transformationJHPL, false)) {
+            result.add(new IntArrayWrapper(solutionSpace.fromJHPL(predecessor)));
         }
         return TransformationList.create(result);
     }
@@ -65,8 +64,8 @@ public class TransformationIntArray extends Transformation<IntArrayWrapper> {
      */
     public TransformationList<IntArrayWrapper> getSuccessors() {
         List<IntArrayWrapper> result = new ArrayList<>();
-        for (Iterator<int[]> iter = lattice.nodes().listSuccessors(transformationJHPL); iter.hasNext();) {
-            result.add(new IntArrayWrapper(solutionSpace.fromJHPL(iter.next())));
+        for (int[] successor : solutionSpace.getNeighboursJHPL(transformationJHPL, true)) {
+            result.add(new IntArrayWrapper(solutionSpace.fromJHPL(successor)));
         }
         int lower = 0;
         int upper = result.size() - 1;
@@ -85,22 +84,14 @@ public class TransformationIntArray extends Transformation<IntArrayWrapper> {
      * @param property
      */
     public void setPropertyToNeighbours(PredictiveProperty property) {
-        Iterator<int[]> neighbors;
+        List<int[]> list;
         if (property.getDirection() == Direction.UP) {
-            neighbors = lattice.nodes().listSuccessors(transformationJHPL);
+            list = solutionSpace.getNeighboursJHPL(transformationJHPL, true);
         } else if (property.getDirection() == Direction.DOWN) {
-            neighbors = lattice.nodes().listPredecessors(transformationJHPL);
+            list = solutionSpace.getNeighboursJHPL(transformationJHPL, false);
         } else {
             return;
         }
-        List<int[]> list = new ArrayList<>();
-        for (;neighbors.hasNext();) {
-            list.add(neighbors.next().clone());
-        }
-        for (int i=0; i<list.size(); i++) {
-            int[] index = list.get(i);
-            int level = lattice.nodes().getLevel(index);
-            lattice.putProperty(index, level, property);
-        }
+        solutionSpace.putPropertyJHPL(list, property);
     }
 }
@@ -17,6 +17,9 @@
 
 package org.deidentifier.arx.framework.lattice;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import cern.colt.list.LongArrayList;
 import de.linearbits.jhpl.JHPLIterator.LongIterator;
 import de.linearbits.jhpl.Lattice;
@@ -104,14 +107,10 @@ public class TransformationLong extends Transformation<Long> {
         } else {
             return;
         }
-        LongArrayList list = new LongArrayList();
+        List<int[]> list = new ArrayList<>();
         for (;neighbors.hasNext();) {
-            list.add(neighbors.next());
-        }
-        for (int i=0; i<list.size(); i++) {
-            int[] index = lattice.space().toIndex(list.getQuick(i));
-            int level = lattice.nodes().getLevel(index);
-            lattice.putProperty(index, level, property);
+            list.add(lattice.space().toIndex(neighbors.next()));
         }
+        solutionSpace.putPropertyJHPL(list, property);
     }
 }
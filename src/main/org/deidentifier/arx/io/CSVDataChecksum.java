@@ -17,13 +17,22 @@
 
 package org.deidentifier.arx.io;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.security.DigestOutputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+import org.deidentifier.arx.common.TaskExecutor;
 
 import com.univocity.parsers.csv.CsvFormat;
 import com.univocity.parsers.csv.CsvWriter;
@@ -36,6 +45,9 @@ import com.univocity.parsers.csv.CsvWriterSettings;
  */
 public class CSVDataChecksum {
 
+    /** Number of rows encoded by one task when computing checksums in parallel */
+    private static final int        CHUNK_SIZE = 10000;
+
     /** Settings. */
     private final CsvWriterSettings settings;
 
@@ -136,17 +148,81 @@ public class CSVDataChecksum {
         }
         csvwriter.close();
 
-        // Obtain digest
-        byte[] digest = md.digest();
+        // Obtain digest and convert to hex
+        return toHex(md.digest());
+    }
 
-        // And convert to hex
-        StringBuilder builder = new StringBuilder();
-        for (int i = 0; i < digest.length; i++) {
-            builder.append(Integer.toString((digest[i] & 0xff) + 0x100, 16).substring(1));
+    /**
+     * Returns a hex-encoded SHA-256 checksum for the given data, which equals the result of
+     * {@link #getSHA256Checksum(Iterator)}. Chunks of rows are encoded in parallel by the given
+     * number of threads, while the digest is updated with the encoded chunks in order.
+     * 
+     * @param iterator
+     * @param threads
+     * @return
+     * @throws NoSuchAlgorithmException 
+     */
+    public String getSHA256Checksum(final Iterator<String[]> iterator, final int threads) throws NoSuchAlgorithmException {
+
+        // Check
+        if (threads < 1) {
+            throw new IllegalArgumentException("Number of threads must be at least 1");
         }
-        return builder.toString();
+        
+        // Sequential
+        if (threads == 1) {
+            return getSHA256Checksum(iterator);
+        }
+
+        // Prepare
+        MessageDigest md = MessageDigest.getInstance("SHA-256");
+        TaskExecutor executor = new TaskExecutor("ARX checksum calculation", threads);
+        
+        // Encode chunks in parallel and digest them in order, keeping a bounded number of chunks in memory
+        Deque<Future<byte[]>> futures = new ArrayDeque<>();
+        try {
+            while (iterator.hasNext()) {
+                final List<String[]> rows = new ArrayList<>(CHUNK_SIZE);
+                while (iterator.hasNext() && rows.size() < CHUNK_SIZE) {
+                    rows.add(iterator.next());
+                }
+                futures.add(executor.submit(new Callable<byte[]>() {
+                    @Override
+                    public byte[] call() {
+                        return encode(rows);
+                    }
+                }));
+                if (futures.size() > 2 * threads) {
+                    md.update(executor.get(futures.poll()));
+                }
+            }
+            while (!futures.isEmpty()) {
+                md.update(executor.get(futures.poll()));
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // Obtain digest and convert to hex
+        return toHex(md.digest());
     }
     
+    /**
+     * Encodes the given rows in the same manner as {@link #getSHA256Checksum(Iterator)}
+     * 
+     * @param rows
+     * @return
+     */
+    private byte[] encode(List<String[]> rows) {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        CsvWriter csvwriter = new CsvWriter(new OutputStreamWriter(stream), settings.clone());
+        for (String[] row : rows) {
+            csvwriter.writeRow((Object[]) row);
+        }
+        csvwriter.close();
+        return stream.toByteArray();
+    }
+
     /**
      * Creates the settings.
      *
@@ -174,4 +250,18 @@ public class CSVDataChecksum {
         }
         return settings;
     }
+
+    /**
+     * Returns a hex-encoded representation of the given digest
+     * 
+     * @param digest
+     * @return
+     */
+    static String toHex(byte[] digest) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < digest.length; i++) {
+            builder.append(Integer.toString((digest[i] & 0xff) + 0x100, 16).substring(1));
+        }
+        return builder.toString();
+    }
 }
@@ -20,12 +20,17 @@ package org.deidentifier.arx.io;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileReader;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
 
 import org.deidentifier.arx.DataType;
 
@@ -55,6 +60,10 @@ public class CSVDataInput {
         private final File file;
         /** Charset */
         private final Charset charset;
+        /** Offset of the first byte to read */
+        private final long start;
+        /** Number of bytes to read, -1 for all */
+        private final long length;
 
         /**
          * Creates a new instance
@@ -62,8 +71,22 @@ public class CSVDataInput {
          * @param file
          */
         public LazyFileReader(File file, Charset charset) {
+            this(file, charset, 0L, -1L);
+        }
+
+        /**
+         * Creates a new instance, which reads the given range of bytes
+         * 
+         * @param file
+         * @param charset
+         * @param start
+         * @param length
+         */
+        public LazyFileReader(File file, Charset charset, long start, long length) {
             this.file = file;
             this.charset = charset;
+            this.start = start;
+            this.length = length;
         }
 
         @Override
@@ -76,11 +99,78 @@ public class CSVDataInput {
         @Override
         @SuppressWarnings("resource")
         public int read(char[] cbuf, int off, int len) throws IOException {
-            reader = reader != null ? reader : new InputStreamReader(new FileInputStream(file), charset);
+            if (reader == null) {
+                FileInputStream stream = new FileInputStream(file);
+                stream.getChannel().position(start);
+                reader = new InputStreamReader(length < 0 ? stream : new LimitedInputStream(stream, length), charset);
+            }
             return reader.read(cbuf, off, len);
         }
     }
 
+    /**
+     * Static helper class for reading a limited number of bytes from a stream
+     * 
+     * @author Fabian Prasser
+     */
+    private static class LimitedInputStream extends FilterInputStream {
+
+        /** Bytes remaining */
+        private long remaining;
+
+        /**
+         * Creates a new instance
+         * 
+         * @param stream
+         * @param length
+         */
+        public LimitedInputStream(InputStream stream, long length) {
+            super(stream);
+            this.remaining = length;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(super.available(), remaining);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int result = super.read();
+            if (result != -1) {
+                remaining--;
+            }
+            return result;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int result = super.read(b, off, (int) Math.min(len, remaining));
+            if (result != -1) {
+                remaining -= result;
+            }
+            return result;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long result = super.skip(Math.min(n, remaining));
+            remaining -= result;
+            return result;
+        }
+    }
+
     /** A reader. */
     private final Reader            reader;
 
@@ -503,6 +593,129 @@ public class CSVDataInput {
      * @return the iterator
      */
     public Iterator<String[]> iterator(final boolean header) {
+        return iterator(reader, header);
+    }
+
+    /**
+     * Returns iterators over disjoint parts of the data, which can be processed concurrently.
+     * Assumes that the first line is the header, which is returned by the first iterator.
+     * Splitting is only supported for files in a charset which encodes line breaks, delimiters,
+     * quotes and escape characters with single bytes. Otherwise, a single iterator is returned.
+     * Parts start after line breaks which are not enclosed in quotes. <b>You must iterate trough all elements to prevent resource leaks!</b>
+     * 
+     * @param parts
+     * @return the iterators
+     * @throws IOException
+     */
+    public List<Iterator<String[]>> iterators(final int parts) throws IOException {
+
+        // Check
+        if (parts <= 0) { throw new IllegalArgumentException("Parameter must be > 0"); }
+        List<Iterator<String[]>> result = new ArrayList<Iterator<String[]>>();
+        char[] linebreak = settings.getFormat().getLineSeparator();
+        if (parts == 1 || !(reader instanceof LazyFileReader) || linebreak == null || linebreak.length == 0) {
+            result.add(iterator());
+            return result;
+        }
+        LazyFileReader source = (LazyFileReader) reader;
+        Charset charset = source.charset;
+        if (source.length >= 0 || (!charset.equals(StandardCharsets.UTF_8) && charset.newEncoder().maxBytesPerChar() != 1f)) {
+            result.add(iterator());
+            return result;
+        }
+        CsvFormat format = settings.getFormat();
+        byte[] separator = String.valueOf(linebreak[linebreak.length - 1]).getBytes(charset);
+        byte[] delimiter = String.valueOf(format.getDelimiter()).getBytes(charset);
+        byte[] quote = String.valueOf(format.getQuote()).getBytes(charset);
+        byte[] escape = String.valueOf(format.getQuoteEscape()).getBytes(charset);
+        if (separator.length != 1 || delimiter.length != 1 || quote.length != 1 || escape.length != 1) {
+            result.add(iterator());
+            return result;
+        }
+
+        // Split at line breaks which are not enclosed in quotes
+        long[] boundaries = getBoundaries(source.file, parts, separator[0], delimiter[0], quote[0], escape[0]);
+
+        // Create iterators
+        for (int i = 0; i < parts; i++) {
+            Reader reader = new LazyFileReader(source.file, charset, boundaries[i], boundaries[i + 1] - boundaries[i]);
+            result.add(iterator(reader, i == 0));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the positions at which the file can be split into the given number of parts of
+     * about equal size. Parts start after line breaks which are not enclosed in quotes. Quotes
+     * are recognized at the beginning of values and end at the next quote, which is not escaped.
+     * 
+     * @param file
+     * @param parts
+     * @param separator
+     * @param delimiter
+     * @param quote
+     * @param escape
+     * @return
+     * @throws IOException
+     */
+    private long[] getBoundaries(File file, int parts, byte separator, byte delimiter, byte quote, byte escape) throws IOException {
+
+        // Prepare
+        long length = file.length();
+        long[] boundaries = new long[parts + 1];
+        Arrays.fill(boundaries, 1, parts + 1, length);
+        int part = 1;
+        long target = length / parts - 1;
+
+        // Scan
+        try (InputStream input = new FileInputStream(file)) {
+            byte[] buffer = new byte[65536];
+            boolean quoted = false;
+            boolean start = true;
+            boolean escaped = false;
+            boolean closed = false;
+            long offset = 0;
+            int read;
+            while (part < parts && (read = input.read(buffer)) != -1) {
+                for (int i = 0; i < read && part < parts; i++) {
+                    byte value = buffer[i];
+                    if (quoted) {
+                        if (escaped) {
+                            escaped = false;
+                        } else if (value == quote) {
+                            quoted = false;
+                            closed = true;
+                        } else if (value == escape) {
+                            escaped = true;
+                        }
+                    } else if (value == quote && (start || (closed && escape == quote))) {
+                        // Value in quotes or quote escaped by another quote
+                        quoted = true;
+                        closed = false;
+                        start = false;
+                    } else {
+                        closed = false;
+                        start = value == delimiter || value == separator;
+                        if (value == separator && offset + i >= target) {
+                            boundaries[part++] = offset + i + 1;
+                            target = Math.max(offset + i + 1, length * part / parts - 1);
+                        }
+                    }
+                }
+                offset += read;
+            }
+        }
+        return boundaries;
+    }
+
+    /**
+     * Returns an iterator for the given reader. <b>You must iterate trough all elements to prevent resource leaks!</b>
+     * 
+     * @param reader
+     * @param header
+     * @return the iterator
+     */
+    private Iterator<String[]> iterator(final Reader reader, final boolean header) {
 
         return new Iterator<String[]>() {
 
@@ -24,6 +24,9 @@ import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.nio.charset.Charset;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Iterator;
 
 import com.univocity.parsers.csv.CsvFormat;
@@ -47,6 +50,9 @@ public class CSVDataOutput {
     /** Should the writer be closed. */
     private boolean           close;
 
+    /** Charset used for encoding the data, the default charset when writing to a writer. */
+    private Charset           charset;
+
     /**
      * Instantiate.
      *
@@ -209,6 +215,7 @@ public class CSVDataOutput {
     public CSVDataOutput(final OutputStream stream, final char delimiter, final char quote, final char escape, final char[] linebreak, Charset charset) throws IOException {
         this(new OutputStreamWriter(stream, charset), delimiter, quote, escape, linebreak);
         close = false;
+        this.charset = charset;
     }
     
     /**
@@ -349,6 +356,7 @@ public class CSVDataOutput {
     public CSVDataOutput(final Writer writer, final char delimiter, final char quote, final char escape, final char[] linebreak, CSVOptions options) throws IOException {
         this.writer = writer;
         close = true;
+        charset = Charset.defaultCharset();
         settings = createSettings(delimiter, quote, escape, linebreak, options);
     }
 
@@ -359,10 +367,66 @@ public class CSVDataOutput {
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public void write(final Iterator<String[]> iterator) throws IOException {
+        write(iterator, writer);
+    }
+
+    /**
+     * Write the results and return a hex-encoded SHA-256 checksum, which is calculated while writing.
+     * The checksum is calculated over the data encoded with the charset passed to the constructor, i.e.
+     * over the bytes written, or with the default charset if none was passed. When writing to a
+     * {@link Writer}, which may use another charset, the default charset is assumed. With the default
+     * charset, the result equals {@link CSVDataChecksum#getSHA256Checksum(Iterator)}.
+     *
+     * @param iterator the iterator
+     * @return the checksum
+     * @throws IOException Signals that an I/O exception has occurred.
+     * @throws NoSuchAlgorithmException
+     */
+    public String writeWithSHA256Checksum(final Iterator<String[]> iterator) throws IOException, NoSuchAlgorithmException {
+
+        // Initialize message digest
+        MessageDigest md = MessageDigest.getInstance("SHA-256");
+        final Writer digest = new OutputStreamWriter(new DigestOutputStream(new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                // Simply drop the data
+            }
+        }, md), charset);
+
+        // Pass all data to the writer and the digest
+        write(iterator, new Writer() {
+            @Override
+            public void close() throws IOException {
+                digest.close();
+                writer.close();
+            }
+            @Override
+            public void flush() throws IOException {
+                digest.flush();
+                writer.flush();
+            }
+            @Override
+            public void write(char[] buffer, int offset, int length) throws IOException {
+                digest.write(buffer, offset, length);
+                writer.write(buffer, offset, length);
+            }
+        });
+
+        // Obtain digest and convert to hex
+        return CSVDataChecksum.toHex(md.digest());
+    }
+
+    /**
+     * Write.
+     *
+     * @param hierarchy the hierarchy
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public void write(final String[][] hierarchy) throws IOException {
 
         CsvWriter csvwriter = new CsvWriter(writer, settings);
-        while (iterator.hasNext()) {
-            csvwriter.writeRow((Object[]) iterator.next());
+        for (int i = 0; i < hierarchy.length; i++) {
+            csvwriter.writeRow((Object[]) hierarchy[i]);
         }
         if (close) {
             csvwriter.close();
@@ -372,16 +436,17 @@ public class CSVDataOutput {
     }
 
     /**
-     * Write.
+     * Write the results to the given writer.
      *
-     * @param hierarchy the hierarchy
+     * @param iterator the iterator
+     * @param writer the writer
      * @throws IOException Signals that an I/O exception has occurred.
      */
-    public void write(final String[][] hierarchy) throws IOException {
+    private void write(final Iterator<String[]> iterator, final Writer writer) throws IOException {
 
         CsvWriter csvwriter = new CsvWriter(writer, settings);
-        for (int i = 0; i < hierarchy.length; i++) {
-            csvwriter.writeRow((Object[]) hierarchy[i]);
+        while (iterator.hasNext()) {
+            csvwriter.writeRow((Object[]) iterator.next());
         }
         if (close) {
             csvwriter.close();
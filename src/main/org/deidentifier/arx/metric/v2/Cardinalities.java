@@ -17,16 +17,25 @@
 
 package org.deidentifier.arx.metric.v2;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
 
 import org.deidentifier.arx.RowSet;
+import org.deidentifier.arx.common.TaskExecutor;
 import org.deidentifier.arx.framework.data.Data;
 import org.deidentifier.arx.framework.data.DataMatrix;
 import org.deidentifier.arx.framework.data.Dictionary;
 import org.deidentifier.arx.framework.data.GeneralizationHierarchy;
 
 /**
- * This class represents cardinalities.
+ * This class represents cardinalities. Cardinalities of ungeneralized values are stored
+ * in one array per column. For generalized values, only values which exist on the
+ * respective level of the hierarchy are stored, in ascending order.
  * TODO: This class can potentially be merged with DomainShare
  * TODO: It is not yet sure, which of both mechanisms performs better
  * 
@@ -37,8 +46,14 @@ public class Cardinalities implements Serializable {
     /** SVUID. */
     private static final long serialVersionUID = 6164578830669365810L;
     
-    /** Cardinalities: Column -> Id -> Level -> Count. */
-    private final int[][][] cardinalities;
+    /** Cardinalities of ungeneralized values: Column -> Id -> Count. */
+    private int[][]           counts;
+
+    /** Generalized values: Column -> Level -> Ids in ascending order. Level 0 is not stored. */
+    private int[][][]         values;
+
+    /** Cardinalities of generalized values: Column -> Level -> Index of id -> Count. Level 0 is not stored. */
+    private int[][][]         generalized;
     
     /**
      * Creates a new instance for the given data set.
@@ -48,54 +63,199 @@ public class Cardinalities implements Serializable {
      * @param hierarchies
      */
     public Cardinalities(Data data, RowSet subset, GeneralizationHierarchy[] hierarchies){
+        this(data, subset, hierarchies, 1);
+    }
+    
+    /**
+     * Creates a new instance for the given data set. Columns are processed concurrently
+     * by the given number of threads.
+     *
+     * @param data
+     * @param subset
+     * @param hierarchies
+     * @param numThreads
+     */
+    public Cardinalities(final Data data, final RowSet subset, final GeneralizationHierarchy[] hierarchies, int numThreads){
 
-        DataMatrix array = data.getArray();
-        Dictionary dictionary = data.getDictionary();
+        final DataMatrix array = data.getArray();
+        final Dictionary dictionary = data.getDictionary();
+        
+        // Initialize
+        int columns = array.getNumColumns();
+        this.counts = new int[columns][];
+        this.values = new int[columns][][];
+        this.generalized = new int[columns][][];
         
-        // Initialize counts
-        cardinalities = new int[array.getNumColumns()][][];
-        for (int i = 0; i < cardinalities.length; i++) {
-            cardinalities[i] = new int[dictionary.getMapping()[i].length][hierarchies[i].getArray()[0].length];
+        // Compute counts for each column
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        for (int column = 0; column < columns; column++) {
+            final int _column = column;
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    initialize(array, dictionary.getMapping()[_column].length, subset, hierarchies, _column);
+                    return null;
+                }
+            });
         }
+        TaskExecutor.execute("ARX cardinalities", numThreads, tasks);
+    }
+    
+    /**
+     * For backwards compatibility, derives the cardinalities from the given array.
+     *
+     * @param cardinalities
+     */
+    public Cardinalities(int[][][] cardinalities) {
+        this.initialize(cardinalities);
+    }
+
+    /**
+     * Returns the cardinality of the given value on the given level.
+     *
+     * @param column
+     * @param value
+     * @param level
+     * @return
+     */
+    public int getCardinality(int column, int value, int level) {
+        if (level == 0) {
+            return counts[column][value];
+        }
+        int index = Arrays.binarySearch(values[column][level], value);
+        return index < 0 ? 0 : generalized[column][level][index];
+    }
 
+    /**
+     * Returns the cardinality of the value at the given index of {@link #getValues(int, int)}.
+     * The level must be greater than 0.
+     *
+     * @param column
+     * @param index
+     * @param level
+     * @return
+     */
+    public int getCardinalityAt(int column, int index, int level) {
+        return generalized[column][level][index];
+    }
+
+    /**
+     * Returns the generalized values stored for the given level in ascending order. Values which
+     * are not contained have a cardinality of 0. The level must be greater than 0.
+     *
+     * @param column
+     * @param level
+     * @return
+     */
+    public int[] getValues(int column, int level) {
+        return values[column][level];
+    }
+
+    /**
+     * Computes the cardinalities for the given column
+     * 
+     * @param array
+     * @param domainSize
+     * @param subset
+     * @param hierarchies
+     * @param column
+     */
+    private void initialize(DataMatrix array, int domainSize, RowSet subset, GeneralizationHierarchy[] hierarchies, int column) {
+        
         // Compute counts
-        for (int i = 0; i < array.getNumRows(); i++) { 
-            if (subset == null || subset.contains(i)) {
-                array.setRow(i);
-                for (int column = 0; column < array.getNumColumns(); column++) {
-                    cardinalities[column][array.getValueAtColumn(column)][0]++;
-                }
+        int[] counts = new int[domainSize];
+        for (int row = 0; row < array.getNumRows(); row++) {
+            if (subset == null || subset.contains(row)) {
+                counts[array.get(row, column)]++;
             }
         }
+        this.counts[column] = counts;
+        
+        // Check
+        if (column >= hierarchies.length) {
+            return;
+        }
 
         // Create counts for other levels
-        for (int column = 0; column < hierarchies.length; column++) {
-            final int[][] hierarchy = hierarchies[column].getArray();
-            for (int in = 0; in < hierarchy.length; in++) {
-                final int cardinality = cardinalities[column][in][0];
+        final int[][] hierarchy = hierarchies[column].getArray();
+        int[][] values = new int[hierarchy[0].length][];
+        int[][] generalized = new int[values.length][];
+        for (int level = 1; level < values.length; level++) {
+            values[level] = hierarchies[column].getDistinctValuesSorted(level);
+            generalized[level] = new int[values[level].length];
+        }
+        for (int in = 0; in < hierarchy.length; in++) {
+            final int cardinality = counts[in];
+            if (cardinality != 0) {
                 for (int level = 1; level < hierarchy[in].length; level++) {
-                    final int out = hierarchy[in][level];
-                    cardinalities[column][out][level] += cardinality;
+                    generalized[level][Arrays.binarySearch(values[level], hierarchy[in][level])] += cardinality;
                 }
             }
         }
+        this.values[column] = values;
+        this.generalized[column] = generalized;
     }
-    
+
     /**
-     * For backwards compatibility, derives the cardinalities from the given array.
-     *
+     * Derives the cardinalities from the given array: Column -> Id -> Level -> Count
+     * 
      * @param cardinalities
      */
-    public Cardinalities(int[][][] cardinalities) {
-        this.cardinalities = cardinalities;
+    private void initialize(int[][][] cardinalities) {
+        
+        // Initialize
+        int columns = cardinalities.length;
+        this.counts = new int[columns][];
+        this.values = new int[columns][][];
+        this.generalized = new int[columns][][];
+        
+        // For each column
+        for (int column = 0; column < columns; column++) {
+            
+            // Ungeneralized values
+            int[][] cardinality = cardinalities[column];
+            int levels = cardinality.length == 0 ? 0 : cardinality[0].length;
+            counts[column] = new int[cardinality.length];
+            for (int value = 0; value < cardinality.length; value++) {
+                counts[column][value] = levels == 0 ? 0 : cardinality[value][0];
+            }
+            
+            // Generalized values
+            values[column] = new int[levels][];
+            generalized[column] = new int[levels][];
+            for (int level = 1; level < levels; level++) {
+                int size = 0;
+                for (int value = 0; value < cardinality.length; value++) {
+                    size += cardinality[value][level] != 0 ? 1 : 0;
+                }
+                values[column][level] = new int[size];
+                generalized[column][level] = new int[size];
+                int index = 0;
+                for (int value = 0; value < cardinality.length; value++) {
+                    if (cardinality[value][level] != 0) {
+                        values[column][level][index] = value;
+                        generalized[column][level][index++] = cardinality[value][level];
+                    }
+                }
+            }
+        }
     }
-
+    
     /**
-     * Returns the cardinalities of the given value.
+     * De-serialization. Supports the previous representation as an array: Column -> Id -> Level -> Count.
      *
-     * @return
+     * @param stream
+     * @throws ClassNotFoundException
+     * @throws IOException
      */
-    public int[][][] getCardinalities(){
-        return cardinalities;
+    private void readObject(ObjectInputStream stream) throws ClassNotFoundException, IOException {
+        ObjectInputStream.GetField fields = stream.readFields();
+        if (fields.getObjectStreamClass().getField("cardinalities") != null) {
+            this.initialize((int[][][]) fields.get("cardinalities", null));
+        } else {
+            this.counts = (int[][]) fields.get("counts", null);
+            this.values = (int[][][]) fields.get("values", null);
+            this.generalized = (int[][][]) fields.get("generalized", null);
+        }
     }
 }
@@ -121,22 +121,25 @@ public class MetricMDNMLossPrecomputed extends MetricMDNMLoss {
         double[] bound = new double[dimensions];
         DomainShare[] shares = super.getShares();
         double gFactor = super.getGeneralizationFactor();
-        // Column -> Id -> Level -> Count
-        int[][][] cardinalities = this.cardinalities.getCardinalities();
-
 
         // For each column
         for (int column = 0; column < dimensionsGeneralized; column++) {
 
             // Check for cached value
             int level = transformation[column];
-            int[][] cardinality = cardinalities[column];
-            int[] values = this.values[column][level];
-            
-            for (int value : values) {
-                double count = cardinality[value][level];
-                double share = count * shares[column].getShare(value, level);
-                bound[column] += share * gFactor;
+            if (level == 0) {
+                for (int value : this.values[column][level]) {
+                    double count = cardinalities.getCardinality(column, value, level);
+                    double share = count * shares[column].getShare(value, level);
+                    bound[column] += share * gFactor;
+                }
+            } else {
+                int[] values = cardinalities.getValues(column, level);
+                for (int index = 0; index < values.length; index++) {
+                    double count = cardinalities.getCardinalityAt(column, index, level);
+                    double share = count * shares[column].getShare(values[index], level);
+                    bound[column] += share * gFactor;
+                }
             }
         }
         // Note: we ignore microaggregation, as we cannot compute a bound for it
@@ -171,7 +174,7 @@ public class MetricMDNMLossPrecomputed extends MetricMDNMLoss {
         RowSet subset = super.getSubset(config);
         
         // Cardinalities
-        this.cardinalities = new Cardinalities(input, subset, hierarchies);
+        this.cardinalities = new Cardinalities(input, subset, hierarchies, config.getNumberOfThreads());
         
         // Distinct values
         this.values = new int[hierarchies.length][][];
@@ -256,7 +256,6 @@ public class MetricMDNUEntropyPrecomputed extends AbstractMetricMultiDimensional
     protected double[] getInformationLossInternalRaw(final Transformation<?> node, final HashGroupify g) {
 
         // Prepare
-        int[][][] cardinalities = this.cardinalities.getCardinalities();
         double[] result = new double[hierarchies.length];
         double gFactor = super.getGeneralizationFactor();
 
@@ -268,12 +267,11 @@ public class MetricMDNUEntropyPrecomputed extends AbstractMetricMultiDimensional
             double value = cache[column][transformation];
             if (value == NOT_AVAILABLE) {
                 value = 0d;
-                final int[][] cardinality = cardinalities[column];
                 final int[][] hierarchy = hierarchies[column];
                 for (int in = 0; in < hierarchy.length; in++) {
                     final int out = hierarchy[in][transformation];
-                    final double a = cardinality[in][0];
-                    final double b = cardinality[out][transformation];
+                    final double a = cardinalities.getCardinality(column, in, 0);
+                    final double b = cardinalities.getCardinality(column, out, transformation);
                     if (a != 0d) {
                         value += a * log2(a / b);
                     }
@@ -304,7 +302,6 @@ public class MetricMDNUEntropyPrecomputed extends AbstractMetricMultiDimensional
     protected double[] getUpperBounds() {
 
         // Prepare
-        int[][][] cardinalities = this.cardinalities.getCardinalities();
         double[] result = new double[hierarchies.length];
         double gFactor = super.getGeneralizationFactor();
 
@@ -313,10 +310,9 @@ public class MetricMDNUEntropyPrecomputed extends AbstractMetricMultiDimensional
 
             // Compute entropy
             double value = 0d;
-            final int[][] cardinality = cardinalities[column];
             final int[][] hierarchy = hierarchies[column];
             for (int in = 0; in < hierarchy.length; in++) {
-                final double a = cardinality[in][0];
+                final double a = cardinalities.getCardinality(column, in, 0);
                 if (a != 0d) {
                     value += a * log2(a / rows);
                 }
@@ -374,7 +370,7 @@ public class MetricMDNUEntropyPrecomputed extends AbstractMetricMultiDimensional
         RowSet subset = super.getSubset(config);
         
         // Cardinalities
-        this.cardinalities = new Cardinalities(input, subset, hierarchies);
+        this.cardinalities = new Cardinalities(input, subset, hierarchies, config.getNumberOfThreads());
         this.rows = input.getDataLength();
         double gFactor = super.getGeneralizationFactor();
         double sFactor = super.getSuppressionFactor();
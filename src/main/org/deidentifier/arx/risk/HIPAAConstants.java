@@ -136,6 +136,17 @@ public abstract class HIPAAConstants {
         return getZipcodes().contains(value);
     }
     
+    /**
+     * Loads all dictionaries. Afterwards, they may be accessed by multiple threads.
+     */
+    void loadDictionaries() {
+        getCities();
+        getFirstnames();
+        getLastnames();
+        getStates();
+        getZipcodes();
+    }
+    
     /** Cities */
     private Set<String> getCities() {
         if (cities == null) {
@@ -79,6 +79,14 @@ class HIPAAIdentifierConfig {
         return identifier;
     }
     
+    /**
+     * Returns the matcher for values, null if there is none
+     * @return
+     */
+    HIPAAMatcherAttributeValue getMatcherValue() {
+        return matcherValue;
+    }
+    
     /**
      * Returns if the attribute name matches
      * 
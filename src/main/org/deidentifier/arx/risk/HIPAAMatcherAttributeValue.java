@@ -17,14 +17,20 @@
 
 package org.deidentifier.arx.risk;
 
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
 import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TimeZone;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import org.apache.commons.validator.routines.CalendarValidator;
-import org.apache.commons.validator.routines.DateValidator;
 import org.apache.commons.validator.routines.EmailValidator;
 import org.apache.commons.validator.routines.InetAddressValidator;
 import org.apache.commons.validator.routines.UrlValidator;
@@ -32,11 +38,194 @@ import org.apache.commons.validator.routines.checkdigit.IBANCheckDigit;
 import org.deidentifier.arx.DataType;
 
 /**
- * Interfaces the patterns
+ * Interfaces the patterns. Matchers do not have state, values are matched using a
+ * {@link HIPAAMatcherContext}, which must not be shared between threads.
  * @author Florian Kohlmayer, Fabian Prasser, David Gassmann
  */
 abstract class HIPAAMatcherAttributeValue {
     
+    /**
+     * The value to match, the characters it contains and its normalized form, which are shared by
+     * all matchers. Also holds date formats and regular expressions, which are reused for all values.
+     * @author Fabian Prasser
+     */
+    static class HIPAAMatcherContext {
+
+        /** Feature: contains a digit */
+        private static final int              FEATURE_DIGIT  = 1 << 0;
+        /** Feature: contains '@' */
+        private static final int              FEATURE_AT     = 1 << 1;
+        /** Feature: contains '.' */
+        private static final int              FEATURE_DOT    = 1 << 2;
+        /** Feature: contains ':' */
+        private static final int              FEATURE_COLON  = 1 << 3;
+        /** Feature: is not empty and consists of digits, '+' and '-' only */
+        private static final int              FEATURE_NUMBER = 1 << 4;
+
+        /** Date formats */
+        private final Map<String, SimpleDateFormat> formats  = new HashMap<>();
+
+        /** Matchers for regular expressions */
+        private final Map<Pattern, Matcher>   matchers       = new IdentityHashMap<>();
+
+        /** Time zone */
+        private final TimeZone                timeZone       = TimeZone.getDefault();
+
+        /** Features of the current value */
+        private int                           features;
+
+        /** Current value */
+        private String                        value;
+
+        /** Current value, trimmed and in lower case */
+        private String                        normalized;
+
+        /**
+         * Creates a new instance
+         */
+        HIPAAMatcherContext() {
+            // Empty by design
+        }
+
+        /**
+         * Creates a new instance for the given value
+         * @param value
+         */
+        HIPAAMatcherContext(String value) {
+            setValue(value);
+        }
+
+        /**
+         * Returns the current value
+         * @return
+         */
+        String getValue() {
+            return value;
+        }
+
+        /**
+         * Returns the current value, trimmed and in lower case
+         * @return
+         */
+        String getNormalized() {
+            return normalized;
+        }
+
+        /**
+         * Returns whether the current value contains a digit
+         * @return
+         */
+        boolean isDigitContained() {
+            return (features & FEATURE_DIGIT) != 0;
+        }
+
+        /**
+         * Returns whether the current value contains '@'
+         * @return
+         */
+        boolean isAtContained() {
+            return (features & FEATURE_AT) != 0;
+        }
+
+        /**
+         * Returns whether the current value contains ':'
+         * @return
+         */
+        boolean isColonContained() {
+            return (features & FEATURE_COLON) != 0;
+        }
+
+        /**
+         * Returns whether the current value contains '.'
+         * @return
+         */
+        boolean isDotContained() {
+            return (features & FEATURE_DOT) != 0;
+        }
+
+        /**
+         * Returns whether the current value is not empty and consists of digits, '+' and '-' only
+         * @return
+         */
+        boolean isNumber() {
+            return (features & FEATURE_NUMBER) != 0;
+        }
+
+        /**
+         * Returns whether the given string matches the given pattern
+         * @param pattern
+         * @param string
+         * @return
+         */
+        boolean matches(Pattern pattern, String string) {
+            Matcher matcher = matchers.get(pattern);
+            if (matcher == null) {
+                matcher = pattern.matcher(string);
+                matchers.put(pattern, matcher);
+            } else {
+                matcher.reset(string);
+            }
+            return matcher.matches();
+        }
+
+        /**
+         * Parses the given string with a non-lenient format in the same way as commons-validator's
+         * <code>DateValidator</code>, which requires the complete string to be parsed
+         * @param format
+         * @param string
+         * @return the date or null
+         */
+        Date parse(String format, String string) {
+            SimpleDateFormat parser = formats.get(format);
+            if (parser == null) {
+                parser = new SimpleDateFormat(format);
+                parser.setLenient(false);
+                formats.put(format, parser);
+            }
+            
+            // Parsing may change the time zone
+            parser.setTimeZone(timeZone);
+            ParsePosition position = new ParsePosition(0);
+            Date date = parser.parse(string, position);
+            if (position.getErrorIndex() > -1 || position.getIndex() < string.length()) {
+                return null;
+            }
+            return date;
+        }
+
+        /**
+         * Sets the value to match
+         * @param value
+         */
+        void setValue(String value) {
+            this.value = value;
+            this.normalized = value.trim().toLowerCase();
+            int features = value.isEmpty() ? 0 : FEATURE_NUMBER;
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (Character.isDigit(c)) {
+                    features |= FEATURE_DIGIT;
+                } else {
+                    switch (c) {
+                    case '@':
+                        features |= FEATURE_AT;
+                        break;
+                    case '.':
+                        features |= FEATURE_DOT;
+                        break;
+                    case ':':
+                        features |= FEATURE_COLON;
+                        break;
+                    }
+                    if (c != '+' && c != '-') {
+                        features &= ~FEATURE_NUMBER;
+                    }
+                }
+            }
+            this.features = features;
+        }
+    }
+    
     /**
      * Pattern which matches numbers and checks whether they are ages
      * @author Florian Kohlmayer, Fabian Prasser, David Gassmann
@@ -52,13 +241,13 @@ abstract class HIPAAMatcherAttributeValue {
         }
         
         @Override
-        public boolean matches(String value) {
-            if (value.isEmpty()) {
+        boolean matches(HIPAAMatcherContext context) {
+            if (!context.isNumber()) {
                 return false;
             }
             
             try {
-                int number = Integer.valueOf(value);
+                int number = Integer.valueOf(context.getValue());
                 return (number >= 0 && number <= 130);
             } catch (Exception e) {
                 return false;
@@ -81,9 +270,8 @@ abstract class HIPAAMatcherAttributeValue {
         }
         
         @Override
-        public boolean matches(String value) {
-            value = value.trim().toLowerCase();
-            return constants.isCity(value);
+        boolean matches(HIPAAMatcherContext context) {
+            return constants.isCity(context.getNormalized());
         }
     }
     
@@ -93,37 +281,55 @@ abstract class HIPAAMatcherAttributeValue {
      */
     static class HIPAAMatcherDate extends HIPAAMatcherAttributeValue {
 
+        /** Pattern letters of numeric date fields */
+        private static final String NUMERIC_FIELDS = "yudHhkKmsSDFwW";
+
+        /** Date formats */
+        private final String[]      formats;
+
+        /** Whether all date formats only match values with digits */
+        private final boolean       digitRequired;
+
         /**
          * Creates a new instance
          * @param constants
          */
         HIPAAMatcherDate(HIPAAConstants constants) {
             super(constants);
+            List<String> formats = DataType.DATE.getDescription().getExampleFormats();
+            this.formats = formats.toArray(new String[formats.size()]);
+            boolean digitRequired = true;
+            for (String format : this.formats) {
+                digitRequired &= isNumericFieldContained(format);
+            }
+            this.digitRequired = digitRequired;
         }
         
         @Override
-        public boolean matches(String value) {
+        boolean matches(HIPAAMatcherContext context) {
+            String value = context.getNormalized();
             if (value.isEmpty()) {
                 return false;
             }
             
-            value = value.toLowerCase().trim();
-
-            if (isDate(value)) {
+            if (isDate(context, value)) {
                 return true;
             }
             
-            return isYearOlderThan89(value);
+            return isYearOlderThan89(context, value);
         }
         
         /**
+         * @param context
          * @param value Cell content
          * @return True if input is a date
          */
-        private boolean isDate(String value) {
-            DateValidator validator = DateValidator.getInstance();
-            for (String format : DataType.DATE.getDescription().getExampleFormats()) {
-                if (validator.isValid(value, format)) {
+        private boolean isDate(HIPAAMatcherContext context, String value) {
+            if (digitRequired && !context.isDigitContained()) {
+                return false;
+            }
+            for (String format : formats) {
+                if (context.parse(format, value) != null) {
                     return true;
                 }
             }
@@ -131,20 +337,40 @@ abstract class HIPAAMatcherAttributeValue {
         }
         
         /**
+         * Returns whether the given date format contains a numeric field outside of quoted text
+         * @param format
+         * @return
+         */
+        private boolean isNumericFieldContained(String format) {
+            boolean quoted = false;
+            for (int i = 0; i < format.length(); i++) {
+                char c = format.charAt(i);
+                if (c == '\'') {
+                    quoted = !quoted;
+                } else if (!quoted && NUMERIC_FIELDS.indexOf(c) != -1) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        
+        /**
+         * @param context
          * @param value Cell content
          * @return True if input is a year and older than 89
          */
-        private boolean isYearOlderThan89(String value) {
+        private boolean isYearOlderThan89(HIPAAMatcherContext context, String value) {
             if (value.length() != 4) {
                 return false;
             }
             
-            CalendarValidator validator = CalendarValidator.getInstance();
-            Calendar date = validator.validate(value, "yyyy");
+            Date date = context.parse("yyyy", value);
             if (date == null) {
                 return false;
             }
-            int birthYear = validator.validate(value, "yyyy").get(Calendar.YEAR);
+            Calendar calendar = Calendar.getInstance();
+            calendar.setTime(date);
+            int birthYear = calendar.get(Calendar.YEAR);
             int currentYear = Calendar.getInstance().get(Calendar.YEAR);
             return ((currentYear - birthYear) > 89) && ((currentYear - birthYear) < 130); // Filter out differences above 130, as humans do not get older than that
         }
@@ -165,9 +391,12 @@ abstract class HIPAAMatcherAttributeValue {
         }
         
         @Override
-        public boolean matches(String value) {
+        boolean matches(HIPAAMatcherContext context) {
+            if (!context.isAtContained()) {
+                return false;
+            }
             EmailValidator validator = EmailValidator.getInstance();
-            return validator.isValid(value);
+            return validator.isValid(context.getValue());
         }
     }
     
@@ -186,9 +415,8 @@ abstract class HIPAAMatcherAttributeValue {
         }
         
         @Override
-        public boolean matches(String value) {
-            value = value.trim().toLowerCase();
-            return constants.isFirstname(value);
+        boolean matches(HIPAAMatcherContext context) {
+            return constants.isFirstname(context.getNormalized());
         }
     }
     
@@ -202,12 +430,12 @@ abstract class HIPAAMatcherAttributeValue {
         }
         
         @Override
-        public boolean matches(String value) {
-            if (!super.matches(value)) {
+        boolean matches(HIPAAMatcherContext context) {
+            if (!super.matches(context)) {
                 return false;
             }
             
-            value = value.replaceAll("\\s+", "");
+            String value = context.getValue().replaceAll("\\s+", "");
             IBANCheckDigit validator = new IBANCheckDigit();
             return validator.isValid(value);
         }
@@ -228,9 +456,12 @@ abstract class HIPAAMatcherAttributeValue {
         }
         
         @Override
-        public boolean matches(String value) {
+        boolean matches(HIPAAMatcherContext context) {
+            if (!context.isDotContained() && !context.isColonContained()) {
+                return false;
+            }
             InetAddressValidator validator = InetAddressValidator.getInstance();
-            return validator.isValid(value);
+            return validator.isValid(context.getValue());
         }
     }
     
@@ -249,9 +480,8 @@ abstract class HIPAAMatcherAttributeValue {
         }
         
         @Override
-        public boolean matches(String value) {
-            value = value.trim().toLowerCase();
-            return constants.isLastname(value);
+        boolean matches(HIPAAMatcherContext context) {
+            return constants.isLastname(context.getNormalized());
         }
     }
 
@@ -263,6 +493,12 @@ abstract class HIPAAMatcherAttributeValue {
         HIPAAMatcherSSN() {
             super("[0-9]{3}-[0-9]{2}-[0-9]{4}|[0-9]{9}");
         }
+        
+        @Override
+        boolean matches(HIPAAMatcherContext context) {
+            int length = context.getValue().length();
+            return (length == 9 || length == 11) && super.matches(context);
+        }
     }
     /**
      * Pattern which matches a state with a predefined list of states
@@ -279,9 +515,8 @@ abstract class HIPAAMatcherAttributeValue {
         }
         
         @Override
-        public boolean matches(String value) {
-            value = value.trim().toLowerCase();
-            return constants.isState(value);
+        boolean matches(HIPAAMatcherContext context) {
+            return constants.isState(context.getNormalized());
         }
     }
     
@@ -290,17 +525,16 @@ abstract class HIPAAMatcherAttributeValue {
      * @author Florian Kohlmayer, Fabian Prasser, David Gassmann
      */
     static abstract class HIPAAMatcherString extends HIPAAMatcherAttributeValue {
-        Matcher matcher;
+        final Pattern pattern;
         
         HIPAAMatcherString(String regex) {
             super(null);
-            Pattern pattern = Pattern.compile(regex);
-            matcher = pattern.matcher("");
+            pattern = Pattern.compile(regex);
         }
         
         @Override
-        public boolean matches(String value) {
-            return matcher.reset(value).matches();
+        boolean matches(HIPAAMatcherContext context) {
+            return context.matches(pattern, context.getValue());
         }
     }
     
@@ -319,9 +553,12 @@ abstract class HIPAAMatcherAttributeValue {
         }
         
         @Override
-        public boolean matches(String value) {
+        boolean matches(HIPAAMatcherContext context) {
+            if (!context.isColonContained()) {
+                return false;
+            }
             UrlValidator validator = UrlValidator.getInstance();
-            return validator.isValid(value);
+            return validator.isValid(context.getValue());
         }
     }
     
@@ -335,9 +572,9 @@ abstract class HIPAAMatcherAttributeValue {
         }
         
         @Override
-        public boolean matches(String value) {
-            value = value.replaceAll("\\s+", "").replaceAll("-", "");
-            return super.matches(value);
+        boolean matches(HIPAAMatcherContext context) {
+            String value = context.getValue().replaceAll("\\s+", "").replaceAll("-", "");
+            return context.matches(pattern, value);
         }
     }
     
@@ -379,8 +616,18 @@ abstract class HIPAAMatcherAttributeValue {
         }
         
         @Override
-        public boolean matches(String value) {
-            value = value.replaceAll("\\s+", "").replaceAll("-", "");
+        boolean matches(HIPAAMatcherContext context) {
+            
+            // Remove whitespace and dashes
+            String value = context.getValue();
+            StringBuilder builder = new StringBuilder(value.length());
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c != ' ' && c != '\t' && c != '\n' && c != '\u000B' && c != '\f' && c != '\r' && c != '-') {
+                    builder.append(c);
+                }
+            }
+            value = builder.toString();
             if (constants.isZipcode(value)) {
                 if (value.length() >= 3) {
                     String zipCode = value.substring(0, 3);
@@ -407,5 +654,14 @@ abstract class HIPAAMatcherAttributeValue {
      * @param value
      * @return
      */
-    public abstract boolean matches(String value);
+    public boolean matches(String value) {
+        return matches(new HIPAAMatcherContext(value));
+    }
+    
+    /**
+     * Returns true if the value of the given context matches the given Pattern.
+     * @param context
+     * @return
+     */
+    abstract boolean matches(HIPAAMatcherContext context);
 }
@@ -40,7 +40,10 @@ import de.linearbits.newtonraphson.Vector2D;
 class ModelPitman extends RiskModelPopulation {
 
     /** The result */
-    private final double numUniques;
+    private final double   numUniques;
+
+    /** The solution */
+    private final Vector2D solution;
 
     /**
      * Creates a new instance
@@ -54,6 +57,26 @@ class ModelPitman extends RiskModelPopulation {
                 final RiskModelHistogram histogram,
                 final NewtonRaphsonConfiguration<?> config,
                 final WrappedBoolean stop) {
+        this(model, histogram, config, stop, null);
+    }
+
+    /**
+     * Creates a new instance. If a start value is given, e.g. the solution for a similar
+     * histogram, the solver is first started from this value. Its solution is only used
+     * if it passes the same test as the solution found by the default procedure
+     * and yields an estimate.
+     * 
+     * @param model
+     * @param histogram
+     * @param config
+     * @param stop
+     * @param start may be null
+     */
+    ModelPitman(final ARXPopulationModel model,
+                final RiskModelHistogram histogram,
+                final NewtonRaphsonConfiguration<?> config,
+                final WrappedBoolean stop,
+                final Vector2D start) {
 
         super(histogram, model, stop, new WrappedInteger());
 
@@ -71,6 +94,19 @@ class ModelPitman extends RiskModelPopulation {
                    (((2 * c1 * u) + (c1 * c)) - (n * c));
         double a = ((t * (c1 - n)) + ((n - 1) * c1)) / (n * u);
 
+        // Try to start from the given value
+        if (start != null) {
+            NewtonRaphson2D solver = new NewtonRaphson2D(getMasterFunctionClosed(histogram.getHistogram(), u, n),
+                                                         getConstraint()).configure(config);
+            Vector2D result = solver.solve(new Vector2D(start.x, start.y));
+            double uniques = getResult(result, p);
+            if (!Double.isNaN(uniques) && isAccurate(result, histogram.getHistogram(), u, n, config.getAccuracy())) {
+                this.solution = result;
+                this.numUniques = uniques;
+                return;
+            }
+        }
+
         // Solve the Maximum Likelihood Estimates with Polygamma functions
         NewtonRaphson2D solver = new NewtonRaphson2D(getMasterFunctionClosed(histogram.getHistogram(), u, n),
                                                      getConstraint()).configure(config);
@@ -86,13 +122,8 @@ class ModelPitman extends RiskModelPopulation {
             // Else check the result against the iterative implementation
         } else {
 
-            // Run test
-            Vector2D test = getObjectFunctionsIterative(histogram.getHistogram(), u, n).evaluate(result);
-
             // Check result of test
-            if (Double.isNaN(test.x) || Double.isNaN(test.y) ||
-                Math.abs(test.x) > config.getAccuracy() ||
-                Math.abs(test.y) > config.getAccuracy()) {
+            if (!isAccurate(result, histogram.getHistogram(), u, n, config.getAccuracy())) {
 
                 // Use iterative implementation
                 solver = new NewtonRaphson2D(getMasterFunctionIterative(histogram.getHistogram(), u, n),
@@ -103,6 +134,8 @@ class ModelPitman extends RiskModelPopulation {
 
         // Compile the result
         this.numUniques = getResult(result, p);
+        this.solution = !Double.isNaN(this.numUniques) &&
+                        isAccurate(result, histogram.getHistogram(), u, n, config.getAccuracy()) ? result : null;
     }
 
     /**
@@ -114,6 +147,15 @@ class ModelPitman extends RiskModelPopulation {
         return this.numUniques;
     }
 
+    /**
+     * Returns the solution if it is accurate and yields an estimate, null otherwise
+     * 
+     * @return
+     */
+    Vector2D getSolution() {
+        return this.solution;
+    }
+
     /**
      * Returns a constraint on theta
      * @return
@@ -372,6 +414,25 @@ class ModelPitman extends RiskModelPopulation {
         };
     }
 
+    /**
+     * Returns whether the given solution passes the test against the iterative implementation
+     * 
+     * @param result
+     * @param classes
+     * @param u
+     * @param n
+     * @param accuracy
+     * @return
+     */
+    private boolean isAccurate(Vector2D result, int[] classes, double u, double n, double accuracy) {
+        if (Double.isNaN(result.x) || Double.isNaN(result.y)) {
+            return false;
+        }
+        Vector2D test = getObjectFunctionsIterative(classes, u, n).evaluate(result);
+        return !Double.isNaN(test.x) && !Double.isNaN(test.y) &&
+               Math.abs(test.x) <= accuracy && Math.abs(test.y) <= accuracy;
+    }
+
     /**
      * Compiles the result of running the solver
      * 
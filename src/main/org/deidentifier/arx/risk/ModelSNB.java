@@ -38,7 +38,10 @@ import de.linearbits.newtonraphson.Vector2D;
 class ModelSNB extends RiskModelPopulation {
 
     /** The result */
-    private final double uniques;
+    private final double   uniques;
+
+    /** The solution */
+    private final Vector2D solution;
 
     /**
      * Creates a new instance
@@ -52,6 +55,25 @@ class ModelSNB extends RiskModelPopulation {
              final RiskModelHistogram histogram,
              final NewtonRaphsonConfiguration<?> config,
              final WrappedBoolean stop) {
+        this(model, histogram, config, stop, null);
+    }
+
+    /**
+     * Creates a new instance. If a start value is given, e.g. the solution for a similar
+     * histogram, the solver is first started from this value. Its solution is only used
+     * if it solves the equations with the configured accuracy and yields an estimate.
+     * 
+     * @param model
+     * @param histogram
+     * @param config
+     * @param stop
+     * @param start may be null
+     */
+    ModelSNB(final ARXPopulationModel model,
+             final RiskModelHistogram histogram,
+             final NewtonRaphsonConfiguration<?> config,
+             final WrappedBoolean stop,
+             final Vector2D start) {
 
         super(histogram, model, stop, new WrappedInteger());
 
@@ -63,14 +85,31 @@ class ModelSNB extends RiskModelPopulation {
                                                       c1, super.getSamplingFraction());
         double f = getSamplingFraction();
 
+        // Try to start from the given value
+        Vector2D result = null;
+        if (start != null) {
+            result = new NewtonRaphson2D(getObjectFunction(k, f, c1, c2),
+                                         getDerivatives(k, f, c1, c2))
+                                        .configure(config)
+                                        .solve(new Vector2D(start.x, start.y));
+            if (Double.isNaN(k * Math.pow(result.y, result.x)) ||
+                !isAccurate(result, getObjectFunction(k, f, c1, c2), config.getAccuracy())) {
+                result = null;
+            }
+        }
+
         // Solve the maximum likelihood estimates
-        Vector2D result = new NewtonRaphson2D(getObjectFunction(k, f, c1, c2),
-                                              getDerivatives(k, f, c1, c2))
-                                             .configure(config)
-                                             .solve();
+        if (result == null) {
+            result = new NewtonRaphson2D(getObjectFunction(k, f, c1, c2),
+                                         getDerivatives(k, f, c1, c2))
+                                        .configure(config)
+                                        .solve();
+        }
 
         // Compile and store
         this.uniques = k * Math.pow(result.y, result.x);
+        this.solution = !Double.isNaN(this.uniques) &&
+                        isAccurate(result, getObjectFunction(k, f, c1, c2), config.getAccuracy()) ? result : null;
     }
 
     /**
@@ -82,6 +121,15 @@ class ModelSNB extends RiskModelPopulation {
         return this.uniques;
     }
 
+    /**
+     * Returns the solution if it is accurate and yields an estimate, null otherwise
+     * 
+     * @return
+     */
+    Vector2D getSolution() {
+        return this.solution;
+    }
+
     /**
      * @return Shlosser estimator for variable K, giving number of non zero
      *         classes in the population estimated according to Haas, 1998 and
@@ -208,4 +256,21 @@ class ModelSNB extends RiskModelPopulation {
             }
         };
     }
+
+    /**
+     * Returns whether the given solution solves the equations with the given accuracy
+     * 
+     * @param result
+     * @param function
+     * @param accuracy
+     * @return
+     */
+    private boolean isAccurate(Vector2D result, Function<Vector2D, Vector2D> function, double accuracy) {
+        if (Double.isNaN(result.x) || Double.isNaN(result.y)) {
+            return false;
+        }
+        Vector2D test = function.evaluate(result);
+        return !Double.isNaN(test.x) && !Double.isNaN(test.y) &&
+               Math.abs(test.x) <= accuracy && Math.abs(test.y) <= accuracy;
+    }
 }
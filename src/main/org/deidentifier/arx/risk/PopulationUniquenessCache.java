@@ -0,0 +1,298 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2020 Fabian Prasser and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.risk;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import org.deidentifier.arx.ARXPopulationModel;
+import org.deidentifier.arx.ARXSolverConfiguration;
+import org.deidentifier.arx.common.WrappedBoolean;
+import org.deidentifier.arx.common.WrappedInteger;
+import org.deidentifier.arx.risk.RiskModelPopulationUniqueness.PopulationUniquenessModel;
+
+import de.linearbits.newtonraphson.Vector2D;
+
+/**
+ * A bounded cache of estimates of population uniqueness for a given statistical model,
+ * population model and solver configuration. Estimates are looked up by the histogram of
+ * class sizes, which is the only input of the statistical models that varies. If the solving
+ * process is not configured to be deterministic, solutions of the Pitman and SNB models are
+ * also stored and used as start values for histograms with a similar number of classes
+ * (within 10%), as solutions for very different histograms may lead the solver to other roots.
+ * This class is thread-safe.
+ * 
+ * @author Fabian Prasser
+ */
+public class PopulationUniquenessCache {
+
+    /**
+     * A histogram used as a key
+     * 
+     * @author Fabian Prasser
+     */
+    private static class Key {
+
+        /** Histogram */
+        private final int[] histogram;
+
+        /** Hash code */
+        private final int   hashCode;
+
+        /**
+         * Creates a new instance
+         * 
+         * @param histogram
+         */
+        private Key(int[] histogram) {
+            this.histogram = histogram;
+            this.hashCode = Arrays.hashCode(histogram);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Key && Arrays.equals(histogram, ((Key) obj).histogram);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    /** Default capacity */
+    public static final int                 DEFAULT_CAPACITY = 1000;
+
+    /** Maximal relative difference in the number of classes for a solution to be used as a start value */
+    private static final double             MAX_DISTANCE     = 0.1d;
+
+    /** Statistical model */
+    private final PopulationUniquenessModel statisticalModel;
+
+    /** Population model */
+    private final ARXPopulationModel        populationModel;
+
+    /** Solver configuration */
+    private final ARXSolverConfiguration    config;
+
+    /** Capacity */
+    private final int                       capacity;
+
+    /** Histogram -> estimate */
+    private final Map<Key, Double>          estimates;
+
+    /** Number of classes -> solution of the Pitman model, null if start values are not used */
+    private final TreeMap<Double, Vector2D> solutionsPitman;
+
+    /** Number of classes -> solution of the SNB model, null if start values are not used */
+    private final TreeMap<Double, Vector2D> solutionsSNB;
+
+    /**
+     * Creates a new instance with the default capacity
+     * 
+     * @param statisticalModel
+     * @param populationModel
+     * @param config
+     */
+    public PopulationUniquenessCache(PopulationUniquenessModel statisticalModel,
+                                     ARXPopulationModel populationModel,
+                                     ARXSolverConfiguration config) {
+        this(statisticalModel, populationModel, config, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a new instance
+     * 
+     * @param statisticalModel
+     * @param populationModel
+     * @param config
+     * @param capacity
+     */
+    @SuppressWarnings("serial")
+    public PopulationUniquenessCache(PopulationUniquenessModel statisticalModel,
+                                     ARXPopulationModel populationModel,
+                                     ARXSolverConfiguration config,
+                                     final int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.statisticalModel = statisticalModel;
+        this.populationModel = populationModel;
+        this.config = config;
+        this.capacity = capacity;
+        this.estimates = new LinkedHashMap<Key, Double>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Entry<Key, Double> eldest) {
+                return size() > capacity;
+            }
+        };
+        boolean warmStart = !config.isDeterministic();
+        this.solutionsPitman = warmStart ? new TreeMap<Double, Vector2D>() : null;
+        this.solutionsSNB = warmStart ? new TreeMap<Double, Vector2D>() : null;
+    }
+
+    /**
+     * Returns the estimated fraction of unique tuples in the population for the given histogram.
+     * For Dankar's decision rule, Zayatz's model is not used as a fallback.
+     * 
+     * @param histogram
+     * @return
+     */
+    public double getFractionOfUniqueTuples(RiskModelHistogram histogram) {
+
+        // Lookup
+        Key key = new Key(histogram.getHistogram());
+        synchronized (estimates) {
+            Double estimate = estimates.get(key);
+            if (estimate != null) {
+                return estimate;
+            }
+        }
+
+        // Estimate outside of the lock
+        RiskModelPopulationUniqueness model = new RiskModelPopulationUniqueness(populationModel,
+                                                                                histogram,
+                                                                                new WrappedBoolean(),
+                                                                                new WrappedInteger(),
+                                                                                config,
+                                                                                false,
+                                                                                this);
+        double estimate = statisticalModel == PopulationUniquenessModel.DANKAR ?
+                model.getFractionOfUniqueTuplesDankar(false) :
+                model.getFractionOfUniqueTuples(statisticalModel);
+
+        // Store
+        synchronized (estimates) {
+            estimates.put(key, estimate);
+        }
+        return estimate;
+    }
+
+    /**
+     * Returns the number of cached estimates
+     * 
+     * @return
+     */
+    public int size() {
+        synchronized (estimates) {
+            return estimates.size();
+        }
+    }
+
+    /**
+     * Returns the stored solution of the Pitman model which is closest to the given number of classes, or null
+     * 
+     * @param classes
+     * @return
+     */
+    Vector2D getStartValuePitman(double classes) {
+        return getStartValue(solutionsPitman, classes);
+    }
+
+    /**
+     * Returns the stored solution of the SNB model which is closest to the given number of classes, or null
+     * 
+     * @param classes
+     * @return
+     */
+    Vector2D getStartValueSNB(double classes) {
+        return getStartValue(solutionsSNB, classes);
+    }
+
+    /**
+     * Stores a solution of the Pitman model
+     * 
+     * @param classes
+     * @param solution
+     */
+    void setSolutionPitman(double classes, Vector2D solution) {
+        setSolution(solutionsPitman, classes, solution);
+    }
+
+    /**
+     * Stores a solution of the SNB model
+     * 
+     * @param classes
+     * @param solution
+     */
+    void setSolutionSNB(double classes, Vector2D solution) {
+        setSolution(solutionsSNB, classes, solution);
+    }
+
+    /**
+     * Returns the stored solution which is closest to the given number of classes, or null
+     * if there is no solution for a similar number of classes
+     * 
+     * @param solutions
+     * @param classes
+     * @return
+     */
+    private Vector2D getStartValue(TreeMap<Double, Vector2D> solutions, double classes) {
+        if (solutions == null) {
+            return null;
+        }
+        synchronized (solutions) {
+            Entry<Double, Vector2D> entry = getClosest(solutions, classes);
+            if (entry == null || Math.abs(entry.getKey() - classes) > MAX_DISTANCE * classes) {
+                return null;
+            }
+            return new Vector2D(entry.getValue().x, entry.getValue().y);
+        }
+    }
+
+    /**
+     * Returns the entry with the key closest to the given number of classes, or null
+     * 
+     * @param solutions
+     * @param classes
+     * @return
+     */
+    private Entry<Double, Vector2D> getClosest(TreeMap<Double, Vector2D> solutions, double classes) {
+        Entry<Double, Vector2D> floor = solutions.floorEntry(classes);
+        Entry<Double, Vector2D> ceiling = solutions.ceilingEntry(classes);
+        if (floor == null) {
+            return ceiling;
+        } else if (ceiling == null) {
+            return floor;
+        } else {
+            return classes - floor.getKey() <= ceiling.getKey() - classes ? floor : ceiling;
+        }
+    }
+
+    /**
+     * Stores a solution. If the capacity is reached, the solution closest to the new one is replaced.
+     * 
+     * @param solutions
+     * @param classes
+     * @param solution
+     */
+    private void setSolution(TreeMap<Double, Vector2D> solutions, double classes, Vector2D solution) {
+        if (solutions == null || solution == null) {
+            return;
+        }
+        synchronized (solutions) {
+            if (solutions.size() >= capacity && !solutions.containsKey(classes)) {
+                solutions.remove(getClosest(solutions, classes).getKey());
+            }
+            solutions.put(classes, new Vector2D(solution.x, solution.y));
+        }
+    }
+}
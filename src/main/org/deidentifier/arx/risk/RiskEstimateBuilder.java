@@ -175,7 +175,24 @@ public class RiskEstimateBuilder {
      */
     public RiskModelAttributes getAttributeRisks() {
         progress.value = 0;
-        return new RiskModelAttributes(this.population, this.handle, this.identifiers, this.stop, progress, this.solverconfig, this.arxconfig);
+        return new RiskModelAttributes(this.handle, this.identifiers, this.stop, progress, getNumberOfThreads(), 0);
+    }
+
+    /**
+     * Returns a class providing access to an analysis of potential quasi-identifiers using
+     * the concepts of alpha distinction and alpha separation. Only the given number of most
+     * risky quasi-identifiers of each size will be extended by further attributes, which
+     * makes the analysis feasible for data sets with many quasi-identifiers.
+     *
+     * @param limit
+     * @return the RiskModelAttributes data from risk analysis
+     */
+    public RiskModelAttributes getAttributeRisks(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Parameter must be > 0");
+        }
+        progress.value = 0;
+        return new RiskModelAttributes(this.handle, this.identifiers, this.stop, progress, getNumberOfThreads(), limit);
     }
 
     /**
@@ -194,7 +211,7 @@ public class RiskEstimateBuilder {
      * @return
      */
     public HIPAAIdentifierMatch[] getHIPAAIdentifiers() {
-        return new RiskModelHIPAASafeHarbor().getMatches(handle, 0.5d, stop);
+        return new RiskModelHIPAASafeHarbor().getMatches(handle, 0.5d, stop, getNumberOfThreads());
     }
 
     /**
@@ -205,7 +222,7 @@ public class RiskEstimateBuilder {
      * @return
      */
     public HIPAAIdentifierMatch[] getHIPAAIdentifiers(double threshold) {
-        return new RiskModelHIPAASafeHarbor().getMatches(handle, threshold, stop);
+        return new RiskModelHIPAASafeHarbor().getMatches(handle, threshold, stop, getNumberOfThreads());
     }
 
     /**
@@ -328,6 +345,15 @@ public class RiskEstimateBuilder {
         }
     }
 
+    /**
+     * Returns the number of threads which may be used for analyses
+     *
+     * @return
+     */
+    private int getNumberOfThreads() {
+        return arxconfig == null ? 1 : arxconfig.getNumberOfThreads();
+    }
+
     /**
      * Returns a class providing population-based uniqueness estimates
      *
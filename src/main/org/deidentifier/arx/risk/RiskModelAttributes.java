@@ -19,27 +19,33 @@ package org.deidentifier.arx.risk;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
+import java.util.BitSet;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
-import org.deidentifier.arx.ARXConfiguration;
-import org.deidentifier.arx.ARXPopulationModel;
-import org.deidentifier.arx.ARXSolverConfiguration;
 import org.deidentifier.arx.DataHandleInternal;
+import org.deidentifier.arx.common.EncodedGroupify;
+import org.deidentifier.arx.common.TaskExecutor;
 import org.deidentifier.arx.common.WrappedBoolean;
 import org.deidentifier.arx.common.WrappedInteger;
 import org.deidentifier.arx.exceptions.ComputationInterruptedException;
 
+import com.carrotsearch.hppc.IntIntOpenHashMap;
+import com.carrotsearch.hppc.LongIntOpenHashMap;
+
 /**
  * A class for analyzing attribute-related risks. Calculates alpha-distinction and
  * alpha separation as described in R. Motwani et al.
  * "Efficient algorithms for masking and finding quasi-identifiers" Proc. VLDB Conf., 2007.
- *
+ * 
+ * The records are partitioned once per attribute. The partitions of combinations of attributes
+ * are derived by refining the partition of a subset, one attribute at a time, instead of
+ * scanning the data set for each combination. Combinations may be analyzed by multiple threads.
+ * Optionally, only a given number of the most risky combinations of each size is extended by
+ * further attributes.
  *
  * @author Fabian Prasser
  * @author Maximilian Zitzmann
@@ -65,20 +71,13 @@ public class RiskModelAttributes {
          * Creates a new instance
          *
          * @param identifier
+         * @param histogram
          */
-        private QuasiIdentifierRisk(List<String> identifier) {
+        private QuasiIdentifierRisk(List<String> identifier, RiskModelHistogram histogram) {
 
             // Store identifier
             this.identifier = identifier;
 
-            // Calculate distribution of class sizes
-            RiskModelHistogram histogram = new RiskEstimateBuilder(population,
-                                                                   handle,
-                                                                   new HashSet<String>(identifier),
-                                                                   stop,
-                                                                   solverconfig,
-                                                                   arxconfig).getEquivalenceClassModel();
-
             // Calculate distinction and separation
             this.alphaDistinction = getAlphaDistinction(histogram);
             this.alphaSeparation = getAlphaSeparation(histogram);
@@ -136,82 +135,135 @@ public class RiskModelAttributes {
             return Double.isNaN(alphaSeparation) ? 0d : alphaSeparation;
         }
     }
+
+    /**
+     * A partition of the records by their values regarding a combination of attributes
+     *
+     * @author Fabian Prasser
+     */
+    private static final class Partition {
+
+        /** Attributes, sorted ascending */
+        private final int[]     attributes;
+        /** Record -> class */
+        private final int[]     classes;
+        /** Number of classes */
+        private final int       size;
+        /** Record -> whether the record is suppressed regarding the attributes */
+        private final boolean[] suppressed;
+
+        /**
+         * Creates a new instance
+         * 
+         * @param attributes
+         * @param classes
+         * @param size
+         * @param suppressed
+         */
+        private Partition(int[] attributes, int[] classes, int size, boolean[] suppressed) {
+            this.attributes = attributes;
+            this.classes = classes;
+            this.size = size;
+            this.suppressed = suppressed;
+        }
+
+        /**
+         * Returns whether the partition covers the given attribute
+         * 
+         * @param attribute
+         * @return
+         */
+        private boolean contains(int attribute) {
+            return Arrays.binarySearch(attributes, attribute) >= 0;
+        }
+    }
+
+    /** Combinations of up to this number of attributes are distributed across threads */
+    private static final int            ROOT_SIZE                = 3;
+    /** Partitions are refined with direct addressing if the number of potential classes is less than rows times this factor */
+    private static final int            DIRECT_ADDRESSING_FACTOR = 4;
     /** Stop flag */
     private final WrappedBoolean        stop;
     /** Results */
     private final QuasiIdentifierRisk[] risks;
-    /** Just needed for creating risk models */
-    private ARXPopulationModel          population;
-    /** Data handle */
-    private DataHandleInternal          handle;
-    /** Just needed for creating risk models */
-    private ARXSolverConfiguration      solverconfig;
-    /** Just needed for creating risk models */
-    private ARXConfiguration            arxconfig;
+    /** Progress */
+    private final WrappedInteger        percentageDone;
+    /** Attributes, sorted by column index */
+    private final String[]              attributes;
+    /** Attribute -> record -> identifier of value */
+    private final int[][]               values;
+    /** Attribute -> number of distinct values */
+    private final int[]                 cardinalities;
+    /** Attribute -> record -> whether the value is suppressed */
+    private final boolean[][]           suppressed;
+    /** Number of records */
+    private final int                   numRows;
+    /** Number of combinations to analyze, 0 if unknown */
+    private long                        total;
+    /** Number of combinations analyzed */
+    private long                        done;
 
     /**
      * Creates a new instance
-     * @param population
      * @param handle
      * @param identifiers
      * @param stop
      * @param percentageDone
-     * @param solverconfig
-     * @param arxconfig
+     * @param numThreads
+     * @param limit Number of combinations of each size which are extended, 0 for all
      */
-    RiskModelAttributes(final ARXPopulationModel population,
-                        final DataHandleInternal handle,
+    RiskModelAttributes(final DataHandleInternal handle,
                         final Set<String> identifiers,
                         final WrappedBoolean stop,
                         final WrappedInteger percentageDone,
-                        final ARXSolverConfiguration solverconfig,
-                        final ARXConfiguration arxconfig) {
+                        final int numThreads,
+                        final int limit) {
         
-        this.population = population;
-        this.handle = handle;
         this.stop = stop;
-        this.solverconfig = solverconfig;
-        this.arxconfig = arxconfig;
+        this.percentageDone = percentageDone;
+        this.numRows = handle.getNumRows();
 
-        // Find order list of qis
-        List<List<String>> qis = new ArrayList<>();
-        Set<Set<String>> powerset = getPowerSet(identifiers);
-        for (Set<String> set : powerset) {
-            
-            // Exclude empty set
-            if (!set.isEmpty()) {
-                
-                // Create and add
-                List<String> qi = new ArrayList<String>(set);
-                qis.add(qi);
-                
-                // Sort by column index
-                Collections.sort(qi, new Comparator<String>(){
-                    @Override
-                    public int compare(String o1, String o2) {
-                        int index1 = handle.getColumnIndexOf(o1);
-                        int index2 = handle.getColumnIndexOf(o2);
-                        return Integer.valueOf(index1).compareTo(index2);
-                    }
-                });
-            }
+        // Order attributes by column index
+        int[] indices = new int[identifiers.size()];
+        int idx = 0;
+        for (String identifier : identifiers) {
+            indices[idx++] = handle.getColumnIndexOf(identifier);
         }
-        
-        // Compute risk estimates for all elements in the power set
-        Map<List<String>, QuasiIdentifierRisk> scores = new HashMap<>();
-        int done = 0;
-        for (List<String> qi : qis) {
+        Arrays.sort(indices);
+        this.attributes = new String[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            this.attributes[i] = handle.getAttributeName(indices[i]);
+        }
+
+        // Partition records by each attribute
+        this.values = new int[indices.length][];
+        this.cardinalities = new int[indices.length];
+        this.suppressed = new boolean[indices.length][];
+        int capacity = Math.max(numRows / 10, 10);
+        for (int i = 0; i < indices.length; i++) {
+            int[] column = new int[] { indices[i] };
+            EncodedGroupify groupify = new EncodedGroupify(handle, column, capacity);
+            this.values[i] = new int[numRows];
+            this.suppressed[i] = new boolean[numRows];
+            for (int row = 0; row < numRows; row++) {
+                this.values[i][row] = groupify.add(row);
+                this.suppressed[i][row] = handle.isOutlier(row, column);
+            }
+            this.cardinalities[i] = groupify.size();
             checkInterrupt();
-            scores.put(qi, new QuasiIdentifierRisk(qi));
-            percentageDone.value = (int) Math.round((double) done++ / (double) (powerset.size() - 1) * 100d);
         }
 
-        // Now create sorted array
-        risks = new QuasiIdentifierRisk[scores.size()];
-        int idx = 0;
-        for (QuasiIdentifierRisk value : scores.values()) {
-            risks[idx++] = value;
+        // Analyze
+        TaskExecutor executor = new TaskExecutor("ARX attribute risk analysis", numThreads);
+        List<QuasiIdentifierRisk> result;
+        try {
+            result = limit <= 0 ? analyze(executor) : analyze(executor, limit);
+        } finally {
+            executor.shutdown();
         }
+
+        // Now create sorted array
+        risks = result.toArray(new QuasiIdentifierRisk[result.size()]);
         Arrays.sort(risks);
     }
 
@@ -309,29 +361,269 @@ public class RiskModelAttributes {
     }
 
     /**
-     * Returns the power set
-     *
-     * @param originalSet
+     * Analyzes all combinations of attributes. Each combination of ROOT_SIZE attributes is
+     * analyzed together with all of its extensions by attributes with a higher index,
+     * by one thread and in depth-first order.
+     * 
+     * @param executor
      * @return
      */
-    private <T> Set<Set<T>> getPowerSet(Set<T> originalSet) {
+    private List<QuasiIdentifierRisk> analyze(TaskExecutor executor) {
+
+        // Total
+        total = (1L << attributes.length) - 1L;
+
+        // Roots, largest subtrees first
+        List<int[]> roots = new ArrayList<>();
+        final int rootSize = Math.min(ROOT_SIZE, attributes.length);
+        for (int size = rootSize; size > 0; size--) {
+            getCombinations(roots, new int[size], 0, 0);
+        }
+
+        // Tasks
+        List<Callable<List<QuasiIdentifierRisk>>> tasks = new ArrayList<>();
+        for (final int[] root : roots) {
+            tasks.add(new Callable<List<QuasiIdentifierRisk>>() {
+                @Override
+                public List<QuasiIdentifierRisk> call() throws Exception {
+                    List<QuasiIdentifierRisk> result = new ArrayList<>();
+                    Partition partition = null;
+                    for (int attribute : root) {
+                        partition = getPartition(partition, attribute);
+                    }
+                    result.add(getRisk(partition));
+                    if (root.length == rootSize) {
+                        analyze(partition, result);
+                    }
+                    return result;
+                }
+            });
+        }
+
+        // Execute
+        return execute(executor, tasks);
+    }
+
+    /**
+     * Analyzes combinations of attributes level by level. Only the given number of the
+     * most risky combinations of each size is extended by a further attribute.
+     * 
+     * @param executor
+     * @param limit
+     * @return
+     */
+    private List<QuasiIdentifierRisk> analyze(TaskExecutor executor, int limit) {
+
+        List<QuasiIdentifierRisk> result = new ArrayList<>();
+        List<Partition> parents = new ArrayList<>();
+        parents.add(null);
+        for (int level = 1; level <= attributes.length && !parents.isEmpty(); level++) {
+
+            // Candidates
+            final List<Partition> candidates = new ArrayList<>();
+            final List<Integer> extensions = new ArrayList<>();
+            Set<BitSet> combinations = new HashSet<>();
+            for (Partition parent : parents) {
+                for (int attribute = 0; attribute < attributes.length; attribute++) {
+                    if (parent != null && parent.contains(attribute)) {
+                        continue;
+                    }
+                    BitSet combination = new BitSet();
+                    if (parent != null) {
+                        for (int contained : parent.attributes) {
+                            combination.set(contained);
+                        }
+                    }
+                    combination.set(attribute);
+                    if (combinations.add(combination)) {
+                        candidates.add(parent);
+                        extensions.add(attribute);
+                    }
+                }
+            }
+
+            // Tasks
+            List<Callable<List<QuasiIdentifierRisk>>> tasks = new ArrayList<>();
+            for (int i = 0; i < candidates.size(); i++) {
+                final int candidate = i;
+                tasks.add(new Callable<List<QuasiIdentifierRisk>>() {
+                    @Override
+                    public List<QuasiIdentifierRisk> call() throws Exception {
+                        Partition partition = getPartition(candidates.get(candidate), extensions.get(candidate));
+                        return Arrays.asList(getRisk(partition));
+                    }
+                });
+            }
+            final List<QuasiIdentifierRisk> risks = execute(executor, tasks);
+            result.addAll(risks);
+
+            // Select most risky candidates
+            Integer[] order = new Integer[risks.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer o1, Integer o2) {
+                    return risks.get(o2).compareTo(risks.get(o1));
+                }
+            });
+            parents = new ArrayList<>();
+            for (int i = 0; i < order.length && i < limit; i++) {
+                parents.add(getPartition(candidates.get(order[i]), extensions.get(order[i])));
+            }
+            percentageDone.value = (int) Math.round((double) level / (double) attributes.length * 100d);
+        }
+        return result;
+    }
+
+    /**
+     * Analyzes all extensions of the given partition by attributes with a higher index
+     * 
+     * @param parent
+     * @param result
+     */
+    private void analyze(Partition parent, List<QuasiIdentifierRisk> result) {
+        for (int attribute = parent.attributes[parent.attributes.length - 1] + 1; attribute < attributes.length; attribute++) {
+            Partition partition = getPartition(parent, attribute);
+            result.add(getRisk(partition));
+            analyze(partition, result);
+        }
+    }
+
+    /**
+     * Executes the given tasks and returns their results in order
+     * 
+     * @param executor
+     * @param tasks
+     * @return
+     */
+    private List<QuasiIdentifierRisk> execute(TaskExecutor executor, List<Callable<List<QuasiIdentifierRisk>>> tasks) {
+        List<QuasiIdentifierRisk> result = new ArrayList<>();
+        for (List<QuasiIdentifierRisk> risks : executor.execute(tasks)) {
+            result.addAll(risks);
+        }
+        return result;
+    }
+
+    /**
+     * Adds all combinations of attributes with the size of the given buffer
+     * 
+     * @param result
+     * @param buffer
+     * @param offset
+     * @param start
+     */
+    private void getCombinations(List<int[]> result, int[] buffer, int offset, int start) {
+        if (offset == buffer.length) {
+            result.add(buffer.clone());
+            return;
+        }
+        for (int attribute = start; attribute < attributes.length; attribute++) {
+            buffer[offset] = attribute;
+            getCombinations(result, buffer, offset + 1, attribute + 1);
+        }
+    }
+
+    /**
+     * Refines the given partition by the given attribute. If the partition is null,
+     * the partition of the attribute is returned.
+     * 
+     * @param parent
+     * @param attribute
+     * @return
+     */
+    private Partition getPartition(Partition parent, int attribute) {
+
+        // Check
         checkInterrupt();
-        Set<Set<T>> sets = new HashSet<Set<T>>();
-        if (originalSet.isEmpty()) {
-            sets.add(new HashSet<T>());
-            return sets;
+
+        // Single attribute
+        if (parent == null) {
+            return new Partition(new int[] { attribute }, values[attribute], cardinalities[attribute], suppressed[attribute]);
         }
-        List<T> list = new ArrayList<T>(originalSet);
-        T head = list.get(0);
-        Set<T> rest = new HashSet<T>(list.subList(1, list.size()));
-        for (Set<T> set : getPowerSet(rest)) {
-            checkInterrupt();
-            Set<T> newSet = new HashSet<T>();
-            newSet.add(head);
-            newSet.addAll(set);
-            sets.add(newSet);
-            sets.add(set);
+
+        // Attributes
+        int[] combination = Arrays.copyOf(parent.attributes, parent.attributes.length + 1);
+        combination[combination.length - 1] = attribute;
+        Arrays.sort(combination);
+
+        // Prepare
+        int[] values = this.values[attribute];
+        boolean[] suppressed = this.suppressed[attribute];
+        int cardinality = this.cardinalities[attribute];
+        int[] classes = new int[numRows];
+        boolean[] outliers = new boolean[numRows];
+        int size = 0;
+
+        // Refine with direct addressing
+        long domain = (long) parent.size * (long) cardinality;
+        if (domain <= (long) numRows * DIRECT_ADDRESSING_FACTOR) {
+            int[] map = new int[(int) domain];
+            for (int row = 0; row < numRows; row++) {
+                int key = parent.classes[row] * cardinality + values[row];
+                if (map[key] == 0) {
+                    map[key] = ++size;
+                }
+                classes[row] = map[key] - 1;
+                outliers[row] = parent.suppressed[row] && suppressed[row];
+            }
+
+        // Refine with hashing
+        } else {
+            LongIntOpenHashMap map = new LongIntOpenHashMap();
+            for (int row = 0; row < numRows; row++) {
+                long key = (long) parent.classes[row] * (long) cardinality + (long) values[row];
+                if (map.containsKey(key)) {
+                    classes[row] = map.lget();
+                } else {
+                    map.put(key, size);
+                    classes[row] = size++;
+                }
+                outliers[row] = parent.suppressed[row] && suppressed[row];
+            }
+        }
+
+        // Done
+        return new Partition(combination, classes, size, outliers);
+    }
+
+    /**
+     * Returns the risks of the combination of attributes represented by the given partition.
+     * Suppressed records are ignored.
+     * 
+     * @param partition
+     * @return
+     */
+    private QuasiIdentifierRisk getRisk(Partition partition) {
+
+        // Calculate distribution of class sizes
+        int[] counts = new int[partition.size];
+        for (int row = 0; row < numRows; row++) {
+            if (!partition.suppressed[row]) {
+                counts[partition.classes[row]]++;
+            }
+        }
+        IntIntOpenHashMap distribution = new IntIntOpenHashMap();
+        for (int count : counts) {
+            if (count != 0) {
+                distribution.putOrAdd(count, 1, 1);
+            }
+        }
+
+        // Create
+        List<String> identifier = new ArrayList<>();
+        for (int attribute : partition.attributes) {
+            identifier.add(attributes[attribute]);
+        }
+        QuasiIdentifierRisk risk = new QuasiIdentifierRisk(identifier, new RiskModelHistogram(distribution));
+
+        // Progress
+        if (total != 0) {
+            synchronized (this) {
+                percentageDone.value = (int) Math.round((double) ++done / (double) total * 100d);
+            }
         }
-        return sets;
+        return risk;
     }
-}
\ No newline at end of file
+}
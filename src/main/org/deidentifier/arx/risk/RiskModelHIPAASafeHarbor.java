@@ -19,14 +19,17 @@ package org.deidentifier.arx.risk;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 import org.deidentifier.arx.DataHandleInternal;
+import org.deidentifier.arx.common.TaskExecutor;
 import org.deidentifier.arx.common.WrappedBoolean;
 import org.deidentifier.arx.exceptions.ComputationInterruptedException;
 import org.deidentifier.arx.risk.HIPAAIdentifierMatch.HIPAAIdentifier;
 import org.deidentifier.arx.risk.HIPAAIdentifierMatch.MatchType;
 import org.deidentifier.arx.risk.HIPAAMatcherAttributeValue.HIPAAMatcherAge;
 import org.deidentifier.arx.risk.HIPAAMatcherAttributeValue.HIPAAMatcherCity;
+import org.deidentifier.arx.risk.HIPAAMatcherAttributeValue.HIPAAMatcherContext;
 import org.deidentifier.arx.risk.HIPAAMatcherAttributeValue.HIPAAMatcherDate;
 import org.deidentifier.arx.risk.HIPAAMatcherAttributeValue.HIPAAMatcherEMail;
 import org.deidentifier.arx.risk.HIPAAMatcherAttributeValue.HIPAAMatcherFirstName;
@@ -66,67 +69,141 @@ class RiskModelHIPAASafeHarbor {
     public HIPAAIdentifierMatch[] getMatches(DataHandleInternal handle, 
                                              double threshold,
                                              WrappedBoolean stop) {
+        return getMatches(handle, threshold, stop, 1);
+    }
+    
+    /**
+     * Returns a list of matches with HIPAA identifiers. Columns are analyzed with the given number of threads.
+     * 
+     * @param handle
+     * @param threshold
+     * @param stop
+     * @param numThreads
+     * @return An array of warnings
+     */
+    public HIPAAIdentifierMatch[] getMatches(final DataHandleInternal handle, 
+                                             final double threshold,
+                                             final WrappedBoolean stop,
+                                             int numThreads) {
         
-        // Prepare
-        List<HIPAAIdentifierMatch> results = new ArrayList<HIPAAIdentifierMatch>();
-        
-        // Check each attribute
+        // Prepare, loading dictionaries before they are accessed concurrently
+        HIPAAConstants.getUSData().loadDictionaries();
+        final ThreadLocal<HIPAAMatcherContext> contexts = new ThreadLocal<HIPAAMatcherContext>() {
+            @Override
+            protected HIPAAMatcherContext initialValue() {
+                return new HIPAAMatcherContext();
+            }
+        };
+        List<Callable<List<HIPAAIdentifierMatch>>> tasks = new ArrayList<>();
         for (int column = 0; column < handle.getNumColumns(); column++) {
-
-            // Init
-            String attribute = handle.getAttributeName(column);
-            String[] values = handle.getDistinctValues(column);
-            
-            // Match attribute name
-            for (HIPAAIdentifierConfig config : configurations) {
-                if (stop.value) {
-                    throw new ComputationInterruptedException();
-                }
-                String match = config.getMatchingAttributeName(attribute);
-                if (match != null) {
-                    results.add(new HIPAAIdentifierMatch(attribute, 
-                                                         config.getIdentifier(), 
-                                                         config.getInstance(),
-                                                         MatchType.ATTRIBUTE_NAME, 
-                                                         match));
+            final int _column = column;
+            tasks.add(new Callable<List<HIPAAIdentifierMatch>>() {
+                @Override
+                public List<HIPAAIdentifierMatch> call() {
+                    return getMatches(handle, _column, threshold, stop, contexts.get());
                 }
+            });
+        }
+        
+        // Execute
+        List<HIPAAIdentifierMatch> results = new ArrayList<>();
+        for (List<HIPAAIdentifierMatch> matches : TaskExecutor.execute("ARX HIPAA identifier analysis", numThreads, tasks)) {
+            results.addAll(matches);
+        }
+        
+        // Return
+        return results.toArray(new HIPAAIdentifierMatch[results.size()]);
+    }
+    
+    /**
+     * Returns the matches for the given column. All values are matched in one pass. A configuration
+     * is not considered any further when so many values did not match that its threshold can no
+     * longer be reached. The pass ends when this is the case for all configurations.
+     * 
+     * @param handle
+     * @param column
+     * @param threshold
+     * @param stop
+     * @param context
+     * @return
+     */
+    private List<HIPAAIdentifierMatch> getMatches(DataHandleInternal handle,
+                                                  int column,
+                                                  double threshold,
+                                                  WrappedBoolean stop,
+                                                  HIPAAMatcherContext context) {
+        
+        // Init
+        List<HIPAAIdentifierMatch> results = new ArrayList<HIPAAIdentifierMatch>();
+        String attribute = handle.getAttributeName(column);
+        String[] values = handle.getDistinctValues(column);
+        
+        // Match attribute name
+        for (HIPAAIdentifierConfig config : configurations) {
+            if (stop.value) {
+                throw new ComputationInterruptedException();
             }
-            
-            // Match attribute values
-            for (HIPAAIdentifierConfig config : configurations) {
-                int matches = 0;
-                int nonmatches = 0;
-                for (String value : values) {
-                    if (stop.value) {
-                        throw new ComputationInterruptedException();
-                    }
+            String match = config.getMatchingAttributeName(attribute);
+            if (match != null) {
+                results.add(new HIPAAIdentifierMatch(attribute, 
+                                                     config.getIdentifier(), 
+                                                     config.getInstance(),
+                                                     MatchType.ATTRIBUTE_NAME, 
+                                                     match));
+            }
+        }
+        
+        // Prepare
+        int[] matches = new int[configurations.size()];
+        int[] nonmatches = new int[configurations.size()];
+        HIPAAMatcherAttributeValue[] matchers = new HIPAAMatcherAttributeValue[configurations.size()];
+        boolean[] active = new boolean[configurations.size()];
+        int numActive = 0;
+        for (int i = 0; i < active.length; i++) {
+            matchers[i] = configurations.get(i).getMatcherValue();
+            active[i] = matchers[i] != null;
+            numActive += active[i] ? 1 : 0;
+        }
+        
+        // Match attribute values
+        for (int index = 0; index < values.length && numActive > 0; index++) {
+            if (stop.value) {
+                throw new ComputationInterruptedException();
+            }
+            context.setValue(values[index]);
+            for (int i = 0; i < active.length; i++) {
+                if (active[i]) {
                     
                     // Count matching values
-                    if (config.getMatchingAttributeValue(value) != null) {
-                        matches++;
+                    if (matchers[i].matches(context)) {
+                        matches[i]++;
                     } else {
                         
-                        // Break if too many non-matching values
-                        nonmatches++;
-                        double nonpercentage = (double)nonmatches / (double)values.length;
+                        // Stop if too many non-matching values
+                        nonmatches[i]++;
+                        double nonpercentage = (double)nonmatches[i] / (double)values.length;
                         if (nonpercentage > 1d - threshold) {
-                            break;
+                            active[i] = false;
+                            numActive--;
                         }
                     }
                 }
-                double percentage = (double)matches / (double)values.length;
-                if (percentage > threshold) {
-                    results.add(new HIPAAIdentifierMatch(attribute, 
-                                                         config.getIdentifier(), 
-                                                         config.getInstance(),
-                                                         MatchType.ATTRIBUTE_VALUE, 
-                                                         String.valueOf(percentage)));
-                }
             }
         }
         
-        // Return
-        return results.toArray(new HIPAAIdentifierMatch[results.size()]);
+        // Collect
+        for (int i = 0; i < matches.length; i++) {
+            HIPAAIdentifierConfig config = configurations.get(i);
+            double percentage = (double)matches[i] / (double)values.length;
+            if (percentage > threshold) {
+                results.add(new HIPAAIdentifierMatch(attribute, 
+                                                     config.getIdentifier(), 
+                                                     config.getInstance(),
+                                                     MatchType.ATTRIBUTE_VALUE, 
+                                                     String.valueOf(percentage)));
+            }
+        }
+        return results;
     }
     
     /**
@@ -66,6 +66,8 @@ public class RiskModelPopulationUniqueness extends RiskModelPopulation {
     private ARXSolverConfiguration    config;
     /** Parameter */
     private WrappedBoolean            stop;
+    /** Cache providing start values for the solvers, may be null */
+    private PopulationUniquenessCache cache;
 
     /**
      * Creates a new instance
@@ -101,6 +103,27 @@ public class RiskModelPopulationUniqueness extends RiskModelPopulation {
                                   WrappedInteger progress,
                                   ARXSolverConfiguration config,
                                   boolean precompute) {
+        this(model, histogram, stop, progress, config, precompute, null);
+    }
+
+    /**
+     * Creates a new instance
+     * 
+     * @param model
+     * @param histogram
+     * @param stop
+     * @param progress
+     * @param config
+     * @param precompute
+     * @param cache may be null
+     */
+    RiskModelPopulationUniqueness(ARXPopulationModel model,
+                                  RiskModelHistogram histogram,
+                                  WrappedBoolean stop,
+                                  WrappedInteger progress,
+                                  ARXSolverConfiguration config,
+                                  boolean precompute,
+                                  PopulationUniquenessCache cache) {
         super(histogram, model, stop, progress);
 
         // Init
@@ -110,6 +133,7 @@ public class RiskModelPopulationUniqueness extends RiskModelPopulation {
         this.histogram = histogram;
         this.config = config;
         this.stop = stop;
+        this.cache = cache;
 
         // Handle cases where there are no sample uniques
         if (numClassesOfSize1 == 0) {
@@ -270,10 +294,15 @@ public class RiskModelPopulationUniqueness extends RiskModelPopulation {
             if (this.numClassesOfSize1 == 0) {
                 numUniquesPitman = 0;
             } else {
-                numUniquesPitman = new ModelPitman(model,
-                                                   histogram,
-                                                   config,
-                                                   stop).getNumUniques();
+                ModelPitman pitman = new ModelPitman(model,
+                                                     histogram,
+                                                     config,
+                                                     stop,
+                                                     cache == null ? null : cache.getStartValuePitman(getNumClasses()));
+                if (cache != null) {
+                    cache.setSolutionPitman(getNumClasses(), pitman.getSolution());
+                }
+                numUniquesPitman = pitman.getNumUniques();
             }
         }
         return isValid(numUniquesPitman) ? numUniquesPitman : 0d;
@@ -288,10 +317,15 @@ public class RiskModelPopulationUniqueness extends RiskModelPopulation {
             if (this.numClassesOfSize1 == 0) {
                 numUniquesSNB = 0;
             } else {
-                numUniquesSNB = new ModelSNB(model,
-                                             histogram,
-                                             config,
-                                             stop).getNumUniques();
+                ModelSNB snb = new ModelSNB(model,
+                                            histogram,
+                                            config,
+                                            stop,
+                                            cache == null ? null : cache.getStartValueSNB(getNumClasses()));
+                if (cache != null) {
+                    cache.setSolutionSNB(getNumClasses(), snb.getSolution());
+                }
+                numUniquesSNB = snb.getNumUniques();
             }
         }
         return isValid(numUniquesSNB) ? numUniquesSNB : 0d;
@@ -18,15 +18,11 @@ package org.deidentifier.arx.risk;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 import org.deidentifier.arx.DataHandleInternal;
-import org.deidentifier.arx.common.Groupify;
-import org.deidentifier.arx.common.Groupify.Group;
-import org.deidentifier.arx.common.TupleWrapper;
+import org.deidentifier.arx.common.EncodedGroupify;
 import org.deidentifier.arx.common.WrappedBoolean;
 import org.deidentifier.arx.common.WrappedInteger;
 import org.deidentifier.arx.exceptions.ComputationInterruptedException;
@@ -55,7 +51,7 @@ public class RiskModelSampleWildcard {
          * Creates a new instance
          * @param value
          */
-        protected InnerNode(String value) {
+        protected InnerNode(int value) {
             super(value);
         }   
     }
@@ -66,18 +62,17 @@ public class RiskModelSampleWildcard {
      */
     private class LeafNode extends Node {
      
-        /** Pointer to records */
-        private final Group<TupleWrapper> records;
+        /** Index of the group of records */
+        private final int group;
 
         /**
          * Creates a new instance
          * @param value
-         * @param records
-         * @param frequency
+         * @param group
          */
-        protected LeafNode(String value, Group<TupleWrapper> records) {
+        protected LeafNode(int value, int group) {
             super(value);
-            this.records = records;
+            this.group = group;
         }
     }
 
@@ -87,14 +82,14 @@ public class RiskModelSampleWildcard {
      */
     private abstract class Node {
 
-        /** Value at this level*/
-        protected final String value;
+        /** Identifier of the value at this level*/
+        protected final int value;
         
         /**
          * Creates a new instance
          * @param value
          */
-        protected Node(String value) {
+        protected Node(int value) {
             this.value = value;
         }
     }
@@ -111,8 +106,6 @@ public class RiskModelSampleWildcard {
     private final int    sizeThreshold;
     /** Records at risk */
     private final double recordsAtRisk;
-    /** Suppressed records */
-    private final String wildcard;
 
     /**
      * Creates a new instance
@@ -131,7 +124,6 @@ public class RiskModelSampleWildcard {
                                   WrappedInteger progress) {
 
         // Init
-        this.wildcard = wildcard;
         this.threshold = threshold;
         this.sizeThreshold = ParameterTranslation.getSizeThreshold(threshold);
         
@@ -140,27 +132,32 @@ public class RiskModelSampleWildcard {
         }
         
         // Calculate groups
-        Groupify<TupleWrapper> groups = getGroups(handle, identifiers, 0d, 0.3d, wildcard, stop, progress);
+        EncodedGroupify groups = getGroups(handle, identifiers, 0d, 0.3d, stop, progress);
         
-        // Map of original frequencies
-        Map<Group<TupleWrapper>, Integer> frequencies = new HashMap<>();
+        // Identifiers of the wildcard, -1 if it does not occur
+        int[] wildcards = new int[groups.getNumberOfColumns()];
+        for (int column = 0; column < wildcards.length; column++) {
+            wildcards[column] = groups.getValueIdentifier(column, wildcard);
+        }
+        
+        // Original frequencies and frequencies including matches
+        int numGroups = groups.size();
+        int[] frequencies = new int[numGroups];
+        int[] counts = new int[numGroups];
         
         // Now determine frequencies
         List<Node> index = new ArrayList<Node>();
-        Group<TupleWrapper> group = groups.first();
-        int progressMax = groups.size();
-        int progressCount = 0;
         int numRecords = 0;
-        while (group != null) {
-            progress.value = (int)Math.round((0.3d + (double)(progressCount++) / (double)progressMax * 0.6d) * 100d); 
+        for (int group = 0; group < numGroups; group++) {
+            progress.value = (int)Math.round((0.3d + (double)group / (double)numGroups * 0.6d) * 100d); 
             if (stop.value) {
                 throw new ComputationInterruptedException();
             }
-            frequencies.put(group, group.getCount());
-            numRecords += group.getCount();
-            add(stop, frequencies, group, index, 0);
-            index(stop, frequencies, group, index, 0);
-            group = group.next();
+            frequencies[group] = groups.getCount(group);
+            counts[group] = frequencies[group];
+            numRecords += frequencies[group];
+            add(stop, groups, wildcards, frequencies, counts, group, index, 0);
+            index(stop, groups, group, index, 0);
         }
         
         // And evaluate
@@ -168,21 +165,18 @@ public class RiskModelSampleWildcard {
         double highestRisk = 0d;
         double lowestRisk = Double.MAX_VALUE;
         int numAtRisk = 0;
-        group = groups.first();
-        progressCount = 0;
-        while (group != null) {
-            progress.value = (int)Math.round((0.9d + (double)(progressCount++) / (double)progressMax * 0.1d) * 100d);
+        for (int group = 0; group < numGroups; group++) {
+            progress.value = (int)Math.round((0.9d + (double)group / (double)numGroups * 0.1d) * 100d);
             if (stop.value) {
                 throw new ComputationInterruptedException();
             }
-            double risk = 1d / (double) group.getCount();
+            double risk = 1d / (double) counts[group];
             highestRisk = Math.max(highestRisk, risk);
             lowestRisk = Math.min(lowestRisk, risk);
-            totalRisk += risk * (double) frequencies.get(group);
-            if (group.getCount() < sizeThreshold) {
-                numAtRisk += frequencies.get(group);
+            totalRisk += risk * (double) frequencies[group];
+            if (counts[group] < sizeThreshold) {
+                numAtRisk += frequencies[group];
             }
-            group = group.next();
         }
         
         // Records at risk
@@ -258,16 +252,20 @@ public class RiskModelSampleWildcard {
     /**
      * Adds frequency counts
      * @param stop
-     * @param frequencies 
+     * @param groups
+     * @param wildcards
+     * @param frequencies
+     * @param counts
      * @param group
      * @param index
      * @param depth
      */
-    private void add(WrappedBoolean stop, Map<Group<TupleWrapper>, Integer> frequencies, Group<TupleWrapper> group, List<Node> index, int depth) {
+    private void add(WrappedBoolean stop, EncodedGroupify groups, int[] wildcards, int[] frequencies, int[] counts, int group, List<Node> index, int depth) {
 
         // Extract
-        boolean isLeafLevel = group.getElement().getValues().length - 1 == depth;
-        String value = group.getElement().getValues()[depth];
+        boolean isLeafLevel = groups.getNumberOfColumns() - 1 == depth;
+        int value = groups.getGroupIdentifier(group, depth);
+        int wildcard = wildcards[depth];
         
         // For each potential match
         for (Node node : index) {
@@ -278,17 +276,17 @@ public class RiskModelSampleWildcard {
             }
             
             // Match
-            if (node.value.equals(wildcard) || value.equals(wildcard) || node.value.equals(value)) {
+            if (node.value == wildcard || value == wildcard || node.value == value) {
 
                 // Leaf
                 if (isLeafLevel) {
                     LeafNode leaf = (LeafNode)node;
-                    group.incCount(frequencies.get(leaf.records));
-                    leaf.records.incCount(frequencies.get(group));
+                    counts[group] += frequencies[leaf.group];
+                    counts[leaf.group] += frequencies[group];
                     
                 // Inner node
                 } else {
-                    add(stop, frequencies, group, ((InnerNode)node).children, depth + 1);
+                    add(stop, groups, wildcards, frequencies, counts, group, ((InnerNode)node).children, depth + 1);
                 }
             }
         }
@@ -300,18 +298,16 @@ public class RiskModelSampleWildcard {
      * @param qis
      * @param offset
      * @param factor
-     * @param wildcard
      * @param stop
      * @param progress
      * @return
      */
-    private Groupify<TupleWrapper> getGroups(DataHandleInternal handle,
-                                             Set<String> qis,
-                                             double offset,
-                                             double factor,
-                                             String wildcard,
-                                             WrappedBoolean stop,
-                                             WrappedInteger progress) {
+    private EncodedGroupify getGroups(DataHandleInternal handle,
+                                      Set<String> qis,
+                                      double offset,
+                                      double factor,
+                                      WrappedBoolean stop,
+                                      WrappedInteger progress) {
 
         /* ********************************
          * Check 
@@ -344,7 +340,7 @@ public class RiskModelSampleWildcard {
          * ********************************/
         int capacity = handle.getNumRows() / 10;
         capacity = capacity > 10 ? capacity : 10;
-        Groupify<TupleWrapper> map = new Groupify<TupleWrapper>(capacity);
+        EncodedGroupify groupify = new EncodedGroupify(handle, indices, capacity);
         int numRows = handle.getNumRows();
         for (int row = 0; row < numRows; row++) {
 
@@ -354,8 +350,7 @@ public class RiskModelSampleWildcard {
             }
 
             if (!handle.isOutlier(row, indices)) {
-                TupleWrapper tuple = new TupleWrapper(handle, indices, row);
-                map.add(tuple);
+                groupify.add(row);
             }
             if (stop.value) { 
                 throw new ComputationInterruptedException();
@@ -363,22 +358,22 @@ public class RiskModelSampleWildcard {
         }
 
         // Return
-        return map;
+        return groupify;
     }
     
     /**
      * Adds element to index
      * @param stop
-     * @param frequencies
+     * @param groups
      * @param group
      * @param index
      * @param depth
      */
-    private void index(WrappedBoolean stop, Map<Group<TupleWrapper>, Integer> frequencies, Group<TupleWrapper> group, List<Node> index, int depth) {
+    private void index(WrappedBoolean stop, EncodedGroupify groups, int group, List<Node> index, int depth) {
 
         // Extract
-        boolean isLeafLevel = group.getElement().getValues().length - 1 == depth;
-        String value = group.getElement().getValues()[depth];
+        boolean isLeafLevel = groups.getNumberOfColumns() - 1 == depth;
+        int value = groups.getGroupIdentifier(group, depth);
         
         // For each potential match
         for (Node node : index) {
@@ -389,7 +384,7 @@ public class RiskModelSampleWildcard {
             }
             
             // Match
-            if (node.value.equals(value)) {
+            if (node.value == value) {
 
                 // Leaf
                 if (isLeafLevel) {
@@ -399,7 +394,7 @@ public class RiskModelSampleWildcard {
                 } else {
                     
                     // Go on
-                    index(stop, frequencies, group, ((InnerNode)node).children, depth + 1);
+                    index(stop, groups, group, ((InnerNode)node).children, depth + 1);
                     return;
                 }
             }
@@ -413,7 +408,7 @@ public class RiskModelSampleWildcard {
             index.add(node);
             
             // Go on
-            index(stop, frequencies, group, node.children, depth + 1);
+            index(stop, groups, group, node.children, depth + 1);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,127 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2020 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Random;
+
+import org.deidentifier.arx.ARXAnonymizer;
+import org.deidentifier.arx.ARXConfiguration;
+import org.deidentifier.arx.ARXConfiguration.AnonymizationAlgorithm;
+import org.deidentifier.arx.ARXLattice.ARXNode;
+import org.deidentifier.arx.ARXLattice.Anonymity;
+import org.deidentifier.arx.ARXResult;
+import org.deidentifier.arx.AttributeType.Hierarchy;
+import org.deidentifier.arx.AttributeType.Hierarchy.DefaultHierarchy;
+import org.deidentifier.arx.Data;
+import org.deidentifier.arx.Data.DefaultData;
+import org.deidentifier.arx.DataHandle;
+import org.deidentifier.arx.criteria.KAnonymity;
+import org.deidentifier.arx.metric.Metric;
+import org.junit.Test;
+
+/**
+ * Test for anonymizing data with more than 64 quasi-identifiers, in which case
+ * the columns which can be projected away during transitions do not fit into a long.
+ *
+ * @author Fabian Prasser
+ */
+public class TestAnonymizationWideQuasiIdentifiers extends AbstractTest {
+
+    /** Number of quasi-identifiers */
+    private static final int COLUMNS = 70;
+
+    /** Number of records */
+    private static final int ROWS    = 500;
+
+    /** Parameter k */
+    private static final int K       = 2;
+
+    /**
+     * Returns the data object
+     * @return
+     */
+    private static Data getData() {
+
+        // Values
+        Random random = new Random(0xDEADBEEF);
+        DefaultData data = Data.create();
+        String[] header = new String[COLUMNS];
+        for (int column = 0; column < COLUMNS; column++) {
+            header[column] = "attribute-" + column;
+        }
+        data.add(header);
+        for (int row = 0; row < ROWS; row++) {
+            String[] record = new String[COLUMNS];
+            for (int column = 0; column < COLUMNS; column++) {
+                record[column] = String.valueOf(random.nextInt(column < 64 ? 2 : 3));
+            }
+            data.add(record);
+        }
+
+        // Hierarchies
+        for (int column = 0; column < COLUMNS; column++) {
+            DefaultHierarchy hierarchy = Hierarchy.create();
+            hierarchy.add("0", "*");
+            hierarchy.add("1", "*");
+            hierarchy.add("2", "*");
+            data.getDefinition().setAttributeType(header[column], hierarchy);
+        }
+        return data;
+    }
+
+    /**
+     * Every transformation classified during the search must have the same
+     * privacy properties when it is applied without any optimizations.
+     * @throws IOException
+     */
+    @Test
+    public void testGeneticAlgorithm() throws IOException {
+
+        // Configure
+        ARXConfiguration config = ARXConfiguration.create(0d, Metric.createLossMetric());
+        config.addPrivacyModel(new KAnonymity(K));
+        config.setAlgorithm(AnonymizationAlgorithm.BEST_EFFORT_GENETIC);
+        config.setGeneticAlgorithmDeterministic(true);
+        config.setHeuristicSearchTimeLimit(Integer.MAX_VALUE);
+        config.setHeuristicSearchStepLimit(500);
+        config.setSuppressionAlwaysEnabled(false);
+
+        // Anonymize
+        ARXResult result = new ARXAnonymizer().anonymize(getData(), config);
+
+        // Compare
+        int checked = 0;
+        for (ARXNode[] level : result.getLattice().getLevels()) {
+            for (ARXNode node : level) {
+                Anonymity anonymity = node.getAnonymity();
+                if (anonymity != Anonymity.ANONYMOUS && anonymity != Anonymity.NOT_ANONYMOUS) {
+                    continue;
+                }
+                DataHandle output = result.getOutput(node, false);
+                int size = output.getStatistics().getEquivalenceClassStatistics().getMinimalEquivalenceClassSize();
+                assertEquals(anonymity == Anonymity.ANONYMOUS, size >= K);
+                checked++;
+            }
+        }
+        assertTrue(checked > 0);
+    }
+}
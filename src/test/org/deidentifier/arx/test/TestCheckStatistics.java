@@ -0,0 +1,166 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2020 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+
+import org.deidentifier.arx.ARXAnonymizer;
+import org.deidentifier.arx.ARXCheckStatistics;
+import org.deidentifier.arx.ARXCheckStatistics.Counter;
+import org.deidentifier.arx.ARXCheckStatistics.Phase;
+import org.deidentifier.arx.ARXCheckStatisticsMonitor;
+import org.deidentifier.arx.ARXConfiguration;
+import org.deidentifier.arx.ARXResult;
+import org.deidentifier.arx.AttributeType.Hierarchy;
+import org.deidentifier.arx.Data;
+import org.deidentifier.arx.criteria.KAnonymity;
+import org.deidentifier.arx.metric.Metric;
+import org.junit.Test;
+
+/**
+ * Test for the instrumentation of checks of transformations.
+ *
+ * @author Fabian Prasser
+ */
+public class TestCheckStatistics extends AbstractTest {
+
+    /**
+     * Returns the configuration
+     * @param instrumented
+     * @return
+     */
+    private static ARXConfiguration getConfiguration(boolean instrumented) {
+        ARXConfiguration config = ARXConfiguration.create(0.04d, Metric.createPrecomputedEntropyMetric(0.1d, true));
+        config.addPrivacyModel(new KAnonymity(5));
+        config.setInstrumentationEnabled(instrumented);
+        return config;
+    }
+
+    /**
+     * Returns the data object
+     * @return
+     * @throws IOException
+     */
+    private static Data getData() throws IOException {
+        Data data = Data.create("./data/adult.csv", StandardCharsets.UTF_8, ';');
+        for (String attribute : new String[] { "age", "education", "marital-status", "native-country", "race", "salary-class", "sex", "workclass", "occupation" }) {
+            data.getDefinition().setAttributeType(attribute, Hierarchy.create("./data/adult_hierarchy_" + attribute + ".csv", StandardCharsets.UTF_8, ';'));
+        }
+        return data;
+    }
+
+    /**
+     * Test statistics recorded during anonymization
+     * @throws IOException
+     */
+    @Test
+    public void testAnonymization() throws IOException {
+
+        ARXResult reference = new ARXAnonymizer().anonymize(getData(), getConfiguration(false));
+        ARXResult result = new ARXAnonymizer().anonymize(getData(), getConfiguration(true));
+
+        // Instrumentation must not change the result
+        assertNull(reference.getProcessStatistics().getCheckStatistics());
+        assertArrayEquals(reference.getGlobalOptimum().getTransformation(), result.getGlobalOptimum().getTransformation());
+
+        // Check consistency
+        ARXCheckStatistics statistics = result.getProcessStatistics().getCheckStatistics();
+        long checks = statistics.getCount(Phase.CHECK);
+        assertTrue(checks > 0);
+        assertEquals(checks, statistics.getCount(Phase.TRANSITION));
+        assertEquals(checks, statistics.getCount(Phase.PRIVACY_MODEL));
+        assertEquals(checks, statistics.getCount(Phase.QUALITY_MODEL));
+        assertEquals(checks, statistics.getCount(Phase.TRANSFORM_UNOPTIMIZED) +
+                             statistics.getCount(Phase.TRANSFORM_ROLLUP) +
+                             statistics.getCount(Phase.TRANSFORM_SNAPSHOT));
+        assertEquals(statistics.getCount(Phase.TRANSFORM_SNAPSHOT), statistics.getCounter(Counter.SNAPSHOT_HITS));
+        assertTrue(statistics.getCounter(Counter.SNAPSHOTS_STORED) > 0);
+        for (Phase phase : Phase.values()) {
+            long total = 0;
+            for (long count : statistics.getHistogram(phase)) {
+                total += count;
+            }
+            assertEquals(statistics.getCount(phase), total);
+        }
+        assertTrue(statistics.getTime(Phase.CHECK) >= statistics.getTime(Phase.PRIVACY_MODEL));
+        assertTrue(statistics.getPercentile(Phase.CHECK, 0.5d) <= statistics.getPercentile(Phase.CHECK, 1d));
+    }
+
+    /**
+     * Test merging and percentiles
+     */
+    @Test
+    public void testMerge() {
+
+        ARXCheckStatistics statistics1 = new ARXCheckStatistics();
+        statistics1.add(Phase.CHECK, 0L);
+        statistics1.add(Phase.CHECK, 1000L);
+        statistics1.add(Counter.SNAPSHOT_HITS, 2);
+        ARXCheckStatistics statistics2 = new ARXCheckStatistics();
+        statistics2.add(Phase.CHECK, 3000L);
+        statistics2.add(Counter.SNAPSHOT_HITS, 3);
+
+        ARXCheckStatistics merged = statistics1.merge(statistics2);
+        assertEquals(3, merged.getCount(Phase.CHECK));
+        assertEquals(4000L, merged.getTime(Phase.CHECK));
+        assertEquals(5, merged.getCounter(Counter.SNAPSHOT_HITS));
+        assertEquals(0, merged.getCount(Phase.HISTORY));
+        assertEquals(0L, merged.getPercentile(Phase.HISTORY, 0.5d));
+        assertEquals(1L, merged.getPercentile(Phase.CHECK, 0.1d));
+        assertEquals(1023L, merged.getPercentile(Phase.CHECK, 0.5d));
+        assertEquals(4095L, merged.getPercentile(Phase.CHECK, 1d));
+        assertEquals(2, statistics1.getCount(Phase.CHECK));
+    }
+
+    /**
+     * Test the monitor
+     * @throws IOException
+     * @throws JMException
+     */
+    @Test
+    public void testMonitor() throws IOException, JMException {
+
+        ObjectName name = new ObjectName(ARXCheckStatisticsMonitor.NAME);
+        try {
+            ARXCheckStatisticsMonitor monitor = ARXCheckStatisticsMonitor.register();
+            assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+            monitor.reset();
+
+            ARXResult result = new ARXAnonymizer().anonymize(getData(), getConfiguration(true));
+            ARXCheckStatistics statistics = result.getProcessStatistics().getCheckStatistics();
+            assertEquals(statistics.getCount(Phase.CHECK), (long) monitor.getCounts().get(Phase.CHECK.name()));
+            assertTrue(ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Counts") instanceof TabularData);
+        } finally {
+            ARXCheckStatisticsMonitor.unregister();
+        }
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+        assertNull(ARXCheckStatisticsMonitor.getStatistics());
+    }
+}
@@ -24,6 +24,8 @@ import java.io.FilenameFilter;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -260,4 +262,37 @@ public class TestClassification {
         assertEquals(30162, classResult.getNumMeasurements(), 0d);
     }
 
+    @Test
+    public void testParallel() throws IOException, ParseException {
+
+        // Configs
+        List<ARXClassificationConfiguration<?>> configs = new ArrayList<>();
+        configs.add(ARXClassificationConfiguration.createLogisticRegression());
+        configs.add(ARXClassificationConfiguration.createNaiveBayes());
+
+        for (ARXClassificationConfiguration<?> config : configs) {
+
+            // Classify sequentially and concurrently
+            StatisticsClassification sequential = getResult().getOutput().getStatistics().getClassificationPerformance(getFeatures(), getClazz(), config);
+            config.setNumberOfThreads(4);
+            StatisticsClassification parallel = getResult().getOutput().getStatistics().getClassificationPerformance(getFeatures(), getClazz(), config);
+
+            // Results must be identical
+            assertEquals(sequential.getOriginalAccuracy(), parallel.getOriginalAccuracy(), 0d);
+            assertEquals(sequential.getZeroRAccuracy(), parallel.getZeroRAccuracy(), 0d);
+            assertEquals(sequential.getAccuracy(), parallel.getAccuracy(), 0d);
+            assertEquals(sequential.getOriginalAverageError(), parallel.getOriginalAverageError(), 0d);
+            assertEquals(sequential.getZeroRAverageError(), parallel.getZeroRAverageError(), 0d);
+            assertEquals(sequential.getAverageError(), parallel.getAverageError(), 0d);
+            assertEquals(sequential.getBrierScore(), parallel.getBrierScore(), 0d);
+            assertEquals(sequential.getOriginalBrierScore(), parallel.getOriginalBrierScore(), 0d);
+            assertEquals(sequential.getNumMeasurements(), parallel.getNumMeasurements());
+            for (String clazz : sequential.getClassValues()) {
+                assertEquals(sequential.getROCCurve(clazz).getAUC(), parallel.getROCCurve(clazz).getAUC(), 0d);
+                assertEquals(sequential.getROCCurve(clazz).getBrierScore(), parallel.getROCCurve(clazz).getBrierScore(), 0d);
+                assertEquals(sequential.getOriginalROCCurve(clazz).getAUC(), parallel.getOriginalROCCurve(clazz).getAUC(), 0d);
+                assertEquals(sequential.getZeroRROCCurve(clazz).getAUC(), parallel.getZeroRROCCurve(clazz).getAUC(), 0d);
+            }
+        }
+    }
 }
@@ -17,11 +17,16 @@
 
 package org.deidentifier.arx.test;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.ParseException;
 import java.util.Arrays;
+import java.util.Date;
 
 import org.deidentifier.arx.ARXAnonymizer;
 import org.deidentifier.arx.ARXConfiguration;
@@ -31,9 +36,12 @@ import org.deidentifier.arx.ARXResult;
 import org.deidentifier.arx.AttributeType;
 import org.deidentifier.arx.AttributeType.Hierarchy;
 import org.deidentifier.arx.Data;
+import org.deidentifier.arx.Data.DefaultData;
 import org.deidentifier.arx.DataHandle;
 import org.deidentifier.arx.DataSelector;
 import org.deidentifier.arx.DataSubset;
+import org.deidentifier.arx.DataType;
+import org.deidentifier.arx.RowSet;
 import org.deidentifier.arx.criteria.DPresence;
 import org.deidentifier.arx.criteria.Inclusion;
 import org.deidentifier.arx.criteria.KAnonymity;
@@ -242,6 +250,44 @@ public class TestDataHandle extends AbstractTest {
         
     }
     
+    /**
+     * Test case
+     *
+     * @throws IllegalArgumentException
+     * @throws IOException
+     */
+    @Test
+    public void testOffHeapStorageDirect() throws IllegalArgumentException, IOException {
+        
+        provider.createDataDefinition();
+        final Data data = provider.getData();
+        data.setOffHeapStorage(true);
+        testOffHeapStorage(data);
+    }
+    
+    /**
+     * Test case
+     *
+     * @throws IllegalArgumentException
+     * @throws IOException
+     */
+    @Test
+    public void testOffHeapStorageMapped() throws IllegalArgumentException, IOException {
+        
+        File directory = Files.createTempDirectory("arx").toFile();
+        directory.deleteOnExit();
+        
+        provider.createDataDefinition();
+        final Data data = provider.getData();
+        data.setOffHeapStorage(directory);
+        testOffHeapStorage(data);
+        
+        // Releasing the input deletes the files of the matrices used for anonymization
+        int files = directory.listFiles().length;
+        data.getHandle().release();
+        assertTrue(directory.listFiles().length < files);
+    }
+    
     /**
      * Test case
      *
@@ -310,6 +356,45 @@ public class TestDataHandle extends AbstractTest {
         
     }
     
+    /**
+     * Test case: selecting rows in bulk must yield the same rows as selecting them one by one
+     *
+     * @throws IOException
+     * @throws ParseException
+     */
+    @Test
+    public void testSelect() throws IOException, ParseException {
+        
+        Data data = Data.create("./data/adult.csv", StandardCharsets.UTF_8, ';');
+        data.getDefinition().setDataType("age", DataType.INTEGER);
+        String[] queries = { "'age' >= '50' and 'sex' = 'Male'",
+                             "'age' < '30' or ( 'race' = 'White' and 'education' = 'Bachelors' )",
+                             "'workclass' = 'Private'" };
+        
+        for (String query : queries) {
+            DataSelector selector = DataSelector.create(data, query);
+            RowSet sequential = DataSelector.create(data, query).select();
+            RowSet parallel = DataSelector.create(data, query).select(4);
+            int size = 0;
+            for (int row = 0; row < data.getHandle().getNumRows(); row++) {
+                boolean selected = selector.isSelected(row);
+                size += selected ? 1 : 0;
+                assertEquals(selected, sequential.contains(row));
+                assertEquals(selected, parallel.contains(row));
+            }
+            assertEquals(size, sequential.size());
+            assertEquals(size, parallel.size());
+        }
+        
+        // Expression specified via the builder
+        DataSelector selector = DataSelector.create(data).field("age").geq(50).and().field("sex").equals("Male");
+        selector.build();
+        RowSet parallel = DataSelector.create(data).field("age").geq(50).and().field("sex").equals("Male").select(4);
+        for (int row = 0; row < data.getHandle().getNumRows(); row++) {
+            assertEquals(selector.isSelected(row), parallel.contains(row));
+        }
+    }
+    
     /**
      * Test case
      *
@@ -498,4 +583,83 @@ public class TestDataHandle extends AbstractTest {
         
         assertTrue(Arrays.deepEquals(given, expected));
     }
+    
+    /**
+     * Typed getters and sorting must be consistent with parsing strings
+     *
+     * @throws ParseException
+     */
+    @Test
+    public void testTypedValues() throws ParseException {
+
+        // Data
+        DefaultData data = Data.create();
+        data.add("integer", "decimal", "date", "invalid");
+        data.add("3", "2.5", "01.02.2003", "1");
+        data.add("NULL", "-0.0", "NULL", "x");
+        data.add("-7", "0.0", "31.12.1999", "NULL");
+        data.add("3", "NULL", "01.01.2000", "2");
+        data.add("12", "-1.5", "01.02.2003", "y");
+        DataType<Date> date = DataType.createDate("dd.MM.yyyy");
+        data.getDefinition().setDataType("integer", DataType.INTEGER);
+        data.getDefinition().setDataType("decimal", DataType.DECIMAL);
+        data.getDefinition().setDataType("date", date);
+        data.getDefinition().setDataType("invalid", DataType.INTEGER);
+        DataHandle handle = data.getHandle();
+
+        // Sort
+        for (int column = 0; column < 3; column++) {
+            handle.sort(column % 2 == 0, column);
+            DataType<?> type = handle.getDataType(handle.getAttributeName(column));
+            for (int row = 1; row < handle.getNumRows(); row++) {
+                int cmp = type.compare(handle.getValue(row - 1, column), handle.getValue(row, column));
+                assertTrue(column % 2 == 0 ? cmp <= 0 : cmp >= 0);
+            }
+        }
+
+        // Get
+        for (int row = 0; row < handle.getNumRows(); row++) {
+            Long _long = DataType.INTEGER.parse(handle.getValue(row, 0));
+            assertEquals(_long, handle.getLong(row, 0));
+            assertEquals(_long == null ? null : _long.doubleValue(), handle.getDouble(row, 0));
+            assertEquals(DataType.DECIMAL.parse(handle.getValue(row, 1)), handle.getDouble(row, 1));
+            assertEquals(date.parse(handle.getValue(row, 2)), handle.getDate(row, 2));
+            try {
+                assertEquals(DataType.INTEGER.parse(handle.getValue(row, 3)), handle.getLong(row, 3));
+                assertTrue(DataType.INTEGER.isValid(handle.getValue(row, 3)));
+            } catch (IllegalArgumentException e) {
+                assertTrue(!DataType.INTEGER.isValid(handle.getValue(row, 3)));
+            }
+        }
+
+        // Replace
+        assertTrue(handle.replace(0, "12", "-12"));
+        handle.sort(true, 0);
+        assertEquals(Long.valueOf(-12), handle.getLong(0, 0));
+        assertEquals(Long.valueOf(-7), handle.getLong(1, 0));
+    }
+
+    /**
+     * Anonymizes and sorts the given data, which is stored off the heap
+     * 
+     * @param data
+     * @throws IOException
+     */
+    private void testOffHeapStorage(Data data) throws IOException {
+        
+        final String[][] optimalExpected = { { "age", "gender", "zipcode" }, { "<50", "*", "816**" }, { "<50", "*", "816**" }, { ">=50", "*", "819**" }, { ">=50", "*", "819**" }, { "<50", "*", "819**" }, { ">=50", "*", "819**" }, { "<50", "*", "819**" } };
+        final String[][] sortedExpected = { { "age", "gender", "zipcode" }, { "34", "male", "81667" }, { "34", "female", "81931" }, { "45", "female", "81675" }, { "45", "male", "81931" }, { "66", "male", "81925" }, { "70", "female", "81931" }, { "70", "male", "81931" } };
+        
+        final ARXConfiguration config = ARXConfiguration.create();
+        config.addPrivacyModel(new KAnonymity(2));
+        config.setSuppressionLimit(0d);
+        config.setSuppressionAlwaysEnabled(false);
+        
+        final ARXResult result = new ARXAnonymizer().anonymize(data, config);
+        assertTrue(Arrays.deepEquals(iteratorToArray(result.getOutput().iterator()), optimalExpected));
+        
+        final DataHandle handle = data.getHandle();
+        handle.sort(true, 0, 2, 1);
+        assertTrue(Arrays.deepEquals(iteratorToArray(handle.iterator()), sortedExpected));
+    }
 }
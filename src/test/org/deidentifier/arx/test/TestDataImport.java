@@ -17,14 +17,25 @@
 
 package org.deidentifier.arx.test;
 
+import static org.junit.Assert.assertEquals;
+
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
 import org.deidentifier.arx.Data;
+import org.deidentifier.arx.DataHandle;
+import org.deidentifier.arx.io.CSVDataChecksum;
+import org.deidentifier.arx.io.CSVDataOutput;
+import org.deidentifier.arx.io.CSVSyntax;
 import org.junit.Test;
 
 import cern.colt.Arrays;
@@ -52,4 +63,121 @@ public class TestDataImport extends AbstractTest {
             System.out.println(Arrays.toString(result.get(result.size() - 1)));
         }
     }
+    
+    /**
+     * Test parsing and encoding with multiple threads
+     *
+     * @throws IOException
+     */
+    @Test
+    public void testParallel() throws IOException {
+        
+        // Large file
+        for (int threads : new int[] { 2, 3, 8 }) {
+            Data data = Data.create(new File("data/adult.csv"), StandardCharsets.UTF_8, ';');
+            data.setNumberOfThreads(threads);
+            assertHandlesEqual(Data.create(new File("data/adult.csv"), StandardCharsets.UTF_8, ';').getHandle(), data.getHandle());
+        }
+        
+        // Small file with more parts than lines, windows line breaks and no trailing line break
+        File file = File.createTempFile("arx", ".csv");
+        try {
+            Files.write(file.toPath(), "a;b\r\n1;x\r\n2;y\r\n1;z\r\n3;x".getBytes(StandardCharsets.UTF_8));
+            Data data = Data.create(file, StandardCharsets.UTF_8, ';', '\"', '\"', new char[] { '\r', '\n' });
+            data.setNumberOfThreads(16);
+            assertHandlesEqual(Data.create(file, StandardCharsets.UTF_8, ';', '\"', '\"', new char[] { '\r', '\n' }).getHandle(), data.getHandle());
+        } finally {
+            file.delete();
+        }
+        
+        // Quoted values with line breaks, delimiters and escaped quotes
+        file = File.createTempFile("arx", ".csv");
+        try {
+            StringBuilder builder = new StringBuilder("a;b;c\n");
+            for (int i = 0; i < 200; i++) {
+                builder.append(i % 7).append(";\"line\n").append(i % 3).append(";\n\"\"quoted\"\"\n\";").append(i % 5).append("\n");
+            }
+            Files.write(file.toPath(), builder.toString().getBytes(StandardCharsets.UTF_8));
+            DataHandle expected = Data.create(file, StandardCharsets.UTF_8, ';').getHandle();
+            assertEquals(200, expected.getNumRows());
+            assertEquals("line\n0;\n\"quoted\"", expected.getValue(0, 1));
+            for (int threads : new int[] { 2, 3, 8, 64 }) {
+                Data data = Data.create(file, StandardCharsets.UTF_8, ';');
+                data.setNumberOfThreads(threads);
+                assertHandlesEqual(expected, data.getHandle());
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Checksums calculated while saving data must match the checksums of the files
+     * 
+     * @throws IOException
+     * @throws NoSuchAlgorithmException
+     */
+    @Test
+    public void testSaveDataWithChecksum() throws IOException, NoSuchAlgorithmException {
+
+        Data data = Data.create(new File("data/adult.csv"), StandardCharsets.UTF_8, ';');
+        CSVSyntax syntax = new CSVSyntax(';');
+        File file = File.createTempFile("arx", ".csv");
+        try {
+            
+            // Default charset
+            String checksum = new CSVDataOutput(file, syntax).writeWithSHA256Checksum(data.getHandle().iterator());
+            assertEquals(getSHA256Checksum(file), checksum);
+            assertEquals(checksum, new CSVDataChecksum(syntax).getSHA256Checksum(data.getHandle().iterator()));
+            assertEquals(checksum, new CSVDataChecksum(syntax).getSHA256Checksum(data.getHandle().iterator(), 4));
+            
+            // Other charset
+            OutputStream stream = new FileOutputStream(file);
+            try {
+                checksum = new CSVDataOutput(stream,
+                                             syntax.getDelimiter(),
+                                             syntax.getQuote(),
+                                             syntax.getEscape(),
+                                             syntax.getLinebreak(),
+                                             StandardCharsets.UTF_16).writeWithSHA256Checksum(data.getHandle().iterator());
+            } finally {
+                stream.close();
+            }
+            assertEquals(getSHA256Checksum(file), checksum);
+        } finally {
+            file.delete();
+        }
+    }
+    
+    /**
+     * Compares the handles
+     * @param expected
+     * @param actual
+     */
+    private void assertHandlesEqual(DataHandle expected, DataHandle actual) {
+        assertEquals(expected.getNumRows(), actual.getNumRows());
+        assertEquals(expected.getNumColumns(), actual.getNumColumns());
+        for (int column = 0; column < expected.getNumColumns(); column++) {
+            assertEquals(expected.getAttributeName(column), actual.getAttributeName(column));
+            for (int row = 0; row < expected.getNumRows(); row++) {
+                assertEquals(expected.getValue(row, column), actual.getValue(row, column));
+            }
+            assertEquals(java.util.Arrays.asList(expected.getDistinctValues(column)), java.util.Arrays.asList(actual.getDistinctValues(column)));
+        }
+    }
+
+    /**
+     * Returns the hex-encoded SHA-256 checksum of the given file
+     * @param file
+     * @return
+     * @throws IOException
+     * @throws NoSuchAlgorithmException
+     */
+    private String getSHA256Checksum(File file) throws IOException, NoSuchAlgorithmException {
+        StringBuilder builder = new StringBuilder();
+        for (byte b : MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(file.toPath()))) {
+            builder.append(String.format("%02x", b));
+        }
+        return builder.toString();
+    }
 }
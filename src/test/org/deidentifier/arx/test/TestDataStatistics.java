@@ -17,6 +17,7 @@
 
 package org.deidentifier.arx.test;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
@@ -26,6 +27,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
 import org.deidentifier.arx.ARXAnonymizer;
 import org.deidentifier.arx.ARXConfiguration;
 import org.deidentifier.arx.ARXResult;
@@ -34,6 +36,7 @@ import org.deidentifier.arx.DataType;
 import org.deidentifier.arx.aggregates.StatisticsContingencyTable;
 import org.deidentifier.arx.aggregates.StatisticsContingencyTable.Entry;
 import org.deidentifier.arx.aggregates.StatisticsFrequencyDistribution;
+import org.deidentifier.arx.aggregates.StatisticsSummary;
 import org.deidentifier.arx.criteria.DPresence;
 import org.deidentifier.arx.criteria.KAnonymity;
 import org.junit.Test;
@@ -296,6 +299,41 @@ public class TestDataStatistics extends AbstractTest {
         assertTrue(Arrays.equals(frequency, distribution.frequency));
     }
     
+    /**
+     * Performs a test.
+     *
+     * @throws IllegalArgumentException
+     * @throws IOException
+     */
+    @Test
+    public void testSummary1() throws IllegalArgumentException, IOException {
+        
+        this.provider.createDataDefinition();
+        this.provider.getData().getDefinition().setDataType("age", DataType.INTEGER);
+        
+        // Reference
+        DescriptiveStatistics reference = new DescriptiveStatistics(new double[] { 34, 45, 66, 70, 34, 70, 45 });
+        
+        // Check input
+        StatisticsSummary<?> summary = this.provider.getData().getHandle().getStatistics().getSummaryStatistics(false).get("age");
+        assertEquals(7, summary.getNumberOfMeasuresAsString());
+        assertEquals(4, summary.getNumberOfDistinctValuesAsInt());
+        assertEquals("34", summary.getModeAsString());
+        assertEquals("45", summary.getMedianAsString());
+        assertEquals("34", summary.getMinAsString());
+        assertEquals("70", summary.getMaxAsString());
+        assertEquals(reference.getMean(), summary.getArithmeticMeanAsDouble(), 0d);
+        assertEquals(reference.getVariance(), summary.getSampleVarianceAsDouble(), 0d);
+        assertEquals(reference.getPopulationVariance(), summary.getPopulationVarianceAsDouble(), 0d);
+        assertEquals(reference.getGeometricMean(), summary.getGeometricMeanAsDouble(), 0d);
+        
+        // Check nominal attribute
+        summary = this.provider.getData().getHandle().getStatistics().getSummaryStatistics(false).get("gender");
+        assertEquals(7, summary.getNumberOfMeasuresAsString());
+        assertEquals(2, summary.getNumberOfDistinctValuesAsInt());
+        assertEquals("male", summary.getModeAsString());
+    }
+    
     /**
      * Checks the two arrays regarding equality, treating a double[][]
      * as a set of comparable double[]'s
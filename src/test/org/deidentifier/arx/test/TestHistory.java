@@ -0,0 +1,179 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2020 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.deidentifier.arx.ARXAnonymizer;
+import org.deidentifier.arx.ARXCheckStatistics;
+import org.deidentifier.arx.ARXCheckStatistics.Counter;
+import org.deidentifier.arx.ARXConfiguration;
+import org.deidentifier.arx.ARXResult;
+import org.deidentifier.arx.AttributeType;
+import org.deidentifier.arx.AttributeType.Hierarchy;
+import org.deidentifier.arx.Data;
+import org.deidentifier.arx.criteria.DistinctLDiversity;
+import org.deidentifier.arx.criteria.KAnonymity;
+import org.deidentifier.arx.framework.check.history.MRUCacheEntryMetadata;
+import org.deidentifier.arx.framework.check.history.SnapshotCodec;
+import org.deidentifier.arx.framework.check.history.SnapshotIndex;
+import org.deidentifier.arx.framework.lattice.SolutionSpace;
+import org.deidentifier.arx.metric.Metric;
+import org.junit.Test;
+
+/**
+ * Test for the memory-budgeted history of snapshots.
+ *
+ * @author Fabian Prasser
+ */
+public class TestHistory extends AbstractTest {
+
+    /**
+     * Anonymizes the dataset with the given limits
+     * @param memoryLimit
+     * @param spillLimit
+     * @return
+     * @throws IOException
+     */
+    private static ARXResult anonymize(long memoryLimit, long spillLimit) throws IOException {
+
+        // Data
+        Data data = Data.create("./data/adult.csv", StandardCharsets.UTF_8, ';');
+        for (String attribute : new String[] { "age", "education", "marital-status", "native-country", "race", "salary-class", "sex", "workclass" }) {
+            data.getDefinition().setAttributeType(attribute, Hierarchy.create("./data/adult_hierarchy_" + attribute + ".csv", StandardCharsets.UTF_8, ';'));
+        }
+        data.getDefinition().setAttributeType("occupation", AttributeType.SENSITIVE_ATTRIBUTE);
+
+        // Configuration
+        ARXConfiguration config = ARXConfiguration.create(0.04d, Metric.createPrecomputedEntropyMetric(0.1d, true));
+        config.addPrivacyModel(new KAnonymity(5));
+        config.addPrivacyModel(new DistinctLDiversity("occupation", 3));
+        config.setInstrumentationEnabled(true);
+
+        // Anonymize
+        ARXAnonymizer anonymizer = new ARXAnonymizer();
+        anonymizer.setHistoryMemoryLimit(memoryLimit);
+        anonymizer.setHistorySpill(null, spillLimit);
+        return anonymizer.anonymize(data, config);
+    }
+
+    /**
+     * Returns a random transformation
+     * @param random
+     * @param maxLevels
+     * @return
+     */
+    private static int[] getTransformation(Random random, int[] maxLevels) {
+        int[] result = new int[maxLevels.length];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = random.nextInt(maxLevels[i] + 1);
+        }
+        return result;
+    }
+
+    /**
+     * Test encoding and decoding of snapshots
+     */
+    @Test
+    public void testCodec() {
+        Random random = new Random(0xDEADBEEF);
+        for (int snapshotLength : new int[] { 2, 3, 5 }) {
+            int[] snapshot = new int[100 * snapshotLength];
+            for (int i = 0; i < snapshot.length; i++) {
+                snapshot[i] = i % snapshotLength == 0 ? random.nextInt(Integer.MAX_VALUE) : random.nextInt(1 << random.nextInt(31));
+            }
+            byte[] encoded = SnapshotCodec.encode(snapshot, snapshotLength);
+            assertArrayEquals(snapshot, SnapshotCodec.decode(encoded, 100, snapshotLength));
+            
+            // Decode into a larger buffer
+            int[] buffer = SnapshotCodec.decode(encoded, 100, snapshotLength, new int[snapshot.length + snapshotLength]);
+            assertArrayEquals(snapshot, Arrays.copyOf(buffer, snapshot.length));
+        }
+    }
+
+    /**
+     * Test the index by comparing it to a linear search
+     */
+    @Test
+    public void testIndex() {
+
+        Random random = new Random(0xDEADBEEF);
+        int[] maxLevels = new int[] { 3, 1, 4, 2 };
+        SolutionSpace<?> solutionSpace = SolutionSpace.create(new int[maxLevels.length], maxLevels);
+
+        SnapshotIndex index = new SnapshotIndex();
+        List<MRUCacheEntryMetadata> entries = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+
+            // Modify
+            if (!entries.isEmpty() && random.nextInt(3) == 0) {
+                index.remove(entries.remove(random.nextInt(entries.size())));
+            } else {
+                int[] transformation = getTransformation(random, maxLevels);
+                MRUCacheEntryMetadata entry = new MRUCacheEntryMetadata(solutionSpace.getTransformation(transformation), random.nextInt(10), new byte[1]);
+                index.add(entry);
+                entries.add(entry);
+            }
+
+            // Query
+            int[] transformation = getTransformation(random, maxLevels);
+            int level = solutionSpace.getLevel(transformation);
+            MRUCacheEntryMetadata expected = null;
+            for (MRUCacheEntryMetadata entry : entries) {
+                if (entry.level < level && solutionSpace.isParentChildOrEqual(transformation, entry.transformation) &&
+                    (expected == null || entry.classes < expected.classes)) {
+                    expected = entry;
+                }
+            }
+            assertTrue(expected == index.get(transformation, level));
+        }
+    }
+
+    /**
+     * The limits must not change the result
+     * @throws IOException
+     */
+    @Test
+    public void testMemoryLimit() throws IOException {
+
+        ARXResult reference = anonymize(Long.MAX_VALUE, 0L);
+        ARXResult limited = anonymize(64 * 1024, 0L);
+        ARXResult spilled = anonymize(64 * 1024, 64 * 1024);
+
+        // Compare
+        assertArrayEquals(reference.getGlobalOptimum().getTransformation(), limited.getGlobalOptimum().getTransformation());
+        assertArrayEquals(reference.getGlobalOptimum().getTransformation(), spilled.getGlobalOptimum().getTransformation());
+
+        // Check statistics
+        ARXCheckStatistics statistics = limited.getProcessStatistics().getCheckStatistics();
+        assertTrue(statistics.getCounter(Counter.SNAPSHOTS_EVICTED) > 0);
+        assertEquals(0, statistics.getCounter(Counter.SNAPSHOTS_SPILLED));
+        statistics = spilled.getProcessStatistics().getCheckStatistics();
+        assertTrue(statistics.getCounter(Counter.SNAPSHOTS_SPILLED) > 0);
+        assertTrue(statistics.getCounter(Counter.SNAPSHOT_SPILL_HITS) > 0);
+    }
+}
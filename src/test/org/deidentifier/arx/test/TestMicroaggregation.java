@@ -189,4 +189,39 @@ public class TestMicroaggregation extends AbstractTest {
                                            
         assertTrue(Arrays.deepEquals(resultArray, expectedArray));
     }
+    
+    /**
+     * Test microaggregation median
+     * @throws IOException
+     */
+    @Test
+    public void testMicroaggregationMedian() throws IOException {
+        DataProvider provider = new DataProvider();
+        provider.createDataDefinition();
+        provider.data.getDefinition().setAttributeType("age", MicroAggregationFunction.createMedian());
+        provider.data.getDefinition().setAttributeType("gender", provider.getGender());
+        provider.data.getDefinition().setAttributeType("zipcode", provider.getZipcode());
+        
+        provider.data.getDefinition().setDataType("age", DataType.INTEGER);
+        
+        final ARXAnonymizer anonymizer = new ARXAnonymizer();
+        final ARXConfiguration config = ARXConfiguration.create();
+        config.addPrivacyModel(new KAnonymity(2));
+        config.setSuppressionLimit(0d);
+        
+        ARXResult result = anonymizer.anonymize(provider.data, config);
+        
+        final String[][] resultArray = resultToArray(result);
+        
+        final String[][] expectedArray = { { "age", "gender", "zipcode" },
+                                           { "56", "male", "81***" },
+                                           { "45", "female", "81***" },
+                                           { "56", "male", "81***" },
+                                           { "45", "female", "81***" },
+                                           { "45", "female", "81***" },
+                                           { "56", "male", "81***" },
+                                           { "56", "male", "81***" } };
+                                           
+        assertTrue(Arrays.deepEquals(resultArray, expectedArray));
+    }
 }
@@ -0,0 +1,155 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2020 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.deidentifier.arx.ARXAnonymizer;
+import org.deidentifier.arx.ARXConfiguration;
+import org.deidentifier.arx.ARXPopulationModel;
+import org.deidentifier.arx.ARXPopulationModel.Region;
+import org.deidentifier.arx.ARXResult;
+import org.deidentifier.arx.AttributeType;
+import org.deidentifier.arx.AttributeType.Hierarchy;
+import org.deidentifier.arx.AttributeType.Hierarchy.DefaultHierarchy;
+import org.deidentifier.arx.Data;
+import org.deidentifier.arx.DataHandle;
+import org.deidentifier.arx.criteria.KAnonymity;
+import org.deidentifier.arx.risk.HIPAAIdentifierMatch;
+import org.deidentifier.arx.risk.HIPAAIdentifierMatch.HIPAAIdentifier;
+import org.deidentifier.arx.risk.HIPAAIdentifierMatch.MatchType;
+import org.junit.Test;
+
+/**
+ * Test for finding HIPAA identifiers.
+ *
+ * @author Fabian Prasser
+ */
+public class TestRiskHIPAAIdentifiers {
+
+    /**
+     * Test matching of attribute names and values
+     */
+    @Test
+    public void testWithDefinedDataSet() {
+
+        HIPAAIdentifierMatch[] matches = getMatches(getData().getHandle());
+        
+        check(matches, "name", HIPAAIdentifier.NAME, "First name", MatchType.ATTRIBUTE_VALUE);
+        check(matches, "email", HIPAAIdentifier.EMAIL_ADDRESS, "Email address", MatchType.ATTRIBUTE_VALUE);
+        check(matches, "birthdate", HIPAAIdentifier.DATE, "Date/Time", MatchType.ATTRIBUTE_VALUE);
+        check(matches, "ssn", HIPAAIdentifier.SOCIAL_SECURITY_NUMBER, "Social security number", MatchType.ATTRIBUTE_VALUE);
+        check(matches, "zip", HIPAAIdentifier.GEOGRAPHIC_SUBDIVISION, "ZIP Code", MatchType.ATTRIBUTE_NAME);
+        for (HIPAAIdentifierMatch match : matches) {
+            assertTrue("Unexpected match: " + match, !match.getColumn().equals("value"));
+        }
+    }
+
+    /**
+     * Results must not depend on the number of threads
+     * 
+     * @throws IOException
+     */
+    @Test
+    public void testParallel() throws IOException {
+
+        HIPAAIdentifierMatch[] expected = getMatches(anonymize(1));
+        HIPAAIdentifierMatch[] actual = getMatches(anonymize(4));
+        
+        assertEquals(expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i].toString(), actual[i].toString());
+        }
+    }
+
+    /**
+     * Anonymizes the data set with the given number of threads
+     * 
+     * @param threads
+     * @return
+     * @throws IOException
+     */
+    private DataHandle anonymize(int threads) throws IOException {
+        Data data = getData();
+        DefaultHierarchy hierarchy = Hierarchy.create();
+        for (int i = 0; i < 10; i++) {
+            hierarchy.add(String.valueOf((char) ('a' + i)), "*");
+        }
+        data.getDefinition().setAttributeType("value", hierarchy);
+        ARXConfiguration config = ARXConfiguration.create();
+        config.addPrivacyModel(new KAnonymity(2));
+        config.setNumberOfThreads(threads);
+        ARXResult result = new ARXAnonymizer().anonymize(data, config);
+        return result.getOutput();
+    }
+
+    /**
+     * Checks whether the given match is contained
+     * 
+     * @param matches
+     * @param column
+     * @param identifier
+     * @param instance
+     * @param type
+     */
+    private void check(HIPAAIdentifierMatch[] matches, String column, HIPAAIdentifier identifier, String instance, MatchType type) {
+        for (HIPAAIdentifierMatch match : matches) {
+            if (match.getColumn().equals(column) && match.getIdentifier() == identifier &&
+                match.getInstance().equals(instance) && match.getMatchType() == type) {
+                return;
+            }
+        }
+        assertTrue("Match expected: " + column + " " + identifier + " " + instance + " " + type, false);
+    }
+
+    /**
+     * Returns the data set
+     * 
+     * @return
+     */
+    private Data getData() {
+        String[] names = { "john", "mary", "james", "linda", "robert" };
+        Data.DefaultData data = Data.create();
+        data.add("name", "email", "birthdate", "ssn", "zip", "value");
+        for (int i = 0; i < 100; i++) {
+            data.add(names[i % names.length],
+                     "user" + i + "@example.com",
+                     String.format("%02d.%02d.19%02d", i % 28 + 1, i % 12 + 1, 40 + i % 60),
+                     String.format("%03d-%02d-%04d", 100 + i, 10 + i % 90, 1000 + i),
+                     "X" + i,
+                     String.valueOf((char) ('a' + i % 10)));
+        }
+        for (String attribute : new String[] { "name", "email", "birthdate", "ssn", "zip" }) {
+            data.getDefinition().setAttributeType(attribute, AttributeType.INSENSITIVE_ATTRIBUTE);
+        }
+        return data;
+    }
+
+    /**
+     * Returns the HIPAA identifiers found in the given handle
+     * 
+     * @param handle
+     * @return
+     */
+    private HIPAAIdentifierMatch[] getMatches(DataHandle handle) {
+        return handle.getRiskEstimator(ARXPopulationModel.create(Region.USA)).getHIPAAIdentifiers();
+    }
+}
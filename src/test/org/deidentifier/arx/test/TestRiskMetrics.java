@@ -17,6 +17,7 @@
 
 package org.deidentifier.arx.test;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -24,6 +25,9 @@ import java.io.File;
 import java.io.FilenameFilter;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -31,6 +35,7 @@ import org.deidentifier.arx.ARXAnonymizer;
 import org.deidentifier.arx.ARXConfiguration;
 import org.deidentifier.arx.ARXPopulationModel;
 import org.deidentifier.arx.ARXResult;
+import org.deidentifier.arx.ARXSolverConfiguration;
 import org.deidentifier.arx.AttributeType.Hierarchy;
 import org.deidentifier.arx.Data;
 import org.deidentifier.arx.DataHandle;
@@ -38,10 +43,14 @@ import org.deidentifier.arx.criteria.KAnonymity;
 import org.deidentifier.arx.io.CSVHierarchyInput;
 import org.deidentifier.arx.metric.Metric;
 import org.deidentifier.arx.metric.Metric.AggregateFunction;
+import org.deidentifier.arx.risk.PopulationUniquenessCache;
+import org.deidentifier.arx.risk.RiskModelHistogram;
 import org.deidentifier.arx.risk.RiskModelPopulationUniqueness;
 import org.deidentifier.arx.risk.RiskModelPopulationUniqueness.PopulationUniquenessModel;
 import org.junit.Test;
 
+import com.carrotsearch.hppc.IntIntOpenHashMap;
+
 /**
  * Test for risk metrics.
  *
@@ -200,6 +209,88 @@ public class TestRiskMetrics {
         assertTrue(populationUniqueness + "/" + sampleUniqueness, compareUniqueness(populationUniqueness, sampleUniqueness) == 0);
     }
     
+    /**
+     * Test the cache of estimates of population uniqueness with a deterministic configuration.
+     */
+    @Test
+    public void testPopulationUniquenessCache() {
+        for (double samplingFraction : new double[] { 0.01d, 0.1d, 0.2d }) {
+            
+            ARXPopulationModel population = ARXPopulationModel.create(10000, samplingFraction);
+            ARXSolverConfiguration config = ARXSolverConfiguration.create().setDeterministic(true);
+            PopulationUniquenessCache cache = new PopulationUniquenessCache(PopulationUniquenessModel.DANKAR, population, config, 5);
+            
+            for (int iteration = 0; iteration < 2; iteration++) {
+                for (int uniques = 10; uniques < 100; uniques += 10) {
+                    
+                    // Histogram
+                    IntIntOpenHashMap distribution = new IntIntOpenHashMap();
+                    distribution.put(1, uniques);
+                    distribution.put(2, 50);
+                    distribution.put(3, 20);
+                    distribution.put(10, 5);
+                    
+                    // Compare
+                    double expected = new RiskModelPopulationUniqueness(population, new RiskModelHistogram(distribution), config).getFractionOfUniqueTuplesDankar(false);
+                    double actual = cache.getFractionOfUniqueTuples(new RiskModelHistogram(distribution));
+                    assertEquals(expected, actual, 0d);
+                }
+            }
+            assertEquals(5, cache.size());
+        }
+    }
+    
+    /**
+     * Test that estimates obtained with start values from the cache match the estimates
+     * obtained by solving from scratch. Histograms are derived from the adult dataset
+     * by merging uniques into classes of size two, so that the number of classes changes
+     * only slightly and stored solutions of the Pitman model are used as start values.
+     *
+     * @throws IOException
+     */
+    @Test
+    public void testPopulationUniquenessCacheWarmStart() throws IOException {
+        
+        DataHandle handle = Data.create("./data/adult.csv", StandardCharsets.UTF_8, ';').getHandle();
+        String[] attributes = { "age", "sex", "race", "marital-status", "education", "native-country", "workclass", "salary-class" };
+        ARXSolverConfiguration deterministic = ARXSolverConfiguration.create().setDeterministic(true);
+        ARXSolverConfiguration nondeterministic = ARXSolverConfiguration.create().setDeterministic(false);
+        
+        for (PopulationUniquenessModel model : new PopulationUniquenessModel[] { PopulationUniquenessModel.PITMAN,
+                                                                                 PopulationUniquenessModel.DANKAR }) {
+            for (double samplingFraction : new double[] { 0.01d, 0.1d, 0.2d }) {
+                
+                ARXPopulationModel population = ARXPopulationModel.create(handle.getNumRows(), samplingFraction);
+                PopulationUniquenessCache cache = new PopulationUniquenessCache(model, population, nondeterministic, 5);
+                
+                for (int qis = 5; qis <= attributes.length; qis++) {
+                    
+                    Set<String> identifiers = new HashSet<String>(Arrays.asList(attributes).subList(0, qis));
+                    int[] histogram = handle.getRiskEstimator(population, identifiers).getEquivalenceClassModel().getHistogram();
+                    
+                    for (int step = 0; step < 5; step++) {
+                        
+                        // Histogram
+                        IntIntOpenHashMap distribution = new IntIntOpenHashMap();
+                        for (int i = 0; i < histogram.length; i += 2) {
+                            distribution.put(histogram[i], histogram[i + 1]);
+                        }
+                        int merged = step * 50;
+                        distribution.put(1, distribution.get(1) - 2 * merged);
+                        distribution.put(2, distribution.get(2) + merged);
+                        
+                        // Compare
+                        RiskModelPopulationUniqueness uniqueness = new RiskModelPopulationUniqueness(population, new RiskModelHistogram(distribution), deterministic);
+                        double expected = model == PopulationUniquenessModel.DANKAR ? uniqueness.getFractionOfUniqueTuplesDankar(false) :
+                                                                                      uniqueness.getFractionOfUniqueTuples(model);
+                        double actual = cache.getFractionOfUniqueTuples(new RiskModelHistogram(distribution));
+                        assertEquals(model + "/" + samplingFraction + "/" + qis + "/" + step + ": " + expected + "/" + actual, 0, compareUniqueness(expected, actual));
+                    }
+                }
+            }
+        }
+    }
+    
     /**
      * Compares two uniqueness measures with four significant digits
      * @param val1
@@ -23,6 +23,7 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Random;
 import java.util.regex.Matcher;
@@ -35,6 +36,7 @@ import org.deidentifier.arx.AttributeType;
 import org.deidentifier.arx.AttributeType.Hierarchy;
 import org.deidentifier.arx.AttributeType.MicroAggregationFunction;
 import org.deidentifier.arx.Data;
+import org.deidentifier.arx.DataHandle;
 import org.deidentifier.arx.DataSelector;
 import org.deidentifier.arx.DataSubset;
 import org.deidentifier.arx.DataType;
@@ -94,6 +96,73 @@ public class TestSorting extends AbstractTest {
         return data;
     }
     
+    /**
+     * Compares sorting to a stable sort of the values of the records
+     * @throws IOException
+     */
+    @Test
+    public void testSortingOrder() throws IOException {
+
+        // Load the dataset
+        Data data = createData("adult");
+        data.getDefinition().setAttributeType("marital-status", AttributeType.SENSITIVE_ATTRIBUTE);
+        data.getDefinition().setDataType("age", DataType.INTEGER);
+        final DataHandle handle = data.getHandle();
+        RowSet rows = DataSubset.create(data, DataSelector.create(data).field("sex").equals("Male")).getSet();
+        final int[][] orders = new int[][] { { 0 }, { 1, 0 }, { 8, 2, 0 } };
+
+        for (int i = 0; i < orders.length * 2; i++) {
+
+            final int[] columns = orders[i / 2];
+            final boolean ascending = i % 2 == 0;
+
+            // Expected order
+            List<String[]> expected = new ArrayList<>();
+            for (int row = 0; row < handle.getNumRows(); row++) {
+                String[] record = new String[handle.getNumColumns() + 1];
+                for (int column = 0; column < handle.getNumColumns(); column++) {
+                    record[column] = handle.getValue(row, column);
+                }
+                record[handle.getNumColumns()] = String.valueOf(rows.contains(row));
+                expected.add(record);
+            }
+            Collections.sort(expected, new Comparator<String[]>() {
+                @Override
+                public int compare(String[] record1, String[] record2) {
+                    try {
+                        for (int column : columns) {
+                            int cmp = handle.getDataType(handle.getAttributeName(column)).compare(record1[column], record2[column]);
+                            if (cmp != 0) {
+                                return ascending ? cmp : -cmp;
+                            }
+                        }
+                        return 0;
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            });
+
+            // Sort
+            final RowSet _rows = rows;
+            handle.sort(new Swapper() {
+                @Override
+                public void swap(int arg0, int arg1) {
+                    _rows.swap(arg0, arg1);
+                }
+            }, ascending, columns);
+
+            // Compare
+            for (int row = 0; row < handle.getNumRows(); row++) {
+                String[] record = expected.get(row);
+                for (int column = 0; column < handle.getNumColumns(); column++) {
+                    Assert.assertEquals(record[column], handle.getValue(row, column));
+                }
+                Assert.assertEquals(record[handle.getNumColumns()], String.valueOf(rows.contains(row)));
+            }
+        }
+    }
+
     /**
      * Entry point.
      *